@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A generated corpus of type-annotated JavaScript that the benchmarks
+ * compile.
+ *
+ * <p>The corpus depends only on its size parameters; it is produced from a
+ * fixed random seed, so every run of every benchmark sees the same code.
+ * Each file defines a few classes, some extending classes from earlier
+ * files, with methods containing the loops, conditionals, string
+ * concatenation and object literals typical of application code. The classes
+ * are exported so that ADVANCED_OPTIMIZATIONS does not remove them.
+ *
+ */
+final class BenchmarkCorpus {
+
+  /** The number of generated files. */
+  static final int FILE_COUNT = 20;
+
+  /** The number of classes defined in each generated file. */
+  static final int CLASSES_PER_FILE = 10;
+
+  private static final long SEED = 0x5eed;
+
+  private BenchmarkCorpus() {}
+
+  /** Returns the default externs. */
+  static List<SourceFile> externs() {
+    try {
+      return CommandLineRunner.getDefaultExterns();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Returns the corpus, one source file per generated file. */
+  static List<SourceFile> inputs() {
+    Random random = new Random(SEED);
+    ImmutableList.Builder<SourceFile> inputs = ImmutableList.builder();
+    inputs.add(SourceFile.fromCode("base.js", BASE));
+    for (int file = 0; file < FILE_COUNT; file++) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < CLASSES_PER_FILE; i++) {
+        appendClass(sb, random, file, i);
+      }
+      inputs.add(SourceFile.fromCode("file" + file + ".js", sb.toString()));
+    }
+    return inputs.build();
+  }
+
+  /** Returns the source of the whole corpus as a single string. */
+  static String source() {
+    StringBuilder sb = new StringBuilder();
+    for (SourceFile input : inputs()) {
+      try {
+        sb.append(input.getCode()).append('\n');
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a compiler that has parsed the corpus with the given options.
+   * The compiler does not print its diagnostics.
+   */
+  static Compiler parse(CompilerOptions options) {
+    Compiler compiler = newCompiler();
+    compiler.init(externs(), inputs(), options);
+    compiler.parse();
+    if (compiler.hasErrors()) {
+      throw new IllegalStateException(
+          "The benchmark corpus has errors: " + compiler.getErrors()[0]);
+    }
+    return compiler;
+  }
+
+  /** Returns a compiler that does not print its diagnostics. */
+  static Compiler newCompiler() {
+    Compiler compiler = new Compiler();
+    compiler.setErrorManager(new BasicErrorManager() {
+      @Override
+      public void println(CheckLevel level, JSError error) {}
+
+      @Override
+      protected void printSummary() {}
+    });
+    return compiler;
+  }
+
+  private static final String BASE = ""
+      + "/**\n"
+      + " * @param {!Function} child\n"
+      + " * @param {!Function} parent\n"
+      + " */\n"
+      + "function $inherits(child, parent) {\n"
+      + "  /** @constructor */\n"
+      + "  function Temp() {}\n"
+      + "  Temp.prototype = parent.prototype;\n"
+      + "  child.prototype = new Temp();\n"
+      + "  child.prototype.constructor = child;\n"
+      + "}\n"
+      + "\n"
+      + "/**\n"
+      + " * @param {string} name\n"
+      + " * @param {*} value\n"
+      + " */\n"
+      + "function $export(name, value) {\n"
+      + "  window[name] = value;\n"
+      + "}\n";
+
+  private static String className(int file, int i) {
+    return "Class" + file + "_" + i;
+  }
+
+  private static void appendClass(
+      StringBuilder sb, Random random, int file, int i) {
+    String name = className(file, i);
+    String superName = null;
+    if (file > 0 && random.nextInt(3) == 0) {
+      superName =
+          className(random.nextInt(file), random.nextInt(CLASSES_PER_FILE));
+    }
+
+    sb.append("/**\n")
+        .append(" * @constructor\n");
+    if (superName != null) {
+      sb.append(" * @extends {").append(superName).append("}\n");
+    }
+    sb.append(" * @param {number} size\n")
+        .append(" * @param {string} label\n")
+        .append(" */\n")
+        .append("function ").append(name).append("(size, label) {\n");
+    if (superName != null) {
+      sb.append("  ").append(superName).append(".call(this, size, label);\n");
+    }
+    sb.append("  /** @private {number} */\n")
+        .append("  this.size_ = size;\n")
+        .append("  /** @private {string} */\n")
+        .append("  this.label_ = label;\n")
+        .append("  /** @private {!Array<number>} */\n")
+        .append("  this.values_ = [];\n")
+        .append("  /** @private {!Object<string, number>} */\n")
+        .append("  this.counts_ = {};\n")
+        .append("}\n");
+    if (superName != null) {
+      sb.append("$inherits(").append(name).append(", ")
+          .append(superName).append(");\n");
+    }
+    sb.append('\n');
+
+    int methodCount = 2 + random.nextInt(4);
+    for (int m = 0; m < methodCount; m++) {
+      appendMethod(sb, random, name, m);
+    }
+
+    sb.append("/**\n")
+        .append(" * @return {string}\n")
+        .append(" */\n")
+        .append(name).append(".prototype.describe = function() {\n")
+        .append("  var parts = [];\n")
+        .append("  for (var key in this.counts_) {\n")
+        .append("    parts.push(key + '=' + this.counts_[key]);\n")
+        .append("  }\n")
+        .append("  return this.label_ + '(' + parts.join(', ') + ')';\n")
+        .append("};\n\n");
+
+    sb.append("/**\n")
+        .append(" * @param {number} n\n")
+        .append(" * @return {!").append(name).append("}\n")
+        .append(" */\n")
+        .append("function create").append(name).append("(n) {\n")
+        .append("  var result = new ").append(name)
+        .append("(n, 'item' + n);\n");
+    for (int m = 0; m < methodCount; m++) {
+      sb.append("  result.method").append(m).append("(n + ").append(m)
+          .append(", {min: 0, max: n});\n");
+    }
+    sb.append("  return result;\n")
+        .append("}\n")
+        .append("$export('create").append(name).append("', create")
+        .append(name).append(");\n\n");
+  }
+
+  private static void appendMethod(
+      StringBuilder sb, Random random, String name, int m) {
+    int a = 1 + random.nextInt(9);
+    int b = 1 + random.nextInt(9);
+    sb.append("/**\n")
+        .append(" * @param {number} count\n")
+        .append(" * @param {{min: number, max: number}} range\n")
+        .append(" * @return {number}\n")
+        .append(" */\n")
+        .append(name).append(".prototype.method").append(m)
+        .append(" = function(count, range) {\n")
+        .append("  var total = 0;\n")
+        .append("  for (var i = 0; i < count; i++) {\n")
+        .append("    var value = i * ").append(a).append(" + this.size_;\n")
+        .append("    if (value > range.max) {\n")
+        .append("      value = range.max;\n")
+        .append("    } else if (value < range.min) {\n")
+        .append("      value = range.min;\n")
+        .append("    }\n")
+        .append("    if (i % ").append(b).append(" == 0) {\n")
+        .append("      this.values_.push(value);\n")
+        .append("    }\n")
+        .append("    total += value;\n")
+        .append("  }\n")
+        .append("  var key = 'method").append(m).append(":' + count;\n")
+        .append("  this.counts_[key] = (this.counts_[key] || 0) + 1;\n")
+        .append("  return total;\n")
+        .append("};\n\n");
+  }
+}
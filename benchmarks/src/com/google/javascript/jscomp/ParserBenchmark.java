@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.Config.LanguageMode;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.ParserRunner.ParseResult;
+import com.google.javascript.rhino.ErrorReporter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ParserRunner#parse} on the whole {@link BenchmarkCorpus}
+ * as a single file.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Xss8m"})
+public class ParserBenchmark {
+
+  private static final ErrorReporter FAILING_REPORTER = new ErrorReporter() {
+    @Override
+    public void warning(
+        String message, String sourceName, int line, int lineOffset) {}
+
+    @Override
+    public void error(
+        String message, String sourceName, int line, int lineOffset) {
+      throw new IllegalStateException(
+          sourceName + ":" + line + ": " + message);
+    }
+  };
+
+  private SourceFile sourceFile;
+  private String source;
+  private Config config;
+
+  @Setup
+  public void setUp() {
+    source = BenchmarkCorpus.source();
+    sourceFile = SourceFile.fromCode("corpus.js", source);
+    config = ParserRunner.createConfig(
+        false, LanguageMode.ECMASCRIPT5, false, null);
+  }
+
+  @Benchmark
+  public ParseResult parse() {
+    return ParserRunner.parse(sourceFile, source, config, FAILING_REPORTER);
+  }
+}
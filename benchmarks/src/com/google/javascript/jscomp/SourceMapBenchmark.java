@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.debugging.sourcemap.SourceMapGeneratorV3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link SourceMapGeneratorV3#appendTo}, which encodes and writes
+ * out the mappings, for the compact output of the {@link BenchmarkCorpus}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Xss8m"})
+public class SourceMapBenchmark {
+
+  private SourceMap sourceMap;
+  private int length;
+
+  @Setup
+  public void setUp() throws IOException {
+    sourceMap = SourceMap.Format.V3.getInstance();
+    new CodePrinter.Builder(
+        BenchmarkCorpus.parse(new CompilerOptions()).getJsRoot())
+        .setSourceMap(sourceMap)
+        .build();
+    length = appendTo().length();
+  }
+
+  @Benchmark
+  public StringBuilder appendTo() throws IOException {
+    StringBuilder out = new StringBuilder(length);
+    sourceMap.appendTo(out, "corpus.js");
+    return out;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks type checking of the {@link BenchmarkCorpus}, with
+ * {@link TypeCheck} or with {@link NewTypeInference}.
+ *
+ * <p>Each invocation runs the check passes, which are dominated by type
+ * checking since no other optional checks are enabled, on a freshly parsed
+ * corpus.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Xss8m"})
+public class TypeCheckBenchmark {
+
+  @Param({"false", "true"})
+  public boolean newTypeInference;
+
+  private Compiler compiler;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    CompilerOptions options = new CompilerOptions();
+    if (newTypeInference) {
+      options.setNewTypeInference(true);
+    } else {
+      options.setCheckTypes(true);
+    }
+    compiler = BenchmarkCorpus.parse(options);
+  }
+
+  @Benchmark
+  public Compiler check() {
+    compiler.check();
+    return compiler;
+  }
+}
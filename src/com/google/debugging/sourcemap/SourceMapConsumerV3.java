@@ -17,29 +17,37 @@
 package com.google.debugging.sourcemap;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.debugging.sourcemap.Base64VLQ.CharIterator;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping.Builder;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Class for parsing version 3 of the SourceMap format, as produced by the
  * Closure Compiler, etc.
  * http://code.google.com/p/closure-compiler/wiki/SourceMaps
+ *
+ * <p>The mappings of each line are stored as parallel arrays of ints. When
+ * {@link #setDecodeLinesLazily} is set, a line is only decoded the first time
+ * it is looked up.
+ *
  * @author johnlenz@google.com (John Lenz)
  */
 public class SourceMapConsumerV3 implements SourceMapConsumer,
@@ -49,8 +57,15 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
   private String[] sources;
   private String[] names;
   private int lineCount;
-  // Slots in the lines list will be null if the line does not have any entries.
-  private ArrayList<ArrayList<Entry>> lines = null;
+  // The mappings of each line of the generated file. When decoding lazily,
+  // a slot is null until the line is first looked up.
+  private LineMappings[] lines = null;
+  private boolean decodeLinesLazily = false;
+  // When decoding lazily, the encoded mappings, the offset of each line in
+  // them, and the decoder state at the start of each line.
+  private String lineMap;
+  private int[] lineOffsets;
+  private int[] lineStates;
   /** originalFile path ==> original line ==> target mappings */
   private Map<String, Map<Integer, Collection<OriginalMapping>>>
       reverseSourceMapping;
@@ -69,6 +84,16 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
     }
   }
 
+  /**
+   * Sets whether the mappings of a line of the generated file are decoded
+   * the first time the line is looked up, rather than when the source map is
+   * parsed. This keeps the encoded mappings in memory, but does not decode
+   * the lines that are never looked up. Must be called before parsing.
+   */
+  public void setDecodeLinesLazily(boolean decodeLinesLazily) {
+    this.decodeLinesLazily = decodeLinesLazily;
+  }
+
   /**
    * Parses the given contents containing a source map.
    */
@@ -82,12 +107,68 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
    */
   public void parse(String contents, SourceMapSupplier sectionSupplier)
       throws SourceMapParseException {
+    parse(new StringReader(contents), sectionSupplier);
+  }
+
+  /**
+   * Parses a source map from the given reader. The JSON is read as a stream,
+   * without building a tree of the whole source map.
+   */
+  public void parse(Reader contents, SourceMapSupplier sectionSupplier)
+      throws SourceMapParseException {
+    reset();
+    int version = -1;
+    String file = null;
+    String lineMap = null;
+    JsonArray sections = null;
+    boolean hasLineCount = false;
     try {
-      JsonObject sourceMapRoot = new Gson().fromJson(contents, JsonObject.class);
-      parse(sourceMapRoot, sectionSupplier);
-    } catch (JsonParseException ex) {
+      JsonReader reader = new JsonReader(contents);
+      reader.setLenient(true);
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String key = reader.nextName();
+        switch (key) {
+          case "version":
+            version = reader.nextInt();
+            break;
+          case "file":
+            file = reader.nextString();
+            break;
+          case "lineCount":
+            lineCount = reader.nextInt();
+            hasLineCount = true;
+            break;
+          case "mappings":
+            lineMap = reader.nextString();
+            break;
+          case "sources":
+            sources = readStringArray(reader);
+            break;
+          case "names":
+            names = readStringArray(reader);
+            break;
+          case "sourceRoot":
+            sourceRoot = reader.nextString();
+            break;
+          case "sections":
+            sections = new JsonParser().parse(reader).getAsJsonArray();
+            break;
+          default:
+            if (key.startsWith("x_")) {
+              extensions.put(key, new JsonParser().parse(reader));
+            } else {
+              reader.skipValue();
+            }
+            break;
+        }
+      }
+      reader.endObject();
+    } catch (IOException | IllegalStateException | NumberFormatException
+        | JsonParseException ex) {
       throw new SourceMapParseException("JSON parse exception: " + ex);
     }
+    parse(version, file, lineMap, sections, hasLineCount, sectionSupplier);
   }
 
   /**
@@ -102,37 +183,28 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
    */
   public void parse(JsonObject sourceMapRoot, SourceMapSupplier sectionSupplier)
       throws SourceMapParseException {
+    reset();
     try {
-      // Check basic assertions about the format.
-      int version = sourceMapRoot.get("version").getAsInt();
-      if (version != 3) {
-        throw new SourceMapParseException("Unknown version: " + version);
+      int version = sourceMapRoot.has("version")
+          ? sourceMapRoot.get("version").getAsInt() : -1;
+      String file = sourceMapRoot.has("file")
+          ? sourceMapRoot.get("file").getAsString() : null;
+      String lineMap = sourceMapRoot.has("mappings")
+          ? sourceMapRoot.get("mappings").getAsString() : null;
+      JsonArray sections = sourceMapRoot.has("sections")
+          ? sourceMapRoot.get("sections").getAsJsonArray() : null;
+
+      boolean hasLineCount = sourceMapRoot.has("lineCount");
+      if (hasLineCount) {
+        lineCount = sourceMapRoot.get("lineCount").getAsInt();
       }
-
-      if (sourceMapRoot.has("file")
-          && sourceMapRoot.get("file").getAsString().isEmpty()) {
-        throw new SourceMapParseException("File entry is empty");
+      if (sourceMapRoot.has("sources")) {
+        sources = getJavaStringArray(
+            sourceMapRoot.get("sources").getAsJsonArray());
       }
-
-      if (sourceMapRoot.has("sections")) {
-        // Looks like a index map, try to parse it that way.
-        parseMetaMap(sourceMapRoot, sectionSupplier);
-        return;
-      }
-
-      lineCount = sourceMapRoot.has("lineCount")
-          ? sourceMapRoot.get("lineCount").getAsInt() : -1;
-      String lineMap = sourceMapRoot.get("mappings").getAsString();
-
-      sources = getJavaStringArray(sourceMapRoot.get("sources").getAsJsonArray());
-      names = getJavaStringArray(sourceMapRoot.get("names").getAsJsonArray());
-
-      if (lineCount >= 0) {
-        lines = Lists.newArrayListWithCapacity(lineCount);
-      } else {
-        lines = Lists.newArrayList();
+      if (sourceMapRoot.has("names")) {
+        names = getJavaStringArray(sourceMapRoot.get("names").getAsJsonArray());
       }
-
       if (sourceMapRoot.has("sourceRoot")) {
         sourceRoot = sourceMapRoot.get("sourceRoot").getAsString();
       }
@@ -143,44 +215,84 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
         }
       }
 
-      new MappingBuilder(lineMap).build();
-    } catch (JsonParseException ex) {
+      parse(version, file, lineMap, sections, hasLineCount, sectionSupplier);
+    } catch (IllegalStateException | JsonParseException ex) {
       throw new SourceMapParseException("JSON parse exception: " + ex);
     }
   }
 
   /**
-   * @param sourceMapRoot
-   * @throws SourceMapParseException
+   * Checks basic assertions about the format, then builds the mappings or,
+   * for an index map, merges its sections.
+   */
+  private void parse(int version, String file, String lineMap,
+      JsonArray sections, boolean hasLineCount,
+      SourceMapSupplier sectionSupplier) throws SourceMapParseException {
+    if (version != 3) {
+      throw new SourceMapParseException("Unknown version: " + version);
+    }
+
+    if (file != null && file.isEmpty()) {
+      throw new SourceMapParseException("File entry is empty");
+    }
+
+    if (sections != null) {
+      // Looks like a index map, try to parse it that way.
+      if (hasLineCount || lineMap != null || sources != null
+          || names != null) {
+        throw new SourceMapParseException("Invalid map format");
+      }
+      parseMetaMap(file, sections, sectionSupplier);
+      return;
+    }
+
+    if (lineMap == null || sources == null) {
+      throw new SourceMapParseException(
+          "Invalid map format: 'mappings' and 'sources' are required");
+    }
+    if (names == null) {
+      names = new String[0];
+    }
+
+    try {
+      new MappingBuilder(lineMap).build();
+    } catch (IllegalArgumentException | IllegalStateException
+        | IndexOutOfBoundsException ex) {
+      throw new SourceMapParseException("Invalid mappings: " + ex);
+    }
+  }
+
+  /** Clears the result of a previous parse. */
+  private void reset() {
+    sources = null;
+    names = null;
+    lineCount = -1;
+    lines = null;
+    lineMap = null;
+    lineOffsets = null;
+    lineStates = null;
+    reverseSourceMapping = null;
+    sourceRoot = null;
+    extensions = Maps.newLinkedHashMap();
+  }
+
+  /**
+   * Merges the sections of an index map into a single source map, and
+   * parses that.
    */
   private void parseMetaMap(
-      JsonObject sourceMapRoot, SourceMapSupplier sectionSupplier)
+      String file, JsonArray sections, SourceMapSupplier sectionSupplier)
       throws SourceMapParseException {
     if (sectionSupplier == null) {
       sectionSupplier = new DefaultSourceMapSupplier();
     }
 
-    try {
-      // Check basic assertions about the format.
-      int version = sourceMapRoot.get("version").getAsInt();
-      if (version != 3) {
-        throw new SourceMapParseException("Unknown version: " + version);
-      }
-
-      String file = sourceMapRoot.get("file").getAsString();
-      if (file.isEmpty()) {
-        throw new SourceMapParseException("File entry is missing or empty");
-      }
-
-      if (sourceMapRoot.has("lineCount")
-          || sourceMapRoot.has("mappings")
-          || sourceMapRoot.has("sources")
-          || sourceMapRoot.has("names")) {
-        throw new SourceMapParseException("Invalid map format");
-      }
+    if (file == null) {
+      throw new SourceMapParseException("File entry is missing or empty");
+    }
 
+    try {
       SourceMapGeneratorV3 generator = new SourceMapGeneratorV3();
-      JsonArray sections = sourceMapRoot.get("sections").getAsJsonArray();
       for (int i = 0, count = sections.size(); i < count; i++) {
         JsonObject section = sections.get(i).getAsJsonObject();
         if (section.has("map") && section.has("url")) {
@@ -217,7 +329,7 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
       parse(sb.toString());
     } catch (IOException ex) {
       throw new SourceMapParseException("IO exception: " + ex);
-    } catch (JsonParseException ex) {
+    } catch (IllegalStateException | JsonParseException ex) {
       throw new SourceMapParseException("JSON parse exception: " + ex);
     }
   }
@@ -228,29 +340,22 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
     lineNumber--;
     column--;
 
-    if (lineNumber < 0 || lineNumber >= lines.size()) {
+    if (lineNumber < 0 || lineNumber >= lines.length) {
       return null;
     }
 
     Preconditions.checkState(lineNumber >= 0);
     Preconditions.checkState(column >= 0);
 
-
+    LineMappings entries = getLine(lineNumber);
     // If the line is empty return the previous mapping.
-    if (lines.get(lineNumber) == null) {
+    if (entries.size() == 0 || entries.columns[0] > column) {
       return getPreviousMapping(lineNumber);
     }
 
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    // No empty lists.
-    Preconditions.checkState(!entries.isEmpty());
-    if (entries.get(0).getGeneratedColumn() > column) {
-      return getPreviousMapping(lineNumber);
-    }
-
-    int index = search(entries, column, 0, entries.size() - 1);
+    int index = search(entries.columns, column, 0, entries.size() - 1);
     Preconditions.checkState(index >= 0, "unexpected:%s", index);
-    return getOriginalMappingForEntry(entries.get(index));
+    return getOriginalMappingForEntry(entries, index);
   }
 
   @Override
@@ -310,145 +415,234 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
     return result;
   }
 
+  private static String[] readStringArray(JsonReader reader)
+      throws IOException {
+    List<String> result = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      result.add(reader.nextString());
+    }
+    reader.endArray();
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Returns the mappings of the given line of the generated file, decoding
+   * them if needed. Lines may be decoded more than once when looked up from
+   * several threads at once, which is harmless.
+   */
+  private LineMappings getLine(int lineNumber) {
+    LineMappings entries = lines[lineNumber];
+    if (entries == null) {
+      MappingBuilder builder =
+          new MappingBuilder(lineMap, lineOffsets[lineNumber]);
+      builder.restoreState(lineStates, lineNumber);
+      entries = builder.decodeLine(lineNumber, true);
+      lines[lineNumber] = entries;
+    }
+    return entries;
+  }
+
+  /**
+   * Decodes the "mappings" string one line at a time. The values of an entry
+   * other than the generated column are relative to the previous entry, even
+   * across lines, so decoding a line starts from the values left by the
+   * previous one.
+   */
   private class MappingBuilder {
     private static final int MAX_ENTRY_VALUES = 5;
+    private static final int STATE_VALUES = 4;
     private final StringCharIterator content;
-    private int line = 0;
-    private int previousCol = 0;
+    private final int[] temp = new int[MAX_ENTRY_VALUES];
     private int previousSrcId = 0;
     private int previousSrcLine = 0;
     private int previousSrcColumn = 0;
     private int previousNameId = 0;
 
+    // The entries of the line being decoded.
+    private int size = 0;
+    private int[] columns = new int[16];
+    private int[] sourceIds = new int[16];
+    private int[] sourceLines = new int[16];
+    private int[] sourceColumns = new int[16];
+    private int[] nameIds = new int[16];
+
     MappingBuilder(String lineMap) {
-      this.content = new StringCharIterator(lineMap);
+      this(lineMap, 0);
+    }
+
+    MappingBuilder(String lineMap, int offset) {
+      this.content = new StringCharIterator(lineMap, offset);
     }
 
     void build() {
-      int [] temp = new int[MAX_ENTRY_VALUES];
-      ArrayList<Entry> entries = new ArrayList<>();
+      if (decodeLinesLazily) {
+        buildIndex();
+        return;
+      }
+      List<LineMappings> result = new ArrayList<>(Math.max(lineCount, 0));
       while (content.hasNext()) {
-        // ';' denotes a new line.
-        if (tryConsumeToken(';')) {
-          // The line is complete, store the result
-          completeLine(entries);
-          if (!entries.isEmpty()) {
-            // A new array list for the next line.
-            entries = new ArrayList<>();
-          }
-        } else {
-          // grab the next entry for the current line.
-          int entryValues = 0;
-          while (!entryComplete()) {
-            temp[entryValues] = nextValue();
-            entryValues++;
-          }
-          Entry entry = decodeEntry(temp, entryValues);
-
-          validateEntry(entry);
-          entries.add(entry);
-
-          // Consume the separating token, if there is one.
-          tryConsumeToken(',');
-        }
+        result.add(decodeLine(result.size(), true));
       }
+      lines = result.toArray(new LineMappings[result.size()]);
+    }
 
-      // Some source map generator (e.g.UglifyJS) generates lines without
-      // a trailing line separator. So add the rest of the content.
-      if (!entries.isEmpty()) {
-        completeLine(entries);
+    /**
+     * Records where each line starts and the state to decode it with, so
+     * that it can be decoded when first looked up.
+     */
+    private void buildIndex() {
+      int[] offsets = new int[Math.max(lineCount, 16)];
+      int[] states = new int[offsets.length * STATE_VALUES];
+      int line = 0;
+      while (content.hasNext()) {
+        if (line == offsets.length) {
+          offsets = Arrays.copyOf(offsets, line * 2);
+          states = Arrays.copyOf(states, line * 2 * STATE_VALUES);
+        }
+        offsets[line] = content.current;
+        saveState(states, line);
+        decodeLine(line, false);
+        line++;
       }
+      lines = new LineMappings[line];
+      lineMap = content.content;
+      lineOffsets = Arrays.copyOf(offsets, line);
+      lineStates = Arrays.copyOf(states, line * STATE_VALUES);
     }
 
-    private void completeLine(ArrayList<Entry> entries) {
-      // The line is complete, store the result for the line,
-      // null if the line is empty.
-      if (!entries.isEmpty()) {
-        lines.add(entries);
-      } else {
-        lines.add(null);
-      }
-      line++;
-      previousCol = 0;
+    private void saveState(int[] states, int line) {
+      int i = line * STATE_VALUES;
+      states[i] = previousSrcId;
+      states[i + 1] = previousSrcLine;
+      states[i + 2] = previousSrcColumn;
+      states[i + 3] = previousNameId;
     }
 
-    /**
-     * Sanity check the entry.
-     */
-    private void validateEntry(Entry entry) {
-      Preconditions.checkState((lineCount < 0) || (line < lineCount),
-          "line=%s, lineCount=%s", line, lineCount);
-      Preconditions.checkState(entry.getSourceFileId() == UNMAPPED
-          || entry.getSourceFileId() < sources.length);
-      Preconditions.checkState(entry.getNameId() == UNMAPPED
-          || entry.getNameId() < names.length);
+    void restoreState(int[] states, int line) {
+      int i = line * STATE_VALUES;
+      previousSrcId = states[i];
+      previousSrcLine = states[i + 1];
+      previousSrcColumn = states[i + 2];
+      previousNameId = states[i + 3];
     }
 
     /**
-     * Decodes the next entry, using the previous encountered values to
-     * decode the relative values.
+     * Decodes the entries up to the end of the current line, and consumes
+     * the ';' that ends it.
      *
-     * @param vals An array of integers that represent values in the entry.
-     * @param entryValues The number of entries in the array.
-     * @return The entry object.
+     * @param keep Whether to return the entries, or only to advance past
+     *     them.
      */
-    private Entry decodeEntry(int[] vals, int entryValues) {
-      Entry entry;
-      switch (entryValues) {
-        // The first values, if present are in the following order:
+    LineMappings decodeLine(int line, boolean keep) {
+      // The generated column is relative to the previous entry on the same
+      // line only.
+      int previousCol = 0;
+      size = 0;
+      while (content.hasNext()) {
+        // ';' denotes a new line.
+        if (tryConsumeToken(';')) {
+          break;
+        }
+
+        // grab the next entry for the current line.
+        int entryValues = 0;
+        while (!entryComplete()) {
+          Preconditions.checkState(entryValues < MAX_ENTRY_VALUES,
+              "Unexpected number of values for entry:%s", entryValues + 1);
+          temp[entryValues] = nextValue();
+          entryValues++;
+        }
+
+        // The values, if present are in the following order:
         //   0: the starting column in the current line of the generated file
         //   1: the id of the original source file
         //   2: the starting line in the original source
         //   3: the starting column in the original source
         //   4: the id of the original symbol name
-        // The values are relative to the last encountered value for that field.
-        // Note: the previously column value for the generated file is reset
-        // to '0' when a new line is encountered.  This is done in the 'build'
-        // method.
-
-        case 1:
-          // An unmapped section of the generated file.
-          entry = new UnmappedEntry(
-              vals[0] + previousCol);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          return entry;
-
-        case 4:
-          // A mapped section of the generated file.
-          entry = new UnnamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          return entry;
-
-        case 5:
-          // A mapped section of the generated file, that has an associated
-          // name.
-          entry = new NamedEntry(
-              vals[0] + previousCol,
-              vals[1] + previousSrcId,
-              vals[2] + previousSrcLine,
-              vals[3] + previousSrcColumn,
-              vals[4] + previousNameId);
-          // Set the values see for the next entry.
-          previousCol = entry.getGeneratedColumn();
-          previousSrcId = entry.getSourceFileId();
-          previousSrcLine = entry.getSourceLine();
-          previousSrcColumn = entry.getSourceColumn();
-          previousNameId = entry.getNameId();
-          return entry;
-
-        default:
-          throw new IllegalStateException(
-              "Unexpected number of values for entry:" + entryValues);
+        // The values are relative to the last encountered value for that
+        // field.
+        int srcId = UNMAPPED;
+        int srcLine = UNMAPPED;
+        int srcColumn = UNMAPPED;
+        int nameId = UNMAPPED;
+        switch (entryValues) {
+          case 1:
+            // An unmapped section of the generated file.
+            break;
+
+          case 5:
+            // A mapped section of the generated file, that has an associated
+            // name.
+            previousNameId += temp[4];
+            nameId = previousNameId;
+            // fall through
+
+          case 4:
+            // A mapped section of the generated file.
+            previousSrcId += temp[1];
+            previousSrcLine += temp[2];
+            previousSrcColumn += temp[3];
+            srcId = previousSrcId;
+            srcLine = previousSrcLine;
+            srcColumn = previousSrcColumn;
+            break;
+
+          default:
+            throw new IllegalStateException(
+                "Unexpected number of values for entry:" + entryValues);
+        }
+        previousCol += temp[0];
+
+        validateEntry(line, srcId, nameId);
+        if (keep) {
+          addEntry(previousCol, srcId, srcLine, srcColumn, nameId);
+        }
+
+        // Consume the separating token, if there is one.
+        tryConsumeToken(',');
+      }
+
+      if (!keep) {
+        return null;
+      }
+      if (size == 0) {
+        return LineMappings.EMPTY;
       }
+      return new LineMappings(
+          Arrays.copyOf(columns, size),
+          Arrays.copyOf(sourceIds, size),
+          Arrays.copyOf(sourceLines, size),
+          Arrays.copyOf(sourceColumns, size),
+          Arrays.copyOf(nameIds, size));
+    }
+
+    private void addEntry(
+        int column, int srcId, int srcLine, int srcColumn, int nameId) {
+      if (size == columns.length) {
+        int capacity = size * 2;
+        columns = Arrays.copyOf(columns, capacity);
+        sourceIds = Arrays.copyOf(sourceIds, capacity);
+        sourceLines = Arrays.copyOf(sourceLines, capacity);
+        sourceColumns = Arrays.copyOf(sourceColumns, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+      }
+      columns[size] = column;
+      sourceIds[size] = srcId;
+      sourceLines[size] = srcLine;
+      sourceColumns[size] = srcColumn;
+      nameIds[size] = nameId;
+      size++;
+    }
+
+    /**
+     * Sanity check the entry.
+     */
+    private void validateEntry(int line, int srcId, int nameId) {
+      Preconditions.checkState((lineCount < 0) || (line < lineCount),
+          "line=%s, lineCount=%s", line, lineCount);
+      Preconditions.checkState(srcId == UNMAPPED || srcId < sources.length);
+      Preconditions.checkState(nameId == UNMAPPED || nameId < names.length);
     }
 
     private boolean tryConsumeToken(char token) {
@@ -478,10 +672,10 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
    * Perform a binary search on the array to find a section that covers
    * the target column.
    */
-  private int search(ArrayList<Entry> entries, int target, int start, int end) {
+  private int search(int[] columns, int target, int start, int end) {
     while (true) {
       int mid = ((end - start) / 2) + start;
-      int compare = compareEntry(entries, mid, target);
+      int compare = columns[mid] - target;
       if (compare == 0) {
         return mid;
       } else if (compare < 0) {
@@ -500,42 +694,38 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
     }
   }
 
-  /**
-   * Compare an array entry's column value to the target column value.
-   */
-  private int compareEntry(ArrayList<Entry> entries, int entry, int target) {
-    return entries.get(entry).getGeneratedColumn() - target;
-  }
-
   /**
    * Returns the mapping entry that proceeds the supplied line or null if no
    * such entry exists.
    */
   private OriginalMapping getPreviousMapping(int lineNumber) {
+    LineMappings entries;
     do {
       if (lineNumber == 0) {
         return null;
       }
       lineNumber--;
-    } while (lines.get(lineNumber) == null);
-    ArrayList<Entry> entries = lines.get(lineNumber);
-    return getOriginalMappingForEntry(entries.get(entries.size() - 1));
+      entries = getLine(lineNumber);
+    } while (entries.size() == 0);
+    return getOriginalMappingForEntry(entries, entries.size() - 1);
   }
 
   /**
-   * Creates an "OriginalMapping" object for the given entry object.
+   * Creates an "OriginalMapping" object for the given entry.
    */
-  private OriginalMapping getOriginalMappingForEntry(Entry entry) {
-    if (entry.getSourceFileId() == UNMAPPED) {
+  private OriginalMapping getOriginalMappingForEntry(
+      LineMappings entries, int index) {
+    int sourceFileId = entries.sourceIds[index];
+    if (sourceFileId == UNMAPPED) {
       return null;
     } else {
       // Adjust the line/column here to be start at 1.
       Builder x = OriginalMapping.newBuilder()
-        .setOriginalFile(sources[entry.getSourceFileId()])
-        .setLineNumber(entry.getSourceLine() + 1)
-        .setColumnPosition(entry.getSourceColumn() + 1);
-      if (entry.getNameId() != UNMAPPED) {
-        x.setIdentifier(names[entry.getNameId()]);
+        .setOriginalFile(sources[sourceFileId])
+        .setLineNumber(entries.sourceLines[index] + 1)
+        .setColumnPosition(entries.sourceColumns[index] + 1);
+      if (entries.nameIds[index] != UNMAPPED) {
+        x.setIdentifier(names[entries.nameIds[index]]);
       }
       return x.build();
     }
@@ -549,38 +739,36 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
   private void createReverseMapping() {
     reverseSourceMapping = new HashMap<>();
 
-    for (int targetLine = 0; targetLine < lines.size(); targetLine++) {
-      ArrayList<Entry> entries = lines.get(targetLine);
+    for (int targetLine = 0; targetLine < lines.length; targetLine++) {
+      LineMappings entries = getLine(targetLine);
 
-      if (entries != null) {
-        for (Entry entry : entries) {
-          if (entry.getSourceFileId() != UNMAPPED
-              && entry.getSourceLine() != UNMAPPED) {
-            String originalFile = sources[entry.getSourceFileId()];
+      for (int i = 0; i < entries.size(); i++) {
+        if (entries.sourceIds[i] != UNMAPPED
+            && entries.sourceLines[i] != UNMAPPED) {
+          String originalFile = sources[entries.sourceIds[i]];
 
-            if (!reverseSourceMapping.containsKey(originalFile)) {
-              reverseSourceMapping.put(originalFile,
-                  new HashMap<Integer, Collection<OriginalMapping>>());
-            }
+          if (!reverseSourceMapping.containsKey(originalFile)) {
+            reverseSourceMapping.put(originalFile,
+                new HashMap<Integer, Collection<OriginalMapping>>());
+          }
 
-            Map<Integer, Collection<OriginalMapping>> lineToCollectionMap =
-                reverseSourceMapping.get(originalFile);
+          Map<Integer, Collection<OriginalMapping>> lineToCollectionMap =
+              reverseSourceMapping.get(originalFile);
 
-            int sourceLine = entry.getSourceLine();
+          int sourceLine = entries.sourceLines[i];
 
-            if (!lineToCollectionMap.containsKey(sourceLine)) {
-              lineToCollectionMap.put(sourceLine,
-                  new ArrayList<OriginalMapping>(1));
-            }
+          if (!lineToCollectionMap.containsKey(sourceLine)) {
+            lineToCollectionMap.put(sourceLine,
+                new ArrayList<OriginalMapping>(1));
+          }
 
-            Collection<OriginalMapping> mappings =
-                lineToCollectionMap.get(sourceLine);
+          Collection<OriginalMapping> mappings =
+              lineToCollectionMap.get(sourceLine);
 
-            Builder builder = OriginalMapping.newBuilder().setLineNumber(
-                targetLine).setColumnPosition(entry.getGeneratedColumn());
+          Builder builder = OriginalMapping.newBuilder().setLineNumber(
+              targetLine).setColumnPosition(entries.columns[i]);
 
-            mappings.add(builder.build());
-          }
+          mappings.add(builder.build());
         }
       }
     }
@@ -593,11 +781,12 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
   private static class StringCharIterator implements CharIterator {
     final String content;
     final int length;
-    int current = 0;
+    int current;
 
-    StringCharIterator(String content) {
+    StringCharIterator(String content, int offset) {
       this.content = content;
       this.length = content.length();
+      this.current = offset;
     }
 
     @Override
@@ -616,105 +805,31 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
   }
 
   /**
-   * Represents a mapping entry in the source map.
-   */
-  private interface Entry {
-    int getGeneratedColumn();
-    int getSourceFileId();
-    int getSourceLine();
-    int getSourceColumn();
-    int getNameId();
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is not mapped
-   * to a section in the original source.
-   */
-  private static class UnmappedEntry implements Entry {
-    private final int column;
-
-    UnmappedEntry(int column) {
-      this.column = column;
-    }
-
-    @Override
-    public int getGeneratedColumn() {
-      return column;
-    }
-
-    @Override
-    public int getSourceFileId() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getSourceLine() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getSourceColumn() {
-      return UNMAPPED;
-    }
-
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
-    }
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source.
+   * The mapping entries of a line of the generated file, ordered by
+   * generated column. The values of entry {@code i} are element {@code i}
+   * of each array; absent values are {@link #UNMAPPED}.
    */
-  private static class UnnamedEntry extends UnmappedEntry {
-    private final int srcFile;
-    private final int srcLine;
-    private final int srcColumn;
+  private static final class LineMappings {
+    static final LineMappings EMPTY = new LineMappings(
+        new int[0], new int[0], new int[0], new int[0], new int[0]);
 
-    UnnamedEntry(int column, int srcFile, int srcLine, int srcColumn) {
-      super(column);
-      this.srcFile = srcFile;
-      this.srcLine = srcLine;
-      this.srcColumn = srcColumn;
-    }
-
-    @Override
-    public int getSourceFileId() {
-      return srcFile;
-    }
+    final int[] columns;
+    final int[] sourceIds;
+    final int[] sourceLines;
+    final int[] sourceColumns;
+    final int[] nameIds;
 
-    @Override
-    public int getSourceLine() {
-      return srcLine;
+    LineMappings(int[] columns, int[] sourceIds, int[] sourceLines,
+        int[] sourceColumns, int[] nameIds) {
+      this.columns = columns;
+      this.sourceIds = sourceIds;
+      this.sourceLines = sourceLines;
+      this.sourceColumns = sourceColumns;
+      this.nameIds = nameIds;
     }
 
-    @Override
-    public int getSourceColumn() {
-      return srcColumn;
-    }
-
-    @Override
-    public int getNameId() {
-      return UNMAPPED;
-    }
-  }
-
-  /**
-   * This class represents a portion of the generated file, that is mapped
-   * to a section in the original source, and is associated with a name.
-   */
-  private static class NamedEntry extends UnnamedEntry {
-    private final int name;
-
-    NamedEntry(int column, int srcFile, int srcLine, int srcColumn, int name) {
-      super(column, srcFile, srcLine, srcColumn);
-      this.name = name;
-    }
-
-    @Override
-    public int getNameId() {
-      return name;
+    int size() {
+      return columns.length;
     }
   }
 
@@ -733,35 +848,30 @@ public class SourceMapConsumerV3 implements SourceMapConsumer,
     FilePosition sourceStartPosition = null;
     FilePosition startPosition = null;
 
-    final int lineCount = lines.size();
+    final int lineCount = lines.length;
     for (int i = 0; i < lineCount; i++) {
-      ArrayList<Entry> line = lines.get(i);
-      if (line != null) {
-        final int entryCount = line.size();
-        for (int j = 0; j < entryCount; j++) {
-          Entry entry = line.get(j);
-          if (pending) {
-            FilePosition endPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
-            visitor.visit(
-                sourceName,
-                symbolName,
-                sourceStartPosition,
-                startPosition,
-                endPosition);
-            pending = false;
-          }
+      LineMappings line = getLine(i);
+      final int entryCount = line.size();
+      for (int j = 0; j < entryCount; j++) {
+        if (pending) {
+          FilePosition endPosition = new FilePosition(i, line.columns[j]);
+          visitor.visit(
+              sourceName,
+              symbolName,
+              sourceStartPosition,
+              startPosition,
+              endPosition);
+          pending = false;
+        }
 
-          if (entry.getSourceFileId() != UNMAPPED) {
-            pending = true;
-            sourceName = sources[entry.getSourceFileId()];
-            symbolName = (entry.getNameId() != UNMAPPED)
-                ? names[entry.getNameId()] : null;
-            sourceStartPosition = new FilePosition(
-                entry.getSourceLine(), entry.getSourceColumn());
-            startPosition = new FilePosition(
-                i, entry.getGeneratedColumn());
-          }
+        if (line.sourceIds[j] != UNMAPPED) {
+          pending = true;
+          sourceName = sources[line.sourceIds[j]];
+          symbolName = (line.nameIds[j] != UNMAPPED)
+              ? names[line.nameIds[j]] : null;
+          sourceStartPosition = new FilePosition(
+              line.sourceLines[j], line.sourceColumns[j]);
+          startPosition = new FilePosition(i, line.columns[j]);
         }
       }
     }
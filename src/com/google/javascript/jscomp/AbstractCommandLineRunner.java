@@ -24,6 +24,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -55,6 +56,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import javax.annotation.Nullable;
@@ -131,6 +137,10 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private Map<String, String> parsedModuleWrappers = null;
 
+  private ParseCache parseCache = null;
+
+  private boolean stdinAllowed = true;
+
   static final String OUTPUT_MARKER = "%output%";
   private static final String OUTPUT_MARKER_JS_STRING = "%output|jsstring%";
 
@@ -404,6 +414,19 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
    * compiler.
    */
   public final void run() {
+    int result = execute();
+    if (testMode) {
+      exitCodeReceiverForTesting.apply(result);
+    } else {
+      System.exit(result);
+    }
+  }
+
+  /**
+   * Runs the compiler like {@link #run()}, but returns the exit status
+   * instead of exiting.
+   */
+  final int execute() {
     int result = 0;
     int runs = 1;
     try {
@@ -411,18 +434,30 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
         result = doRun();
       }
     } catch (AbstractCommandLineRunner.FlagUsageException e) {
-      System.err.println(e.getMessage());
+      err.println(e.getMessage());
       result = -1;
     } catch (Throwable t) {
-      t.printStackTrace();
+      t.printStackTrace(err);
       result = -2;
     }
+    err.flush();
+    return result;
+  }
 
-    if (testMode) {
-      exitCodeReceiverForTesting.apply(result);
-    } else {
-      System.exit(result);
-    }
+  /**
+   * Sets a parse cache for the compiler to use, so that it can be shared
+   * with other runs.
+   */
+  void setParseCache(ParseCache parseCache) {
+    this.parseCache = parseCache;
+  }
+
+  /**
+   * Sets whether the code to compile may be read from stdin, when no input
+   * files are given.
+   */
+  void setStdinAllowed(boolean stdinAllowed) {
+    this.stdinAllowed = stdinAllowed;
   }
 
   /**
@@ -498,7 +533,7 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
       files = Collections.singletonList("-");
     }
     try {
-      return createInputs(files, true);
+      return createInputs(files, stdinAllowed);
     } catch (FlagUsageException e) {
       throw new FlagUsageException("Bad --js flag. " + e.getMessage());
     }
@@ -728,19 +763,24 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
               compiler.getDegenerateModuleGraph().getAllModules()));
     }
 
+    writeOutput(out, compiler, m, getModuleWrapper(m), "%s", null);
+  }
+
+  private String getModuleWrapper(JSModule m) {
     String fileName = getModuleOutputFileName(m);
     String baseName = new File(fileName).getName();
-    writeOutput(out, compiler, compiler.toSource(m),
-        parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName),
-        "%s", null);
+    return parsedModuleWrappers.get(m.getName())
+        .replace("%basename%", baseName);
   }
 
   /**
-   * Writes code to an output stream, optionally wrapping it in an arbitrary
-   * wrapper that contains a placeholder where the code should be inserted.
+   * Writes the code for a module, or for all inputs if the module is null,
+   * to an output stream, optionally wrapping it in an arbitrary wrapper that
+   * contains a placeholder where the code should be inserted. Unless it has
+   * to be escaped, the code is written out as it is generated.
    */
-  static void writeOutput(Appendable out, Compiler compiler, String code,
-      String wrapper, String codePlaceholder,
+  static void writeOutput(Appendable out, Compiler compiler,
+      @Nullable JSModule module, String wrapper, String codePlaceholder,
       @Nullable Function<String, String> escaper)
       throws IOException {
     int pos = wrapper.indexOf(codePlaceholder);
@@ -752,7 +792,13 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
         out.append(prefix);
       }
 
-      out.append(escaper == null ? code : escaper.apply(code));
+      if (escaper == null) {
+        writeCode(out, compiler, module);
+      } else {
+        String code = module == null
+            ? compiler.toSource() : compiler.toSource(module);
+        out.append(escaper.apply(code));
+      }
 
       int suffixStart = pos + codePlaceholder.length();
       if (suffixStart != wrapper.length()) {
@@ -764,16 +810,26 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
 
       // If we have a source map, adjust its offsets to match
       // the code WITHIN the wrapper.
-      if (compiler != null && compiler.getSourceMap() != null) {
+      if (compiler.getSourceMap() != null) {
         compiler.getSourceMap().setWrapperPrefix(prefix);
       }
 
     } else {
-      out.append(code);
+      writeCode(out, compiler, module);
       out.append('\n');
     }
   }
 
+  private static void writeCode(
+      Appendable out, Compiler compiler, @Nullable JSModule module)
+      throws IOException {
+    if (module == null) {
+      compiler.toSource(out);
+    } else {
+      compiler.toSource(module, out);
+    }
+  }
+
   /**
    * Creates any directories necessary to write a file that will have a given
    * path prefix.
@@ -819,6 +875,9 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
     List<SourceFile> externs = createExterns();
 
     compiler = createCompiler();
+    if (parseCache != null) {
+      compiler.setParseCache(parseCache);
+    }
     B options = createOptions();
 
     List<JSModule> modules = null;
@@ -979,8 +1038,7 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
 
     Appendable jsOutput = createDefaultOutput();
     writeOutput(
-        jsOutput, compiler, compiler.toSource(), config.outputWrapper,
-        marker, escaper);
+        jsOutput, compiler, null, config.outputWrapper, marker, escaper);
     closeAppendable(jsOutput);
   }
 
@@ -1000,24 +1058,53 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
       mapOut = fileNameToOutputWriter2(expandSourceMapPath(options, null));
     }
 
-    for (JSModule m : modules) {
-      if (shouldGenerateMapPerModule(options)) {
-        mapOut = fileNameToOutputWriter2(expandSourceMapPath(options, m));
+    List<Future<ModuleOutput>> outputs = null;
+    ExecutorService outputExecutor = null;
+    if (config.outputThreads > 1) {
+      compiler.parseModuleInputs(modules);
+      outputExecutor = Executors.newFixedThreadPool(config.outputThreads,
+          Compiler.newThreadFactory("jscompiler-output"));
+      outputs = new ArrayList<>();
+      for (JSModule m : modules) {
+        outputs.add(outputExecutor.submit(
+            newModuleOutputTask(m, options.sourceMapOutputPath != null)));
       }
+    }
 
-      try (Writer writer = fileNameToLegacyOutputWriter(getModuleOutputFileName(m))) {
-        if (options.sourceMapOutputPath != null) {
-          compiler.getSourceMap().reset();
+    try {
+      for (int i = 0; i < modules.size(); i++) {
+        JSModule m = modules.get(i);
+        if (shouldGenerateMapPerModule(options)) {
+          mapOut = fileNameToOutputWriter2(expandSourceMapPath(options, m));
         }
-        writeModuleOutput(writer, m);
-        if (options.sourceMapOutputPath != null) {
-          compiler.getSourceMap().appendTo(mapOut, m.getName());
+
+        try (Writer writer =
+            fileNameToLegacyOutputWriter(getModuleOutputFileName(m))) {
+          if (outputs != null) {
+            ModuleOutput output = getModuleOutput(outputs.get(i));
+            writer.append(output.code);
+            if (output.sourceMap != null) {
+              output.sourceMap.appendTo(mapOut, m.getName());
+            }
+          } else {
+            if (options.sourceMapOutputPath != null) {
+              compiler.getSourceMap().reset();
+            }
+            writeModuleOutput(writer, m);
+            if (options.sourceMapOutputPath != null) {
+              compiler.getSourceMap().appendTo(mapOut, m.getName());
+            }
+          }
         }
-      }
 
-      if (shouldGenerateMapPerModule(options) && mapOut != null) {
-        mapOut.close();
-        mapOut = null;
+        if (shouldGenerateMapPerModule(options) && mapOut != null) {
+          mapOut.close();
+          mapOut = null;
+        }
+      }
+    } finally {
+      if (outputExecutor != null) {
+        outputExecutor.shutdownNow();
       }
     }
 
@@ -1026,6 +1113,65 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
     }
   }
 
+  /** The code of a module, wrapped, and its source map if there is one. */
+  static class ModuleOutput {
+    final String code;
+    @Nullable final SourceMap sourceMap;
+
+    ModuleOutput(String code, @Nullable SourceMap sourceMap) {
+      this.code = code;
+      this.sourceMap = sourceMap;
+    }
+  }
+
+  private Callable<ModuleOutput> newModuleOutputTask(
+      final JSModule m, final boolean withSourceMap) {
+    return new Callable<ModuleOutput>() {
+      @Override
+      public ModuleOutput call() {
+        return generateModuleOutput(m, withSourceMap);
+      }
+    };
+  }
+
+  /**
+   * Generates the same output for a module as writeModuleOutput, with a
+   * source map of its own, so that modules can be generated on several
+   * threads at once.
+   */
+  @VisibleForTesting
+  ModuleOutput generateModuleOutput(JSModule m, boolean withSourceMap) {
+    String wrapper = getModuleWrapper(m);
+    SourceMap sourceMap = withSourceMap ? compiler.newSourceMap() : null;
+    StringBuilder out = new StringBuilder();
+    int pos = wrapper.indexOf("%s");
+    if (pos != -1) {
+      String prefix = wrapper.substring(0, pos);
+      out.append(prefix)
+          .append(compiler.toSource(m, sourceMap))
+          .append(wrapper.substring(pos + 2));
+      if (sourceMap != null) {
+        sourceMap.setWrapperPrefix(prefix);
+      }
+    } else {
+      out.append(compiler.toSource(m, sourceMap));
+    }
+    out.append('\n');
+    return new ModuleOutput(out.toString(), sourceMap);
+  }
+
+  private static ModuleOutput getModuleOutput(Future<ModuleOutput> output)
+      throws IOException {
+    try {
+      return output.get();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   /**
    * Query the flag for the input charset, and return a Charset object
    * representing the selection.
@@ -1821,6 +1967,17 @@ abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private int outputThreads = 1;
+
+    /**
+     * The number of threads used to generate the code and source maps of the
+     * modules. With one thread, the modules are generated one at a time.
+     */
+    CommandLineConfig setOutputThreads(int outputThreads) {
+      this.outputThreads = outputThreads;
+      return this;
+    }
+
     private String moduleOutputPathPrefix = "";
 
     /**
@@ -288,6 +288,13 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
    */
   abstract Config getParserConfig(ConfigContext context);
 
+  /**
+   * Returns the cache of parse trees to consult before parsing a file, or
+   * null if parse trees are not cached.
+   */
+  @Nullable
+  abstract ParseCache getParseCache();
+
   /**
    * Returns true if type checking is enabled.
    */
@@ -305,6 +312,27 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
    */
   public abstract ErrorManager getErrorManager();
 
+  /**
+   * Records the number of steps an analysis that has just run took to reach
+   * a fixed point, and the function it analyzed, for the performance tracker.
+   */
+  abstract void recordDataFlowSteps(DataFlowAnalysis<Node, ?> analysis);
+
+  /**
+   * Records the number of nodes a conformance rule was offered and the time
+   * it spent checking them, in microseconds, for the performance tracker.
+   */
+  abstract void recordConformanceRuleStats(
+      String rule, int nodes, long runtime);
+
+  /**
+   * Returns the control flow graph of a function or of the global scope.
+   * Inside optimization loops, the graph of a function that hasn't changed
+   * since it was computed is reused, so passes must not modify it.
+   */
+  abstract ControlFlowGraph<Node> getControlFlowGraph(
+      Node root, boolean shouldTraverseFunctions, boolean edgeAnnotations);
+
   /**
    * Set the current life-cycle state.
    */
@@ -177,6 +177,20 @@ class AstParallelizer {
     }
   }
 
+  /**
+   * Returns the place holders standing in for the detached subtrees, in the
+   * same order as the subtrees returned by {@link #split()}, not counting
+   * the root.
+   */
+  public List<Node> getPlaceHolders() {
+    List<Node> placeHolders = Lists.newArrayListWithCapacity(
+        detachPointList.size());
+    for (DetachPoint entry : detachPointList) {
+      placeHolders.add(entry.placeHolder);
+    }
+    return placeHolders;
+  }
+
   /**
    * Reverse the splitting done by {@link #split()}.
    */
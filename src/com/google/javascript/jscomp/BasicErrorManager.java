@@ -21,38 +21,58 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * <p>A basic error manager that sorts all errors and warnings reported to it to
  * generate a sorted report when the {@link #generateReport()} method
  * is called.</p>
  *
+ * <p>Errors may be reported from several threads at once. They are sorted
+ * into the report when it is read, so the report doesn't depend on the order
+ * in which the threads reported them.</p>
+ *
  * <p>This error manager does not produce any output, but subclasses can
  * override the {@link #println(CheckLevel, JSError)} method to generate custom
  * output.</p>
  *
  */
 public abstract class BasicErrorManager implements ErrorManager {
+  // Guarded by this, like the counts.
   private final SortedSet<ErrorWithLevel> messages =
       Sets.newTreeSet(new LeveledJSErrorComparator());
+  // The errors reported since they were last sorted into the messages.
+  // Reporting an error doesn't wait for other threads.
+  private final Queue<ErrorWithLevel> reported =
+      new ConcurrentLinkedQueue<>();
   private int errorCount = 0;
   private int warningCount = 0;
   private double typedPercent = 0.0;
 
   @Override
   public void report(CheckLevel level, JSError error) {
-    if (messages.add(new ErrorWithLevel(error, level))) {
-      if (level == CheckLevel.ERROR) {
-        errorCount++;
-      } else if (level == CheckLevel.WARNING) {
-        warningCount++;
+    reported.add(new ErrorWithLevel(error, level));
+  }
+
+  /** Sorts the errors reported since the last call into the messages. */
+  private synchronized void mergeReported() {
+    ErrorWithLevel message;
+    while ((message = reported.poll()) != null) {
+      if (messages.add(message)) {
+        if (message.level == CheckLevel.ERROR) {
+          errorCount++;
+        } else if (message.level == CheckLevel.WARNING) {
+          warningCount++;
+        }
       }
     }
   }
 
   @Override
-  public void generateReport() {
+  public synchronized void generateReport() {
+    mergeReported();
     for (ErrorWithLevel message : messages) {
       println(message.level, message.error);
     }
@@ -71,12 +91,14 @@ public abstract class BasicErrorManager implements ErrorManager {
   protected abstract void printSummary();
 
   @Override
-  public int getErrorCount() {
+  public synchronized int getErrorCount() {
+    mergeReported();
     return errorCount;
   }
 
   @Override
-  public int getWarningCount() {
+  public synchronized int getWarningCount() {
+    mergeReported();
     return warningCount;
   }
 
@@ -100,7 +122,8 @@ public abstract class BasicErrorManager implements ErrorManager {
     return typedPercent;
   }
 
-  private JSError[] toArray(CheckLevel level) {
+  private synchronized JSError[] toArray(CheckLevel level) {
+    mergeReported();
     List<JSError> errors = new ArrayList<>(messages.size());
     for (ErrorWithLevel p : messages) {
       if (p.level == level) {
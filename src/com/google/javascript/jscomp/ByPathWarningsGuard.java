@@ -109,4 +109,9 @@ public class ByPathWarningsGuard extends WarningsGuard {
   protected int getPriority() {
     return priority;
   }
+
+  @Override
+  boolean dependsOnlyOnSourceAndType() {
+    return true;
+  }
 }
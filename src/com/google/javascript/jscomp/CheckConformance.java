@@ -17,19 +17,24 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.TextFormat;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 /**
  * Provides a framework for checking code against a set of user configured
  * conformance rules.  The rules are specified by the ConformanceConfig
@@ -37,6 +42,12 @@ import java.util.Set;
  * variables, or dependencies) and allow for more complex checks using
  * custom rules than specify
  *
+ * <p>Rules that implement {@link TargetedRule} are offered only the nodes
+ * they can report, found by token type and name in a table built up front,
+ * so the cost of the pass grows with the number of nodes each rule can
+ * report rather than with the number of rules. With a tracer on, the time
+ * spent in each rule is added to the tracer report.
+ *
  */
 public final class CheckConformance extends AbstractPostOrderCallback
     implements CompilerPass {
@@ -57,13 +68,45 @@ public final class CheckConformance extends AbstractPostOrderCallback
           "Invalid requirement. Reason: {0}\nRequirement spec:\n{1}");
 
   private final AbstractCompiler compiler;
-  private final ImmutableList<Rule> rules;
+  private final ImmutableList<RuleEntry> rules;
+
+  // The rules to offer nodes whose token type no rule targets: those that
+  // can match any node.
+  private final ImmutableList<RuleEntry> untargetedRules;
+  // The rules to offer nodes of each token type that some rule targets,
+  // indexed by token type. Null for the other token types.
+  private final TokenRules[] rulesByToken;
+  // Whether to record the time spent in each rule.
+  private final boolean timeRules;
 
   public static interface Rule {
     /** Perform conformance check */
     void check(NodeTraversal t, Node n);
   }
 
+  /**
+   * A rule that can only report nodes of certain token types, and optionally
+   * only those with certain target names. The pass offers such a rule just
+   * the nodes it can report, rather than every node of the program.
+   *
+   * <p>The target name of a NAME node is its name, and that of a GETPROP or
+   * GETELEM node with a string key is the key. Other nodes have none, so they
+   * are never offered to a rule with target names.
+   */
+  public static interface TargetedRule extends Rule {
+    /**
+     * @return The token types of the nodes the rule can report, or null if
+     *     it can report nodes of any type.
+     */
+    @Nullable ImmutableSet<Integer> getTargetTokens();
+
+    /**
+     * @return The target names of the nodes the rule can report, or null if
+     *     it can report nodes of its token types whatever their names.
+     */
+    @Nullable ImmutableSet<String> getTargetNames();
+  }
+
   /**
    * @param configs The rules to check.
    */
@@ -71,21 +114,103 @@ public final class CheckConformance extends AbstractPostOrderCallback
       AbstractCompiler compiler,
       ImmutableList<ConformanceConfig> configs) {
     this.compiler = compiler;
-    // Initialize the map of functions to inspect for renaming candidates.
     this.rules = initRules(compiler, configs);
+    this.timeRules = compiler.getOptions().getTracerMode().isOn();
+
+    ImmutableList.Builder<RuleEntry> untargeted = ImmutableList.builder();
+    int maxToken = -1;
+    for (RuleEntry entry : rules) {
+      if (entry.targetTokens == null) {
+        untargeted.add(entry);
+      } else if (!entry.targetTokens.isEmpty()) {
+        maxToken = Math.max(maxToken, Collections.max(entry.targetTokens));
+      }
+    }
+    this.untargetedRules = untargeted.build();
+    this.rulesByToken = new TokenRules[maxToken + 1];
+    for (int token = 0; token <= maxToken; token++) {
+      rulesByToken[token] = TokenRules.build(rules, token);
+    }
   }
 
   @Override
   public void process(Node externs, Node root) {
-    if (!rules.isEmpty()) {
-      NodeTraversal.traverse(compiler, root, this);
+    if (rules.isEmpty()) {
+      return;
+    }
+    NodeTraversal.traverse(compiler, root, this);
+    recordRuleStats();
+  }
+
+  /**
+   * Records the time spent in each rule with the compiler, if the rules were
+   * timed. Called once this pass has traversed the AST.
+   */
+  void recordRuleStats() {
+    if (timeRules) {
+      for (RuleEntry entry : rules) {
+        compiler.recordConformanceRuleStats(
+            entry.name, entry.nodes, entry.runtimeNanos / 1000);
+      }
     }
   }
 
   @Override
   public void visit(NodeTraversal t, Node n, Node parent) {
-    for (Rule rule : rules) {
-      rule.check(t, n);
+    ImmutableList<RuleEntry> candidates = getCandidateRules(n);
+    if (timeRules) {
+      for (int i = 0; i < candidates.size(); i++) {
+        RuleEntry entry = candidates.get(i);
+        long start = System.nanoTime();
+        entry.rule.check(t, n);
+        entry.runtimeNanos += System.nanoTime() - start;
+        entry.nodes++;
+      }
+    } else {
+      for (int i = 0; i < candidates.size(); i++) {
+        candidates.get(i).rule.check(t, n);
+      }
+    }
+  }
+
+  /**
+   * Returns the rules that can report the given node, in the order they
+   * were configured.
+   */
+  private ImmutableList<RuleEntry> getCandidateRules(Node n) {
+    int token = n.getType();
+    TokenRules tokenRules =
+        token < rulesByToken.length ? rulesByToken[token] : null;
+    if (tokenRules == null) {
+      return untargetedRules;
+    }
+    if (!tokenRules.byName.isEmpty()) {
+      String name = getTargetName(n);
+      if (name != null) {
+        ImmutableList<RuleEntry> named = tokenRules.byName.get(name);
+        if (named != null) {
+          return named;
+        }
+      }
+    }
+    return tokenRules.anyName;
+  }
+
+  /**
+   * Returns the target name of a node, as described by {@link TargetedRule},
+   * or null if it has none.
+   */
+  @Nullable
+  static String getTargetName(Node n) {
+    switch (n.getType()) {
+      case Token.NAME:
+        return n.getString();
+      case Token.GETPROP:
+      case Token.GETELEM:
+        Node key = n.getLastChild();
+        return key.isString() ? key.getString() : null;
+      default:
+        return null;
     }
   }
 
@@ -93,19 +218,121 @@ public final class CheckConformance extends AbstractPostOrderCallback
    * Build the data structures need by this pass from the provided
    * configurations.
    */
-  private static ImmutableList<Rule> initRules(
+  private static ImmutableList<RuleEntry> initRules(
       AbstractCompiler compiler, ImmutableList<ConformanceConfig> configs) {
-    ImmutableList.Builder<Rule> builder = ImmutableList.builder();
+    ImmutableList.Builder<RuleEntry> builder = ImmutableList.builder();
     List<Requirement> requirements = mergeRequirements(compiler, configs);
-    for (Requirement requirement : requirements) {
+    for (int i = 0; i < requirements.size(); i++) {
+      Requirement requirement = requirements.get(i);
       Rule rule = initRule(compiler, requirement);
       if (rule != null) {
-        builder.add(rule);
+        builder.add(new RuleEntry(rule, getRuleName(requirement, i)));
       }
     }
     return builder.build();
   }
 
+  /**
+   * Returns the name to report the time spent in a rule under: its rule_id
+   * or java_class if it has one, or else its type and position.
+   */
+  private static String getRuleName(Requirement requirement, int index) {
+    if (requirement.hasRuleId()) {
+      return requirement.getRuleId();
+    } else if (requirement.hasJavaClass()) {
+      return requirement.getJavaClass();
+    } else {
+      return requirement.getType() + "#" + index;
+    }
+  }
+
+  /** A configured rule, with the time spent in it. */
+  private static final class RuleEntry {
+    final Rule rule;
+    final String name;
+    @Nullable final ImmutableSet<Integer> targetTokens;
+    @Nullable final ImmutableSet<String> targetNames;
+    long runtimeNanos = 0;
+    int nodes = 0;
+
+    RuleEntry(Rule rule, String name) {
+      this.rule = rule;
+      this.name = name;
+      Rule targetRule = rule instanceof ConformanceRules.CustomRuleProxy
+          ? ((ConformanceRules.CustomRuleProxy) rule).customRule : rule;
+      if (targetRule instanceof TargetedRule) {
+        this.targetTokens = ((TargetedRule) targetRule).getTargetTokens();
+        this.targetNames = ((TargetedRule) targetRule).getTargetNames();
+      } else {
+        this.targetTokens = null;
+        this.targetNames = null;
+      }
+    }
+
+    boolean canReport(int token, @Nullable String name) {
+      if (targetTokens == null) {
+        return true;
+      }
+      return targetTokens.contains(token)
+          && (targetNames == null || targetNames.contains(name));
+    }
+  }
+
+  /**
+   * The rules to offer nodes of one token type, each list in the order the
+   * rules were configured.
+   */
+  private static final class TokenRules {
+    // The rules to offer nodes whose target name no rule targets.
+    final ImmutableList<RuleEntry> anyName;
+    // The rules to offer nodes with each target name that some rule targets.
+    final ImmutableMap<String, ImmutableList<RuleEntry>> byName;
+
+    TokenRules(ImmutableList<RuleEntry> anyName,
+        ImmutableMap<String, ImmutableList<RuleEntry>> byName) {
+      this.anyName = anyName;
+      this.byName = byName;
+    }
+
+    /**
+     * Returns the rules to offer nodes of the given token type, or null if
+     * no rule targets it.
+     */
+    @Nullable
+    static TokenRules build(List<RuleEntry> rules, int token) {
+      Set<String> names = new HashSet<>();
+      boolean targeted = false;
+      for (RuleEntry entry : rules) {
+        if (entry.targetTokens != null && entry.targetTokens.contains(token)) {
+          targeted = true;
+          if (entry.targetNames != null) {
+            names.addAll(entry.targetNames);
+          }
+        }
+      }
+      if (!targeted) {
+        return null;
+      }
+      ImmutableMap.Builder<String, ImmutableList<RuleEntry>> byName =
+          ImmutableMap.builder();
+      for (String name : names) {
+        byName.put(name, rulesFor(rules, token, name));
+      }
+      return new TokenRules(rulesFor(rules, token, null), byName.build());
+    }
+
+    private static ImmutableList<RuleEntry> rulesFor(
+        List<RuleEntry> rules, int token, @Nullable String name) {
+      ImmutableList.Builder<RuleEntry> builder = ImmutableList.builder();
+      for (RuleEntry entry : rules) {
+        if (entry.canReport(token, name)) {
+          builder.add(entry);
+        }
+      }
+      return builder.build();
+    }
+  }
+
   private static final Set<String> EXTENDABLE_FIELDS = ImmutableSet.of(
       "extends", "whitelist", "whitelist_regexp", "only_apply_to", "only_apply_to_regexp");
 
@@ -1269,6 +1269,7 @@ public class CheckEventfulObjectDisposal implements CompilerPass {
       LiveVariablesAnalysis liveness =
           new LiveVariablesAnalysis(cfg, t.getScope(), compiler);
       liveness.analyze();
+      compiler.recordDataFlowSteps(liveness);
 
       for (Var v : liveness.getEscapedLocals()) {
         eventfulObjectDisposed(t, v.getNode());
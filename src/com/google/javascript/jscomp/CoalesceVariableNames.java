@@ -58,7 +58,7 @@ import java.util.Set;
  *
  */
 class CoalesceVariableNames extends AbstractPostOrderCallback implements
-    CompilerPass, ScopedCallback {
+    FunctionLocalCompilerPass, ScopedCallback {
 
   private final AbstractCompiler compiler;
   private final Deque<GraphColoring<Var, Void>> colorings;
@@ -89,6 +89,16 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     NodeTraversal.traverse(compiler, root, this);
   }
 
+  @Override
+  public void processFunctions(Node root) {
+    NodeTraversal.traverse(compiler, root, this);
+  }
+
+  @Override
+  public void processGlobalCode(Node externs, Node root) {
+    // The global scope is not optimized; see shouldOptimizeScope.
+  }
+
   private static boolean shouldOptimizeScope(Scope scope) {
     // TODO(user): We CAN do this in the global scope, just need to be
     // careful when something is exported. Liveness uses bit-vector for live
@@ -119,6 +129,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
       liveness.markAllParametersEscaped();
     }
     liveness.analyze();
+    compiler.recordDataFlowSteps(liveness);
 
     UndiGraph<Var, Void> interferenceGraph =
         computeVariableNamesInterferenceGraph(
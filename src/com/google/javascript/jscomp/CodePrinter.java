@@ -24,10 +24,11 @@ import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Deque;
-import java.util.List;
+
+import javax.annotation.Nullable;
 
 /**
  * CodePrinter prints out JS code in either pretty format or compact format.
@@ -47,26 +48,47 @@ public final class CodePrinter {
   // version.
 
   private abstract static class MappedCodePrinter extends CodeConsumer {
+    // The number of buffered characters after which the code that can no
+    // longer change is written out, when printing to an output.
+    private static final int FLUSH_THRESHOLD = 8 * 1024;
+
     private final Deque<Mapping> mappings;
-    private final List<Mapping> allMappings;
+    // The mappings not yet added to the source map, in the order in which
+    // they were started.
+    private final Deque<Mapping> pendingMappings;
+    private final SourceMap sourceMap;
     private final boolean createSrcMap;
     private final SourceMap.DetailLevel sourceMapDetailLevel;
-    protected final StringBuilder code = new StringBuilder(1024);
+    private final Appendable out;
+    // The code that has not been written to the output yet. Positions in
+    // the code are counted from the start of the output, so they must be
+    // offset by flushedLength to index into this buffer.
+    private final StringBuilder code = new StringBuilder(1024);
+    private int flushedLength = 0;
     protected final int lineLengthThreshold;
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
+    /**
+     * @param sourceMap The source map to add the mappings to, or null to
+     *     not gather source position mapping information.
+     * @param out The output to write the code to as it is generated, or
+     *     null to keep the code in memory until {@link #getCode}.
+     */
     MappedCodePrinter(
         int lineLengthThreshold,
-        boolean createSrcMap,
-        SourceMap.DetailLevel sourceMapDetailLevel) {
+        @Nullable SourceMap sourceMap,
+        SourceMap.DetailLevel sourceMapDetailLevel,
+        @Nullable Appendable out) {
       Preconditions.checkState(sourceMapDetailLevel != null);
       this.lineLengthThreshold = lineLengthThreshold <= 0 ? Integer.MAX_VALUE :
         lineLengthThreshold;
-      this.createSrcMap = createSrcMap;
+      this.sourceMap = sourceMap;
+      this.createSrcMap = sourceMap != null;
       this.sourceMapDetailLevel = sourceMapDetailLevel;
+      this.out = out;
       this.mappings = createSrcMap ? new ArrayDeque<Mapping>() : null;
-      this.allMappings = createSrcMap ? new ArrayList<Mapping>() : null;
+      this.pendingMappings = createSrcMap ? new ArrayDeque<Mapping>() : null;
     }
 
     /**
@@ -103,7 +125,7 @@ public final class CodePrinter {
         mapping.node = node;
         mapping.start = new FilePosition(line, index);
         mappings.push(mapping);
-        allMappings.add(mapping);
+        pendingMappings.add(mapping);
       }
     }
 
@@ -123,15 +145,78 @@ public final class CodePrinter {
     }
 
     /**
-     * Generates the source map from the given code consumer,
-     * appending the information it saved to the SourceMap
-     * object given.
+     * Adds the pending mappings that can no longer move to the source map.
+     * Line cuts only move positions on the current line, so a finished
+     * mapping that lies entirely on earlier lines is final. Mappings are
+     * added in the order in which they were started, as the source map
+     * requires.
+     */
+    private void addSettledMappings() {
+      while (!pendingMappings.isEmpty()) {
+        Mapping mapping = pendingMappings.peek();
+        if (mapping.end == null
+            || mapping.start.getLine() >= lineIndex
+            || mapping.end.getLine() >= lineIndex) {
+          return;
+        }
+        pendingMappings.remove();
+        sourceMap.addMapping(mapping.node, mapping.start, mapping.end);
+      }
+    }
+
+    /**
+     * Writes out the code before the given position, which must no longer
+     * change.
+     */
+    private void flush(int position) {
+      int count = position - flushedLength;
+      if (count <= 0) {
+        return;
+      }
+      try {
+        out.append(code, 0, count);
+      } catch (IOException e) {
+        throw new OutputException(e);
+      }
+      code.delete(0, count);
+      flushedLength = position;
+    }
+
+    /**
+     * Writes out the code that can no longer change and adds its mappings
+     * to the source map, if enough code has been buffered.
      */
-    void generateSourceMap(SourceMap map){
+    protected final void maybeFlush() {
+      if (out != null && code.length() >= FLUSH_THRESHOLD) {
+        flush(getSettledLength());
+        if (createSrcMap) {
+          addSettledMappings();
+        }
+      }
+    }
+
+    /**
+     * Returns the length of the part of the code that later output can no
+     * longer change. The last character is always kept, for
+     * {@link #getLastChar}.
+     */
+    int getSettledLength() {
+      return getLength() - 1;
+    }
+
+    /**
+     * Writes out the rest of the code and adds the remaining mappings to
+     * the source map. Called once the whole tree has been printed.
+     */
+    void finish() {
+      if (out != null) {
+        flush(getLength());
+      }
       if (createSrcMap) {
-        for (Mapping mapping : allMappings) {
-          map.addMapping(mapping.node, mapping.start, mapping.end);
+        for (Mapping mapping : pendingMappings) {
+          sourceMap.addMapping(mapping.node, mapping.start, mapping.end);
         }
+        pendingMappings.clear();
       }
     }
 
@@ -144,7 +229,7 @@ public final class CodePrinter {
      */
     void reportLineCut(int lineIndex, int charIndex, boolean insertion) {
       if (createSrcMap) {
-        for (Mapping mapping : allMappings) {
+        for (Mapping mapping : pendingMappings) {
           mapping.start = convertPosition(mapping.start, lineIndex, charIndex,
               insertion);
 
@@ -201,6 +286,7 @@ public final class CodePrinter {
     }
 
     public String getCode() {
+      Preconditions.checkState(out == null);
       return code.toString();
     }
 
@@ -209,6 +295,31 @@ public final class CodePrinter {
       return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
     }
 
+    /** Returns the length of the code printed so far. */
+    protected final int getLength() {
+      return flushedLength + code.length();
+    }
+
+    protected final char charAt(int position) {
+      return code.charAt(position - flushedLength);
+    }
+
+    protected final void setCharAt(int position, char c) {
+      code.setCharAt(position - flushedLength, c);
+    }
+
+    protected final void insert(int position, char c) {
+      code.insert(position - flushedLength, c);
+    }
+
+    protected final void appendToCode(String str) {
+      code.append(str);
+    }
+
+    protected final void appendToCode(char c) {
+      code.append(c);
+    }
+
     protected final int getCurrentCharIndex() {
       return lineLength;
     }
@@ -228,15 +339,18 @@ public final class CodePrinter {
     /**
      * @param lineLengthThreshold The length of a line after which we force
      *                            a newline when possible.
-     * @param createSourceMap Whether to generate source map data.
+     * @param sourceMap The source map to add the mappings to, or null to
+     *     not generate source map data.
      * @param sourceMapDetailLevel A filter to control which nodes get mapped
      *     into the source map.
+     * @param out The output to write the code to, or null to keep it.
      */
     private PrettyCodePrinter(
         int lineLengthThreshold,
-        boolean createSourceMap,
-        SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
+        SourceMap sourceMap,
+        SourceMap.DetailLevel sourceMapDetailLevel,
+        Appendable out) {
+      super(lineLengthThreshold, sourceMap, sourceMapDetailLevel, out);
     }
 
     /**
@@ -247,12 +361,13 @@ public final class CodePrinter {
       // For pretty printing: indent at the beginning of the line
       if (lineLength == 0) {
         for (int i = 0; i < indent; i++) {
-          code.append(INDENT);
+          appendToCode(INDENT);
           lineLength += INDENT.length();
         }
       }
-      code.append(str);
+      appendToCode(str);
       lineLength += str.length();
+      maybeFlush();
     }
 
     /**
@@ -262,7 +377,7 @@ public final class CodePrinter {
     @Override
     void startNewLine() {
       if (lineLength > 0) {
-        code.append('\n');
+        appendToCode('\n');
         lineIndex++;
         lineLength = 0;
       }
@@ -429,15 +544,17 @@ public final class CodePrinter {
    * @param lineBreak break the lines a bit more aggressively
    * @param lineLengthThreshold The length of a line after which we force
    *                            a newline when possible.
-   * @param createSrcMap Whether to gather source position
-   *                            mapping information when printing.
+   * @param sourceMap The source map to add the position mappings to, or
+   *     null to not gather them.
    * @param sourceMapDetailLevel A filter to control which nodes get mapped into
    *     the source map.
+   * @param out The output to write the code to, or null to keep it.
    */
     private CompactCodePrinter(boolean lineBreak,
         boolean preferLineBreakAtEndOfFile, int lineLengthThreshold,
-        boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+        SourceMap sourceMap, SourceMap.DetailLevel sourceMapDetailLevel,
+        Appendable out) {
+      super(lineLengthThreshold, sourceMap, sourceMapDetailLevel, out);
       this.lineBreak = lineBreak;
       this.preferLineBreakAtEndOfFile = preferLineBreakAtEndOfFile;
     }
@@ -447,8 +564,9 @@ public final class CodePrinter {
      */
     @Override
     void append(String str) {
-      code.append(str);
+      appendToCode(str);
       lineLength += str.length();
+      maybeFlush();
     }
 
     /**
@@ -457,12 +575,12 @@ public final class CodePrinter {
     @Override
     void startNewLine() {
       if (lineLength > 0) {
-        prevCutPosition = code.length();
+        prevCutPosition = getLength();
         prevLineStartPosition = lineStartPosition;
-        code.append('\n');
+        appendToCode('\n');
         lineLength = 0;
         lineIndex++;
-        lineStartPosition = code.length();
+        lineStartPosition = getLength();
       }
     }
 
@@ -478,9 +596,9 @@ public final class CodePrinter {
       // Since we are at a legal line break, can we upgrade the
       // preferred break position?  We prefer to break after a
       // semicolon rather than before it.
-      int len = code.length();
+      int len = getLength();
       if (preferredBreakPosition == len - 1) {
-        char ch = code.charAt(len - 1);
+        char ch = charAt(len - 1);
         if (ch == ';') {
           preferredBreakPosition = len;
         }
@@ -499,7 +617,7 @@ public final class CodePrinter {
         if (preferredBreakPosition > lineStartPosition &&
             preferredBreakPosition < lineStartPosition + lineLength) {
           int position = preferredBreakPosition;
-          code.insert(position, '\n');
+          insert(position, '\n');
           prevCutPosition = position;
           reportLineCut(lineIndex, position - lineStartPosition, true);
           lineIndex++;
@@ -513,7 +631,24 @@ public final class CodePrinter {
 
     @Override
     void notePreferredLineBreak() {
-      preferredBreakPosition = code.length();
+      preferredBreakPosition = getLength();
+    }
+
+    /**
+     * Keeps the current line, where a line break may still be inserted, and
+     * the last line break, which {@link #endFile} may still undo.
+     */
+    @Override
+    int getSettledLength() {
+      int settledLength = super.getSettledLength();
+      if (lineLengthThreshold != Integer.MAX_VALUE) {
+        settledLength = Math.min(settledLength, lineStartPosition - 1);
+      }
+      if (preferLineBreakAtEndOfFile && prevCutPosition > 0) {
+        // Lines are broken after functions even when they are never cut.
+        settledLength = Math.min(settledLength, prevCutPosition);
+      }
+      return settledLength;
     }
 
     @Override
@@ -530,9 +665,9 @@ public final class CodePrinter {
         // Shift the previous break to end of file by replacing it with a
         // <space> and adding a new break at end of file. Adding the space
         // handles cases like instanceof\nfoo. (it would be nice to avoid this)
-        code.setCharAt(prevCutPosition, ' ');
+        setCharAt(prevCutPosition, ' ');
         lineStartPosition = prevLineStartPosition;
-        lineLength = code.length() - lineStartPosition;
+        lineLength = getLength() - lineStartPosition;
         reportLineCut(lineIndex, prevCutPosition + 1, false);
         lineIndex--;
         prevCutPosition = 0;
@@ -639,6 +774,24 @@ public final class CodePrinter {
       return toSource(root, Format.fromOptions(options, outputTypes), options, registry,
               sourceMap, tagAsStrict);
     }
+
+    /**
+     * Generates the source code and writes it to the given output as it is
+     * generated, rather than keeping all of it in memory.
+     */
+    public void build(Appendable out) throws IOException {
+      if (root == null) {
+        throw new IllegalStateException(
+            "Cannot build without root node being specified");
+      }
+
+      try {
+        print(root, Format.fromOptions(options, outputTypes), options,
+            registry, sourceMap, tagAsStrict, out);
+      } catch (OutputException e) {
+        throw e.getCause();
+      }
+    }
   }
 
   enum Format {
@@ -663,21 +816,33 @@ public final class CodePrinter {
   private static String toSource(Node root, Format outputFormat,
       CompilerOptions options, JSTypeRegistry registry,
       SourceMap sourceMap,  boolean tagAsStrict) {
+    return print(root, outputFormat, options, registry, sourceMap,
+        tagAsStrict, null).getCode();
+  }
+
+  /**
+   * Prints a tree as JS code, either to the given output or, if it is null,
+   * into the returned printer.
+   */
+  private static MappedCodePrinter print(Node root, Format outputFormat,
+      CompilerOptions options, JSTypeRegistry registry,
+      SourceMap sourceMap, boolean tagAsStrict, @Nullable Appendable out) {
     Preconditions.checkState(options.sourceMapDetailLevel != null);
 
-    boolean createSourceMap = (sourceMap != null);
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
             options.lineBreak,
             options.preferLineBreakAtEndOfFile,
             options.lineLengthThreshold,
-            createSourceMap,
-            options.sourceMapDetailLevel)
+            sourceMap,
+            options.sourceMapDetailLevel,
+            out)
         : new PrettyCodePrinter(
             options.lineLengthThreshold,
-            createSourceMap,
-            options.sourceMapDetailLevel);
+            sourceMap,
+            options.sourceMapDetailLevel,
+            out);
     CodeGenerator cg =
         outputFormat == Format.TYPED
         ? new TypedCodeGenerator(mcp, options, registry)
@@ -689,13 +854,22 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
+    mcp.finish();
+    return mcp;
+  }
 
-    String code = mcp.getCode();
-
-    if (createSourceMap) {
-      mcp.generateSourceMap(sourceMap);
+  /**
+   * Carries an error writing to the output out of the code generator, whose
+   * methods cannot throw checked exceptions.
+   */
+  private static final class OutputException extends RuntimeException {
+    OutputException(IOException cause) {
+      super(cause);
     }
 
-    return code;
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
   }
 }
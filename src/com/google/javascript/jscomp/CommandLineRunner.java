@@ -49,6 +49,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.lang.reflect.AnnotatedElement;
@@ -560,6 +561,51 @@ public class CommandLineRunner extends
         usage = "In development new type inference pass. DO NOT USE!")
     private boolean useNewTypeInference = false;
 
+    @Option(name = "--new_type_inf_threads",
+        hidden = true,
+        usage = "The number of threads used by the new type inference to "
+        + "analyze functions. Defaults to 1.")
+    private int newTypeInferenceThreads = 1;
+
+    @Option(name = "--parse_threads",
+        hidden = true,
+        usage = "The number of threads used to parse the input files. "
+        + "Defaults to 1, which parses each file on the compiler thread.")
+    private int parseThreads = 1;
+
+    @Option(name = "--optimization_threads",
+        hidden = true,
+        usage = "The number of threads used to run function-local "
+        + "optimization passes. Defaults to 1.")
+    private int optimizationThreads = 1;
+
+    @Option(name = "--output_threads",
+        hidden = true,
+        usage = "The number of threads used to generate the code and source "
+        + "maps of the modules. Defaults to 1.")
+    private int outputThreads = 1;
+
+    @Option(name = "--compile_server",
+        hidden = true,
+        handler = BooleanOptionHandler.class,
+        usage = "Runs a compile server, which reads compile requests from "
+        + "stdin and writes their results to stdout, one per line, until "
+        + "stdin is closed. Each request is a JSON array of the flags for "
+        + "one compile.")
+    private boolean compileServer = false;
+
+    @Option(name = "--parse_cache_dir",
+        hidden = true,
+        usage = "A directory in which to cache the parse trees of the input "
+        + "files, so that files that did not change are not parsed again.")
+    private String parseCacheDir = null;
+
+    @Option(name = "--parse_cache_max_mb",
+        hidden = true,
+        usage = "The maximum size of the parse cache in megabytes. The least "
+        + "recently used entries are deleted to stay under this size.")
+    private int parseCacheMaxMb = 512;
+
     @Option(name = "--rename_prefix_namespace",
         usage = "Specifies the name of an object that will be used to store all "
         + "non-extern globals")
@@ -818,6 +864,9 @@ public class CommandLineRunner extends
    */
   private PrintStream errorStream;
 
+  // The default externs to use in place of the ones in externs.zip, or null.
+  private List<SourceFile> defaultExterns = null;
+
   /**
    * Create a new command-line runner. You should only need to call
    * the constructor if you're extending this class. Otherwise, the main
@@ -1035,6 +1084,7 @@ public class CommandLineRunner extends
           .setOutputWrapper(flags.outputWrapper)
           .setModuleWrapper(flags.moduleWrapper)
           .setModuleOutputPathPrefix(flags.moduleOutputPathPrefix)
+          .setOutputThreads(flags.outputThreads)
           .setCreateSourceMap(flags.createSourceMap)
           .setSourceMapFormat(flags.sourceMapFormat)
           .setSourceMapLocationMappings(mappings)
@@ -1080,6 +1130,13 @@ public class CommandLineRunner extends
 
     options.setAllowEs6ToEs6(flags.allowEs6ToEs6);
     options.setExtraAnnotationNames(flags.extraAnnotationName);
+    options.setParseThreads(flags.parseThreads);
+    options.setOptimizationThreads(flags.optimizationThreads);
+    options.setNewTypeInferenceThreads(flags.newTypeInferenceThreads);
+    if (flags.parseCacheDir != null) {
+      options.setParseCacheDirectory(new File(flags.parseCacheDir));
+      options.setParseCacheMaxBytes(flags.parseCacheMaxMb * 1024L * 1024L);
+    }
 
     CompilationLevel level = flags.compilationLevelParsed;
     level.setOptionsForCompilationLevel(options);
@@ -1146,12 +1203,13 @@ public class CommandLineRunner extends
   protected List<SourceFile> createExterns() throws FlagUsageException,
       IOException {
     List<SourceFile> externs = super.createExterns();
-    if (flags.useOnlyCustomExterns || isInTestMode()) {
+    if (!usesDefaultExterns()) {
       return externs;
     } else {
-      List<SourceFile> defaultExterns = getDefaultExterns();
-      defaultExterns.addAll(externs);
-      return defaultExterns;
+      List<SourceFile> allExterns = defaultExterns == null
+          ? getDefaultExterns() : new ArrayList<>(defaultExterns);
+      allExterns.addAll(externs);
+      return allExterns;
     }
   }
 
@@ -1371,12 +1429,55 @@ public class CommandLineRunner extends
     return this.errors;
   }
 
+  /**
+   * @return whether the flags ask for a compile server rather than a
+   *     single compile.
+   */
+  boolean shouldRunCompileServer() {
+    return this.runCompiler && flags.compileServer;
+  }
+
+  /** @return whether the default externs are added to the externs. */
+  boolean usesDefaultExterns() {
+    return !flags.useOnlyCustomExterns && !isInTestMode();
+  }
+
+  /**
+   * Sets the default externs, so that they are not read from externs.zip
+   * again.
+   */
+  void setDefaultExterns(List<SourceFile> defaultExterns) {
+    this.defaultExterns = defaultExterns;
+  }
+
+  /**
+   * Serves compile requests from stdin until it is closed. See
+   * {@link CompileServer}.
+   */
+  private void runCompileServer() {
+    long parseCacheMaxBytes = flags.parseCacheMaxMb * 1024L * 1024L;
+    ParseCache parseCache = flags.parseCacheDir == null
+        ? ParseCache.createInMemory(parseCacheMaxBytes)
+        : new ParseCache(new File(flags.parseCacheDir), parseCacheMaxBytes);
+    try {
+      new CompileServer(parseCache).serve(
+          new InputStreamReader(System.in, UTF_8),
+          new OutputStreamWriter(System.out, UTF_8));
+    } catch (IOException e) {
+      reportError("ERROR - compile server failed: " + e.getMessage());
+    }
+  }
+
   /**
    * Runs the Compiler. Exits cleanly in the event of an error.
    */
   public static void main(String[] args) {
     CommandLineRunner runner = new CommandLineRunner(args);
-    if (runner.shouldRunCompiler()) {
+    if (runner.shouldRunCompileServer()) {
+      runner.runCompileServer();
+      // The compiler's worker threads would keep the JVM alive.
+      System.exit(runner.hasErrors() ? -1 : 0);
+    } else if (runner.shouldRunCompiler()) {
       runner.run();
     }
     if (runner.hasErrors()) {
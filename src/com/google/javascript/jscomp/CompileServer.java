@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Runs compiles requested over a stream, in a process that stays up between
+ * them. This saves each compile the JVM startup, class loading and JIT
+ * warm-up, and lets the compiles share the default externs and a cache of
+ * parse trees, so that unchanged files are not parsed again.
+ *
+ * <p>Each request is a line holding a JSON array of the command line flags
+ * for one compile, as accepted by {@link CommandLineRunner}. The server
+ * answers each with a line holding a JSON object with the exit status of the
+ * compile and what it printed to stdout and stderr, decoded as UTF-8:
+ *
+ * <pre>
+ * ["--js", "a.js", "--compilation_level", "ADVANCED_OPTIMIZATIONS"]
+ * {"exitCode":0,"stdout":"alert(1);\n","stderr":""}
+ * </pre>
+ *
+ * Requests are run one at a time, in the order they are read. The server
+ * stops at the end of its input.
+ *
+ */
+final class CompileServer {
+  private final ParseCache parseCache;
+  private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+  private List<SourceFile> defaultExterns = null;
+
+  CompileServer(ParseCache parseCache) {
+    this.parseCache = parseCache;
+  }
+
+  /** Serves the requests read from {@code in} until it ends. */
+  void serve(Reader in, Writer out) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    for (String line = reader.readLine(); line != null;
+         line = reader.readLine()) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      out.write(gson.toJson(compile(line)));
+      out.write('\n');
+      out.flush();
+    }
+  }
+
+  /** Runs the compile for one request. */
+  @VisibleForTesting
+  Response compile(String request) {
+    String[] args = null;
+    try {
+      args = gson.fromJson(request, String[].class);
+    } catch (JsonParseException e) {
+      // Reported below.
+    }
+    if (args == null) {
+      return new Response(-1, "",
+          "ERROR - Malformed compile request: " + request + "\n");
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    PrintStream outStream = newPrintStream(out);
+    PrintStream errStream = newPrintStream(err);
+
+    int exitCode;
+    CommandLineRunner runner =
+        new CommandLineRunner(args, outStream, errStream);
+    if (runner.shouldRunCompileServer()) {
+      errStream.println(
+          "ERROR - --compile_server cannot be used in a compile request.");
+      exitCode = -1;
+    } else if (runner.shouldRunCompiler()) {
+      try {
+        if (runner.usesDefaultExterns()) {
+          runner.setDefaultExterns(getDefaultExterns());
+        }
+        // The server's stdin carries the requests, so it is not an input.
+        runner.setStdinAllowed(false);
+        runner.setParseCache(parseCache);
+        exitCode = runner.execute();
+      } catch (IOException e) {
+        errStream.println("ERROR - Cannot read the default externs: "
+            + e.getMessage());
+        exitCode = -1;
+      }
+    } else {
+      exitCode = runner.hasErrors() ? -1 : 0;
+    }
+
+    outStream.flush();
+    errStream.flush();
+    return new Response(exitCode,
+        new String(out.toByteArray(), UTF_8),
+        new String(err.toByteArray(), UTF_8));
+  }
+
+  private List<SourceFile> getDefaultExterns() throws IOException {
+    if (defaultExterns == null) {
+      defaultExterns = CommandLineRunner.getDefaultExterns();
+    }
+    return defaultExterns;
+  }
+
+  private static PrintStream newPrintStream(ByteArrayOutputStream out) {
+    try {
+      return new PrintStream(out, false, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /** The result of one compile request. */
+  static final class Response {
+    final int exitCode;
+    final String stdout;
+    final String stderr;
+
+    Response(int exitCode, String stdout, String stderr) {
+      this.exitCode = exitCode;
+      this.stdout = stdout;
+      this.stderr = stderr;
+    }
+  }
+}
@@ -59,8 +59,12 @@ import java.io.PrintStream;
 import java.io.Serializable;
 import java.nio.file.FileSystems;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -204,6 +208,7 @@ public class Compiler extends AbstractCompiler {
   private JSTypeRegistry typeRegistry;
   private Config parserConfig = null;
   private Config externsParserConfig = null;
+  private ParseCache parseCache = null;
 
   private ReverseAbstractInterpreter abstractInterpreter;
   private TypeValidator typeValidator;
@@ -245,11 +250,19 @@ public class Compiler extends AbstractCompiler {
    * (which is what -Xss does).
    */
   private static final ExecutorService compilerExecutor =
-      Executors.newCachedThreadPool(new ThreadFactory() {
-    @Override public Thread newThread(Runnable r) {
-      return new Thread(null, r, "jscompiler", COMPILER_STACK_SIZE);
-    }
-  });
+      Executors.newCachedThreadPool(newThreadFactory("jscompiler"));
+
+  /**
+   * Returns a factory for threads with the same stack size as the compiler
+   * thread, for passes that do part of their work on other threads.
+   */
+  static ThreadFactory newThreadFactory(final String name) {
+    return new ThreadFactory() {
+      @Override public Thread newThread(Runnable r) {
+        return new Thread(null, r, name, COMPILER_STACK_SIZE);
+      }
+    };
+  }
 
   /**
    * Use a dedicated compiler thread per Compiler instance.
@@ -460,11 +473,17 @@ public class Compiler extends AbstractCompiler {
   private void initBasedOnOptions() {
     // Create the source map if necessary.
     if (options.sourceMapOutputPath != null) {
-      sourceMap = options.sourceMapFormat.getInstance();
-      sourceMap.setPrefixMappings(options.sourceMapLocationMappings);
+      sourceMap = newSourceMap();
     }
   }
 
+  /** Creates an empty source map in the format the options ask for. */
+  SourceMap newSourceMap() {
+    SourceMap map = options.sourceMapFormat.getInstance();
+    map.setPrefixMappings(options.sourceMapLocationMappings);
+    return map;
+  }
+
   private <T extends SourceFile> List<CompilerInput> makeCompilerInput(
       List<T> files, boolean isExtern) {
     List<CompilerInput> inputs = new ArrayList<>(files.size());
@@ -655,6 +674,10 @@ public class Compiler extends AbstractCompiler {
       @Override
       public Result call() throws Exception {
         compileInternal();
+        if (parseCache != null) {
+          // The new cache entries were written while the compile ran.
+          parseCache.awaitWrites();
+        }
         return getResult();
       }
     });
@@ -1123,6 +1146,11 @@ public class Compiler extends AbstractCompiler {
     if (newRoot == null) {
       return false;
     }
+    // Extern inputs are listed in externs, the others in inputs.
+    List<CompilerInput> inputList = oldInput.isExtern() ? externs : inputs;
+    int index = inputList.indexOf(oldInput);
+    Preconditions.checkState(index != -1, "Input not listed: %s",
+        ast.getInputId().getIdName());
 
     Node oldRoot = oldInput.getAstRoot(this);
     if (oldRoot != null) {
@@ -1131,7 +1159,7 @@ public class Compiler extends AbstractCompiler {
       getRoot().getLastChild().addChildToBack(newRoot);
     }
 
-    CompilerInput newInput = new CompilerInput(ast);
+    CompilerInput newInput = new CompilerInput(ast, oldInput.isExtern());
     putCompilerInput(ast.getInputId(), newInput);
 
     JSModule module = oldInput.getModule();
@@ -1146,7 +1174,7 @@ public class Compiler extends AbstractCompiler {
     InputId inputIdOnAst = newInput.getAstRoot(this).getInputId();
     Preconditions.checkState(newInput.getInputId().equals(inputIdOnAst));
 
-    inputs.remove(oldInput);
+    inputList.set(index, newInput);
     return true;
   }
 
@@ -1174,18 +1202,50 @@ public class Compiler extends AbstractCompiler {
     getRoot().getLastChild().addChildToBack(newRoot);
 
     CompilerInput newInput = new CompilerInput(ast);
+    putCompilerInput(ast.getInputId(), newInput);
 
-    // TODO(tylerg): handle this for multiple modules at some point.
-    if (moduleGraph == null && !modules.isEmpty()) {
-      // singleton module
-      modules.get(0).add(newInput);
+    JSModule module = getModuleForNewInput(newInput);
+    if (module == null) {
+      inputs.add(newInput);
+    } else {
+      // Keep the inputs in module order.
+      List<CompilerInput> moduleInputs = module.getInputs();
+      int index = moduleInputs.isEmpty()
+          ? inputs.size()
+          : inputs.indexOf(moduleInputs.get(moduleInputs.size() - 1)) + 1;
+      module.add(newInput);
+      inputs.add(index, newInput);
     }
 
-    putCompilerInput(ast.getInputId(), newInput);
-
     return true;
   }
 
+  /**
+   * Returns the module to add a new input to. With a single module, that is
+   * the module. Otherwise, it is the first module, or the module of an input
+   * that provides a namespace the new input requires, whichever depends on
+   * the others, so that the new input can see what it requires.
+   */
+  private JSModule getModuleForNewInput(CompilerInput newInput) {
+    if (modules == null || modules.isEmpty()) {
+      return null;
+    }
+    JSModule module = modules.get(0);
+    if (moduleGraph == null) {
+      return module;
+    }
+    Collection<String> requires = newInput.getRequires();
+    for (CompilerInput input : inputs) {
+      JSModule inputModule = input.getModule();
+      if (inputModule != null
+          && !Collections.disjoint(input.getProvides(), requires)
+          && moduleGraph.dependsOn(inputModule, module)) {
+        module = inputModule;
+      }
+    }
+    return module;
+  }
+
   @Override
   JSModuleGraph getModuleGraph() {
     return moduleGraph;
@@ -1307,6 +1367,47 @@ public class Compiler extends AbstractCompiler {
   // Parsing
   //------------------------------------------------------------------------
 
+  /**
+   * Runs the parser over the externs and inputs on a pool of worker threads.
+   * Only the parser itself runs concurrently: the resulting trees, and any
+   * errors found while parsing them, are handed to the compiler in input
+   * order when {@link CompilerInput#getAstRoot} is called, so the outcome is
+   * the same as that of a serial parse.
+   */
+  private void parseInputsInParallel(int threadCount) {
+    // Create the parser configs up front, so the workers only read them.
+    Config defaultConfig = getParserConfig(ConfigContext.DEFAULT);
+    Config externsConfig = getParserConfig(ConfigContext.EXTERNS);
+    final ParseCache cache = getParseCache();
+
+    ExecutorService parseExecutor = Executors.newFixedThreadPool(
+        threadCount, newThreadFactory("jscompiler-parser"));
+    try {
+      List<Future<?>> parses = new ArrayList<>();
+      for (CompilerInput input : Iterables.concat(externs, inputs)) {
+        if (!(input.getSourceAst() instanceof JsAst)) {
+          continue;
+        }
+        final JsAst ast = (JsAst) input.getSourceAst();
+        final Config config =
+            ast.getSourceFile().isExtern() ? externsConfig : defaultConfig;
+        parses.add(parseExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            ast.parseInBackground(config, cache);
+          }
+        }));
+      }
+      for (Future<?> parse : parses) {
+        parse.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      parseExecutor.shutdownNow();
+    }
+  }
+
   /**
    * Parses the externs and main inputs.
    *
@@ -1330,6 +1431,10 @@ public class Compiler extends AbstractCompiler {
     beforePass(PARSING_PASS_NAME);
 
     try {
+      if (options.parseThreads > 1) {
+        parseInputsInParallel(options.parseThreads);
+      }
+
       // Parse externs sources.
       for (CompilerInput input : externs) {
         Node n = input.getAstRoot(this);
@@ -1429,6 +1534,9 @@ public class Compiler extends AbstractCompiler {
     } finally {
       afterPass(PARSING_PASS_NAME);
       stopTracer(tracer, PARSING_PASS_NAME);
+      if (parseCache != null) {
+        logger.info(parseCache.toString());
+      }
     }
   }
 
@@ -1663,6 +1771,24 @@ public class Compiler extends AbstractCompiler {
     return input.getAstRoot(this);
   }
 
+  /**
+   * Sets the parse cache to use, in place of the one configured by
+   * {@link CompilerOptions#setParseCacheDirectory}. This lets several
+   * compiles share a cache.
+   */
+  public void setParseCache(ParseCache parseCache) {
+    this.parseCache = parseCache;
+  }
+
+  @Override
+  ParseCache getParseCache() {
+    if (parseCache == null && options.parseCacheDirectory != null) {
+      parseCache = new ParseCache(
+          options.parseCacheDirectory, options.parseCacheMaxBytes);
+    }
+    return parseCache;
+  }
+
   @Override
   ErrorReporter getDefaultErrorReporter() {
     return defaultErrorReporter;
@@ -1682,14 +1808,7 @@ public class Compiler extends AbstractCompiler {
         Tracer tracer = newTracer("toSource");
         try {
           CodeBuilder cb = new CodeBuilder();
-          if (jsRoot != null) {
-            int i = 0;
-            for (Node scriptNode = jsRoot.getFirstChild();
-                 scriptNode != null;
-                 scriptNode = scriptNode.getNext()) {
-              toSource(cb, i++, scriptNode);
-            }
-          }
+          appendSource(cb);
           return cb.toString();
         } finally {
           stopTracer(tracer, "toSource");
@@ -1698,6 +1817,49 @@ public class Compiler extends AbstractCompiler {
     });
   }
 
+  /**
+   * Converts the main parse tree back to JS code, writing it to the given
+   * output as it is generated rather than building it up in memory.
+   */
+  public void toSource(final Appendable out) throws IOException {
+    runStreamingOutput(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        Tracer tracer = newTracer("toSource");
+        try {
+          appendSource(new CodeBuilder(out));
+          return null;
+        } finally {
+          stopTracer(tracer, "toSource");
+        }
+      }
+    });
+  }
+
+  private void appendSource(CodeBuilder cb) {
+    if (jsRoot != null) {
+      int i = 0;
+      for (Node scriptNode = jsRoot.getFirstChild();
+           scriptNode != null;
+           scriptNode = scriptNode.getNext()) {
+        toSource(cb, i++, scriptNode);
+      }
+    }
+  }
+
+  /**
+   * Runs code that writes to an output through a {@link CodeBuilder}, and
+   * rethrows any error writing to the output as it was thrown.
+   */
+  private void runStreamingOutput(Callable<Void> callable) throws IOException {
+    try {
+      runInCompilerThread(callable);
+    } catch (RuntimeException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw e;
+    }
+  }
+
   /**
    * Converts the parse tree for each input back to JS code.
    */
@@ -1731,25 +1893,48 @@ public class Compiler extends AbstractCompiler {
     return runInCompilerThread(new Callable<String>() {
       @Override
       public String call() throws Exception {
-        List<CompilerInput> inputs = module.getInputs();
-        int numInputs = inputs.size();
-        if (numInputs == 0) {
-          return "";
-        }
         CodeBuilder cb = new CodeBuilder();
-        for (int i = 0; i < numInputs; i++) {
-          Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
-          if (scriptNode == null) {
-            throw new IllegalArgumentException(
-                "Bad module: " + module.getName());
-          }
-          toSource(cb, i, scriptNode);
-        }
+        appendSource(cb, module);
         return cb.toString();
       }
     });
   }
 
+  /**
+   * Converts the parse tree for a module back to JS code, writing it to the
+   * given output as it is generated rather than building it up in memory.
+   */
+  public void toSource(final JSModule module, final Appendable out)
+      throws IOException {
+    runStreamingOutput(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        appendSource(new CodeBuilder(out), module);
+        return null;
+      }
+    });
+  }
+
+  private void appendSource(CodeBuilder cb, JSModule module)
+      throws IOException {
+    appendSource(cb, module,
+        options.sourceMapOutputPath != null ? sourceMap : null);
+  }
+
+  private void appendSource(
+      CodeBuilder cb, JSModule module, SourceMap sourceMap)
+      throws IOException {
+    List<CompilerInput> inputs = module.getInputs();
+    for (int i = 0; i < inputs.size(); i++) {
+      Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
+      if (scriptNode == null) {
+        throw new IllegalArgumentException(
+            "Bad module: " + module.getName());
+      }
+      appendScript(cb, i, scriptNode, sourceMap);
+    }
+  }
+
 
   /**
    * Converts the parse tree for each input in a module back to JS code.
@@ -1795,57 +1980,46 @@ public class Compiler extends AbstractCompiler {
     runInCompilerThread(new Callable<Void>() {
       @Override
       public Void call() throws Exception {
-        if (options.printInputDelimiter) {
-          if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
-            cb.append("\n");  // Make sure that the label starts on a new line
-          }
-          Preconditions.checkState(root.isScript());
-
-          String delimiter = options.inputDelimiter;
-
-          String inputName = root.getInputId().getIdName();
-          String sourceName = root.getSourceFileName();
-          Preconditions.checkState(sourceName != null);
-          Preconditions.checkState(!sourceName.isEmpty());
-
-          delimiter = delimiter
-              .replaceAll("%name%", Matcher.quoteReplacement(inputName))
-              .replaceAll("%num%", String.valueOf(inputSeqNum));
-
-          cb.append(delimiter)
-            .append("\n");
-        }
-        if (root.getJSDocInfo() != null &&
-            root.getJSDocInfo().getLicense() != null) {
-          cb.append("/*\n")
-            .append(root.getJSDocInfo().getLicense())
-            .append("*/\n");
-        }
+        appendScript(cb, inputSeqNum, root,
+            options.sourceMapOutputPath != null ? sourceMap : null);
+        return null;
+      }
+    });
+  }
 
-        // If there is a valid source map, then indicate to it that the current
-        // root node's mappings are offset by the given string builder buffer.
-        if (options.sourceMapOutputPath != null) {
-          sourceMap.setStartingPosition(
-              cb.getLineIndex(), cb.getColumnIndex());
-        }
+  /**
+   * Converts the parse tree for a module back to JS code on the calling
+   * thread, recording its mappings in the given source map, if it isn't null,
+   * rather than in the compiler's. Printing code doesn't change the AST, so
+   * several threads may print different modules at once, once
+   * {@link #parseModuleInputs} has run for them.
+   */
+  String toSource(JSModule module, SourceMap sourceMap) {
+    CodeBuilder cb = new CodeBuilder();
+    try {
+      appendSource(cb, module, sourceMap);
+    } catch (IOException e) {
+      // The builder keeps its text in memory, so this can't happen.
+      throw new AssertionError(e);
+    }
+    return cb.toString();
+  }
 
-        // if LanguageMode is strict, only print 'use strict'
-        // for the first input file
-        String code = toSource(root, sourceMap, inputSeqNum == 0);
-        if (!code.isEmpty()) {
-          cb.append(code);
-
-          // In order to avoid parse ambiguity when files are concatenated
-          // together, all files should end in a semi-colon. Do a quick
-          // heuristic check if there's an obvious semi-colon already there.
-          int length = code.length();
-          char lastChar = code.charAt(length - 1);
-          char secondLastChar = length >= 2 ?
-              code.charAt(length - 2) : '\0';
-          boolean hasSemiColon = lastChar == ';' ||
-              (lastChar == '\n' && secondLastChar == ';');
-          if (!hasSemiColon) {
-            cb.append(";");
+  /**
+   * Parses the inputs of the given modules that aren't parsed yet, on the
+   * compiler thread. Parsing an input on demand changes the compiler's
+   * state, so it must not happen on the threads that print the modules.
+   */
+  void parseModuleInputs(final List<JSModule> modules) {
+    runInCompilerThread(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        for (JSModule module : modules) {
+          for (CompilerInput input : module.getInputs()) {
+            if (input.getAstRoot(Compiler.this) == null) {
+              throw new IllegalArgumentException(
+                  "Bad module: " + module.getName());
+            }
           }
         }
         return null;
@@ -1853,6 +2027,62 @@ public class Compiler extends AbstractCompiler {
     });
   }
 
+  private void appendScript(
+      CodeBuilder cb, int inputSeqNum, Node root, SourceMap sourceMap)
+      throws IOException {
+    if (options.printInputDelimiter) {
+      if ((cb.getLength() > 0) && cb.getLastChar() != '\n') {
+        cb.append("\n");  // Make sure that the label starts on a new line
+      }
+      Preconditions.checkState(root.isScript());
+
+      String delimiter = options.inputDelimiter;
+
+      String inputName = root.getInputId().getIdName();
+      String sourceName = root.getSourceFileName();
+      Preconditions.checkState(sourceName != null);
+      Preconditions.checkState(!sourceName.isEmpty());
+
+      delimiter = delimiter
+          .replaceAll("%name%", Matcher.quoteReplacement(inputName))
+          .replaceAll("%num%", String.valueOf(inputSeqNum));
+
+      cb.append(delimiter)
+        .append("\n");
+    }
+    if (root.getJSDocInfo() != null &&
+        root.getJSDocInfo().getLicense() != null) {
+      cb.append("/*\n")
+        .append(root.getJSDocInfo().getLicense())
+        .append("*/\n");
+    }
+
+    // If there is a valid source map, then indicate to it that the current
+    // root node's mappings are offset by the given string builder buffer.
+    if (sourceMap != null) {
+      sourceMap.setStartingPosition(
+          cb.getLineIndex(), cb.getColumnIndex());
+    }
+
+    // if LanguageMode is strict, only print 'use strict'
+    // for the first input file
+    int start = cb.getLength();
+    newCodePrinter(root, sourceMap, inputSeqNum == 0).build(cb);
+    int length = cb.getLength() - start;
+    if (length > 0) {
+      // In order to avoid parse ambiguity when files are concatenated
+      // together, all files should end in a semi-colon. Do a quick
+      // heuristic check if there's an obvious semi-colon already there.
+      char lastChar = cb.getLastChar();
+      char secondLastChar = length >= 2 ? cb.getSecondLastChar() : '\0';
+      boolean hasSemiColon = lastChar == ';' ||
+          (lastChar == '\n' && secondLastChar == ';');
+      if (!hasSemiColon) {
+        cb.append(";");
+      }
+    }
+  }
+
   /**
    * Generates JavaScript source code for an AST, doesn't generate source
    * map info.
@@ -1867,30 +2097,88 @@ public class Compiler extends AbstractCompiler {
    * Generates JavaScript source code for an AST.
    */
   private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+    return newCodePrinter(n, sourceMap, firstOutput).build();
+  }
+
+  private CodePrinter.Builder newCodePrinter(
+      Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setCompilerOptions(options);
     builder.setSourceMap(sourceMap);
     builder.setTagAsStrict(firstOutput && options.getLanguageOut().isStrict());
-    return builder.build();
+    return builder;
   }
 
   /**
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
    */
-  public static class CodeBuilder {
+  public static class CodeBuilder implements Appendable {
     private final StringBuilder sb = new StringBuilder();
+    private final Appendable out;
+    private int length = 0;
     private int lineCount = 0;
     private int colCount = 0;
+    private char lastChar = '\0';
+    private char secondLastChar = '\0';
+
+    public CodeBuilder() {
+      this.out = null;
+    }
+
+    /**
+     * Creates a builder that writes its text through to the given output
+     * instead of keeping it. Errors writing to the output are rethrown as
+     * unchecked exceptions.
+     */
+    CodeBuilder(Appendable out) {
+      this.out = Preconditions.checkNotNull(out);
+    }
 
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
+      Preconditions.checkState(out == null);
       sb.setLength(0);
+      length = 0;
+      lastChar = '\0';
+      secondLastChar = '\0';
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence csq) {
+      return append(csq.toString());
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence csq, int start, int end) {
+      return append(csq.subSequence(start, end).toString());
+    }
+
+    @Override
+    public CodeBuilder append(char c) {
+      return append(String.valueOf(c));
     }
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
-      sb.append(str);
+      if (out == null) {
+        sb.append(str);
+      } else {
+        try {
+          out.append(str);
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+      int strLength = str.length();
+      length += strLength;
+      if (strLength >= 2) {
+        secondLastChar = str.charAt(strLength - 2);
+        lastChar = str.charAt(strLength - 1);
+      } else if (strLength == 1) {
+        secondLastChar = lastChar;
+        lastChar = str.charAt(0);
+      }
 
       // Adjust the line and column information for the new text.
       int index = -1;
@@ -1913,12 +2201,26 @@ public class Compiler extends AbstractCompiler {
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
+      Preconditions.checkState(out == null);
       return sb.toString();
     }
 
     /** Returns the length of the text buffer. */
     public int getLength() {
-      return sb.length();
+      return length;
+    }
+
+    /** Returns the last character of the text, or 0 if there is none. */
+    char getLastChar() {
+      return lastChar;
+    }
+
+    /**
+     * Returns the second to last character of the text, or 0 if there is
+     * none.
+     */
+    char getSecondLastChar() {
+      return secondLastChar;
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -1933,6 +2235,7 @@ public class Compiler extends AbstractCompiler {
 
     /** Determines whether the text ends with the given suffix. */
     boolean endsWith(String suffix) {
+      Preconditions.checkState(out == null);
       return (sb.length() > suffix.length())
           && suffix.equals(sb.substring(sb.length() - suffix.length()));
     }
@@ -1968,6 +2271,7 @@ public class Compiler extends AbstractCompiler {
     if (options.getCheckDeterminism()) {
       phaseOptimizer.setPrintAstHashcodes(true);
     }
+    phaseOptimizer.setThreadCount(options.optimizationThreads);
     phaseOptimizer.consume(optimizations);
     phaseOptimizer.process(externsRoot, jsRoot);
     phaseOptimizer = null;
@@ -2041,12 +2345,28 @@ public class Compiler extends AbstractCompiler {
 
   @Override
   void addChangeHandler(CodeChangeHandler handler) {
-    codeChangeHandlers.add(handler);
+    getChangeHandlers().add(handler);
   }
 
   @Override
   void removeChangeHandler(CodeChangeHandler handler) {
-    codeChangeHandlers.remove(handler);
+    getChangeHandlers().remove(handler);
+  }
+
+  /**
+   * Returns the handlers to notify of code changes made on the current
+   * thread. Function-local passes running on the worker threads of the
+   * phase optimizer have handlers of their own.
+   */
+  private List<CodeChangeHandler> getChangeHandlers() {
+    if (phaseOptimizer != null) {
+      List<CodeChangeHandler> handlers =
+          phaseOptimizer.getSubtreeChangeHandlers();
+      if (handlers != null) {
+        return handlers;
+      }
+    }
+    return codeChangeHandlers;
   }
 
   @Override
@@ -2093,7 +2413,7 @@ public class Compiler extends AbstractCompiler {
 
   @Override
   public void reportCodeChange() {
-    for (CodeChangeHandler handler : codeChangeHandlers) {
+    for (CodeChangeHandler handler : getChangeHandlers()) {
       handler.reportChange();
     }
   }
@@ -2200,6 +2520,10 @@ public class Compiler extends AbstractCompiler {
 
   @Override
   public void report(JSError error) {
+    if (phaseOptimizer != null && phaseOptimizer.deferSubtreeError(error)) {
+      return;
+    }
+
     CheckLevel level = error.getDefaultLevel();
     if (warningsGuard != null) {
       CheckLevel newLevel = warningsGuard.level(error);
@@ -2420,6 +2744,33 @@ public class Compiler extends AbstractCompiler {
     return errorManager;
   }
 
+  @Override
+  void recordDataFlowSteps(DataFlowAnalysis<Node, ?> analysis) {
+    if (tracker != null) {
+      ControlFlowGraph<Node> cfg = analysis.getCfg();
+      tracker.recordDataFlowSteps(cfg.getEntry().getValue(),
+          cfg.getNodes().size(), analysis.getStepCount());
+    }
+  }
+
+  @Override
+  void recordConformanceRuleStats(String rule, int nodes, long runtime) {
+    if (tracker != null) {
+      tracker.recordConformanceRuleStats(rule, nodes, runtime);
+    }
+  }
+
+  @Override
+  ControlFlowGraph<Node> getControlFlowGraph(
+      Node root, boolean shouldTraverseFunctions, boolean edgeAnnotations) {
+    if (phaseOptimizer != null) {
+      return phaseOptimizer.getControlFlowGraph(
+          root, shouldTraverseFunctions, edgeAnnotations);
+    }
+    return ControlFlowAnalysis.computeCfg(
+        this, root, shouldTraverseFunctions, edgeAnnotations);
+  }
+
   @Override
   List<CompilerInput> getInputsInOrder() {
     return Collections.unmodifiableList(inputs);
@@ -2600,6 +2951,10 @@ public class Compiler extends AbstractCompiler {
    * already exists the script will not be added, instead a call to
    * #replaceScript should be used.
    *
+   * <p>With several modules, the script goes to the first module, or to the
+   * module of a script that provides a namespace it requires, whichever
+   * depends on the others.
+   *
    * @param ast the ast of the new file
    */
   public void addNewScript(JsAst ast) {
@@ -2615,6 +2970,99 @@ public class Compiler extends AbstractCompiler {
     processNewScript(ast, emptyScript);
   }
 
+  /**
+   * Recompiles the given files in hot-swap mode, after the whole program was
+   * compiled. Each file replaces the script with the same name, or is added
+   * as a new script. The scripts that goog.require a namespace provided by a
+   * changed file, directly or through other such scripts, are recompiled from
+   * their sources as well. Only the modules that depend on the module of a
+   * changed file are searched for them. A new script is added to a module as
+   * described in {@link #addNewScript}.
+   *
+   * <p>Like {@link #replaceScript}, this only runs the checks that support hot
+   * swapping, so the code returned is not optimized: passes such as inlining
+   * and renaming look at the whole program, and need a full compile.
+   *
+   * @param changedFiles the new versions of the changed files
+   * @return the code of each module with a recompiled script, in module order.
+   *     Without modules, this is the code of the single module holding all
+   *     the scripts.
+   */
+  public Map<JSModule, String> recompileChangedFiles(
+      List<SourceFile> changedFiles) {
+    Set<String> provides = new HashSet<>();
+    Set<CompilerInput> recompiled = new LinkedHashSet<>();
+    for (SourceFile file : changedFiles) {
+      JsAst ast = new JsAst(file);
+      CompilerInput oldInput = getInput(ast.getInputId());
+      if (oldInput != null) {
+        // Scripts that required what the file no longer provides change too.
+        provides.addAll(oldInput.getProvides());
+        replaceScript(ast);
+      } else {
+        addNewScript(ast);
+      }
+      CompilerInput input = getInput(ast.getInputId());
+      if (input != null) {
+        provides.addAll(input.getProvides());
+        recompiled.add(input);
+      }
+    }
+
+    Set<JSModule> changedModules = new HashSet<>();
+    for (CompilerInput input : recompiled) {
+      changedModules.add(input.getModule());
+    }
+    List<CompilerInput> dependents = new ArrayList<>();
+    boolean found = true;
+    while (found) {
+      found = false;
+      for (CompilerInput input : inputs) {
+        if (!recompiled.contains(input)
+            && mayDependOn(input.getModule(), changedModules)
+            && !Collections.disjoint(input.getRequires(), provides)) {
+          provides.addAll(input.getProvides());
+          recompiled.add(input);
+          dependents.add(input);
+          found = true;
+        }
+      }
+    }
+    for (CompilerInput input : dependents) {
+      replaceScript(new JsAst(input.getSourceFile()));
+    }
+
+    Set<JSModule> affectedModules = new HashSet<>();
+    for (CompilerInput input : recompiled) {
+      affectedModules.add(getInput(input.getInputId()).getModule());
+    }
+    Map<JSModule, String> output = new LinkedHashMap<>();
+    if (modules != null) {
+      for (JSModule module : modules) {
+        if (affectedModules.contains(module)) {
+          output.put(module, toSource(module));
+        }
+      }
+    }
+    return output;
+  }
+
+  /**
+   * Whether the scripts of a module can require what the scripts of any of
+   * the given modules provide.
+   */
+  private boolean mayDependOn(JSModule module, Set<JSModule> others) {
+    if (moduleGraph == null || module == null || others.contains(module)) {
+      return true;
+    }
+    for (JSModule other : others) {
+      if (other == null || moduleGraph.dependsOn(module, other)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void processNewScript(JsAst ast, Node originalRoot) {
     Node js = ast.getAstRoot(this);
     Preconditions.checkNotNull(js);
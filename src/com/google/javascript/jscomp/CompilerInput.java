@@ -125,6 +125,11 @@ public class CompilerInput
     ast.clearAst();
   }
 
+  /** Returns the AST holder that backs this input. */
+  SourceAst getSourceAst() {
+    return ast;
+  }
+
   @Override
   public SourceFile getSourceFile() {
     return ast.getSourceFile();
@@ -27,6 +27,7 @@ import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.SourcePosition;
 
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.Collections;
@@ -152,11 +153,60 @@ public class CompilerOptions implements Serializable, Cloneable {
   // The new type inference is a work in progress. Don't use.
   boolean useNewTypeInference;
 
+  /**
+   * The number of threads used by the new type inference to analyze
+   * functions. With one thread, functions are analyzed on the compiler
+   * thread.
+   */
+  int newTypeInferenceThreads = 1;
+
   /**
    * Configures the compiler to skip as many passes as possible.
    */
   boolean skipAllPasses;
 
+  /**
+   * The number of threads used to parse the input files. With one thread,
+   * the inputs are parsed on the compiler thread as they are needed.
+   */
+  int parseThreads = 1;
+
+  public void setParseThreads(int parseThreads) {
+    this.parseThreads = parseThreads;
+  }
+
+  /**
+   * The number of threads used to run function-local optimization passes,
+   * such as the peephole optimizations, on different functions at once. With
+   * one thread, these passes run on the compiler thread.
+   */
+  int optimizationThreads = 1;
+
+  public void setOptimizationThreads(int optimizationThreads) {
+    this.optimizationThreads = optimizationThreads;
+  }
+
+  /**
+   * The directory holding the on-disk cache of parse trees, or null if
+   * parse trees are not cached.
+   */
+  File parseCacheDirectory = null;
+
+  /** The maximum total size of the parse cache, in bytes. */
+  long parseCacheMaxBytes = 512L * 1024 * 1024;
+
+  /**
+   * Caches the parse trees of the input files in the given directory, so
+   * that unchanged files need not be parsed again by later compiles.
+   */
+  public void setParseCacheDirectory(File parseCacheDirectory) {
+    this.parseCacheDirectory = parseCacheDirectory;
+  }
+
+  public void setParseCacheMaxBytes(long parseCacheMaxBytes) {
+    this.parseCacheMaxBytes = parseCacheMaxBytes;
+  }
+
   /**
    * Configures the compiler to run expensive sanity checks after
    * every pass. Only intended for internal development.
@@ -1695,6 +1745,10 @@ public class CompilerOptions implements Serializable, Cloneable {
     useNewTypeInference = enable;
   }
 
+  public void setNewTypeInferenceThreads(int newTypeInferenceThreads) {
+    this.newTypeInferenceThreads = newTypeInferenceThreads;
+  }
+
   /**
    * @return Whether assumeStrictThis is set.
    */
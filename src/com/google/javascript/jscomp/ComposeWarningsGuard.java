@@ -17,15 +17,20 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WarningsGuard that represents just a chain of other guards. For example we
@@ -77,6 +82,56 @@ public class ComposeWarningsGuard extends WarningsGuard {
   private final TreeSet<WarningsGuard> guards =
       new TreeSet<>(guardComparator);
 
+  // For the errors with a given source name, type and default level, the
+  // guards left to apply once the guards that depend only on those have been
+  // applied. Filled in as errors are reported, and cleared when a guard is
+  // added.
+  private transient Map<LevelKey, ResolvedGuards> resolvedGuards =
+      new ConcurrentHashMap<>();
+
+  /** The source name, type and default level of an error. */
+  private static final class LevelKey {
+    private final String sourceName;
+    private final DiagnosticType type;
+    private final CheckLevel defaultLevel;
+
+    LevelKey(JSError error) {
+      this.sourceName = error.sourceName;
+      this.type = error.getType();
+      this.defaultLevel = error.getDefaultLevel();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof LevelKey)) {
+        return false;
+      }
+      LevelKey other = (LevelKey) o;
+      return Objects.equal(sourceName, other.sourceName)
+          && type.equals(other.type)
+          && defaultLevel == other.defaultLevel;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(sourceName, type, defaultLevel);
+    }
+  }
+
+  /**
+   * The guards that still have to look at an error, in order, and the level
+   * to give the error if none of them knows what to do with it.
+   */
+  private static final class ResolvedGuards {
+    final List<WarningsGuard> guards;
+    final CheckLevel level;
+
+    ResolvedGuards(List<WarningsGuard> guards, CheckLevel level) {
+      this.guards = guards;
+      this.level = level;
+    }
+  }
+
   public ComposeWarningsGuard(List<WarningsGuard> guards) {
     addGuards(guards);
   }
@@ -100,6 +155,7 @@ public class ComposeWarningsGuard extends WarningsGuard {
       guards.remove(guard);
       guards.add(guard);
     }
+    resolvedGuards.clear();
   }
 
   private void addGuards(Iterable<WarningsGuard> guards) {
@@ -110,16 +166,44 @@ public class ComposeWarningsGuard extends WarningsGuard {
 
   @Override
   public CheckLevel level(JSError error) {
+    LevelKey key = new LevelKey(error);
+    ResolvedGuards resolved = resolvedGuards.get(key);
+    if (resolved == null) {
+      resolved = resolveGuards(error);
+      resolvedGuards.put(key, resolved);
+    }
+    for (WarningsGuard guard : resolved.guards) {
+      CheckLevel newLevel = guard.level(error);
+      if (newLevel != null) {
+        return demote(newLevel);
+      }
+    }
+    return resolved.level == null ? null : demote(resolved.level);
+  }
+
+  /**
+   * Applies the guards that depend only on the source name, type and default
+   * level of the error, until one of them knows what to do with it. The other
+   * guards up to that one are left to apply to each error.
+   */
+  private ResolvedGuards resolveGuards(JSError error) {
+    ImmutableList.Builder<WarningsGuard> remaining = ImmutableList.builder();
     for (WarningsGuard guard : guards) {
+      if (!guard.dependsOnlyOnSourceAndType()) {
+        remaining.add(guard);
+        continue;
+      }
       CheckLevel newLevel = guard.level(error);
       if (newLevel != null) {
-        if (demoteErrors && newLevel == CheckLevel.ERROR) {
-          return CheckLevel.WARNING;
-        }
-        return newLevel;
+        return new ResolvedGuards(remaining.build(), newLevel);
       }
     }
-    return null;
+    return new ResolvedGuards(remaining.build(), null);
+  }
+
+  private CheckLevel demote(CheckLevel level) {
+    return demoteErrors && level == CheckLevel.ERROR
+        ? CheckLevel.WARNING : level;
   }
 
   @Override
@@ -180,4 +264,10 @@ public class ComposeWarningsGuard extends WarningsGuard {
   public String toString() {
     return Joiner.on(", ").join(guards);
   }
+
+  private void readObject(ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    resolvedGuards = new ConcurrentHashMap<>();
+  }
 }
@@ -22,10 +22,12 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
 import com.google.javascript.jscomp.CheckConformance.InvalidRequirementSpec;
 import com.google.javascript.jscomp.CheckConformance.Rule;
+import com.google.javascript.jscomp.CheckConformance.TargetedRule;
 import com.google.javascript.jscomp.CodingConvention.AssertionFunctionSpec;
 import com.google.javascript.jscomp.Requirement.Type;
 import com.google.javascript.jscomp.parsing.JsDocInfoParser;
@@ -33,6 +35,7 @@ import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.JSDocInfo.Visibility;
 import com.google.javascript.rhino.JSTypeExpression;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.Property;
 import com.google.javascript.rhino.jstype.FunctionType;
 import com.google.javascript.rhino.jstype.JSType;
@@ -192,7 +195,7 @@ public final class ConformanceRules {
   /**
    * Banned name rule
    */
-  static class BannedDependency extends AbstractRule {
+  static class BannedDependency extends AbstractRule implements TargetedRule {
     private final List<String> paths;
 
     BannedDependency(AbstractCompiler compiler, Requirement requirement)
@@ -204,6 +207,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -222,8 +235,9 @@ public final class ConformanceRules {
   /**
    * Banned name rule
    */
-  static class BannedName extends AbstractRule {
+  static class BannedName extends AbstractRule implements TargetedRule {
     private final List<String> names;
+    private final ImmutableSet<String> targetNames;
 
     BannedName(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -232,6 +246,21 @@ public final class ConformanceRules {
         throw new InvalidRequirementSpec("missing value");
       }
       names = requirement.getValueList();
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (String name : names) {
+        builder.add(ConformanceUtil.getLastNamePart(name));
+      }
+      targetNames = builder.build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return targetNames;
     }
 
     @Override
@@ -254,7 +283,7 @@ public final class ConformanceRules {
   /**
    * Banned property rule
    */
-  static class BannedProperty extends AbstractRule {
+  static class BannedProperty extends AbstractRule implements TargetedRule {
     private static class Property {
       final String type;
       final String property;
@@ -264,6 +293,7 @@ public final class ConformanceRules {
       }
     }
     private final ImmutableList<Property> props;
+    private final ImmutableSet<String> targetNames;
     private final Requirement.Type requirementType;
 
     BannedProperty(AbstractCompiler compiler, Requirement requirement)
@@ -281,6 +311,7 @@ public final class ConformanceRules {
       requirementType = requirement.getType();
 
       ImmutableList.Builder<Property> builder = ImmutableList.builder();
+      ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
       List<String> values = requirement.getValueList();
       for (String value : values) {
         String type = getClassFromDeclarationName(value);
@@ -289,9 +320,21 @@ public final class ConformanceRules {
           throw new InvalidRequirementSpec("bad prop value");
         }
         builder.add(new Property(type, property));
+        namesBuilder.add(property);
       }
 
       props = builder.build();
+      targetNames = namesBuilder.build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return targetNames;
     }
 
     @Override
@@ -378,6 +421,14 @@ public final class ConformanceRules {
 
   private static class ConformanceUtil {
 
+    /**
+     * Returns the last part of a qualified name, which is the target name of
+     * the nodes that match it.
+     */
+    static String getLastNamePart(String qualifiedName) {
+      return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
     static boolean isCallTarget(Node n) {
       Node parent = n.getParent();
       return (parent.isCall() || parent.isNew())
@@ -505,7 +556,8 @@ public final class ConformanceRules {
   /**
    * Restricted name call rule
    */
-  static class RestrictedNameCall extends AbstractRule {
+  static class RestrictedNameCall extends AbstractRule
+      implements TargetedRule {
     private static class Restriction {
       final String name;
       final FunctionType restrictedCallType;
@@ -517,6 +569,7 @@ public final class ConformanceRules {
     }
 
     private final ImmutableList<Restriction> restrictions;
+    private final ImmutableSet<String> targetNames;
 
     RestrictedNameCall(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -526,6 +579,9 @@ public final class ConformanceRules {
       }
 
       ImmutableList.Builder <Restriction> builder = ImmutableList.builder();
+      // Calls through .call are matched too.
+      ImmutableSet.Builder<String> namesBuilder =
+          ImmutableSet.<String>builder().add("call");
       for (String value : requirement.getValueList()) {
         String name = getNameFromValue(value);
         String restrictedDecl = getTypeFromValue(value);
@@ -539,8 +595,20 @@ public final class ConformanceRules {
           throw new InvalidRequirementSpec("invalid conformance type");
         }
         builder.add(new Restriction(name, restrictedCallType));
+        namesBuilder.add(ConformanceUtil.getLastNamePart(name));
       }
       restrictions = builder.build();
+      targetNames = namesBuilder.build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.NAME, Token.GETPROP);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return targetNames;
     }
 
     @Override
@@ -587,7 +655,8 @@ public final class ConformanceRules {
   /**
    * Banned property call rule
    */
-  static class RestrictedMethodCall extends AbstractRule {
+  static class RestrictedMethodCall extends AbstractRule
+      implements TargetedRule {
     private static class Restriction {
       final String type;
       final String property;
@@ -602,6 +671,7 @@ public final class ConformanceRules {
     }
 
     private final ImmutableList<Restriction> restrictions;
+    private final ImmutableSet<String> targetNames;
 
     RestrictedMethodCall(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -612,6 +682,9 @@ public final class ConformanceRules {
       }
 
       ImmutableList.Builder <Restriction> builder = ImmutableList.builder();
+      // Calls through .call are matched too.
+      ImmutableSet.Builder<String> namesBuilder =
+          ImmutableSet.<String>builder().add("call");
       for (String value : requirement.getValueList()) {
         String type = getClassFromDeclarationName(value);
         String property = getPropertyFromDeclarationName(value);
@@ -626,9 +699,21 @@ public final class ConformanceRules {
           throw new InvalidRequirementSpec("invalid conformance type");
         }
         builder.add(new Restriction(type, property, restrictedCallType));
+        namesBuilder.add(property);
       }
 
       restrictions = builder.build();
+      targetNames = namesBuilder.build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return targetNames;
     }
 
     @Override
@@ -738,8 +823,11 @@ public final class ConformanceRules {
   /**
    * Banned Code Pattern rule
    */
-  static class BannedCodePattern extends AbstractRule {
+  static class BannedCodePattern extends AbstractRule
+      implements TargetedRule {
     private final ImmutableList<TemplateAstMatcher> restrictions;
+    @Nullable private final ImmutableSet<Integer> targetTokens;
+    @Nullable private final ImmutableSet<String> targetNames;
 
     BannedCodePattern(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -766,6 +854,34 @@ public final class ConformanceRules {
       }
 
       restrictions = builder.build();
+
+      // The rule can only match what one of its templates can match.
+      ImmutableSet.Builder<Integer> tokensBuilder = ImmutableSet.builder();
+      ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
+      boolean anyToken = false;
+      boolean anyName = false;
+      for (TemplateAstMatcher matcher : restrictions) {
+        int token = matcher.getTemplateToken();
+        String name = matcher.getTemplateTargetName();
+        anyToken |= token == TemplateAstMatcher.ANY_TOKEN;
+        anyName |= name == null;
+        tokensBuilder.add(token);
+        if (name != null) {
+          namesBuilder.add(name);
+        }
+      }
+      targetTokens = anyToken ? null : tokensBuilder.build();
+      targetNames = anyName ? null : namesBuilder.build();
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return targetTokens;
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return targetNames;
     }
 
     @Override
@@ -893,7 +1009,8 @@ public final class ConformanceRules {
   /**
    * Banned throw of non-error object types.
    */
-  public static final class BanThrowOfNonErrorTypes extends AbstractRule {
+  public static final class BanThrowOfNonErrorTypes extends AbstractRule
+      implements TargetedRule {
     final JSType errorObjType;
     public BanThrowOfNonErrorTypes(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -901,6 +1018,16 @@ public final class ConformanceRules {
       errorObjType = compiler.getTypeRegistry().getType("Error");
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.THROW);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (errorObjType != null && n.isThrow()) {
@@ -922,7 +1049,8 @@ public final class ConformanceRules {
   /**
    * Banned unknown "this" types.
    */
-  public static final class BanUnknownThis extends AbstractRule {
+  public static final class BanUnknownThis extends AbstractRule
+      implements TargetedRule {
     private final Set<Node> reports = Sets.newIdentityHashSet();
     private final ImmutableList<AssertionFunctionSpec> assertions;
     public BanUnknownThis(AbstractCompiler compiler, Requirement requirement)
@@ -932,6 +1060,16 @@ public final class ConformanceRules {
           compiler.getCodingConvention().getAssertionFunctions());
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.THIS);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isThis()) {
@@ -968,12 +1106,24 @@ public final class ConformanceRules {
   /**
    * Banned global var declarations.
    */
-  public static final class BanGlobalVars extends AbstractRule {
+  public static final class BanGlobalVars extends AbstractRule
+      implements TargetedRule {
     public BanGlobalVars(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(
+          Token.VAR, Token.LET, Token.CONST, Token.FUNCTION, Token.CLASS);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (t.inGlobalScope()
@@ -1000,13 +1150,24 @@ public final class ConformanceRules {
    * Requires source files to contain a top-level {@code @fileoverview} block
    * with an explicit visibility annotation.
    */
-  public static final class RequireFileoverviewVisibility extends AbstractRule {
+  public static final class RequireFileoverviewVisibility extends AbstractRule
+      implements TargetedRule {
     public RequireFileoverviewVisibility(
         AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.SCRIPT);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (!n.isScript()) {
@@ -1030,13 +1191,24 @@ public final class ConformanceRules {
    * annotations, either at the declaration site or in the {@code @fileoverview}
    * block.
    */
-  public static final class NoImplicitlyPublicDecls extends AbstractRule {
+  public static final class NoImplicitlyPublicDecls extends AbstractRule
+      implements TargetedRule {
     public NoImplicitlyPublicDecls(
         AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.EXPR_RESULT);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (!t.inGlobalScope()
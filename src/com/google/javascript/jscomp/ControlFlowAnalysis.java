@@ -144,6 +144,19 @@ final class ControlFlowAnalysis implements Callback, CompilerPass {
     return cfg;
   }
 
+  /**
+   * Computes the control flow graph of the given root. Passes should usually
+   * call {@link AbstractCompiler#getControlFlowGraph} instead, which may
+   * return a graph computed earlier.
+   */
+  static ControlFlowGraph<Node> computeCfg(AbstractCompiler compiler,
+      Node root, boolean shouldTraverseFunctions, boolean edgeAnnotations) {
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(
+        compiler, shouldTraverseFunctions, edgeAnnotations);
+    cfa.process(null, root);
+    return cfa.getCfg();
+  }
+
   @Override
   public void process(Node externs, Node root) {
     this.root = root;
@@ -18,7 +18,6 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.Scope.Var;
@@ -27,10 +26,17 @@ import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -86,7 +92,16 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
   private final ControlFlowGraph<N> cfg;
   final JoinOp<L> joinOp;
-  protected final Set<DiGraphNode<N, Branch>> orderedWorkSet;
+
+  // The nodes other than the implicit return, in the order the work list
+  // visits them; see numberNodes. A node's number is its index here.
+  private List<DiGraphNode<N, Branch>> orderedNodes;
+  // For each numbered node, the numbers of the nodes that must be revisited
+  // when its flow state changes.
+  private int[][] dependents;
+  // The numbers of the nodes still to visit.
+  private final BitSet workList = new BitSet();
+  private int stepCount = 0;
 
   /*
    * Feel free to increase this to a reasonable number if you are finding that
@@ -120,13 +135,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   DataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp) {
     this.cfg = targetCfg;
     this.joinOp = joinOp;
-    Comparator<DiGraphNode<N, Branch>> nodeComparator =
-      cfg.getOptionalNodeComparator(isForward());
-    if (nodeComparator != null) {
-      this.orderedWorkSet = Sets.newTreeSet(nodeComparator);
-    } else {
-      this.orderedWorkSet = Sets.newLinkedHashSet();
-    }
   }
 
   /**
@@ -200,34 +208,128 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    */
   final void analyze(int maxSteps) {
     initialize();
+    numberNodes();
+    workList.clear();
+    workList.set(0, orderedNodes.size());
+    // No node numbered below this is on the work list.
+    int lowest = 0;
     int step = 0;
-    while (!orderedWorkSet.isEmpty()) {
+    for (int index = workList.nextSetBit(lowest); index >= 0;
+         index = workList.nextSetBit(lowest)) {
       if (step > maxSteps) {
         throw new MaxIterationsExceededException(
           "Analysis did not terminate after " + maxSteps + " iterations");
       }
-      DiGraphNode<N, Branch> curNode = orderedWorkSet.iterator().next();
-      orderedWorkSet.remove(curNode);
+      workList.clear(index);
+      lowest = index;
+      DiGraphNode<N, Branch> curNode = orderedNodes.get(index);
       joinInputs(curNode);
       if (flow(curNode)) {
-        // If there is a change in the current node, we want to grab the list
-        // of nodes that this node affects.
-        List<DiGraphNode<N, Branch>> nextNodes = isForward() ?
-            cfg.getDirectedSuccNodes(curNode) :
-            cfg.getDirectedPredNodes(curNode);
-        for (DiGraphNode<N, Branch> nextNode : nextNodes) {
-          if (nextNode != cfg.getImplicitReturn()) {
-            orderedWorkSet.add(nextNode);
-          }
+        // If there is a change in the current node, we want to revisit the
+        // nodes that this node affects.
+        for (int dependent : dependents[index]) {
+          workList.set(dependent);
+          lowest = Math.min(lowest, dependent);
         }
       }
       step++;
     }
+    stepCount = step;
     if (isForward()) {
       joinInputs(getCfg().getImplicitReturn());
     }
   }
 
+  /**
+   * Returns the number of nodes flowed through by the last call to
+   * {@link #analyze}.
+   */
+  final int getStepCount() {
+    return stepCount;
+  }
+
+  /**
+   * Numbers the nodes other than the implicit return in reverse postorder,
+   * so that a node comes before its successors except along back edges.
+   * Nodes the entry does not reach are numbered after the ones it does, in
+   * the same way. A backward analysis uses the opposite order.
+   *
+   * <p>Always visiting the lowest-numbered node on the work list then
+   * reaches the fixed point of a reducible graph in a few passes over the
+   * nodes, one more for each level of loop nesting.
+   */
+  private void numberNodes() {
+    DiGraphNode<N, Branch> implicitReturn = cfg.getImplicitReturn();
+    Set<DiGraphNode<N, Branch>> visited = new HashSet<>();
+    visited.add(implicitReturn);
+    List<DiGraphNode<N, Branch>> order = new ArrayList<>();
+    addInReversePostorder(cfg.getEntry(), visited, order);
+    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+      if (!visited.contains(node)) {
+        addInReversePostorder(node, visited, order);
+      }
+    }
+    if (!isForward()) {
+      Collections.reverse(order);
+    }
+
+    Map<DiGraphNode<N, Branch>, Integer> numbers = new HashMap<>();
+    for (int i = 0; i < order.size(); i++) {
+      numbers.put(order.get(i), i);
+    }
+    dependents = new int[order.size()][];
+    for (int i = 0; i < order.size(); i++) {
+      List<DiGraphNode<N, Branch>> nextNodes = isForward()
+          ? cfg.getDirectedSuccNodes(order.get(i))
+          : cfg.getDirectedPredNodes(order.get(i));
+      int[] next = new int[nextNodes.size()];
+      int count = 0;
+      for (DiGraphNode<N, Branch> nextNode : nextNodes) {
+        if (nextNode != implicitReturn) {
+          next[count++] = numbers.get(nextNode);
+        }
+      }
+      dependents[i] = count == next.length ? next : Arrays.copyOf(next, count);
+    }
+    orderedNodes = order;
+  }
+
+  /**
+   * Appends the nodes reachable from {@code root} that are not yet visited
+   * to {@code order}, in reverse postorder. The search uses an explicit
+   * stack, since a graph can be much deeper than the Java stack.
+   *
+   * <p>Successors are explored last to first, so that sibling branches keep
+   * their source order: the "then" branch of an IF is numbered before the
+   * "else" branch. Passes like TypeInference declare things the first time
+   * they see them, so their results depend on this order.
+   */
+  private void addInReversePostorder(DiGraphNode<N, Branch> root,
+      Set<DiGraphNode<N, Branch>> visited,
+      List<DiGraphNode<N, Branch>> order) {
+    int start = order.size();
+    Deque<DiGraphNode<N, Branch>> stack = new ArrayDeque<>();
+    Deque<Iterator<DiGraphNode<N, Branch>>> successors = new ArrayDeque<>();
+    visited.add(root);
+    stack.push(root);
+    successors.push(Lists.reverse(cfg.getDirectedSuccNodes(root)).iterator());
+    while (!stack.isEmpty()) {
+      Iterator<DiGraphNode<N, Branch>> it = successors.peek();
+      if (it.hasNext()) {
+        DiGraphNode<N, Branch> next = it.next();
+        if (visited.add(next)) {
+          stack.push(next);
+          successors.push(
+              Lists.reverse(cfg.getDirectedSuccNodes(next)).iterator());
+        }
+      } else {
+        successors.pop();
+        order.add(stack.pop());
+      }
+    }
+    Collections.reverse(order.subList(start, order.size()));
+  }
+
   /**
    * Gets the state of the initial estimation at each node.
    *
@@ -246,16 +348,9 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    * Initializes the work list and the control flow graph.
    */
   protected void initialize() {
-    // TODO(user): Calling clear doesn't deallocate the memory in a
-    // LinkedHashSet. Consider creating a new work set if we plan to repeatedly
-    // call analyze.
-    orderedWorkSet.clear();
     for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
       node.setAnnotation(new FlowState<>(createInitialEstimateLattice(),
           createInitialEstimateLattice()));
-      if (node != cfg.getImplicitReturn()) {
-        orderedWorkSet.add(node);
-      }
     }
   }
 
@@ -391,7 +486,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
     @Override
     protected void initialize() {
-      orderedWorkSet.clear();
       for (DiGraphNode<N, Branch> node : getCfg().getDirectedGraphNodes()) {
         int outEdgeCount = getCfg().getOutEdges(node.getValue()).size();
         List<L> outLattices = Lists.newArrayList();
@@ -400,9 +494,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
         }
         node.setAnnotation(new BranchedFlowState<>(
             createInitialEstimateLattice(), outLattices));
-        if (node != getCfg().getImplicitReturn()) {
-          orderedWorkSet.add(node);
-        }
       }
     }
 
@@ -520,6 +611,178 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
   }
 
+  /**
+   * A lattice element that is a set of small non-negative integers, such as
+   * the {@link Var#index} of the variables of a scope, stored as a dense bit
+   * vector. The set operations update the element in place, so a flow
+   * function or join only needs to copy one of its inputs.
+   *
+   * <p>The vector grows as bits are set, so elements with different lengths
+   * can be combined; missing words are treated as zero.
+   */
+  static class BitSetLattice implements LatticeElement {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] words;
+
+    BitSetLattice() {
+      this.words = EMPTY;
+    }
+
+    /**
+     * @param size The number of bits to allocate room for.
+     */
+    BitSetLattice(int size) {
+      this.words = size == 0 ? EMPTY : new long[wordIndex(size - 1) + 1];
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other The constructed object is a replicated copy of this element.
+     */
+    BitSetLattice(BitSetLattice other) {
+      this.words = other.words.length == 0 ? EMPTY : other.words.clone();
+    }
+
+    private static int wordIndex(int index) {
+      return index >>> 6;
+    }
+
+    final boolean get(int index) {
+      int word = wordIndex(index);
+      return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    final void set(int index) {
+      int word = wordIndex(index);
+      if (word >= words.length) {
+        words = Arrays.copyOf(words, Math.max(word + 1, 2 * words.length));
+      }
+      words[word] |= 1L << index;
+    }
+
+    final void clear(int index) {
+      int word = wordIndex(index);
+      if (word < words.length) {
+        words[word] &= ~(1L << index);
+      }
+    }
+
+    final void clear() {
+      Arrays.fill(words, 0);
+    }
+
+    /** Adds all the elements of {@code other} to this set. */
+    final void or(BitSetLattice other) {
+      long[] otherWords = other.words;
+      if (otherWords.length > words.length) {
+        words = Arrays.copyOf(words, otherWords.length);
+      }
+      for (int i = 0; i < otherWords.length; i++) {
+        words[i] |= otherWords[i];
+      }
+    }
+
+    /** Removes all the elements that are not in {@code other}. */
+    final void and(BitSetLattice other) {
+      long[] otherWords = other.words;
+      int common = Math.min(words.length, otherWords.length);
+      for (int i = 0; i < common; i++) {
+        words[i] &= otherWords[i];
+      }
+      Arrays.fill(words, common, words.length, 0);
+    }
+
+    /** Removes all the elements of {@code other} from this set. */
+    final void andNot(BitSetLattice other) {
+      long[] otherWords = other.words;
+      int common = Math.min(words.length, otherWords.length);
+      for (int i = 0; i < common; i++) {
+        words[i] &= ~otherWords[i];
+      }
+    }
+
+    /**
+     * Returns the smallest element that is at least {@code fromIndex}, or -1
+     * if there is none.
+     */
+    final int nextSetBit(int fromIndex) {
+      int word = wordIndex(fromIndex);
+      if (word >= words.length) {
+        return -1;
+      }
+      long bits = words[word] & (-1L << fromIndex);
+      while (bits == 0) {
+        if (++word == words.length) {
+          return -1;
+        }
+        bits = words[word];
+      }
+      return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    final boolean isEmpty() {
+      for (long word : words) {
+        if (word != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    final int cardinality() {
+      int count = 0;
+      for (long word : words) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other == null || other.getClass() != getClass()) {
+        return false;
+      }
+      long[] otherWords = ((BitSetLattice) other).words;
+      long[] shorter = words.length < otherWords.length ? words : otherWords;
+      long[] longer = shorter == words ? otherWords : words;
+      for (int i = 0; i < shorter.length; i++) {
+        if (shorter[i] != longer[i]) {
+          return false;
+        }
+      }
+      for (int i = shorter.length; i < longer.length; i++) {
+        if (longer[i] != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      // Trailing zero words must not change the hash code.
+      long h = 1234;
+      for (int i = words.length; --i >= 0;) {
+        h ^= words[i] * (i + 1);
+      }
+      return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("{");
+      for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(i);
+      }
+      return sb.append('}').toString();
+    }
+  }
+
   /**
    * Compute set of escaped variables. When a variable is escaped in a
    * dataflow analysis, it can be reference outside of the code that we are
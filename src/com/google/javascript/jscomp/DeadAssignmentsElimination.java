@@ -38,10 +38,12 @@ import com.google.javascript.rhino.Token;
  *
  */
 class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
-    CompilerPass, ScopedCallback {
+    FunctionLocalCompilerPass, ScopedCallback {
 
   private final AbstractCompiler compiler;
   private LiveVariablesAnalysis liveness;
+  // Whether an assignment was removed from the current scope.
+  private boolean codeChanged;
 
   // Matches all assignment operators and increment/decrement operators.
   // Does *not* match VAR initialization, since RemoveUnusedVariables
@@ -67,6 +69,16 @@ class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
     NodeTraversal.traverse(compiler, root, this);
   }
 
+  @Override
+  public void processFunctions(Node root) {
+    NodeTraversal.traverse(compiler, root, this);
+  }
+
+  @Override
+  public void processGlobalCode(Node externs, Node root) {
+    // The global scope is not optimized; see enterScope.
+  }
+
   @Override
   public void enterScope(NodeTraversal t) {
     Scope scope = t.getScope();
@@ -77,6 +89,12 @@ class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
       return;
     }
 
+    // Functions that did not change since the last run in the optimization
+    // loop have no dead assignments left.
+    if (!compiler.hasScopeChanged(t.getScopeRoot())) {
+      return;
+    }
+
     if (LiveVariablesAnalysis.MAX_VARIABLES_TO_ANALYZE <
         t.getScope().getVarCount()) {
       return;
@@ -99,9 +117,19 @@ class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
 
     // Computes liveness information first.
     ControlFlowGraph<Node> cfg = t.getControlFlowGraph();
-    liveness = new LiveVariablesAnalysis(cfg, scope, compiler);
-    liveness.analyze();
-    tryRemoveDeadAssignments(t, cfg);
+    while (true) {
+      liveness = new LiveVariablesAnalysis(cfg, scope, compiler);
+      liveness.analyze();
+      compiler.recordDataFlowSteps(liveness);
+      codeChanged = false;
+      tryRemoveDeadAssignments(t, cfg);
+      if (!codeChanged) {
+        break;
+      }
+      // Removing an assignment can make earlier ones dead. Look for them now,
+      // since this function is not revisited for its own changes.
+      cfg = compiler.getControlFlowGraph(t.getScopeRoot(), false, true);
+    }
   }
 
   @Override
@@ -214,6 +242,7 @@ class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
         n.removeChild(rhs);
         n.getParent().replaceChild(n, rhs);
         compiler.reportCodeChange();
+        codeChanged = true;
         return;
       }
 
@@ -264,6 +293,7 @@ class DeadAssignmentsElimination extends AbstractPostOrderCallback implements
       }
 
       compiler.reportCodeChange();
+      codeChanged = true;
       return;
 
     } else {
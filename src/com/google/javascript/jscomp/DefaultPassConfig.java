@@ -265,6 +265,11 @@ public class DefaultPassConfig extends PassConfig {
       checks.add(suspiciousCode);
     }
 
+    // Runs in the same traversal as suspiciousCode.
+    if (options.computeFunctionSideEffects) {
+      checks.add(checkRegExp);
+    }
+
     if (options.checkRequires.isOn()
         || options.enables(DiagnosticGroups.MISSING_REQUIRE)) {
       checks.add(checkRequires);
@@ -304,10 +309,6 @@ public class DefaultPassConfig extends PassConfig {
       checks.add(inferConsts);
     }
 
-    if (options.computeFunctionSideEffects) {
-      checks.add(checkRegExp);
-    }
-
     // This pass should run before types are assigned.
     if (options.processObjectPropertyString) {
       checks.add(objectPropertyStringPreprocess);
@@ -336,11 +337,6 @@ public class DefaultPassConfig extends PassConfig {
       }
     }
 
-    if (!options.disables(DiagnosticGroups.CHECK_USELESS_CODE) ||
-        options.checkMissingReturn.isOn()) {
-      checks.add(checkControlFlow);
-    }
-
     // CheckAccessControls only works if check types is on.
     if (options.checkTypes &&
         (!options.disables(DiagnosticGroups.ACCESS_CONTROLS)
@@ -348,11 +344,22 @@ public class DefaultPassConfig extends PassConfig {
       checks.add(checkAccessControls);
     }
 
+    // checkControlFlow, lintChecks and checkConformance run in a single
+    // traversal, so keep them together.
+    if (!options.disables(DiagnosticGroups.CHECK_USELESS_CODE) ||
+        options.checkMissingReturn.isOn()) {
+      checks.add(checkControlFlow);
+    }
+
     // Lint checks must be run after typechecking.
     if (options.enables(DiagnosticGroups.LINT_CHECKS)) {
       checks.add(lintChecks);
     }
 
+    if (!options.getConformanceConfigs().isEmpty()) {
+      checks.add(checkConformance);
+    }
+
     if (options.checkEventfulObjectDisposalPolicy !=
         CheckEventfulObjectDisposal.DisposalCheckingPolicy.OFF) {
       checks.add(checkEventfulObjectDisposal);
@@ -366,10 +373,6 @@ public class DefaultPassConfig extends PassConfig {
       checks.add(checkStrictMode);
     }
 
-    if (!options.getConformanceConfigs().isEmpty()) {
-      checks.add(checkConformance);
-    }
-
     // Replace 'goog.getCssName' before processing defines but after the
     // other checks have been done.
     if (options.closurePass) {
@@ -873,10 +876,10 @@ public class DefaultPassConfig extends PassConfig {
   /**
    * Checks for code that is probably wrong (such as stray expressions).
    */
-  final HotSwapPassFactory suspiciousCode =
-      new HotSwapPassFactory("suspiciousCode", true) {
+  final TraversalCheckFactory suspiciousCode =
+      new TraversalCheckFactory("suspiciousCode", true) {
     @Override
-    protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
+    Callback createCallback(AbstractCompiler compiler) {
       List<Callback> sharedCallbacks = Lists.newArrayList();
       if (options.checkSuspiciousCode) {
         sharedCallbacks.add(new CheckSuspiciousCode());
@@ -890,9 +893,8 @@ public class DefaultPassConfig extends PassConfig {
         sharedCallbacks.add(new CheckDebuggerStatement(compiler));
       }
 
-      return combineChecks(compiler, sharedCallbacks);
+      return combineCallbacks(compiler, sharedCallbacks);
     }
-
   };
 
   /** Verify that all the passes are one-time passes. */
@@ -1324,20 +1326,17 @@ public class DefaultPassConfig extends PassConfig {
   };
 
   /** Checks for RegExp references. */
-  final PassFactory checkRegExp =
-      new PassFactory("checkRegExp", true) {
+  final TraversalCheckFactory checkRegExp =
+      new TraversalCheckFactory("checkRegExp", false) {
     @Override
-    protected CompilerPass create(final AbstractCompiler compiler) {
-      final CheckRegExp pass = new CheckRegExp(compiler);
+    Callback createCallback(AbstractCompiler compiler) {
+      return new CheckRegExp(compiler);
+    }
 
-      return new CompilerPass() {
-        @Override
-        public void process(Node externs, Node root) {
-          pass.process(externs, root);
-          compiler.setHasRegExpGlobalReferences(
-              pass.isGlobalRegExpPropertiesUsed());
-        }
-      };
+    @Override
+    void afterTraversal(AbstractCompiler compiler, Callback callback) {
+      compiler.setHasRegExpGlobalReferences(
+          ((CheckRegExp) callback).isGlobalRegExpPropertiesUsed());
     }
   };
 
@@ -1411,7 +1410,8 @@ public class DefaultPassConfig extends PassConfig {
       new PassFactory("NewTypeInference", true) {
         @Override
         protected CompilerPass create(final AbstractCompiler compiler) {
-          return new NewTypeInference(compiler, options.closurePass);
+          return new NewTypeInference(compiler, options.closurePass,
+              options.newTypeInferenceThreads);
         }
       };
 
@@ -1462,10 +1462,10 @@ public class DefaultPassConfig extends PassConfig {
    * Checks possible execution paths of the program for problems: missing return
    * statements and dead code.
    */
-  final HotSwapPassFactory checkControlFlow =
-      new HotSwapPassFactory("checkControlFlow", true) {
+  final TraversalCheckFactory checkControlFlow =
+      new TraversalCheckFactory("checkControlFlow", true) {
     @Override
-    protected HotSwapCompilerPass create(AbstractCompiler compiler) {
+    Callback createCallback(AbstractCompiler compiler) {
       List<Callback> callbacks = Lists.newArrayList();
       if (!options.disables(DiagnosticGroups.CHECK_USELESS_CODE)) {
         callbacks.add(new CheckUnreachableCode(compiler));
@@ -1474,7 +1474,7 @@ public class DefaultPassConfig extends PassConfig {
         callbacks.add(
             new CheckMissingReturn(compiler, options.checkMissingReturn));
       }
-      return combineChecks(compiler, callbacks);
+      return combineCallbacks(compiler, callbacks);
     }
   };
 
@@ -1488,11 +1488,11 @@ public class DefaultPassConfig extends PassConfig {
     }
   };
 
-  final HotSwapPassFactory lintChecks =
-      new HotSwapPassFactory("lintChecks", true) {
+  final TraversalCheckFactory lintChecks =
+      new TraversalCheckFactory("lintChecks", true) {
     @Override
-    protected HotSwapCompilerPass create(AbstractCompiler compiler) {
-      return combineChecks(compiler, ImmutableList.<Callback>of(
+    Callback createCallback(AbstractCompiler compiler) {
+      return combineCallbacks(compiler, ImmutableList.<Callback>of(
           new CheckEnums(compiler),
           new CheckInterfaces(compiler),
           new CheckNullableReturn(compiler),
@@ -1500,11 +1500,12 @@ public class DefaultPassConfig extends PassConfig {
     }
   };
 
-  /** Executes the given callbacks with a {@link CombinedCompilerPass}. */
-  private static HotSwapCompilerPass combineChecks(AbstractCompiler compiler,
+  /** Combines the given callbacks with a {@link CombinedCompilerPass}. */
+  private static Callback combineCallbacks(AbstractCompiler compiler,
       List<Callback> callbacks) {
     Preconditions.checkArgument(!callbacks.isEmpty());
-    return new CombinedCompilerPass(compiler, callbacks);
+    return callbacks.size() == 1
+        ? callbacks.get(0) : new CombinedCompilerPass(compiler, callbacks);
   }
 
   /** A compiler pass that resolves types in the global scope. */
@@ -2624,12 +2625,17 @@ public class DefaultPassConfig extends PassConfig {
     }
   }
 
-  private final PassFactory checkConformance =
-      new PassFactory("checkConformance", true) {
+  private final TraversalCheckFactory checkConformance =
+      new TraversalCheckFactory("checkConformance", false) {
     @Override
-    protected CompilerPass create(final AbstractCompiler compiler) {
+    Callback createCallback(AbstractCompiler compiler) {
       return new CheckConformance(
           compiler, ImmutableList.copyOf(options.getConformanceConfigs()));
     }
+
+    @Override
+    void afterTraversal(AbstractCompiler compiler, Callback callback) {
+      ((CheckConformance) callback).recordRuleStats();
+    }
   };
 }
@@ -54,6 +54,12 @@ public class DiagnosticGroupWarningsGuard extends WarningsGuard {
     return false;
   }
 
+  @Override
+  boolean dependsOnlyOnSourceAndType() {
+    // Subclasses may look at more of the error.
+    return getClass() == DiagnosticGroupWarningsGuard.class;
+  }
+
   @Override
   public String toString() {
     return group + "(" + level + ")";
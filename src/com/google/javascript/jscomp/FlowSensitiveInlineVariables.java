@@ -56,7 +56,7 @@ import java.util.Set;
  *
  */
 class FlowSensitiveInlineVariables extends AbstractPostOrderCallback
-    implements CompilerPass, ScopedCallback {
+    implements FunctionLocalCompilerPass, ScopedCallback {
 
   /**
    * Implementation:
@@ -132,13 +132,13 @@ class FlowSensitiveInlineVariables extends AbstractPostOrderCallback
     }
 
     // Compute the forward reaching definition.
-    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
     // Process the body of the function.
     Preconditions.checkState(t.getScopeRoot().isFunction());
-    cfa.process(null, t.getScopeRoot().getLastChild());
-    cfg = cfa.getCfg();
+    cfg = compiler.getControlFlowGraph(
+        t.getScopeRoot().getLastChild(), false, true);
     reachingDef = new MustBeReachingVariableDef(cfg, t.getScope(), compiler);
     reachingDef.analyze();
+    compiler.recordDataFlowSteps(reachingDef);
     candidates = Lists.newLinkedList();
 
     // Using the forward reaching definition search to find all the inline
@@ -149,6 +149,7 @@ class FlowSensitiveInlineVariables extends AbstractPostOrderCallback
     // Compute the backward reaching use. The CFG can be reused.
     reachingUses = new MaybeReachingVariableUse(cfg, t.getScope(), compiler);
     reachingUses.analyze();
+    compiler.recordDataFlowSteps(reachingUses);
     for (Candidate c : candidates) {
       if (c.canInline(t.getScope())) {
         c.inlineVariable();
@@ -175,6 +176,18 @@ class FlowSensitiveInlineVariables extends AbstractPostOrderCallback
     (new NodeTraversal(compiler, this)).traverseRoots(externs, root);
   }
 
+  @Override
+  public void processFunctions(Node root) {
+    NodeTraversal.traverse(compiler, root, this);
+  }
+
+  @Override
+  public void processGlobalCode(Node externs, Node root) {
+    // The global scope is not optimized, but process also looks at the
+    // functions in the externs.
+    NodeTraversal.traverse(compiler, externs, this);
+  }
+
   @Override
   public void visit(NodeTraversal t, Node n, Node parent) {
     // TODO(user): While the helpers do a subtree traversal on the AST, the
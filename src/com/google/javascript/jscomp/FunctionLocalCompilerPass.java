@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+
+/**
+ * Interface for compiler passes whose analysis and changes of a function
+ * depend only on the code of that function and of the functions nested in it.
+ * <p>
+ * When {@link CompilerOptions#optimizationThreads} is more than one,
+ * {@link PhaseOptimizer} detaches the outermost functions of the program with
+ * {@link AstParallelizer} and calls {@code processFunctions} on them from
+ * several worker threads at once. Then it reattaches them and calls
+ * {@code processGlobalCode} on the compiler thread.
+ * <p>
+ * Each worker thread creates its own instance of the pass. Code changes and
+ * errors reported on a worker thread are buffered, and are passed on to the
+ * compiler in the order of the functions in the AST once all of them have
+ * been processed.
+ *
+ */
+interface FunctionLocalCompilerPass extends CompilerPass {
+
+  /**
+   * Processes the functions under the given root.
+   *
+   * @param root A temporary SCRIPT holding a single function detached from
+   *     the AST, in the same syntactic position (statement or expression) it
+   *     had there. The function node itself must not be replaced or
+   *     removed.
+   */
+  void processFunctions(Node root);
+
+  /**
+   * Processes the code outside functions, after all functions have been
+   * processed by {@code processFunctions} and reattached to the AST.
+   *
+   * @param externs Top of external JS tree
+   * @param root Top of JS tree
+   */
+  void processGlobalCode(Node externs, Node root);
+}
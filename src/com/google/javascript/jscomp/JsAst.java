@@ -17,14 +17,22 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.rhino.ErrorReporter;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.InputId;
 import com.google.javascript.rhino.Node;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
+import javax.annotation.Nullable;
+
 /**
  * Generates an AST for a JavaScript source file.
  *
@@ -38,6 +46,10 @@ public class JsAst implements SourceAst {
   private String fileName;
   private Node root;
 
+  // The result of a parse run by {@link #parseInBackground}, consumed by the
+  // next call to {@link #getAstRoot}.
+  private transient BackgroundParse backgroundParse;
+
   public JsAst(SourceFile sourceFile) {
     this.inputId = new InputId(sourceFile.getName());
     this.sourceFile = sourceFile;
@@ -56,6 +68,7 @@ public class JsAst implements SourceAst {
   @Override
   public void clearAst() {
     root = null;
+    backgroundParse = null;
     // While we're at it, clear out any saved text in the source file on
     // the assumption that if we're dumping the parse tree, then we probably
     // assume regenerating everything else is a smart idea also.
@@ -78,16 +91,42 @@ public class JsAst implements SourceAst {
     sourceFile = file;
   }
 
+  /**
+   * Runs the parser for this file without touching any compiler state, so it
+   * is safe to call off the compiler thread. Errors are buffered, and are
+   * reported in order when the AST is first requested through
+   * {@link #getAstRoot}, so the result is indistinguishable from a parse
+   * done on demand.
+   */
+  void parseInBackground(Config config, @Nullable ParseCache cache) {
+    if (root != null || backgroundParse != null) {
+      return;
+    }
+    BackgroundParse parse = new BackgroundParse(config);
+    try {
+      parse.result = runParser(config, parse, cache);
+    } catch (IOException e) {
+      parse.readError = e;
+    }
+    backgroundParse = parse;
+  }
+
   private void parse(AbstractCompiler compiler) {
     int startErrorCount = compiler.getErrorManager().getErrorCount();
+    Config config = compiler.getParserConfig(sourceFile.isExtern()
+        ? AbstractCompiler.ConfigContext.EXTERNS
+        : AbstractCompiler.ConfigContext.DEFAULT);
+    BackgroundParse pending = backgroundParse;
+    backgroundParse = null;
     try {
-      ParserRunner.ParseResult result = ParserRunner.parse(
-          sourceFile,
-          sourceFile.getCode(),
-          compiler.getParserConfig(sourceFile.isExtern()
-                        ? AbstractCompiler.ConfigContext.EXTERNS
-                        : AbstractCompiler.ConfigContext.DEFAULT),
-          compiler.getDefaultErrorReporter());
+      ParserRunner.ParseResult result;
+      if (pending != null && pending.config == config) {
+        result = pending.replay(compiler.getDefaultErrorReporter());
+      } else {
+        result = runParser(
+            config, compiler.getDefaultErrorReporter(),
+            compiler.getParseCache());
+      }
       root = result.ast;
       if (compiler.isIdeMode()) {
         compiler.addComments(sourceFile.getName(), result.comments);
@@ -113,4 +152,119 @@ public class JsAst implements SourceAst {
     // the source file and module.
     root.setStaticSourceFile(sourceFile);
   }
+
+  /**
+   * Parses the source file, or, when a parse cache is given, loads the tree
+   * from the cache if this file was parsed with the same config before.
+   */
+  private ParserRunner.ParseResult runParser(
+      Config config, ErrorReporter reporter, @Nullable ParseCache cache)
+      throws IOException {
+    String code = sourceFile.getCode();
+    // IDE mode needs the comments, which are not cached.
+    if (cache == null || config.isIdeMode()) {
+      return ParserRunner.parse(sourceFile, code, config, reporter);
+    }
+
+    String key = ParseCache.keyFor(sourceFile.getName(), code, config);
+    Node cachedRoot = cache.get(key, sourceFile);
+    if (cachedRoot != null) {
+      return new ParserRunner.ParseResult(
+          cachedRoot, ImmutableList.<Comment>of());
+    }
+
+    CountingErrorReporter countingReporter =
+        new CountingErrorReporter(reporter);
+    ParserRunner.ParseResult result =
+        ParserRunner.parse(sourceFile, code, config, countingReporter);
+    if (result.ast != null && countingReporter.count == 0) {
+      cache.put(key, sourceFile, result.ast);
+    }
+    return result;
+  }
+
+  private static class CountingErrorReporter implements ErrorReporter {
+    private final ErrorReporter delegate;
+    private int count = 0;
+
+    CountingErrorReporter(ErrorReporter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void warning(
+        String message, String sourceName, int line, int lineOffset) {
+      count++;
+      delegate.warning(message, sourceName, line, lineOffset);
+    }
+
+    @Override
+    public void error(
+        String message, String sourceName, int line, int lineOffset) {
+      count++;
+      delegate.error(message, sourceName, line, lineOffset);
+    }
+  }
+
+  /**
+   * The outcome of a background parse, along with the errors and warnings it
+   * produced, in the order the parser reported them.
+   */
+  private static class BackgroundParse implements ErrorReporter {
+    private final Config config;
+    private final List<Message> messages = new ArrayList<>();
+    private ParserRunner.ParseResult result;
+    private IOException readError;
+
+    BackgroundParse(Config config) {
+      this.config = config;
+    }
+
+    @Override
+    public void warning(
+        String message, String sourceName, int line, int lineOffset) {
+      messages.add(new Message(false, message, sourceName, line, lineOffset));
+    }
+
+    @Override
+    public void error(
+        String message, String sourceName, int line, int lineOffset) {
+      messages.add(new Message(true, message, sourceName, line, lineOffset));
+    }
+
+    /**
+     * Reports the buffered messages to the given reporter and returns the
+     * parse result.
+     */
+    ParserRunner.ParseResult replay(ErrorReporter reporter) throws IOException {
+      for (Message m : messages) {
+        if (m.isError) {
+          reporter.error(m.message, m.sourceName, m.line, m.lineOffset);
+        } else {
+          reporter.warning(m.message, m.sourceName, m.line, m.lineOffset);
+        }
+      }
+      if (readError != null) {
+        throw readError;
+      }
+      return result;
+    }
+  }
+
+  private static class Message {
+    final boolean isError;
+    final String message;
+    final String sourceName;
+    final int line;
+    final int lineOffset;
+
+    Message(boolean isError, String message, String sourceName,
+        int line, int lineOffset) {
+      this.isError = isError;
+      this.message = message;
+      this.sourceName = sourceName;
+      this.line = line;
+      this.lineOffset = lineOffset;
+    }
+  }
 }
@@ -17,10 +17,8 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.Scope.Var;
+import com.google.javascript.jscomp.newtypes.HamtPersistentMap;
 import com.google.javascript.jscomp.type.FlowScope;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.jstype.JSType;
@@ -29,63 +27,36 @@ import com.google.javascript.rhino.jstype.StaticScope;
 import com.google.javascript.rhino.jstype.StaticSlot;
 
 import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 
 /**
- * A flow scope that tries to store as little symbol information as possible,
- * instead delegating to its parents. Optimized for low memory use.
+ * A flow scope that stores the slots inferred in the local flow in a
+ * persistent map. Child scopes and joins share every part of the map that
+ * they do not change, so each flow instruction only copies the slots it
+ * redefines. Optimized for low memory use.
  *
  * @author nicksantos@google.com (Nick Santos)
  */
 class LinkedFlowScope implements FlowScope {
-  // The closest flow scope cache.
-  private final FlatFlowScopeCache cache;
+  // The Scope for the entire function or for the global scope.
+  private final Scope functionScope;
 
-  // The parent flow scope.
-  private final LinkedFlowScope parent;
-
-  // The distance between this flow scope and the closest flat flow scope.
-  private int depth;
-
-  static final int MAX_DEPTH = 250;
-
-  // A FlatFlowScopeCache equivalent to this scope.
-  private FlatFlowScopeCache flattened;
+  // All the symbols defined before this point in the local flow.
+  // May not include lazily declared qualified names.
+  private HamtPersistentMap<String, StaticSlot<JSType>> symbols;
 
   // Flow scopes assume that all their ancestors are immutable.
   // So once a child scope is created, this flow scope may not be modified.
   private boolean frozen = false;
 
-  // The last slot defined in this flow instruction, and the head of the
-  // linked list of slots.
-  private LinkedFlowSlot lastSlot;
-
-  private LinkedFlowScope(FlatFlowScopeCache cache,
-      LinkedFlowScope directParent) {
-    this.cache = cache;
-    if (directParent == null) {
-      this.lastSlot = null;
-      this.depth = 0;
-      this.parent = cache.linkedEquivalent;
-    } else {
-      this.lastSlot = directParent.lastSlot;
-      this.depth = directParent.depth + 1;
-      this.parent = directParent;
-    }
-  }
-
-  LinkedFlowScope(FlatFlowScopeCache cache) {
-    this(cache, null);
-  }
-
-  LinkedFlowScope(LinkedFlowScope directParent) {
-    this(directParent.cache, directParent);
+  private LinkedFlowScope(Scope functionScope,
+      HamtPersistentMap<String, StaticSlot<JSType>> symbols) {
+    this.functionScope = functionScope;
+    this.symbols = symbols;
   }
 
   /** Gets the function scope for this flow scope. */
   private Scope getFunctionScope() {
-    return cache.functionScope;
+    return functionScope;
   }
 
   /** Whether this flows from a bottom scope. */
@@ -97,15 +68,14 @@ class LinkedFlowScope implements FlowScope {
    * Creates an entry lattice for the flow.
    */
   public static LinkedFlowScope createEntryLattice(Scope scope) {
-    return new LinkedFlowScope(new FlatFlowScopeCache(scope));
+    return new LinkedFlowScope(
+        scope, HamtPersistentMap.<String, StaticSlot<JSType>>create());
   }
 
   @Override
   public void inferSlotType(String symbol, JSType type) {
     Preconditions.checkState(!frozen);
-    lastSlot = new LinkedFlowSlot(symbol, type, lastSlot);
-    depth++;
-    cache.dirtySymbols.add(symbol);
+    symbols = symbols.with(symbol, new SimpleSlot(symbol, type, true));
   }
 
   @Override
@@ -134,7 +104,7 @@ class LinkedFlowScope implements FlowScope {
 
   @Override
   public JSType getTypeOfThis() {
-    return cache.functionScope.getTypeOfThis();
+    return functionScope.getTypeOfThis();
   }
 
   @Override
@@ -152,15 +122,8 @@ class LinkedFlowScope implements FlowScope {
    */
   @Override
   public StaticSlot<JSType> getSlot(String name) {
-    if (cache.dirtySymbols.contains(name)) {
-      for (LinkedFlowSlot slot = lastSlot;
-           slot != null; slot = slot.parent) {
-        if (slot.getName().equals(name)) {
-          return slot;
-        }
-      }
-    }
-    return cache.getSlot(name);
+    StaticSlot<JSType> slot = symbols.get(name);
+    return slot != null ? slot : functionScope.getSlot(name);
   }
 
   @Override
@@ -171,43 +134,20 @@ class LinkedFlowScope implements FlowScope {
   @Override
   public FlowScope createChildFlowScope() {
     frozen = true;
-
-    if (depth > MAX_DEPTH) {
-      if (flattened == null) {
-        flattened = new FlatFlowScopeCache(this);
-      }
-      return new LinkedFlowScope(flattened);
-    }
-
-    return new LinkedFlowScope(this);
+    return new LinkedFlowScope(functionScope, symbols);
   }
 
   /**
-   * Iterate through all the linked flow scopes before this one.
-   * If there's one and only one slot defined between this scope
+   * Compare the slots of this scope against the blind scope.
+   * If there's one and only one slot redefined between this scope
    * and the blind scope, return it.
    */
   @Override
   public StaticSlot<JSType> findUniqueRefinedSlot(FlowScope blindScope) {
-    StaticSlot<JSType> result = null;
-
-    for (LinkedFlowScope currentScope = this;
-         currentScope != blindScope;
-         currentScope = currentScope.parent) {
-      for (LinkedFlowSlot currentSlot = currentScope.lastSlot;
-           currentSlot != null &&
-           (currentScope.parent == null ||
-            currentScope.parent.lastSlot != currentSlot);
-           currentSlot = currentSlot.parent) {
-        if (result == null) {
-          result = currentSlot;
-        } else if (!currentSlot.getName().equals(result.getName())) {
-          return null;
-        }
-      }
-    }
-
-    return result;
+    RefinedSlotFinder finder = new RefinedSlotFinder();
+    HamtPersistentMap.forEachDifference(
+        ((LinkedFlowScope) blindScope).symbols, symbols, finder);
+    return finder.ambiguous ? null : finder.result;
   }
 
   /**
@@ -231,22 +171,12 @@ class LinkedFlowScope implements FlowScope {
   }
 
   /**
-   * Remove flow scopes that add nothing to the flow.
+   * Scopes that add nothing to the flow already share their parent's map,
+   * so there is nothing left to remove.
    */
-  // NOTE(nicksantos): This function breaks findUniqueRefinedSlot, because
-  // findUniqueRefinedSlot assumes that this scope is a direct descendant
-  // of blindScope. This is not necessarily true if this scope has been
-  // optimize()d and blindScope has not. This should be fixed. For now,
-  // we only use optimize() where we know that we won't have to do
-  // a findUniqueRefinedSlot on it.
   @Override
   public LinkedFlowScope optimize() {
-    LinkedFlowScope current;
-    for (current = this;
-         current.parent != null &&
-             current.lastSlot == current.parent.lastSlot;
-         current = current.parent) {}
-    return current;
+    return this;
   }
 
   /** Join the two FlowScopes. */
@@ -254,15 +184,120 @@ class LinkedFlowScope implements FlowScope {
     @SuppressWarnings("unchecked")
     @Override
     public FlowScope apply(FlowScope a, FlowScope b) {
-      // To join the two scopes, we have to
       LinkedFlowScope linkedA = (LinkedFlowScope) a;
       LinkedFlowScope linkedB = (LinkedFlowScope) b;
       linkedA.frozen = true;
       linkedB.frozen = true;
-      if (linkedA.optimize() == linkedB.optimize()) {
+      if (linkedA.symbols == linkedB.symbols) {
         return linkedA.createChildFlowScope();
       }
-      return new LinkedFlowScope(new FlatFlowScopeCache(linkedA, linkedB));
+
+      // Always prefer the "real" function scope to the faked-out
+      // bottom scope.
+      Scope functionScope = linkedA.flowsFromBottom() ?
+          linkedB.getFunctionScope() : linkedA.getFunctionScope();
+
+      // Start from A's slots and only replace the ones that B disagrees on.
+      SlotJoiner joiner = new SlotJoiner(linkedA, linkedB);
+      HamtPersistentMap.forEachDifference(
+          linkedA.symbols, linkedB.symbols, joiner);
+      return new LinkedFlowScope(functionScope, joiner.symbols);
+    }
+  }
+
+  /**
+   * Joins the slots on which two flow scopes disagree, adding the result to
+   * the first scope's map.
+   */
+  private static class SlotJoiner implements
+      HamtPersistentMap.DifferenceVisitor<String, StaticSlot<JSType>> {
+    private final LinkedFlowScope joinedScopeA;
+    private final LinkedFlowScope joinedScopeB;
+    HamtPersistentMap<String, StaticSlot<JSType>> symbols;
+
+    SlotJoiner(LinkedFlowScope joinedScopeA, LinkedFlowScope joinedScopeB) {
+      this.joinedScopeA = joinedScopeA;
+      this.joinedScopeB = joinedScopeB;
+      this.symbols = joinedScopeA.symbols;
+    }
+
+    // There are 5 different join cases:
+    // 1) The type is declared in joinedScopeA, not in joinedScopeB,
+    //    and not in functionScope. Just use the one in A.
+    // 2) The type is declared in joinedScopeB, not in joinedScopeA,
+    //    and not in functionScope. Just use the one in B.
+    // 3) The type is declared in functionScope and joinedScopeA, but
+    //    not in joinedScopeB. Join the two types.
+    // 4) The type is declared in functionScope and joinedScopeB, but
+    //    not in joinedScopeA. Join the two types.
+    // 5) The type is declared in joinedScopeA and joinedScopeB. Join
+    //    the two types.
+    @Override
+    public void visit(String name, StaticSlot<JSType> slotA,
+        StaticSlot<JSType> slotB) {
+      JSType joinedType = null;
+      if (slotB == null || slotB.getType() == null) {
+        StaticSlot<JSType> fnSlot
+            = joinedScopeB.getFunctionScope().getSlot(name);
+        JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
+        if (fnSlotType == null) {
+          // Case #1 -- already inserted.
+        } else {
+          // Case #3
+          joinedType = slotA.getType().getLeastSupertype(fnSlotType);
+        }
+      } else if (slotA == null || slotA.getType() == null) {
+        StaticSlot<JSType> fnSlot
+            = joinedScopeA.getFunctionScope().getSlot(name);
+        JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
+        if (fnSlotType == null) {
+          // Case #2
+          symbols = symbols.with(name, slotB);
+        } else {
+          // Case #4
+          joinedType = slotB.getType().getLeastSupertype(fnSlotType);
+        }
+      } else {
+        // Case #5
+        joinedType =
+            slotA.getType().getLeastSupertype(slotB.getType());
+      }
+
+      if (joinedType != null) {
+        symbols = symbols.with(name, new SimpleSlot(name, joinedType, true));
+      }
+    }
+  }
+
+  /**
+   * Looks for the one name that differs between a scope and its blind scope.
+   */
+  private static class RefinedSlotFinder implements
+      HamtPersistentMap.DifferenceVisitor<String, StaticSlot<JSType>> {
+    StaticSlot<JSType> result;
+    boolean ambiguous = false;
+
+    @Override
+    public void visit(String name, StaticSlot<JSType> blindSlot,
+        StaticSlot<JSType> refinedSlot) {
+      if (result != null || refinedSlot == null) {
+        ambiguous = true;
+      }
+      result = refinedSlot;
+    }
+  }
+
+  /**
+   * Finds whether any slot differs between two flow scopes.
+   */
+  private static class SlotDiffer implements
+      HamtPersistentMap.DifferenceVisitor<String, StaticSlot<JSType>> {
+    boolean differ = false;
+
+    @Override
+    public void visit(String name, StaticSlot<JSType> slotA,
+        StaticSlot<JSType> slotB) {
+      differ = differ || diffSlots(slotA, slotB);
     }
   }
 
@@ -270,7 +305,7 @@ class LinkedFlowScope implements FlowScope {
   public boolean equals(Object other) {
     if (other instanceof LinkedFlowScope) {
       LinkedFlowScope that = (LinkedFlowScope) other;
-      if (this.optimize() == that.optimize()) {
+      if (this.symbols == that.symbols) {
         return true;
       }
 
@@ -286,34 +321,10 @@ class LinkedFlowScope implements FlowScope {
         return false;
       }
 
-      if (cache == that.cache) {
-        // If the two flow scopes have the same cache, then we can check
-        // equality a lot faster: by just looking at the "dirty" elements
-        // in the cache, and comparing them in both scopes.
-        for (String name : cache.dirtySymbols) {
-          if (diffSlots(getSlot(name), that.getSlot(name))) {
-            return false;
-          }
-        }
-
-        return true;
-      }
-
-      Map<String, StaticSlot<JSType>> myFlowSlots = allFlowSlots();
-      Map<String, StaticSlot<JSType>> otherFlowSlots = that.allFlowSlots();
-
-      for (StaticSlot<JSType> slot : myFlowSlots.values()) {
-        if (diffSlots(slot, otherFlowSlots.get(slot.getName()))) {
-          return false;
-        }
-        otherFlowSlots.remove(slot.getName());
-      }
-      for (StaticSlot<JSType> slot : otherFlowSlots.values()) {
-        if (diffSlots(slot, myFlowSlots.get(slot.getName()))) {
-          return false;
-        }
-      }
-      return true;
+      // Only the slots that the two maps do not share need comparing.
+      SlotDiffer differ = new SlotDiffer();
+      HamtPersistentMap.forEachDifference(symbols, that.symbols, differ);
+      return !differ.differ;
     }
     return false;
   }
@@ -336,176 +347,8 @@ class LinkedFlowScope implements FlowScope {
     return slotA.getType().differsFrom(slotB.getType());
   }
 
-  /**
-   * Gets all the symbols that have been defined before this point
-   * in the current flow. Does not return slots that have not changed during
-   * the flow.
-   *
-   * For example, consider the code:
-   * <code>
-   * var x = 3;
-   * function f() {
-   *   var y = 5;
-   *   y = 6; // FLOW POINT
-   *   var z = y;
-   *   return z;
-   * }
-   * </code>
-   * A FlowScope at FLOW POINT will return a slot for y, but not
-   * a slot for x or z.
-   */
-  private Map<String, StaticSlot<JSType>> allFlowSlots() {
-    Map<String, StaticSlot<JSType>> slots = Maps.newHashMap();
-    for (LinkedFlowSlot slot = lastSlot;
-         slot != null; slot = slot.parent) {
-      if (!slots.containsKey(slot.getName())) {
-        slots.put(slot.getName(), slot);
-      }
-    }
-
-    for (Map.Entry<String, StaticSlot<JSType>> symbolEntry : cache.symbols.entrySet()) {
-      if (!slots.containsKey(symbolEntry.getKey())) {
-        slots.put(symbolEntry.getKey(), symbolEntry.getValue());
-      }
-    }
-
-    return slots;
-  }
-
   @Override
   public int hashCode() {
     throw new UnsupportedOperationException();
   }
-
-  /**
-   * A static slot that can be used in a linked list.
-   */
-  private static class LinkedFlowSlot extends SimpleSlot {
-    final LinkedFlowSlot parent;
-
-    LinkedFlowSlot(String name, JSType type, LinkedFlowSlot parent) {
-      super(name, type, true);
-      this.parent = parent;
-    }
-  }
-
-  /**
-   * A map that tries to cache as much symbol table information
-   * as possible in a map. Optimized for fast lookup.
-   */
-  private static class FlatFlowScopeCache {
-    // The Scope for the entire function or for the global scope.
-    private final Scope functionScope;
-
-    // The linked flow scope that this cache represents.
-    private final LinkedFlowScope linkedEquivalent;
-
-    // All the symbols defined before this point in the local flow.
-    // May not include lazily declared qualified names.
-    private Map<String, StaticSlot<JSType>> symbols = Maps.newHashMap();
-
-    // Used to help make lookup faster for LinkedFlowScopes by recording
-    // symbols that may be redefined "soon", for an arbitrary definition
-    // of "soon". ;)
-    //
-    // More rigorously, if a symbol is redefined in a LinkedFlowScope,
-    // and this is the closest FlatFlowScopeCache, then that symbol is marked
-    // "dirty". In this way, we don't waste time looking in the LinkedFlowScope
-    // list for symbols that aren't defined anywhere nearby.
-    final Set<String> dirtySymbols = Sets.newHashSet();
-
-    // The cache at the bottom of the lattice.
-    FlatFlowScopeCache(Scope functionScope) {
-      this.functionScope = functionScope;
-      symbols = ImmutableMap.of();
-      linkedEquivalent = null;
-    }
-
-    // A cache in the middle of a long scope chain.
-    FlatFlowScopeCache(LinkedFlowScope directParent) {
-      FlatFlowScopeCache cache = directParent.cache;
-
-      functionScope = cache.functionScope;
-      symbols = directParent.allFlowSlots();
-      linkedEquivalent = directParent;
-    }
-
-    // A cache at the join of two scope chains.
-    FlatFlowScopeCache(LinkedFlowScope joinedScopeA,
-        LinkedFlowScope joinedScopeB) {
-      linkedEquivalent = null;
-
-      // Always prefer the "real" function scope to the faked-out
-      // bottom scope.
-      functionScope = joinedScopeA.flowsFromBottom() ?
-          joinedScopeB.getFunctionScope() : joinedScopeA.getFunctionScope();
-
-      Map<String, StaticSlot<JSType>> slotsA = joinedScopeA.allFlowSlots();
-      Map<String, StaticSlot<JSType>> slotsB = joinedScopeB.allFlowSlots();
-
-      symbols = slotsA;
-
-      // There are 5 different join cases:
-      // 1) The type is declared in joinedScopeA, not in joinedScopeB,
-      //    and not in functionScope. Just use the one in A.
-      // 2) The type is declared in joinedScopeB, not in joinedScopeA,
-      //    and not in functionScope. Just use the one in B.
-      // 3) The type is declared in functionScope and joinedScopeA, but
-      //    not in joinedScopeB. Join the two types.
-      // 4) The type is declared in functionScope and joinedScopeB, but
-      //    not in joinedScopeA. Join the two types.
-      // 5) The type is declared in joinedScopeA and joinedScopeB. Join
-      //    the two types.
-      Set<String> symbolNames = Sets.newHashSet(symbols.keySet());
-      symbolNames.addAll(slotsB.keySet());
-
-      for (String name : symbolNames) {
-        StaticSlot<JSType> slotA = slotsA.get(name);
-        StaticSlot<JSType> slotB = slotsB.get(name);
-
-        JSType joinedType = null;
-        if (slotB == null || slotB.getType() == null) {
-          StaticSlot<JSType> fnSlot
-              = joinedScopeB.getFunctionScope().getSlot(name);
-          JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
-          if (fnSlotType == null) {
-            // Case #1 -- already inserted.
-          } else {
-            // Case #3
-            joinedType = slotA.getType().getLeastSupertype(fnSlotType);
-          }
-        } else if (slotA == null || slotA.getType() == null) {
-          StaticSlot<JSType> fnSlot
-              = joinedScopeA.getFunctionScope().getSlot(name);
-          JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
-          if (fnSlotType == null) {
-            // Case #2
-            symbols.put(name, slotB);
-          } else {
-            // Case #4
-            joinedType = slotB.getType().getLeastSupertype(fnSlotType);
-          }
-        } else {
-          // Case #5
-          joinedType =
-              slotA.getType().getLeastSupertype(slotB.getType());
-        }
-
-        if (joinedType != null) {
-          symbols.put(name, new SimpleSlot(name, joinedType, true));
-        }
-      }
-    }
-
-    /**
-     * Get the slot for the given symbol.
-     */
-    public StaticSlot<JSType> getSlot(String name) {
-      if (symbols.containsKey(name)) {
-        return symbols.get(name);
-      } else {
-        return functionScope.getSlot(name);
-      }
-    }
-  }
 }
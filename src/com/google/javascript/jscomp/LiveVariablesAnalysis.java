@@ -21,11 +21,9 @@ import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.Scope.Var;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 
-import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 
@@ -61,7 +59,7 @@ class LiveVariablesAnalysis extends
     public LiveVariableLattice apply(List<LiveVariableLattice> in) {
       LiveVariableLattice result = new LiveVariableLattice(in.get(0));
       for (int i = 1; i < in.size(); i++) {
-        result.liveSet.or(in.get(i).liveSet);
+        result.or(in.get(i));
       }
       return result;
     }
@@ -72,45 +70,25 @@ class LiveVariablesAnalysis extends
    * point in the program. The whole lattice is the power set of all local
    * variables and a variable is live if it is in the set.
    */
-  static class LiveVariableLattice implements LatticeElement {
-    private final BitSet liveSet;
-
+  static class LiveVariableLattice extends BitSetLattice {
     /**
      * @param numVars Number of all local variables.
      */
     private LiveVariableLattice(int numVars) {
-      this.liveSet = new BitSet(numVars);
+      super(numVars);
     }
 
     private LiveVariableLattice(LiveVariableLattice other) {
-      Preconditions.checkNotNull(other);
-      this.liveSet = (BitSet) other.liveSet.clone();
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      Preconditions.checkNotNull(other);
-      return (other instanceof LiveVariableLattice) &&
-          this.liveSet.equals(((LiveVariableLattice) other).liveSet);
+      super(Preconditions.checkNotNull(other));
     }
 
     public boolean isLive(Var v) {
       Preconditions.checkNotNull(v);
-      return liveSet.get(v.index);
+      return get(v.index);
     }
 
     public boolean isLive(int index) {
-      return liveSet.get(index);
-    }
-
-    @Override
-    public String toString() {
-      return liveSet.toString();
-    }
-
-    @Override
-    public int hashCode() {
-      return liveSet.hashCode();
+      return get(index);
     }
   }
 
@@ -151,8 +129,8 @@ class LiveVariablesAnalysis extends
 
   @Override
   LiveVariableLattice flowThrough(Node node, LiveVariableLattice input) {
-    final BitSet gen = new BitSet(input.liveSet.size());
-    final BitSet kill = new BitSet(input.liveSet.size());
+    final BitSetLattice gen = new BitSetLattice(jsScope.getVarCount());
+    final BitSetLattice kill = new BitSetLattice(jsScope.getVarCount());
 
     // Make kills conditional if the node can end abruptly by an exception.
     boolean conditional = false;
@@ -165,8 +143,8 @@ class LiveVariablesAnalysis extends
     computeGenKill(node, gen, kill, conditional);
     LiveVariableLattice result = new LiveVariableLattice(input);
     // L_in = L_out - Kill + Gen
-    result.liveSet.andNot(kill);
-    result.liveSet.or(gen);
+    result.andNot(kill);
+    result.or(gen);
     return result;
   }
 
@@ -181,7 +159,7 @@ class LiveVariablesAnalysis extends
    * @param conditional {@code true} if any assignments encountered are
    *        conditionally executed. These assignments might not kill a variable.
    */
-  private void computeGenKill(Node n, BitSet gen, BitSet kill,
+  private void computeGenKill(Node n, BitSetLattice gen, BitSetLattice kill,
       boolean conditional) {
 
     switch (n.getType()) {
@@ -273,7 +251,7 @@ class LiveVariablesAnalysis extends
     }
   }
 
-  private void addToSetIfLocal(Node node, BitSet set) {
+  private void addToSetIfLocal(Node node, BitSetLattice set) {
     Preconditions.checkState(node.isName());
     String name = node.getString();
     if (!jsScope.isDeclared(name, false)) {
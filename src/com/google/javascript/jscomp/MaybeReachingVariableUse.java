@@ -17,19 +17,19 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.Scope.Var;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
 import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -48,11 +48,24 @@ class MaybeReachingVariableUse extends
   private final Scope jsScope;
   private final Set<Var> escaped;
 
+  // The use sites seen so far, in the order they were indexed. A use site is
+  // a CFG node that reads a local variable; its index is its bit in the
+  // ReachingUses lattice.
+  private final List<Node> useNodes = new ArrayList<>();
+  // For each variable, indexed by Var#index, the indices of its use sites
+  // keyed by CFG node, and the same indices as a set.
+  private final Map<Node, Integer>[] useIndices;
+  private final BitSetLattice[] usesOfVar;
+
   MaybeReachingVariableUse(
       ControlFlowGraph<Node> cfg, Scope jsScope, AbstractCompiler compiler) {
     super(cfg, new ReachingUsesJoinOp());
     this.jsScope = jsScope;
     this.escaped = Sets.newHashSet();
+    @SuppressWarnings("unchecked")
+    Map<Node, Integer>[] useIndices = new Map[jsScope.getVarCount()];
+    this.useIndices = useIndices;
+    this.usesOfVar = new BitSetLattice[jsScope.getVarCount()];
 
     // TODO(user): Maybe compute it somewhere else and re-use the escape
     // local set here.
@@ -81,13 +94,12 @@ class MaybeReachingVariableUse extends
    * N_7: print(A);
    *
    * At N_3, reads of A in {N_4, N_5} are said to be upward exposed.
+   *
+   * <p>The product lattice is stored as the set of indices of the upward
+   * exposed use sites, each of which belongs to exactly one variable.
    */
-  static final class ReachingUses implements LatticeElement {
-    final Multimap<Var, Node> mayUseMap;
-
-    public ReachingUses() {
-      mayUseMap = HashMultimap.create();
-    }
+  static final class ReachingUses extends BitSetLattice {
+    public ReachingUses() {}
 
     /**
      * Copy constructor.
@@ -95,18 +107,7 @@ class MaybeReachingVariableUse extends
      * @param other The constructed object is a replicated copy of this element.
      */
     public ReachingUses(ReachingUses other) {
-      mayUseMap = HashMultimap.create(other.mayUseMap);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof ReachingUses) &&
-          ((ReachingUses) other).mayUseMap.equals(this.mayUseMap);
-    }
-
-    @Override
-    public int hashCode() {
-      return mayUseMap.hashCode();
+      super(other);
     }
   }
 
@@ -120,9 +121,9 @@ class MaybeReachingVariableUse extends
   private static class ReachingUsesJoinOp implements JoinOp<ReachingUses> {
     @Override
     public ReachingUses apply(List<ReachingUses> from) {
-      ReachingUses result = new ReachingUses();
-      for (ReachingUses uses : from) {
-        result.mayUseMap.putAll(uses.mayUseMap);
+      ReachingUses result = new ReachingUses(from.get(0));
+      for (int i = 1; i < from.size(); i++) {
+        result.or(from.get(i));
       }
       return result;
     }
@@ -264,8 +265,26 @@ class MaybeReachingVariableUse extends
       return;
     }
     if (!escaped.contains(var)) {
-      use.mayUseMap.put(var, node);
+      use.set(getUseIndex(var, node));
+    }
+  }
+
+  /** Returns the index of the use site of the variable at the CFG node. */
+  private int getUseIndex(Var var, Node cfgNode) {
+    Map<Node, Integer> indices = useIndices[var.index];
+    if (indices == null) {
+      indices = new HashMap<>();
+      useIndices[var.index] = indices;
+      usesOfVar[var.index] = new BitSetLattice();
+    }
+    Integer index = indices.get(cfgNode);
+    if (index == null) {
+      index = useNodes.size();
+      useNodes.add(cfgNode);
+      indices.put(cfgNode, index);
+      usesOfVar[var.index].set(index);
     }
+    return index;
   }
 
   /**
@@ -278,8 +297,8 @@ class MaybeReachingVariableUse extends
     if (var == null || var.scope != jsScope) {
       return;
     }
-    if (!escaped.contains(var)) {
-      use.mayUseMap.removeAll(var);
+    if (!escaped.contains(var) && usesOfVar[var.index] != null) {
+      use.andNot(usesOfVar[var.index]);
     }
   }
 
@@ -297,6 +316,17 @@ class MaybeReachingVariableUse extends
     GraphNode<Node, Branch> n = getCfg().getNode(defNode);
     Preconditions.checkNotNull(n);
     FlowState<ReachingUses> state = n.getAnnotation();
-    return state.getOut().mayUseMap.get(jsScope.getVar(name));
+    Var var = jsScope.getVar(name);
+    List<Node> uses = new ArrayList<>();
+    if (var != null && var.scope == jsScope
+        && usesOfVar[var.index] != null) {
+      BitSetLattice reaching = new BitSetLattice(state.getOut());
+      reaching.and(usesOfVar[var.index]);
+      for (int i = reaching.nextSetBit(0); i >= 0;
+          i = reaching.nextSetBit(i + 1)) {
+        uses.add(useNodes.get(i));
+      }
+    }
+    return uses;
   }
 }
@@ -18,6 +18,8 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.jscomp.NodeTraversal.AbstractShallowCallback;
+import com.google.javascript.jscomp.NodeTraversal.FunctionCallback;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -43,7 +45,34 @@ class MinimizeExitPoints
 
   @Override
   public void process(Node externs, Node root) {
-    NodeTraversal.traverse(compiler, root, this);
+    // The exits of a function only depend on its own body, so in the
+    // optimization loop only the functions changed since the last run are
+    // looked at.
+    NodeTraversal.traverseChangedFunctions(compiler, new FunctionCallback() {
+        @Override
+        public void visit(AbstractCompiler compiler, Node root) {
+          if (root.isFunction()) {
+            Node body = root.getLastChild();
+            NodeTraversal.traverse(compiler, body, new ShallowCallback());
+            tryMinimizeExits(body, Token.RETURN, null);
+          } else {
+            NodeTraversal.traverse(compiler, root, new ShallowCallback());
+          }
+        }
+      });
+  }
+
+  /**
+   * Minimizes the exits of the loops and labels of a single scope. The
+   * functions nested in it are visited as scopes of their own.
+   */
+  private class ShallowCallback extends AbstractShallowCallback {
+    @Override
+    public void visit(NodeTraversal t, Node n, Node parent) {
+      if (!n.isFunction()) {
+        MinimizeExitPoints.this.visit(t, n, parent);
+      }
+    }
   }
 
   @Override
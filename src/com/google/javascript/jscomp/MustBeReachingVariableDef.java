@@ -17,7 +17,6 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.ControlFlowGraph.AbstractCfgNodeTraversalCallback;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
@@ -27,9 +26,10 @@ import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -50,12 +50,20 @@ final class MustBeReachingVariableDef extends
   private final AbstractCompiler compiler;
   private final Set<Var> escaped;
 
+  // The definition of every variable at the start of the function.
+  private final Definition entryDefinition;
+  // The definitions seen so far, keyed by the name node that they assign.
+  // A definition site always yields the same definition, so its
+  // dependencies are computed once rather than on every flow through it.
+  private final Map<Node, Definition> definitions = new HashMap<>();
+
   MustBeReachingVariableDef(
       ControlFlowGraph<Node> cfg, Scope jsScope, AbstractCompiler compiler) {
     super(cfg, new MustDefJoin());
     this.jsScope = jsScope;
     this.compiler = compiler;
     this.escaped = Sets.newHashSet();
+    this.entryDefinition = new Definition(jsScope.getRootNode());
     computeEscaped(jsScope, escaped, compiler);
   }
 
@@ -96,6 +104,9 @@ final class MustBeReachingVariableDef extends
     }
   }
 
+  // Stands for BOTTOM in a MustDef.
+  private static final Definition BOTTOM = new Definition(null);
+
   /**
    * Must reaching definition lattice representation. It captures a product
    * lattice for each local (non-escaped) variable. The sub-lattice is
@@ -112,30 +123,19 @@ final class MustBeReachingVariableDef extends
    *      \    |   |      /
    *          (BOTTOM)
    *
+   * <p>The product lattice is stored densely, indexed by {@link Var#index}.
    */
   static final class MustDef implements LatticeElement {
+    // When a Var "A" = "TOP", reachingDef[A.index] is null.
+    // When a Var "A" = Node N, reachingDef[A.index] is a definition at N.
+    // When a Var "A" = "BOTTOM", reachingDef[A.index] is BOTTOM.
+    final Definition[] reachingDef;
 
-    // TODO(user): Use bit vector instead of maps might get better
-    // performance. Change it after this is tested to be fully functional.
-
-    // When a Var "A" = "TOP", "A" does not exist in reachingDef's keySet.
-    // When a Var "A" = Node N, "A" maps to that node.
-    // When a Var "A" = "BOTTOM", "A" maps to null.
-    final Map<Var, Definition> reachingDef;
-
-    public MustDef() {
-      reachingDef = Maps.newHashMap();
-    }
-
-    public MustDef(Iterator<Var> vars) {
-      this();
-      while (vars.hasNext()) {
-        Var var = vars.next();
-        // Every variable in the scope is defined once in the beginning of the
-        // function: all the declared variables are undefined, all functions
-        // have been assigned and all arguments has its value from the caller.
-        reachingDef.put(var, new Definition(var.scope.getRootNode()));
-      }
+    /**
+     * @param numVars Number of all local variables.
+     */
+    MustDef(int numVars) {
+      reachingDef = new Definition[numVars];
     }
 
     /**
@@ -143,60 +143,58 @@ final class MustBeReachingVariableDef extends
      *
      * @param other The constructed object is a replicated copy of this element.
      */
-    public MustDef(MustDef other) {
-      reachingDef = Maps.newHashMap(other.reachingDef);
+    MustDef(MustDef other) {
+      reachingDef = other.reachingDef.clone();
+    }
+
+    /** Returns the reaching definition of the variable, or null if none. */
+    Definition get(Var var) {
+      Definition def = reachingDef[var.index];
+      return def == BOTTOM ? null : def;
     }
 
     @Override
     public boolean equals(Object other) {
-      return (other instanceof MustDef) &&
-          ((MustDef) other).reachingDef.equals(this.reachingDef);
+      if (!(other instanceof MustDef)) {
+        return false;
+      }
+      Definition[] otherDef = ((MustDef) other).reachingDef;
+      for (int i = 0; i < reachingDef.length; i++) {
+        if (reachingDef[i] != otherDef[i]
+            && (reachingDef[i] == null || !reachingDef[i].equals(otherDef[i]))) {
+          return false;
+        }
+      }
+      return true;
     }
 
     @Override
     public int hashCode() {
-      return reachingDef.hashCode();
+      int hash = 0;
+      for (Definition def : reachingDef) {
+        hash = 31 * hash + (def == null || def == BOTTOM ? 0 : def.hashCode());
+      }
+      return hash;
     }
   }
 
   private static class MustDefJoin extends JoinOp.BinaryJoinOp<MustDef> {
     @Override
     public MustDef apply(MustDef a, MustDef b) {
-      MustDef result = new MustDef();
-      Map<Var, Definition> resultMap = result.reachingDef;
-
-      // Take the join of all variables that are not TOP in this.
-      for (Map.Entry<Var, Definition> varEntry : a.reachingDef.entrySet()) {
-        Var var = varEntry.getKey();
-        Definition aDef = varEntry.getValue();
-
+      MustDef result = new MustDef(a);
+      Definition[] resultDef = result.reachingDef;
+      Definition[] bDef = b.reachingDef;
+      for (int i = 0; i < resultDef.length; i++) {
+        Definition aDef = resultDef[i];
         if (aDef == null) {
-          // "a" is BOTTOM implies that the variable has more than one possible
-          // definition. We set the join of this to be BOTTOM regardless of what
-          // "b" might be.
-          resultMap.put(var, null);
-          continue;
-        }
-
-        if (b.reachingDef.containsKey(var)) {
-          Definition bDef = b.reachingDef.get(var);
-
-          if (aDef.equals(bDef)) {
-            resultMap.put(var, aDef);
-          } else {
-            resultMap.put(var, null);
-          }
-        } else {
-          resultMap.put(var, aDef);
-        }
-      }
-
-      // Take the join of all variables that are not TOP in other but it is TOP
-      // in this.
-      for (Map.Entry<Var, Definition> entry : b.reachingDef.entrySet()) {
-        Var var = entry.getKey();
-        if (!a.reachingDef.containsKey(var)) {
-          resultMap.put(var, entry.getValue());
+          // TOP in "a": take whatever "b" has.
+          resultDef[i] = bDef[i];
+        } else if (aDef != BOTTOM && bDef[i] != null
+            && !aDef.equals(bDef[i])) {
+          // Different definitions reach from "a" and "b". If "a" is BOTTOM,
+          // the variable has more than one possible definition and the join
+          // stays BOTTOM regardless of what "b" might be.
+          resultDef[i] = BOTTOM;
         }
       }
       return result;
@@ -210,18 +208,21 @@ final class MustBeReachingVariableDef extends
 
   @Override
   MustDef createEntryLattice() {
-    return new MustDef(jsScope.getVars());
+    MustDef entry = new MustDef(jsScope.getVarCount());
+    // Every variable in the scope is defined once in the beginning of the
+    // function: all the declared variables are undefined, all functions
+    // have been assigned and all arguments has its value from the caller.
+    Arrays.fill(entry.reachingDef, entryDefinition);
+    return entry;
   }
 
   @Override
   MustDef createInitialEstimateLattice() {
-    return new MustDef();
+    return new MustDef(jsScope.getVarCount());
   }
 
   @Override
   MustDef flowThrough(Node n, MustDef input) {
-    // TODO(user): We are doing a straight copy from input to output. There
-    // might be some opportunities to cut down overhead.
     MustDef output = new MustDef(input);
     // TODO(user): This must know about ON_EX edges but it should handle
     // it better than what we did in liveness. Because we are in a forward mode,
@@ -262,7 +263,7 @@ final class MustBeReachingVariableDef extends
             lhs = lhs.getLastChild(); // for(var x in y) {...}
           }
           if (lhs.isName()) {
-            addToDefIfLocal(lhs.getString(), cfgNode, rhs, output);
+            addToDefIfLocal(lhs, cfgNode, rhs, output);
           }
         }
         return;
@@ -283,7 +284,7 @@ final class MustBeReachingVariableDef extends
         for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
           if (c.hasChildren()) {
             computeMustDef(c.getFirstChild(), cfgNode, output, conditional);
-            addToDefIfLocal(c.getString(), conditional ? null : cfgNode,
+            addToDefIfLocal(c, conditional ? null : cfgNode,
                 c.getFirstChild(), output);
           }
         }
@@ -294,7 +295,7 @@ final class MustBeReachingVariableDef extends
           if (n.getFirstChild().isName()) {
             Node name = n.getFirstChild();
             computeMustDef(name.getNext(), cfgNode, output, conditional);
-            addToDefIfLocal(name.getString(), conditional ? null : cfgNode,
+            addToDefIfLocal(name, conditional ? null : cfgNode,
               n.getLastChild(), output);
             return;
           } else if (NodeUtil.isGet(n.getFirstChild())) {
@@ -318,7 +319,7 @@ final class MustBeReachingVariableDef extends
         if (n.isDec() || n.isInc()) {
           Node target = n.getFirstChild();
           if (target.isName()) {
-            addToDefIfLocal(target.getString(),
+            addToDefIfLocal(target,
                 conditional ? null : cfgNode, null, output);
             return;
           }
@@ -334,12 +335,13 @@ final class MustBeReachingVariableDef extends
    * Set the variable lattice for the given name to the node value in the def
    * lattice. Do nothing if the variable name is one of the escaped variable.
    *
+   * @param nameNode The name of the variable being defined.
    * @param node The CFG node where the definition should be record to.
    *     {@code null} if this is a conditional define.
    */
-  private void addToDefIfLocal(String name, @Nullable Node node,
+  private void addToDefIfLocal(Node nameNode, @Nullable Node node,
       @Nullable Node rValue, MustDef def) {
-    Var var = jsScope.getVar(name);
+    Var var = jsScope.getVar(nameNode.getString());
 
     // var might be null because the variable might be defined in the extern
     // that we might not traverse.
@@ -347,48 +349,52 @@ final class MustBeReachingVariableDef extends
       return;
     }
 
-    for (Var other : def.reachingDef.keySet()) {
-      Definition otherDef = def.reachingDef.get(other);
-      if (otherDef == null) {
-        continue;
-      }
-      if (otherDef.depends.contains(var)) {
-        def.reachingDef.put(other, null);
+    Definition[] reachingDef = def.reachingDef;
+    for (int i = 0; i < reachingDef.length; i++) {
+      Definition otherDef = reachingDef[i];
+      if (otherDef != null && otherDef.depends.contains(var)) {
+        reachingDef[i] = BOTTOM;
       }
     }
 
     if (!escaped.contains(var)) {
       if (node == null) {
-        def.reachingDef.put(var, null);
+        reachingDef[var.index] = BOTTOM;
       } else {
-        Definition definition = new Definition(node);
-        if (rValue != null) {
-          computeDependence(definition, rValue);
+        Definition definition = definitions.get(nameNode);
+        if (definition == null) {
+          definition = new Definition(node);
+          if (rValue != null) {
+            computeDependence(definition, rValue);
+          }
+          definitions.put(nameNode, definition);
         }
-        def.reachingDef.put(var, definition);
+        reachingDef[var.index] = definition;
       }
     }
   }
 
   private void escapeParameters(MustDef output) {
+    Definition[] reachingDef = output.reachingDef;
     for (Iterator<Var> i = jsScope.getVars(); i.hasNext();) {
       Var v = i.next();
       if (isParameter(v)) {
         // Assume we no longer know where the parameter comes from
         // anymore.
-        output.reachingDef.put(v, null);
+        reachingDef[v.index] = BOTTOM;
       }
     }
 
     // Also, assume we no longer know anything that depends on a parameter.
-    for (Entry<Var, Definition> pair : output.reachingDef.entrySet()) {
-      Definition value = pair.getValue();
+    for (int i = 0; i < reachingDef.length; i++) {
+      Definition value = reachingDef[i];
       if (value == null) {
         continue;
       }
       for (Var dep : value.depends) {
         if (isParameter(dep)) {
-          output.reachingDef.put(pair.getKey(), null);
+          reachingDef[i] = BOTTOM;
+          break;
         }
       }
     }
@@ -431,7 +437,11 @@ final class MustBeReachingVariableDef extends
     Preconditions.checkArgument(getCfg().hasNode(useNode));
     GraphNode<Node, Branch> n = getCfg().getNode(useNode);
     FlowState<MustDef> state = n.getAnnotation();
-    return state.getIn().reachingDef.get(jsScope.getVar(name));
+    Var var = jsScope.getVar(name);
+    if (var == null || var.scope != jsScope) {
+      return null;
+    }
+    return state.getIn().get(var);
   }
 
   Node getDefNode(String name, Node useNode) {
@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -43,11 +44,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * New type inference algorithm.
@@ -241,12 +249,29 @@ public class NewTypeInference implements CompilerPass {
     }
   }
 
+  /** Holds the warnings of a function analyzed on a worker thread. */
+  private static class BufferedWarningReporter extends WarningReporter {
+    final List<JSError> buffer = new ArrayList<>();
+
+    BufferedWarningReporter(AbstractCompiler compiler) {
+      super(compiler);
+    }
+
+    @Override
+    void add(JSError warning) {
+      if (!JSType.mockToString) {
+        buffer.add(warning);
+      }
+    }
+  }
+
   private WarningReporter warnings;
   private final AbstractCompiler compiler;
   private final CodingConvention convention;
   private Map<DiGraphEdge<Node, ControlFlowGraph.Branch>, TypeEnv> envs;
-  private Map<Scope, JSType> summaries;
-  private Map<Node, DeferredCheck> deferredChecks;
+  // Shared by the workers when functions are analyzed in parallel
+  private final Map<Scope, JSType> summaries;
+  private final Map<Node, DeferredCheck> deferredChecks;
   private ControlFlowGraph<Node> cfg;
   private Scope currentScope;
   private GlobalTypeInfo symbolTable;
@@ -258,6 +283,7 @@ public class NewTypeInference implements CompilerPass {
   private final Map<String, AssertionFunctionSpec> assertionFunctionsMap;
   private static final QualifiedName NUMERIC_INDEX = new QualifiedName("0");
   private final boolean isClosurePassOn;
+  private final int threadCount;
 
   // Used only for development
   private static boolean showDebuggingPrints = false;
@@ -265,13 +291,24 @@ public class NewTypeInference implements CompilerPass {
   private static long peakMem = 0;
 
   NewTypeInference(AbstractCompiler compiler, boolean isClosurePassOn) {
+    this(compiler, isClosurePassOn, 1);
+  }
+
+  /**
+   * @param threadCount The number of threads used to analyze functions.
+   *     With one thread, functions are analyzed on the calling thread.
+   */
+  NewTypeInference(
+      AbstractCompiler compiler, boolean isClosurePassOn, int threadCount) {
+    Preconditions.checkArgument(threadCount > 0);
     this.warnings = new WarningReporter(compiler);
     this.compiler = compiler;
     this.convention = compiler.getCodingConvention();
     this.envs = new HashMap<>();
-    this.summaries = new HashMap<>();
-    this.deferredChecks = new HashMap<>();
+    this.summaries = new ConcurrentHashMap<>();
+    this.deferredChecks = new ConcurrentHashMap<>();
     this.isClosurePassOn = isClosurePassOn;
+    this.threadCount = threadCount;
     this.ABSTRACT_METHOD_NAME = convention.getAbstractMethodName();
     assertionFunctionsMap = new HashMap<>();
     for (AssertionFunctionSpec assertionFunction :
@@ -281,6 +318,26 @@ public class NewTypeInference implements CompilerPass {
     }
   }
 
+  /**
+   * Creates a worker that analyzes a single function on behalf of the given
+   * instance. It shares the summaries and deferred checks of that instance,
+   * but has its own per-function state and reports to its own warnings.
+   */
+  private NewTypeInference(NewTypeInference parent, WarningReporter warnings) {
+    this.warnings = warnings;
+    this.compiler = parent.compiler;
+    this.convention = parent.convention;
+    this.envs = new HashMap<>();
+    this.summaries = parent.summaries;
+    this.deferredChecks = parent.deferredChecks;
+    this.symbolTable = parent.symbolTable;
+    this.commonTypes = parent.commonTypes;
+    this.isClosurePassOn = parent.isClosurePassOn;
+    this.threadCount = 1;
+    this.ABSTRACT_METHOD_NAME = parent.ABSTRACT_METHOD_NAME;
+    this.assertionFunctionsMap = parent.assertionFunctionsMap;
+  }
+
   @VisibleForTesting // Only used from tests
   public Scope processForTesting(Node externs, Node root) {
     process(externs, root);
@@ -293,9 +350,13 @@ public class NewTypeInference implements CompilerPass {
     try {
       symbolTable = compiler.getSymbolTable();
       commonTypes = symbolTable.getTypesUtilObject();
-      for (Scope scope : symbolTable.getScopes()) {
-        analyzeFunction(scope);
-        envs.clear();
+      if (threadCount > 1) {
+        analyzeFunctionsInParallel();
+      } else {
+        for (Scope scope : symbolTable.getScopes()) {
+          analyzeFunction(scope);
+          envs.clear();
+        }
       }
       for (DeferredCheck check : deferredChecks.values()) {
         check.runCheck(summaries, warnings);
@@ -312,6 +373,114 @@ public class NewTypeInference implements CompilerPass {
     }
   }
 
+  /**
+   * Analyzes the functions on a pool of worker threads.
+   *
+   * The analysis of a function only reads the summaries of the functions
+   * defined directly inside it, so a function is scheduled as soon as those
+   * have been analyzed, and functions that do not depend on each other are
+   * analyzed concurrently. The warnings of each function are reported after
+   * all functions are analyzed, in the order of a sequential run.
+   */
+  private void analyzeFunctionsInParallel() {
+    Collection<Scope> scopes = symbolTable.getScopes();
+    ExecutorService executor = Executors.newFixedThreadPool(
+        threadCount, Compiler.newThreadFactory("jscompiler-nti"));
+    CountDownLatch done = new CountDownLatch(scopes.size());
+    AtomicReference<FunctionAnalysis> failed = new AtomicReference<>();
+
+    Map<Scope, FunctionAnalysis> analyses = new LinkedHashMap<>();
+    for (Scope scope : scopes) {
+      analyses.put(scope, new FunctionAnalysis(scope, executor, done, failed));
+    }
+    for (FunctionAnalysis analysis : analyses.values()) {
+      for (String fnName : analysis.scope.getLocalFunDefs()) {
+        // Functions from the externs are not analyzed.
+        FunctionAnalysis inner =
+            analyses.get(analysis.scope.getScope(fnName));
+        if (inner != null) {
+          inner.outer = analysis;
+          analysis.pendingInnerFunctions.incrementAndGet();
+        }
+      }
+    }
+
+    // Find the leaves before starting any of them, since the counters
+    // change once workers are running.
+    List<FunctionAnalysis> leaves = new ArrayList<>();
+    for (FunctionAnalysis analysis : analyses.values()) {
+      if (analysis.pendingInnerFunctions.get() == 0) {
+        leaves.add(analysis);
+      }
+    }
+    try {
+      for (FunctionAnalysis leaf : leaves) {
+        executor.execute(leaf);
+      }
+      done.await();
+    } catch (InterruptedException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (failed.get() != null) {
+      currentScope = failed.get().scope;
+      throw Throwables.propagate(failed.get().exception);
+    }
+    for (FunctionAnalysis analysis : analyses.values()) {
+      for (JSError warning : analysis.warnings.buffer) {
+        compiler.report(warning);
+      }
+      currentScope = analysis.scope;
+    }
+  }
+
+  /**
+   * The analysis of one function. When it finishes, it schedules the analysis
+   * of the enclosing function if that was the last one it was waiting for.
+   */
+  private class FunctionAnalysis implements Runnable {
+    final Scope scope;
+    final BufferedWarningReporter warnings =
+        new BufferedWarningReporter(compiler);
+    final AtomicInteger pendingInnerFunctions = new AtomicInteger();
+    FunctionAnalysis outer = null;
+    Throwable exception = null;
+
+    private final ExecutorService executor;
+    private final CountDownLatch done;
+    private final AtomicReference<FunctionAnalysis> failed;
+
+    FunctionAnalysis(Scope scope, ExecutorService executor,
+        CountDownLatch done, AtomicReference<FunctionAnalysis> failed) {
+      this.scope = scope;
+      this.executor = executor;
+      this.done = done;
+      this.failed = failed;
+    }
+
+    @Override
+    public void run() {
+      try {
+        // After a failure, the remaining functions are only counted down.
+        if (failed.get() == null) {
+          new NewTypeInference(NewTypeInference.this, warnings)
+              .analyzeFunction(scope);
+        }
+      } catch (RuntimeException | Error e) {
+        exception = e;
+        failed.compareAndSet(null, this);
+      } finally {
+        done.countDown();
+        if (outer != null
+            && outer.pendingInnerFunctions.decrementAndGet() == 0) {
+          executor.execute(outer);
+        }
+      }
+    }
+  }
+
   static void updatePeakMem() {
     Runtime rt = Runtime.getRuntime();
     long currentUsedMem = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
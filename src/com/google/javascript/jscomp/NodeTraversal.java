@@ -516,6 +516,16 @@ public class NodeTraversal {
    */
   public static void traverseChangedFunctions(
       AbstractCompiler compiler, FunctionCallback callback) {
+    traverseChangedFunctions(compiler, compiler.getJsRoot(), callback);
+  }
+
+  /**
+   * Like {@link #traverseChangedFunctions(AbstractCompiler, FunctionCallback)},
+   * but only looks for changed functions under the given root. The global
+   * scope is visited only if the root is the root of the program.
+   */
+  static void traverseChangedFunctions(
+      AbstractCompiler compiler, Node root, FunctionCallback callback) {
     final AbstractCompiler comp = compiler;
     final FunctionCallback cb = callback;
     final Node jsRoot = comp.getJsRoot();
@@ -528,7 +538,7 @@ public class NodeTraversal {
           return true;
         }
       });
-    t.traverse(jsRoot);
+    t.traverse(root);
   }
 
   /**
@@ -719,10 +729,8 @@ public class NodeTraversal {
   /** Gets the control flow graph for the current JS scope. */
   public ControlFlowGraph<Node> getControlFlowGraph() {
     if (cfgs.peek() == null) {
-      ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
-      cfa.process(null, getScopeRoot());
       cfgs.pop();
-      cfgs.push(cfa.getCfg());
+      cfgs.push(compiler.getControlFlowGraph(getScopeRoot(), false, true));
     }
     return cfgs.peek();
   }
@@ -481,7 +481,7 @@ class OptimizeParameters
       stmt = IR.exprResult(value);
     }
     block.addChildToFront(stmt);
-    compiler.reportCodeChange();
+    compiler.reportChangeToEnclosingScope(stmt);
   }
 
   /**
@@ -505,7 +505,7 @@ class OptimizeParameters
       argNode.detachFromParent();
       Node var = IR.var(argNode).copyInformationFrom(argNode);
       fnNode.getLastChild().addChildrenToFront(var);
-      compiler.reportCodeChange();
+      compiler.reportChangeToEnclosingScope(var);
       return true;
     }
     return false;
@@ -554,7 +554,7 @@ class OptimizeParameters
       if (p.getArg() != formalArgPtr) {
         removedNodes.add(formalArgPtr);
       }
-      compiler.reportCodeChange();
+      compiler.reportChangeToEnclosingScope(call);
     }
     return formalArgPtr;
   }
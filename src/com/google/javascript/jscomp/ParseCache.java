@@ -0,0 +1,493 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.jstype.StaticSourceFile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * A content-addressed, on-disk cache of parse trees.
+ *
+ * <p>Each entry maps a hash of a file's name, contents and parser config, and
+ * of the compiler build, to the tree the parser produced for it, before
+ * {@link Compiler#prepareAst}.
+ * Only parses that reported no errors or warnings are stored, so a cache hit
+ * can stand in for a parse without any change in the compiler's output.
+ *
+ * <p>The total size of the entries is bounded; when it is exceeded, the least
+ * recently used entries are deleted. Entry access times are kept as file
+ * modification times, so the order survives across compiler runs. New
+ * entries are written to disk on a background thread; see
+ * {@link #awaitWrites}. A cache created with {@link #createInMemory} keeps
+ * the serialized entries in memory instead, for a process that runs many
+ * compiles.
+ *
+ * <p>This class is safe for use from several threads at once.
+ *
+ */
+public final class ParseCache {
+  private static final Logger logger =
+      Logger.getLogger(ParseCache.class.getName());
+
+  // Bump this whenever the serialized form of the AST changes in a way
+  // that Java serialization would not detect on its own.
+  private static final int FORMAT_VERSION = 5;
+
+  private static final String ENTRY_SUFFIX = ".ast";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  // Older temporary files were left by a process that exited while writing.
+  private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  // Writes the entries of all the caches to disk. Its thread exits when idle.
+  private static final Executor writer = new ThreadPoolExecutor(
+      0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "jscompiler-parse-cache");
+          // Entries not yet written when the process exits are only lost.
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  // The directory holding the entries, or null if they are kept in memory.
+  @Nullable private final File directory;
+  private final long maxBytes;
+  // The serialized entries, keyed by entry name, if there is no directory.
+  private final Map<String, byte[]> memoryEntries = new HashMap<>();
+
+  // The size of each entry in bytes, keyed by entry name, in access order.
+  private final LinkedHashMap<String, Long> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+
+  private int hitCount = 0;
+  private int missCount = 0;
+  private int evictionCount = 0;
+  // The entries handed to the writer thread and not yet written.
+  private int pendingWrites = 0;
+
+  /**
+   * @param directory The directory holding the cache entries. It is created
+   *     if it does not exist.
+   * @param maxBytes The maximum total size of the cache entries.
+   */
+  public ParseCache(File directory, long maxBytes) {
+    Preconditions.checkArgument(maxBytes > 0);
+    this.directory = Preconditions.checkNotNull(directory);
+    this.maxBytes = maxBytes;
+    directory.mkdirs();
+    loadIndex();
+  }
+
+  private ParseCache(long maxBytes) {
+    Preconditions.checkArgument(maxBytes > 0);
+    this.directory = null;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a cache that keeps its entries in memory, so they only live as
+   * long as the cache itself.
+   *
+   * @param maxBytes The maximum total size of the serialized entries.
+   */
+  public static ParseCache createInMemory(long maxBytes) {
+    return new ParseCache(maxBytes);
+  }
+
+  private void loadIndex() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    long now = System.currentTimeMillis();
+    for (File file : files) {
+      if (file.getName().endsWith(ENTRY_SUFFIX)) {
+        entries.put(file.getName(), file.length());
+        totalBytes += file.length();
+      } else if (file.getName().endsWith(TEMP_FILE_SUFFIX)
+          && now - file.lastModified() > STALE_TEMP_FILE_MILLIS) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the cache key for a file with the given name and contents,
+   * parsed with the given config by this build of the compiler.
+   */
+  static String keyFor(String fileName, String code, Config config) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(BuildStamp.VALUE, UTF_8);
+    hasher.putString(config.getFingerprint(), UTF_8);
+    hasher.putString(fileName, UTF_8);
+    hasher.putInt(code.length());
+    hasher.putString(code, UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the cached tree for the given key, or null if there is none.
+   *
+   * @param sourceFile The file the tree was parsed from. The tree's
+   *     references to its source file are bound to this instance.
+   */
+  Node get(String key, SourceFile sourceFile) {
+    String entryName = key + ENTRY_SUFFIX;
+    byte[] bytes = null;
+    synchronized (this) {
+      if (entries.get(entryName) == null) {
+        missCount++;
+        return null;
+      }
+      if (directory == null) {
+        bytes = memoryEntries.get(entryName);
+      }
+    }
+
+    File file = directory == null ? null : new File(directory, entryName);
+    Node root = null;
+    try (InputStream in = bytes != null
+        ? new ByteArrayInputStream(bytes)
+        : new BufferedInputStream(new FileInputStream(file))) {
+      root = (Node) new TreeInputStream(in, sourceFile).readObject();
+      if (file != null) {
+        file.setLastModified(System.currentTimeMillis());
+      }
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      // The entry is corrupt or was written by an incompatible version of
+      // the compiler; drop it and parse again.
+      logger.log(Level.FINE, "Dropping parse cache entry " + entryName, e);
+      remove(entryName);
+    }
+
+    synchronized (this) {
+      if (root != null) {
+        hitCount++;
+      } else {
+        missCount++;
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Stores the tree parsed from the given source file. The tree must not
+   * have been modified since it was parsed.
+   *
+   * <p>The tree is serialized before this returns, since the compiler goes
+   * on to change it, but it is written to disk on a background thread.
+   */
+  void put(final String key, SourceFile sourceFile, Node root) {
+    final String entryName = key + ENTRY_SUFFIX;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      ObjectOutputStream treeOut = new TreeOutputStream(out, sourceFile);
+      treeOut.writeObject(root);
+      treeOut.flush();
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Failed to serialize parse tree " + entryName, e);
+      return;
+    }
+    final byte[] bytes = out.toByteArray();
+
+    if (directory == null) {
+      synchronized (this) {
+        memoryEntries.put(entryName, bytes);
+        addEntry(entryName, bytes.length);
+      }
+      return;
+    }
+
+    synchronized (this) {
+      pendingWrites++;
+    }
+    writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          writeEntry(key, entryName, bytes);
+        } finally {
+          synchronized (ParseCache.this) {
+            pendingWrites--;
+            ParseCache.this.notifyAll();
+          }
+        }
+      }
+    });
+  }
+
+  private void writeEntry(String key, String entryName, byte[] bytes) {
+    File file = new File(directory, entryName);
+    File tempFile = null;
+    try {
+      tempFile = File.createTempFile(key, TEMP_FILE_SUFFIX, directory);
+      try (OutputStream out = new FileOutputStream(tempFile)) {
+        out.write(bytes);
+      }
+      Files.move(tempFile.toPath(), file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Failed to write parse cache entry " + file, e);
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+      return;
+    }
+
+    synchronized (this) {
+      addEntry(entryName, bytes.length);
+    }
+  }
+
+  private void addEntry(String entryName, long size) {
+    Long oldSize = entries.put(entryName, size);
+    totalBytes += size - (oldSize == null ? 0 : oldSize);
+    evictIfNecessary();
+  }
+
+  /**
+   * Waits until the entries stored so far are written to disk, so that
+   * another cache on the same directory, for example in the next compiler
+   * run, can find them.
+   */
+  public synchronized void awaitWrites() throws InterruptedException {
+    while (pendingWrites > 0) {
+      wait();
+    }
+  }
+
+  private synchronized void remove(String entryName) {
+    Long size = entries.remove(entryName);
+    if (size != null) {
+      totalBytes -= size;
+    }
+    deleteEntry(entryName);
+  }
+
+  private void evictIfNecessary() {
+    Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, Long> eldest = it.next();
+      it.remove();
+      totalBytes -= eldest.getValue();
+      deleteEntry(eldest.getKey());
+      evictionCount++;
+    }
+  }
+
+  private void deleteEntry(String entryName) {
+    if (directory == null) {
+      memoryEntries.remove(entryName);
+    } else {
+      new File(directory, entryName).delete();
+    }
+  }
+
+  /** Returns the number of lookups that found a usable tree. */
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of lookups that did not find a usable tree. */
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /** Returns the number of entries deleted to stay within the size bound. */
+  public synchronized int getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Returns the fraction of lookups that were hits. */
+  public synchronized double getHitRate() {
+    int lookups = hitCount + missCount;
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+
+  /** Returns the total size of the cache entries in bytes. */
+  public synchronized long getSize() {
+    return totalBytes;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        "parse cache: %d hits, %d misses (%.1f%%), %d evictions, %d bytes",
+        hitCount, missCount, 100 * getHitRate(), evictionCount, totalBytes);
+  }
+
+  /**
+   * Identifies the build of the compiler. Another build may parse the same
+   * code into a different tree, so its entries are never served. Computed
+   * when a cache key is first needed.
+   */
+  private static final class BuildStamp {
+    static final String VALUE = compute();
+
+    private static String compute() {
+      try {
+        CodeSource codeSource =
+            ParseCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null) {
+          return hashBuild(new File(codeSource.getLocation().toURI()));
+        }
+      } catch (IOException | URISyntaxException | SecurityException
+          | IllegalArgumentException e) {
+        logger.log(Level.WARNING, "Cannot read the compiler's classes", e);
+      }
+      // Without its classes, the build cannot be told apart from others, so
+      // the entries are only served to this process.
+      return UUID.randomUUID().toString();
+    }
+  }
+
+  /**
+   * Returns a hash of the compiler classes and resources at the given
+   * location: a jar, or a directory of class files. The release version and
+   * date are no help here, since they are not set in development builds.
+   */
+  @VisibleForTesting
+  static String hashBuild(File location) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    if (!location.isDirectory()) {
+      hasher.putBytes(Files.readAllBytes(location.toPath()));
+      return hasher.hash().toString();
+    }
+    List<String> paths = new ArrayList<>();
+    collectFiles(location, "", paths);
+    // The order of the files in a directory listing is not fixed.
+    Collections.sort(paths);
+    for (String path : paths) {
+      byte[] bytes = Files.readAllBytes(new File(location, path).toPath());
+      hasher.putString(path, UTF_8);
+      hasher.putInt(bytes.length);
+      hasher.putBytes(bytes);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static void collectFiles(
+      File directory, String prefix, List<String> paths) throws IOException {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      throw new IOException("Cannot list " + directory);
+    }
+    for (File file : files) {
+      String path = prefix + file.getName();
+      if (file.isDirectory()) {
+        collectFiles(file, path + "/", paths);
+      } else {
+        paths.add(path);
+      }
+    }
+  }
+
+  /**
+   * Stands in for the tree's source file in a serialized tree, since the
+   * file is already known when the tree is read back.
+   */
+  private static final class SourceFilePlaceholder implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static final class TreeOutputStream extends ObjectOutputStream {
+    private final StaticSourceFile sourceFile;
+
+    TreeOutputStream(OutputStream out, StaticSourceFile sourceFile)
+        throws IOException {
+      super(out);
+      this.sourceFile = sourceFile;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj == sourceFile ? new SourceFilePlaceholder() : obj;
+    }
+  }
+
+  private static final class TreeInputStream extends ObjectInputStream {
+    private final StaticSourceFile sourceFile;
+
+    TreeInputStream(InputStream in, StaticSourceFile sourceFile)
+        throws IOException {
+      super(in);
+      this.sourceFile = sourceFile;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj instanceof SourceFilePlaceholder ? sourceFile : obj;
+    }
+  }
+}
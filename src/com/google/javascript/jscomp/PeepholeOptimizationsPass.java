@@ -26,7 +26,7 @@ import com.google.javascript.rhino.Node;
  *
  * @author dcc@google.com (Devin Coughlin)
  */
-class PeepholeOptimizationsPass implements CompilerPass {
+class PeepholeOptimizationsPass implements FunctionLocalCompilerPass {
   private AbstractCompiler compiler;
 
   // Use an array here for faster iteration compared to ImmutableSet
@@ -53,22 +53,40 @@ class PeepholeOptimizationsPass implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
-    compiler.addChangeHandler(handler);
     beginTraversal();
-    NodeTraversal.traverseChangedFunctions(compiler, new FunctionCallback() {
-        @Override
-        public void visit(AbstractCompiler compiler, Node root) {
-          if (root.isFunction()) {
-            root = root.getLastChild();
-          }
-          do {
-            handler.reset();
-            NodeTraversal.traverse(compiler, root, new PeepCallback());
-          } while (retraverseOnChange && handler.hasCodeChanged());
-        }
-      });
+    NodeTraversal.traverseChangedFunctions(compiler, new PeepScopeCallback());
     endTraversal();
-    compiler.removeChangeHandler(handler);
+  }
+
+  @Override
+  public void processFunctions(Node root) {
+    beginTraversal();
+    NodeTraversal.traverseChangedFunctions(
+        compiler, root, new PeepScopeCallback());
+    endTraversal();
+  }
+
+  @Override
+  public void processGlobalCode(Node externs, Node root) {
+    Node jsRoot = compiler.getJsRoot();
+    if (compiler.hasScopeChanged(jsRoot)) {
+      beginTraversal();
+      new PeepScopeCallback().visit(compiler, jsRoot);
+      endTraversal();
+    }
+  }
+
+  private class PeepScopeCallback implements FunctionCallback {
+    @Override
+    public void visit(AbstractCompiler compiler, Node root) {
+      if (root.isFunction()) {
+        root = root.getLastChild();
+      }
+      do {
+        handler.reset();
+        NodeTraversal.traverse(compiler, root, new PeepCallback());
+      } while (retraverseOnChange && handler.hasCodeChanged());
+    }
   }
 
   private class PeepCallback extends AbstractShallowCallback {
@@ -97,6 +115,7 @@ class PeepholeOptimizationsPass implements CompilerPass {
    * can report errors.
    */
   private void beginTraversal() {
+    compiler.addChangeHandler(handler);
     for (AbstractPeepholeOptimization optimization : peepholeOptimizations) {
       optimization.beginTraversal(compiler);
     }
@@ -106,5 +125,6 @@ class PeepholeOptimizationsPass implements CompilerPass {
     for (AbstractPeepholeOptimization optimization : peepholeOptimizations) {
       optimization.endTraversal(compiler);
     }
+    compiler.removeChangeHandler(handler);
   }
 }
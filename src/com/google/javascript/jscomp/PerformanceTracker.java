@@ -88,6 +88,9 @@ public class PerformanceTracker {
   /** Stats for each run of a compiler pass. */
   private final List<Stats> log = Lists.newArrayList();
 
+  /** Conformance rule stats by rule name. */
+  private final Map<String, RuleStats> conformanceRules = Maps.newHashMap();
+
   PerformanceTracker(Node jsRoot, TracerMode mode) {
     this.jsRoot = jsRoot;
     switch (mode) {
@@ -156,6 +159,16 @@ public class PerformanceTracker {
     logStats.runs = 1;
     summaryStats.runtime += runtime;
     summaryStats.runs += 1;
+    synchronized (this) {
+      summaryStats.dataFlowAnalyses += logStats.dataFlowAnalyses;
+      summaryStats.dataFlowSteps += logStats.dataFlowSteps;
+      if (logStats.maxDataFlowSteps > summaryStats.maxDataFlowSteps) {
+        summaryStats.maxDataFlowSteps = logStats.maxDataFlowSteps;
+        summaryStats.maxDataFlowNodes = logStats.maxDataFlowNodes;
+        summaryStats.maxDataFlowScope = logStats.maxDataFlowScope;
+      }
+      summaryStats.controlFlowGraphReuses += logStats.controlFlowGraphReuses;
+    }
     if (codeChange.hasCodeChanged()) {
       logStats.changes = 1;
       summaryStats.changes += 1;
@@ -181,6 +194,78 @@ public class PerformanceTracker {
     }
   }
 
+  /**
+   * Records that a data flow analysis run by the current pass took the given
+   * number of steps to reach a fixed point, on the control flow graph of the
+   * given function or global scope, which has the given number of nodes.
+   * Passes that analyze functions in parallel call this from several threads.
+   */
+  synchronized void recordDataFlowSteps(Node root, int nodes, int steps) {
+    Stats stats = currentPass.peek();
+    if (stats == null) {
+      return;
+    }
+    stats.dataFlowAnalyses++;
+    stats.dataFlowSteps += steps;
+    if (steps > stats.maxDataFlowSteps) {
+      stats.maxDataFlowSteps = steps;
+      stats.maxDataFlowNodes = nodes;
+      stats.maxDataFlowScope = describeScope(root);
+    }
+  }
+
+  /**
+   * Names a function, or the global scope, and gives where it starts.
+   * Functions analyzed on worker threads may be detached from the AST.
+   */
+  private static String describeScope(Node root) {
+    String name;
+    if (!root.isFunction()) {
+      name = "<global>";
+    } else {
+      name = root.getParent() == null
+          ? root.getFirstChild().getString()
+          : NodeUtil.getNearestFunctionName(root);
+      if (name == null || name.isEmpty()) {
+        name = "<anonymous>";
+      }
+    }
+    return name + "@" + root.getSourceFileName() + ":" + root.getLineno();
+  }
+
+  /**
+   * Records that the current pass reused the control flow graph of a function
+   * instead of computing it again.
+   */
+  synchronized void recordControlFlowGraphReuse() {
+    Stats stats = currentPass.peek();
+    if (stats != null) {
+      stats.controlFlowGraphReuses++;
+    }
+  }
+
+  /**
+   * Records the number of nodes a conformance rule was offered and the time
+   * it spent checking them.
+   *
+   * @param runtime execution time in microseconds, as most rules take well
+   *     under a millisecond
+   */
+  synchronized void recordConformanceRuleStats(
+      String rule, int nodes, long runtime) {
+    RuleStats stats = conformanceRules.get(rule);
+    if (stats == null) {
+      stats = new RuleStats(rule);
+      conformanceRules.put(rule, stats);
+    }
+    stats.nodes += nodes;
+    stats.runtime += runtime;
+  }
+
+  public synchronized ImmutableMap<String, RuleStats> getConformanceRuleStats() {
+    return ImmutableMap.copyOf(conformanceRules);
+  }
+
   public boolean tracksSize() {
     return trackSize;
   }
@@ -298,6 +383,44 @@ public class PerformanceTracker {
             stats.diff, stats.gzDiff, stats.size, stats.gzSize));
       }
       output.write("\n");
+
+      boolean hasDataFlowStats = false;
+      for (Entry<String, Stats> entry : statEntries) {
+        Stats stats = entry.getValue();
+        if (stats.dataFlowAnalyses > 0 || stats.controlFlowGraphReuses > 0) {
+          if (!hasDataFlowStats) {
+            output.write("Data flow:\npass,analyses,steps,maxSteps,"
+                + "cfgReuses,maxStepsCfgNodes,maxStepsScope\n");
+            hasDataFlowStats = true;
+          }
+          output.write(String.format("%s,%d,%d,%d,%d,%d,%s\n",
+              entry.getKey(), stats.dataFlowAnalyses, stats.dataFlowSteps,
+              stats.maxDataFlowSteps, stats.controlFlowGraphReuses,
+              stats.maxDataFlowNodes, stats.maxDataFlowScope));
+        }
+      }
+      if (hasDataFlowStats) {
+        output.write("\n");
+      }
+
+      List<RuleStats> ruleStats;
+      synchronized (this) {
+        ruleStats = new ArrayList<>(conformanceRules.values());
+      }
+      if (!ruleStats.isEmpty()) {
+        Collections.sort(ruleStats, new Comparator<RuleStats>() {
+          @Override
+          public int compare(RuleStats s1, RuleStats s2) {
+            return Long.compare(s2.runtime, s1.runtime);
+          }
+        });
+        output.write("Conformance rules:\nrule,runtimeMicros,nodes\n");
+        for (RuleStats stats : ruleStats) {
+          output.write(String.format("%s,%d,%d\n",
+              stats.rule, stats.runtime, stats.nodes));
+        }
+        output.write("\n");
+      }
       // output can be System.out, so don't close it to not lose subsequent
       // error messages. Flush to ensure that you will see the tracer report.
       output.flush();
@@ -324,6 +447,30 @@ public class PerformanceTracker {
     public int gzDiff = 0;
     public int size;
     public int gzSize;
+    // The data flow analyses run by the pass, the steps they took in total,
+    // and the most steps any one of them took. For that one, the size of the
+    // control flow graph it analyzed, and the function it came from.
+    public int dataFlowAnalyses = 0;
+    public long dataFlowSteps = 0;
+    public int maxDataFlowSteps = 0;
+    public int maxDataFlowNodes = 0;
+    public String maxDataFlowScope;
+    // The control flow graphs the pass reused rather than computed.
+    public int controlFlowGraphReuses = 0;
+  }
+
+  /**
+   * A RuleStats object contains statistics about a conformance rule: the
+   * nodes it was offered and the time it spent checking them.
+   */
+  public static class RuleStats {
+    RuleStats(String rule) {
+      this.rule = rule;
+    }
+    public final String rule;
+    // In microseconds.
+    public long runtime = 0;
+    public int nodes = 0;
   }
 
   /** An object to get a gzsize estimate; it doesn't generate code. */
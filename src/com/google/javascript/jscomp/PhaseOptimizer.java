@@ -18,15 +18,24 @@ package com.google.javascript.jscomp;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
@@ -71,10 +80,34 @@ class PhaseOptimizer implements CompilerPass {
   // change handlers. This flag prevents double update in ScopedChangeHandler.
   private boolean crossScopeReporting;
 
+  // The control flow graphs of the functions that the passes of the current
+  // loop analyzed, reused until their functions change.
+  private final Map<Node, CachedControlFlowGraph> cfgCache =
+      new IdentityHashMap<>();
+  // The number of times a graph was reused instead of computed again.
+  private int cfgReuses = 0;
+
   // Used for sanity checks between loopable passes
   private Node lastAst;
   private Map<Node, Node> mtoc; // Stands for "main to clone"
 
+  // The number of threads used to run function-local passes. With more than
+  // one, these passes run on the outermost functions of the program at once;
+  // see FunctionLocalCompilerPass.
+  private int threadCount = 1;
+  // Created on first use, and shut down when all the passes have run.
+  private ExecutorService executor;
+  // Whether a function-local pass is running on the worker threads. While it
+  // is, the compiler thread waits for them.
+  private boolean inParallelPass;
+  // The changes made by the function-local pass running on the current
+  // thread, if it is a worker thread.
+  private final ThreadLocal<SubtreeChanges> subtreeChanges =
+      new ThreadLocal<>();
+  // The number of tasks each worker thread gets in a function-local pass, so
+  // that the threads finish at about the same time.
+  private static final int TASKS_PER_THREAD = 4;
+
   /**
    * When processing loopable passes in order, the PhaseOptimizer can be in one
    * of these two states.
@@ -135,11 +168,25 @@ class PhaseOptimizer implements CompilerPass {
    * <p>
    * The PhaseOptimizer is free to tweak the order and frequency of multi-run
    * passes in a fixed-point loop.
+   * <p>
+   * Checks made by 2 or more {@link TraversalCheckFactory}s in a row run
+   * together in a single traversal of the AST.
    */
   void consume(List<PassFactory> factories) {
     Loop currentLoop = new Loop();
     boolean isCurrentLoopPopulated = false;
+    List<TraversalCheckFactory> currentChecks = Lists.newArrayList();
     for (PassFactory factory : factories) {
+      if (factory instanceof TraversalCheckFactory) {
+        if (isCurrentLoopPopulated) {
+          passes.add(currentLoop);
+          currentLoop = new Loop();
+          isCurrentLoopPopulated = false;
+        }
+        currentChecks.add((TraversalCheckFactory) factory);
+        continue;
+      }
+      addChecks(currentChecks);
       if (factory.isOneTimePass()) {
         if (isCurrentLoopPopulated) {
           passes.add(currentLoop);
@@ -153,11 +200,25 @@ class PhaseOptimizer implements CompilerPass {
       }
     }
 
+    addChecks(currentChecks);
     if (isCurrentLoopPopulated) {
       passes.add(currentLoop);
     }
   }
 
+  /**
+   * Adds the given checks to the compile sequence as a single pass, and
+   * clears the list.
+   */
+  private void addChecks(List<TraversalCheckFactory> checks) {
+    if (checks.size() == 1) {
+      addOneTimePass(checks.get(0));
+    } else if (checks.size() > 1) {
+      addOneTimePass(TraversalCheckFactory.fuse(checks));
+    }
+    checks.clear();
+  }
+
   /**
    * Add the pass generated by the given factory to the compile sequence.
    * This pass will be run once.
@@ -201,6 +262,15 @@ class PhaseOptimizer implements CompilerPass {
     this.printAstHashcodes = printAstHashcodes;
   }
 
+  /**
+   * Sets the number of threads used to run passes that implement
+   * {@link FunctionLocalCompilerPass}.
+   */
+  void setThreadCount(int threadCount) {
+    Preconditions.checkArgument(threadCount > 0);
+    this.threadCount = threadCount;
+  }
+
   /**
    * Run all the passes in the optimizer.
    */
@@ -213,10 +283,17 @@ class PhaseOptimizer implements CompilerPass {
           / passes.size();
       progress = progressRange.initialValue;
     }
-    for (CompilerPass pass : passes) {
-      pass.process(externs, root);
-      if (hasHaltingErrors()) {
-        return;
+    try {
+      for (CompilerPass pass : passes) {
+        pass.process(externs, root);
+        if (hasHaltingErrors()) {
+          return;
+        }
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
       }
     }
   }
@@ -282,7 +359,12 @@ class PhaseOptimizer implements CompilerPass {
       // Delay the creation of the actual pass until *after* all previous passes
       // have been processed.
       // Some precondition checks rely on this, eg, in CoalesceVariableNames.
-      factory.create(compiler).process(externs, root);
+      CompilerPass pass = factory.create(compiler);
+      if (threadCount > 1 && pass instanceof FunctionLocalCompilerPass) {
+        processInParallel((FunctionLocalCompilerPass) pass, externs, root);
+      } else {
+        pass.process(externs, root);
+      }
 
       compiler.afterPass(name);
 
@@ -308,13 +390,146 @@ class PhaseOptimizer implements CompilerPass {
         throw new RuntimeException("Sanity check failed for " + name, e);
       }
     }
+
+    /**
+     * Runs a function-local pass on the outermost functions of the program
+     * on the worker threads, and then on the code outside functions.
+     */
+    private void processInParallel(
+        FunctionLocalCompilerPass pass, Node externs, Node root) {
+      AstParallelizer parallelizer =
+          AstParallelizer.createNewFunctionLevelAstParallelizer(root, false);
+      List<Node> functions = parallelizer.split();
+      List<Node> placeHolders = parallelizer.getPlaceHolders();
+      List<Node> subtrees = Lists.newArrayListWithCapacity(functions.size());
+      for (int i = 0; i < functions.size(); i++) {
+        subtrees.add(
+            wrapDetachedFunction(functions.get(i), placeHolders.get(i)));
+      }
+
+      // Each task processes a contiguous range of the subtrees, so that the
+      // changes can be reported in the order of the functions in the AST.
+      List<SubtreeTask> tasks = Lists.newArrayList();
+      int taskCount = Math.min(subtrees.size(), threadCount * TASKS_PER_THREAD);
+      for (int i = 0; i < taskCount; i++) {
+        tasks.add(new SubtreeTask(factory, subtrees.subList(
+            i * subtrees.size() / taskCount,
+            (i + 1) * subtrees.size() / taskCount)));
+      }
+
+      List<SubtreeChanges> results = Lists.newArrayList();
+      inParallelPass = true;
+      try {
+        for (Future<SubtreeChanges> result : getExecutor().invokeAll(tasks)) {
+          results.add(result.get());
+        }
+      } catch (InterruptedException e) {
+        throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      } finally {
+        inParallelPass = false;
+        for (Node function : functions) {
+          function.detachFromParent();
+        }
+        parallelizer.join();
+      }
+
+      for (SubtreeChanges changes : results) {
+        reportSubtreeChanges(changes);
+      }
+      pass.processGlobalCode(externs, root);
+      // Errors in the global code come first, as when the pass runs on the
+      // whole program.
+      for (SubtreeChanges changes : results) {
+        for (JSError error : changes.errors) {
+          compiler.report(error);
+        }
+      }
+    }
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(
+          threadCount, Compiler.newThreadFactory("jscompiler-optimizer"));
+    }
+    return executor;
+  }
+
+  /**
+   * Puts a function detached by the AstParallelizer under a temporary SCRIPT,
+   * in the same syntactic position it had in the AST, so that it can be
+   * traversed like a program.
+   */
+  private static Node wrapDetachedFunction(Node function, Node placeHolder) {
+    Node script = IR.script();
+    script.setInputId(NodeUtil.getInputId(placeHolder));
+    script.setStaticSourceFile(function.getStaticSourceFile());
+    if (NodeUtil.isFunctionExpression(placeHolder)) {
+      script.addChildToBack(IR.exprResult(function));
+    } else {
+      script.addChildToBack(function);
+    }
+    return script;
+  }
+
+  /**
+   * Passes the changes made on a worker thread on to the compiler's change
+   * handlers, marking the changed scopes as if the changes had been made on
+   * the compiler thread.
+   */
+  private void reportSubtreeChanges(SubtreeChanges changes) {
+    Node savedScope = currentScope;
+    for (Node scope : changes.changedScopes) {
+      currentScope = scope;
+      compiler.reportCodeChange();
+    }
+    if (changes.changed && changes.changedScopes.isEmpty()) {
+      compiler.reportCodeChange();
+    }
+    currentScope = savedScope;
+  }
+
+  private SubtreeChanges getSubtreeChanges() {
+    return inParallelPass ? subtreeChanges.get() : null;
+  }
+
+  /**
+   * Returns the change handlers added on the current thread, if it is one of
+   * the worker threads of a function-local pass, and null otherwise.
+   */
+  List<CodeChangeHandler> getSubtreeChangeHandlers() {
+    SubtreeChanges changes = getSubtreeChanges();
+    return changes == null ? null : changes.handlers;
+  }
+
+  /**
+   * Holds back an error reported on one of the worker threads of a
+   * function-local pass, to report it once the worker threads are done.
+   *
+   * @return Whether the error was held back.
+   */
+  boolean deferSubtreeError(JSError error) {
+    SubtreeChanges changes = getSubtreeChanges();
+    if (changes == null) {
+      return false;
+    }
+    changes.errors.add(error);
+    return true;
   }
 
   void setScope(Node n) {
     // NodeTraversal causes setScope calls outside loops; ignore them.
     if (inLoop) {
       // Find the top-level node in the scope.
-      currentScope = n.isFunction() ? n : getEnclosingScope(n);
+      Node scope = n.isFunction() ? n : getEnclosingScope(n);
+      SubtreeChanges changes = getSubtreeChanges();
+      if (changes != null) {
+        changes.currentScope = getScopeInProgram(scope);
+      } else {
+        currentScope = scope;
+      }
     }
   }
 
@@ -325,8 +540,65 @@ class PhaseOptimizer implements CompilerPass {
     }
     int timeOfLastRun = lastRuns.get(currentPass);
     // A pass looks at all functions when it first runs
-    return timeOfLastRun == START_TIME
-        || n.getChangeTime() > timeOfLastRun;
+    if (timeOfLastRun == START_TIME || n.getChangeTime() > timeOfLastRun) {
+      return true;
+    }
+    // Changes made on a worker thread are not marked on the AST until the
+    // worker threads are done.
+    SubtreeChanges changes = getSubtreeChanges();
+    return changes != null && changes.changedScopes.contains(n);
+  }
+
+  /**
+   * Returns the control flow graph of a function or of the global scope.
+   * <p>
+   * Inside loops, the graph of a function is computed once and reused until
+   * a change is reported in the function. Changes to inner functions are
+   * marked on the inner functions only, so graphs that include them are not
+   * reused; neither are graphs computed on worker threads.
+   * <p>
+   * Only changes reported with {@link #reportChangeToEnclosingScope} name the
+   * function they were made in. A plain reportCodeChange may come from a pass
+   * that edited any function, so it drops all the cached graphs.
+   */
+  ControlFlowGraph<Node> getControlFlowGraph(
+      Node root, boolean shouldTraverseFunctions, boolean edgeAnnotations) {
+    if (!inLoop || inParallelPass || shouldTraverseFunctions
+        || !root.isFunction()) {
+      return ControlFlowAnalysis.computeCfg(
+          compiler, root, shouldTraverseFunctions, edgeAnnotations);
+    }
+    CachedControlFlowGraph cached = cfgCache.get(root);
+    // A graph that allows edge annotations serves either kind of request.
+    if (cached != null
+        && (cached.edgeAnnotations || !edgeAnnotations)
+        && root.getChangeTime() < cached.time) {
+      cfgReuses++;
+      if (tracker != null) {
+        tracker.recordControlFlowGraphReuse();
+      }
+      return cached.cfg;
+    }
+    ControlFlowGraph<Node> cfg = ControlFlowAnalysis.computeCfg(
+        compiler, root, false, edgeAnnotations);
+    // Changes reported from now on are marked with this time or a later one.
+    cfgCache.put(root,
+        new CachedControlFlowGraph(cfg, edgeAnnotations, timestamp));
+    return cfg;
+  }
+
+  @VisibleForTesting
+  int getControlFlowGraphReuseCount() {
+    return cfgReuses;
+  }
+
+  /**
+   * The enclosing scope of a node in a subtree detached for a function-local
+   * pass is either a function, or the temporary SCRIPT holding the subtree,
+   * which stands for the global scope.
+   */
+  private Node getScopeInProgram(Node scope) {
+    return scope.isFunction() ? scope : jsRoot;
   }
 
   private Node getEnclosingScope(Node n) {
@@ -340,6 +612,11 @@ class PhaseOptimizer implements CompilerPass {
   }
 
   void reportChangeToEnclosingScope(Node n) {
+    SubtreeChanges changes = getSubtreeChanges();
+    if (changes != null) {
+      changes.changedScopes.add(getScopeInProgram(getEnclosingScope(n)));
+      return;
+    }
     lastChange = timestamp;
     getEnclosingScope(n).setChangeTime(timestamp);
     // Every code change happens at a different time
@@ -352,12 +629,95 @@ class PhaseOptimizer implements CompilerPass {
    * changed when reportChangeToScope is called from Compiler.
    */
   void startCrossScopeReporting() {
-    crossScopeReporting = true;
+    SubtreeChanges changes = getSubtreeChanges();
+    if (changes != null) {
+      changes.crossScopeReporting = true;
+    } else {
+      crossScopeReporting = true;
+    }
   }
 
   /** The currently-running pass won't report cross-scope changes. */
   void endCrossScopeReporting() {
-    crossScopeReporting = false;
+    SubtreeChanges changes = getSubtreeChanges();
+    if (changes != null) {
+      changes.crossScopeReporting = false;
+    } else {
+      crossScopeReporting = false;
+    }
+  }
+
+  /**
+   * The changes and errors reported by a function-local pass on a worker
+   * thread. The compiler notifies the handlers in this list, instead of its
+   * own, of changes made on the thread; the first handler records the scopes
+   * the changes were made in.
+   */
+  private static class SubtreeChanges implements CodeChangeHandler {
+    final List<CodeChangeHandler> handlers = Lists.newArrayList();
+    // In the order in which they first changed.
+    final Set<Node> changedScopes = new LinkedHashSet<>();
+    final List<JSError> errors = Lists.newArrayList();
+    Node currentScope;
+    boolean crossScopeReporting;
+    boolean changed;
+
+    SubtreeChanges() {
+      handlers.add(this);
+    }
+
+    @Override
+    public void reportChange() {
+      changed = true;
+      // Outside loops, scopes are not tracked and currentScope is null.
+      if (!crossScopeReporting && currentScope != null) {
+        changedScopes.add(currentScope);
+      }
+    }
+  }
+
+  /**
+   * Runs a function-local pass on a range of detached subtrees, on a worker
+   * thread, with a new instance of the pass.
+   */
+  private class SubtreeTask implements Callable<SubtreeChanges> {
+    private final PassFactory factory;
+    private final List<Node> subtrees;
+
+    SubtreeTask(PassFactory factory, List<Node> subtrees) {
+      this.factory = factory;
+      this.subtrees = subtrees;
+    }
+
+    @Override
+    public SubtreeChanges call() {
+      SubtreeChanges changes = new SubtreeChanges();
+      subtreeChanges.set(changes);
+      try {
+        FunctionLocalCompilerPass pass =
+            (FunctionLocalCompilerPass) factory.create(compiler);
+        for (Node subtree : subtrees) {
+          pass.processFunctions(subtree);
+        }
+      } finally {
+        subtreeChanges.remove();
+      }
+      return changes;
+    }
+  }
+
+  /** A control flow graph, and the time it was computed. */
+  private static class CachedControlFlowGraph {
+    final ControlFlowGraph<Node> cfg;
+    final boolean edgeAnnotations;
+    final int time;
+
+    CachedControlFlowGraph(
+        ControlFlowGraph<Node> cfg, boolean edgeAnnotations, int time) {
+      this.cfg = cfg;
+      this.edgeAnnotations = edgeAnnotations;
+      this.time = time;
+    }
   }
 
   /**
@@ -379,6 +739,8 @@ class PhaseOptimizer implements CompilerPass {
       }
       lastChange = timestamp;
       currentScope.setChangeTime(timestamp);
+      // The change may have been made outside the current scope.
+      cfgCache.clear();
       // Every code change happens at a different time
       timestamp++;
     }
@@ -448,6 +810,13 @@ class PhaseOptimizer implements CompilerPass {
                     && !runInPrevIter.contains(pass))
                 || (state == State.RUN_PASSES_THAT_CHANGED_STH_IN_PREV_ITER
                         && madeChanges.contains(pass))) {
+              if (!madeChanges.contains(pass) && isUpToDate(pass)) {
+                // Running the pass again on the same AST changes nothing.
+                logger.fine("Skipping " + pass.name + ": no changes since it"
+                    + " last ran");
+                runInPrevIter.add(pass);
+                continue;
+              }
               timestamp++;
               currentPass = pass;
               pass.process(externs, root);
@@ -480,10 +849,21 @@ class PhaseOptimizer implements CompilerPass {
         }
       } finally {
         inLoop = false;
+        cfgCache.clear();
         compiler.removeChangeHandler(scopeHandler);
       }
     }
 
+    /**
+     * Whether nothing in the program changed since the pass last ran.
+     * Changes made by the pass itself in that run are not counted; passes
+     * that made changes are run again regardless.
+     */
+    private boolean isUpToDate(NamedPass pass) {
+      int timeOfLastRun = lastRuns.get(pass);
+      return timeOfLastRun != START_TIME && lastChange < timeOfLastRun;
+    }
+
     /** Re-arrange the passes in an optimal order. */
     private void optimizePasses() {
       // It's important that this ordering is deterministic, so that
@@ -73,4 +73,10 @@ public class ShowByPathWarningsGuard extends WarningsGuard {
   protected int getPriority() {
     return warningsGuard.getPriority();
   }
+
+  @Override
+  boolean dependsOnlyOnSourceAndType() {
+    // Subclasses may look at more of the error.
+    return getClass() == ShowByPathWarningsGuard.class;
+  }
 }
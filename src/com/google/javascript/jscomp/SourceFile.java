@@ -31,7 +31,6 @@ import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -109,12 +108,7 @@ public class SourceFile implements StaticSourceFile, Serializable {
       return;
     }
     try {
-      String[] sourceLines = getCode().split("\n");
-      lineOffsets = new int[sourceLines.length];
-      for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
-      }
+      lineOffsets = computeLineOffsets(getCode());
     } catch (IOException e) {
       lineOffsets = new int[1];
       lineOffsets[0] = 0;
@@ -122,6 +116,30 @@ public class SourceFile implements StaticSourceFile, Serializable {
   }
 
 
+  /**
+   * Returns the offset of the start of each line, in one pass over the code.
+   * Like {@code code.split("\n")}, empty lines at the end of the code are not
+   * counted, but there is always at least one line.
+   */
+  private static int[] computeLineOffsets(String code) {
+    int[] offsets = new int[16];
+    int count = 1;
+    // The number of lines up to the last one that is not empty.
+    int lastNonEmptyCount = 1;
+    for (int i = 0, length = code.length(); i < length; i++) {
+      if (code.charAt(i) == '\n') {
+        if (count == offsets.length) {
+          offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = i + 1;
+      } else {
+        lastNonEmptyCount = count;
+      }
+    }
+    return Arrays.copyOf(offsets, lastNonEmptyCount);
+  }
+
+
   //////////////////////////////////////////////////////////////////////////////
   // Implementation
 
@@ -267,7 +285,14 @@ public class SourceFile implements StaticSourceFile, Serializable {
     int pos = 0;
     int startLine = Math.max(1,
         lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
-    for (int n = 1; n < startLine; n++) {
+    // Skip straight to the start line if it is known.
+    int line = 1;
+    findLineOffsets();
+    if (startLine <= lineOffsets.length) {
+      pos = lineOffsets[startLine - 1];
+      line = startLine;
+    }
+    for (; line < startLine; line++) {
       int nextpos = js.indexOf('\n', pos);
       if (nextpos == -1) {
         break;
@@ -479,7 +504,9 @@ public class SourceFile implements StaticSourceFile, Serializable {
       String cachedCode = super.getCode();
 
       if (cachedCode == null) {
-        cachedCode = Files.toString(file, this.getCharset());
+        // Read the file in one go and decode it, rather than growing a
+        // buffer of chars as it is read.
+        cachedCode = new String(Files.toByteArray(file), this.getCharset());
         super.setCode(cachedCode);
       }
       return cachedCode;
@@ -494,7 +521,7 @@ public class SourceFile implements StaticSourceFile, Serializable {
         return super.getCodeReader();
       } else {
         // If we haven't pulled the code into memory yet, don't.
-        return Files.newReader(file, StandardCharsets.UTF_8);
+        return Files.newReader(file, this.getCharset());
       }
     }
 
@@ -39,4 +39,10 @@ public class StrictWarningsGuard extends WarningsGuard {
   protected int getPriority() {
     return WarningsGuard.Priority.STRICT.value; // applied last
   }
+
+  @Override
+  boolean dependsOnlyOnSourceAndType() {
+    // Subclasses may look at more of the error.
+    return getClass() == StrictWarningsGuard.class;
+  }
 }
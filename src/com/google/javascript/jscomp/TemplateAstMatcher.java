@@ -30,6 +30,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 /**
  * A matcher that can take an arbitrary AST and use it as a template to find
  * matches in another. As this matcher potentially matches against every node
@@ -41,6 +43,9 @@ public final class TemplateAstMatcher {
   private static final int TEMPLATE_TYPE_PARAM = Token.PLACEHOLDER1;
   private static final int TEMPLATE_LOCAL_NAME = Token.PLACEHOLDER2;
 
+  /** Returned by {@link #getTemplateToken} for a template matching any node. */
+  static final int ANY_TOKEN = -1;
+
   private final AbstractCompiler compiler;
 
   /**
@@ -115,6 +120,30 @@ public final class TemplateAstMatcher {
     return isLooseMatch;
   }
 
+  /**
+   * Returns the token type of the nodes the template can match, or
+   * {@link #ANY_TOKEN} if it starts with a parameter, which can match any
+   * expression.
+   */
+  int getTemplateToken() {
+    if (isTemplateParameterNode(templateStart)) {
+      return ANY_TOKEN;
+    } else if (isTemplateLocalNameNode(templateStart)) {
+      return Token.NAME;
+    }
+    return templateStart.getType();
+  }
+
+  /**
+   * Returns the target name, as described by
+   * {@link CheckConformance.TargetedRule}, of the nodes the template can
+   * match, or null if they can have any.
+   */
+  @Nullable
+  String getTemplateTargetName() {
+    return CheckConformance.getTargetName(templateStart);
+  }
+
   /**
    * Returns a map from named template Nodes (such as parameters
    * or local variables) to Nodes that were matches from the last matched
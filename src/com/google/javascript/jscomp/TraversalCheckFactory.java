@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.NodeTraversal.Callback;
+import com.google.javascript.rhino.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A factory for a check that is a single traversal of the AST with a
+ * callback that doesn't change it. The callback sees the main AST only, as
+ * with {@link NodeTraversal#traverse}, so the externs are neither visited nor
+ * in scope.
+ *
+ * <p>{@link PhaseOptimizer} runs consecutive checks made by such factories in
+ * one traversal, with a {@link CombinedCompilerPass}, rather than one
+ * traversal each.
+ *
+ */
+abstract class TraversalCheckFactory extends PassFactory {
+
+  private final boolean isHotSwappable;
+
+  /**
+   * @param name The name of the check.
+   * @param isHotSwappable Whether the check is run on scripts that are hot
+   *     swapped.
+   */
+  TraversalCheckFactory(String name, boolean isHotSwappable) {
+    super(name, true);
+    this.isHotSwappable = isHotSwappable;
+  }
+
+  /** Creates the callback that does the check. */
+  abstract Callback createCallback(AbstractCompiler compiler);
+
+  /**
+   * Called once the callback has traversed the AST, to act on what it found.
+   * Not called when a script is hot swapped.
+   */
+  void afterTraversal(AbstractCompiler compiler, Callback callback) {}
+
+  @Override
+  HotSwapCompilerPass create(AbstractCompiler compiler) {
+    return new CheckPass(compiler, ImmutableList.of(this));
+  }
+
+  @Override
+  HotSwapCompilerPass getHotSwapPass(AbstractCompiler compiler) {
+    return isHotSwappable ? create(compiler) : null;
+  }
+
+  /**
+   * Returns a factory for a pass that runs the checks of the given factories
+   * in one traversal. Its name joins the names of the checks.
+   */
+  static PassFactory fuse(List<TraversalCheckFactory> factories) {
+    Preconditions.checkArgument(factories.size() > 1);
+    final ImmutableList<TraversalCheckFactory> checks =
+        ImmutableList.copyOf(factories);
+    StringBuilder name = new StringBuilder();
+    for (TraversalCheckFactory check : checks) {
+      name.append(name.length() == 0 ? "" : "+").append(check.getName());
+    }
+    return new PassFactory(name.toString(), true) {
+      @Override
+      CompilerPass create(AbstractCompiler compiler) {
+        return new CheckPass(compiler, checks);
+      }
+    };
+  }
+
+  /** Runs the callbacks of several checks in one traversal. */
+  private static class CheckPass implements HotSwapCompilerPass {
+    private final AbstractCompiler compiler;
+    private final List<TraversalCheckFactory> checks;
+    private final List<Callback> callbacks = new ArrayList<>();
+
+    CheckPass(AbstractCompiler compiler, List<TraversalCheckFactory> checks) {
+      this.compiler = compiler;
+      this.checks = checks;
+      for (TraversalCheckFactory check : checks) {
+        callbacks.add(check.createCallback(compiler));
+      }
+    }
+
+    @Override
+    public void process(Node externs, Node root) {
+      CombinedCompilerPass.traverse(compiler, root, callbacks);
+      for (int i = 0; i < checks.size(); i++) {
+        checks.get(i).afterTraversal(compiler, callbacks.get(i));
+      }
+    }
+
+    @Override
+    public void hotSwapScript(Node scriptRoot, Node originalRoot) {
+      CombinedCompilerPass.traverse(compiler, scriptRoot, callbacks);
+    }
+  }
+}
@@ -118,6 +118,7 @@ class TypeInferencePass implements CompilerPass {
             assertionFunctionsMap);
     try {
       typeInference.analyze();
+      compiler.recordDataFlowSteps(typeInference);
 
       // Resolve any new type names found during the inference.
       compiler.getTypeRegistry().resolveTypesInScope(scope);
@@ -155,8 +156,6 @@ class TypeInferencePass implements CompilerPass {
   }
 
   private ControlFlowGraph<Node> computeCfg(Node n) {
-    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, false);
-    cfa.process(null, n);
-    return cfa.getCfg();
+    return compiler.getControlFlowGraph(n, false, false);
   }
 }
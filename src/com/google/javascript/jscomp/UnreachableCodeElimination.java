@@ -67,10 +67,8 @@ class UnreachableCodeElimination implements CompilerPass {
         @Override
         public void visit(AbstractCompiler compiler, Node root) {
           // Computes the control flow graph.
-          ControlFlowAnalysis cfa =
-              new ControlFlowAnalysis(compiler, false, false);
-          cfa.process(null, root);
-          ControlFlowGraph<Node> cfg = cfa.getCfg();
+          ControlFlowGraph<Node> cfg =
+              compiler.getControlFlowGraph(root, false, false);
           new GraphReachability<>(cfg)
               .compute(cfg.getEntry().getValue());
           if (root.isFunction()) {
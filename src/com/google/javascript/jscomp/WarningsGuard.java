@@ -104,4 +104,13 @@ public abstract class WarningsGuard implements Serializable {
   protected boolean enables(DiagnosticGroup group) {
     return false;
   }
+
+  /**
+   * Returns whether the level this guard gives an error depends only on the
+   * error's source name, type and default level, so that a
+   * {@link ComposeWarningsGuard} may remember it for other errors like it.
+   */
+  boolean dependsOnlyOnSourceAndType() {
+    return false;
+  }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * A persistent cache of the dependency information scanned from JS files.
+ *
+ * <p>Each entry is keyed by the path of a file and stamped with the file's
+ * modification time and size when it was scanned; an entry whose stamp no
+ * longer matches the file is ignored. The cache is read from a single text
+ * file when it is created, and {@link #save} rewrites that file with the
+ * entries that were looked up or added since, so files that are no longer
+ * scanned drop out of it.
+ *
+ * <p>This class is safe for use from several threads at once.
+ */
+public final class DependencyInfoCache {
+  private static final Logger logger =
+      Logger.getLogger(DependencyInfoCache.class.getName());
+
+  // Bump this whenever the format of the cache file changes.
+  private static final String HEADER = "# DependencyInfoCache 1";
+
+  private static final char SEPARATOR = '\t';
+  private static final Splitter FIELD_SPLITTER = Splitter.on(SEPARATOR);
+  private static final Splitter LIST_SPLITTER =
+      Splitter.on(',').omitEmptyStrings();
+  private static final Joiner LIST_JOINER = Joiner.on(',');
+
+  private final File cacheFile;
+  // The entries read from the cache file, keyed by path.
+  private final Map<String, Entry> savedEntries = new HashMap<>();
+  // The entries looked up or added since the cache was read, keyed by path.
+  private final ConcurrentMap<String, Entry> usedEntries =
+      new ConcurrentHashMap<>();
+
+  private final AtomicInteger hitCount = new AtomicInteger();
+  private final AtomicInteger missCount = new AtomicInteger();
+
+  /**
+   * @param cacheFile The file holding the cache. It need not exist yet. If it
+   *     cannot be read, the cache starts out empty.
+   */
+  public DependencyInfoCache(File cacheFile) {
+    this.cacheFile = cacheFile;
+    if (cacheFile.exists()) {
+      try {
+        load();
+      } catch (IOException | RuntimeException e) {
+        logger.warning("Ignoring unreadable deps cache " + cacheFile + ": " + e);
+        savedEntries.clear();
+      }
+    }
+  }
+
+  private void load() throws IOException {
+    List<String> lines = Files.readAllLines(cacheFile.toPath(), UTF_8);
+    if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+      logger.fine("Ignoring deps cache in an old format: " + cacheFile);
+      return;
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      List<String> fields = Lists.newArrayList(FIELD_SPLITTER.split(line));
+      if (fields.size() != 7) {
+        throw new IOException("Malformed entry: " + line);
+      }
+      savedEntries.put(fields.get(0), new Entry(
+          Long.parseLong(fields.get(1)),
+          Long.parseLong(fields.get(2)),
+          Boolean.parseBoolean(fields.get(3)),
+          ImmutableList.copyOf(LIST_SPLITTER.split(fields.get(4))),
+          ImmutableList.copyOf(LIST_SPLITTER.split(fields.get(5))),
+          Boolean.parseBoolean(fields.get(6))));
+    }
+  }
+
+  /**
+   * Returns the dependency information cached for a file, or null if there
+   * is none for the file in its current state.
+   *
+   * @param path The path of the file.
+   * @param lastModified The modification time of the file.
+   * @param length The size of the file.
+   * @param shortcutMode Whether the file is scanned in shortcut mode.
+   * @param closureRelativePath The path of the file relative to closure.
+   */
+  @Nullable
+  DependencyInfo get(String path, long lastModified, long length,
+      boolean shortcutMode, String closureRelativePath) {
+    Entry entry = savedEntries.get(path);
+    if (entry == null || entry.lastModified != lastModified
+        || entry.length != length || entry.shortcutMode != shortcutMode) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    usedEntries.put(path, entry);
+    return new SimpleDependencyInfo(closureRelativePath, path,
+        entry.provides, entry.requires, entry.isModule);
+  }
+
+  /**
+   * Records the dependency information scanned from a file. The modification
+   * time and size should be read before the file is, so that a change made
+   * during the scan makes the entry stale rather than wrong.
+   */
+  void put(String path, long lastModified, long length, boolean shortcutMode,
+      DependencyInfo info) {
+    if (path.indexOf(SEPARATOR) != -1 || path.indexOf('\n') != -1
+        || path.indexOf('\r') != -1) {
+      return;
+    }
+    usedEntries.put(path, new Entry(lastModified, length, shortcutMode,
+        ImmutableList.copyOf(info.getProvides()),
+        ImmutableList.copyOf(info.getRequires()),
+        info.isModule()));
+  }
+
+  /**
+   * Writes the entries looked up or added since the cache was read to the
+   * cache file, sorted by path.
+   */
+  public void save() throws IOException {
+    File tempFile = File.createTempFile(
+        cacheFile.getName(), ".tmp", cacheFile.getAbsoluteFile().getParentFile());
+    try {
+      try (Writer out = new BufferedWriter(
+          new OutputStreamWriter(Files.newOutputStream(tempFile.toPath()), UTF_8))) {
+        out.write(HEADER);
+        out.write('\n');
+        for (Map.Entry<String, Entry> e : new TreeMap<>(usedEntries).entrySet()) {
+          Entry entry = e.getValue();
+          out.write(e.getKey());
+          out.write(SEPARATOR);
+          out.write(Long.toString(entry.lastModified));
+          out.write(SEPARATOR);
+          out.write(Long.toString(entry.length));
+          out.write(SEPARATOR);
+          out.write(Boolean.toString(entry.shortcutMode));
+          out.write(SEPARATOR);
+          out.write(LIST_JOINER.join(entry.provides));
+          out.write(SEPARATOR);
+          out.write(LIST_JOINER.join(entry.requires));
+          out.write(SEPARATOR);
+          out.write(Boolean.toString(entry.isModule));
+          out.write('\n');
+        }
+      }
+      Files.move(tempFile.toPath(), cacheFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      tempFile.delete();
+    }
+  }
+
+  /** Returns the number of lookups that found a current entry. */
+  public int getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Returns the number of lookups that found no current entry. */
+  public int getMissCount() {
+    return missCount.get();
+  }
+
+  private static class Entry {
+    final long lastModified;
+    final long length;
+    final boolean shortcutMode;
+    final List<String> provides;
+    final List<String> requires;
+    final boolean isModule;
+
+    Entry(long lastModified, long length, boolean shortcutMode,
+        List<String> provides, List<String> requires, boolean isModule) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.shortcutMode = shortcutMode;
+      this.provides = provides;
+      this.requires = requires;
+      this.isModule = isModule;
+    }
+  }
+}
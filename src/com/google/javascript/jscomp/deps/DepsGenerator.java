@@ -20,6 +20,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -40,8 +42,14 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
+import javax.annotation.Nullable;
+
 /**
  * Generates deps.js files by scanning JavaScript files for
  * calls to goog.provide(), goog.require() and goog.addDependency().
@@ -66,6 +74,10 @@ public class DepsGenerator {
   private final InclusionStrategy mergeStrategy;
   final ErrorManager errorManager;
 
+  private int parseThreads = 1;
+  @Nullable private DependencyInfoCache cache = null;
+  private boolean shortcutMode = false;
+
   static final DiagnosticType SAME_FILE_WARNING = DiagnosticType.warning(
       "DEPS_SAME_FILE",
       "Namespace \"{0}\" is both required and provided in the same file.");
@@ -106,6 +118,44 @@ public class DepsGenerator {
     this.errorManager = errorManager;
   }
 
+  /**
+   * Sets the number of threads that scan the source files. With more than
+   * one, the files are scanned on a fork-join pool; the output and the
+   * order of the reported errors are the same as with one.
+   *
+   * @return this for easy chaining.
+   */
+  public DepsGenerator setParseThreads(int parseThreads) {
+    Preconditions.checkArgument(parseThreads > 0);
+    this.parseThreads = parseThreads;
+    return this;
+  }
+
+  /**
+   * Sets a cache of the dependency information of source files on disk.
+   * A source that has not changed since it was cached is not scanned again.
+   * The cache is saved once the sources have been scanned.
+   *
+   * @return this for easy chaining.
+   */
+  public DepsGenerator setCache(@Nullable DependencyInfoCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  /**
+   * Sets whether to stop scanning each source file at the first statement
+   * that cannot be part of its header of goog.provide, goog.module and
+   * goog.require calls.
+   *
+   * @see JsFileLineParser#setShortcutMode
+   * @return this for easy chaining.
+   */
+  public DepsGenerator setShortcutMode(boolean shortcutMode) {
+    this.shortcutMode = shortcutMode;
+    return this;
+  }
+
   /**
    * Performs the parsing inputs and writing of outputs.
    * @throws IOException Occurs upon an IO error.
@@ -318,9 +368,8 @@ public class DepsGenerator {
    */
   private Map<String, DependencyInfo> parseSources(
       Set<String> preparsedFiles) throws IOException {
-    Map<String, DependencyInfo> parsedFiles = Maps.newHashMap();
-    JsFileParser jsParser = new JsFileParser(errorManager);
-
+    List<SourceFile> filesToParse = Lists.newArrayList();
+    List<String> closureRelativePaths = Lists.newArrayList();
     for (SourceFile file : srcs) {
       String closureRelativePath =
           PathUtil.makeRelative(
@@ -329,20 +378,180 @@ public class DepsGenerator {
 
       if (InclusionStrategy.WHEN_IN_SRCS == mergeStrategy ||
           !preparsedFiles.contains(closureRelativePath)) {
-        DependencyInfo depInfo =
-            jsParser.parseFile(
-                file.getName(), closureRelativePath,
-                file.getCode());
-
-        // Kick the source out of memory.
-        file.clearCachedSource();
-        parsedFiles.put(closureRelativePath, depInfo);
+        filesToParse.add(file);
+        closureRelativePaths.add(closureRelativePath);
       }
     }
 
+    List<ParsedSource> parsedSources = Lists.newArrayList();
+    if (parseThreads > 1 && filesToParse.size() > 1) {
+      parseSourcesInParallel(
+          filesToParse, closureRelativePaths, parsedSources);
+    } else {
+      for (int i = 0; i < filesToParse.size(); i++) {
+        parsedSources.add(
+            parseSource(filesToParse.get(i), closureRelativePaths.get(i)));
+      }
+    }
+
+    // Report the results in source order, however they were produced.
+    Map<String, DependencyInfo> parsedFiles = Maps.newHashMap();
+    for (int i = 0; i < parsedSources.size(); i++) {
+      ParsedSource parsed = parsedSources.get(i);
+      parsed.errors.replayTo(errorManager);
+      parsedFiles.put(closureRelativePaths.get(i), parsed.depInfo);
+    }
+
+    if (cache != null) {
+      cache.save();
+    }
     return parsedFiles;
   }
 
+  private void parseSourcesInParallel(final List<SourceFile> filesToParse,
+      final List<String> closureRelativePaths,
+      List<ParsedSource> parsedSources) throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(parseThreads);
+    try {
+      List<Future<ParsedSource>> futures = Lists.newArrayList();
+      for (int i = 0; i < filesToParse.size(); i++) {
+        final SourceFile file = filesToParse.get(i);
+        final String closureRelativePath = closureRelativePaths.get(i);
+        futures.add(pool.submit(new Callable<ParsedSource>() {
+          @Override
+          public ParsedSource call() throws IOException {
+            return parseSource(file, closureRelativePath);
+          }
+        }));
+      }
+      for (Future<ParsedSource> future : futures) {
+        parsedSources.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning sources", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Scans one source file, or takes its dependency information from the
+   * cache. Safe to call from several threads at once.
+   */
+  private ParsedSource parseSource(SourceFile file, String closureRelativePath)
+      throws IOException {
+    BufferedErrorManager errors = new BufferedErrorManager();
+    String path = file.getName();
+    File onDisk = cache == null ? null : new File(path);
+    long lastModified = 0;
+    long length = 0;
+    if (onDisk != null && onDisk.isFile()) {
+      // Read the stamp before the file, in case it changes in between.
+      lastModified = onDisk.lastModified();
+      length = onDisk.length();
+      DependencyInfo cached = cache.get(
+          path, lastModified, length, shortcutMode, closureRelativePath);
+      if (cached != null) {
+        return new ParsedSource(cached, errors);
+      }
+    } else {
+      onDisk = null;
+    }
+
+    JsFileParser jsParser = new JsFileParser(errors);
+    jsParser.setShortcutMode(shortcutMode);
+    DependencyInfo depInfo =
+        jsParser.parseFile(path, closureRelativePath, file.getCode());
+
+    // Kick the source out of memory.
+    file.clearCachedSource();
+    if (onDisk != null && errors.isEmpty()) {
+      cache.put(path, lastModified, length, shortcutMode, depInfo);
+    }
+    return new ParsedSource(depInfo, errors);
+  }
+
+  /** The dependency information of a source and the errors found in it. */
+  private static class ParsedSource {
+    final DependencyInfo depInfo;
+    final BufferedErrorManager errors;
+
+    ParsedSource(DependencyInfo depInfo, BufferedErrorManager errors) {
+      this.depInfo = depInfo;
+      this.errors = errors;
+    }
+  }
+
+  /**
+   * Holds the errors reported while scanning one source, so that they can
+   * be passed on in source order.
+   */
+  private static class BufferedErrorManager implements ErrorManager {
+    private final List<CheckLevel> levels = Lists.newArrayList();
+    private final List<JSError> errors = Lists.newArrayList();
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      levels.add(level);
+      errors.add(error);
+    }
+
+    boolean isEmpty() {
+      return errors.isEmpty();
+    }
+
+    void replayTo(ErrorManager errorManager) {
+      for (int i = 0; i < errors.size(); i++) {
+        errorManager.report(levels.get(i), errors.get(i));
+      }
+    }
+
+    @Override
+    public void generateReport() {}
+
+    @Override
+    public int getErrorCount() {
+      return getErrors().length;
+    }
+
+    @Override
+    public int getWarningCount() {
+      return getWarnings().length;
+    }
+
+    @Override
+    public JSError[] getErrors() {
+      return getErrors(CheckLevel.ERROR);
+    }
+
+    @Override
+    public JSError[] getWarnings() {
+      return getErrors(CheckLevel.WARNING);
+    }
+
+    private JSError[] getErrors(CheckLevel level) {
+      List<JSError> result = Lists.newArrayList();
+      for (int i = 0; i < errors.size(); i++) {
+        if (levels.get(i) == level) {
+          result.add(errors.get(i));
+        }
+      }
+      return result.toArray(new JSError[0]);
+    }
+
+    @Override
+    public void setTypedPercent(double typedPercent) {}
+
+    @Override
+    public double getTypedPercent() {
+      return 0.0;
+    }
+  }
+
   /**
    * Creates the content to put into the output deps.js file. If mergeDeps is
    * true, then all of the dependency information in the providedDeps will be
@@ -41,11 +41,20 @@ public class JsFileParser extends JsFileLineParser {
   private static final Pattern GOOG_PROVIDE_REQUIRE_PATTERN = Pattern.compile(
       "(?:^|;)\\s*(?:(?:var|let|const)\\s+[a-zA-Z_$][a-zA-Z0-9$_]*\\s*=\\s*)?goog\\.(provide|module|require|addDependency)\\s*\\((.*?)\\)");
 
+  /**
+   * Pattern for matching lines of statements that may come before or among
+   * the goog.provide and goog.require calls without ending the file header.
+   */
+  private static final Pattern HEADER_STATEMENT_PATTERN = Pattern.compile(
+      "(?:\\s*(?:'use strict'|\"use strict\"|goog\\.setTestOnly\\s*\\([^)]*\\)"
+      + "|goog\\.module\\.declareLegacyNamespace\\s*\\(\\s*\\))\\s*;?)+\\s*");
+
   /** The first non-comment line of base.js */
   private static final String BASE_JS_START = "var COMPILED = false;";
 
   /** Matchers used in the parsing. */
   private Matcher googMatcher = GOOG_PROVIDE_REQUIRE_PATTERN.matcher("");
+  private Matcher headerMatcher = HEADER_STATEMENT_PATTERN.matcher("");
 
   /** The info for the file we are currently parsing. */
   private List<String> provides;
@@ -174,6 +183,7 @@ public class JsFileParser extends JsFileLineParser {
     }
 
     return !shortcutMode || lineHasProvidesOrRequires ||
-        CharMatcher.WHITESPACE.matchesAllOf(line);
+        CharMatcher.WHITESPACE.matchesAllOf(line) ||
+        headerMatcher.reset(line).matches();
   }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import com.google.javascript.jscomp.graph.UndiGraph.UndiGraphEdge;
+import com.google.javascript.jscomp.graph.UndiGraph.UndiGraphNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only copy of the edges of a graph in compressed sparse row form, for
+ * algorithms that walk the edges of a graph many times.
+ *
+ * <p>Building a copy visits every node and edge of the graph, so it only pays
+ * off when the copy is walked more than once, as in {@link GraphColoring}.
+ * Searches that may only visit a few nodes, such as
+ * {@link GraphReachability#recompute}, walk the graph's own nodes instead.
+ *
+ * <p>The nodes are numbered from 0, in the order the graph lists them. The
+ * edges leaving node {@code i} are numbered from {@code getFirstEdge(i)} up
+ * to, but not including, {@code getFirstEdge(i + 1)}, and the target of edge
+ * {@code e} is {@code getTarget(e)}. The edges leaving a node keep the order
+ * the graph lists them in.
+ *
+ * <p>A copy of a directed graph holds its out edges. A copy of an undirected
+ * graph holds each edge once for each of its ends, leaving that end. The copy
+ * does not see changes made to the graph after it is built.
+ *
+ * @param <N> Value type that the graph node stores.
+ * @param <E> Value type that the graph edge stores.
+ */
+final class CompactGraph<N, E> {
+  private final List<GraphNode<N, E>> nodes;
+  private final Map<GraphNode<N, E>, Integer> ids;
+  // firstEdges[i] is the number of the first edge leaving node i. It has one
+  // more element than there are nodes, the number of edges.
+  private final int[] firstEdges;
+  private final int[] targets;
+  private final Object[] edgeValues;
+
+  private CompactGraph(List<GraphNode<N, E>> nodes,
+      Map<GraphNode<N, E>, Integer> ids, int[] firstEdges, int[] targets,
+      Object[] edgeValues) {
+    this.nodes = nodes;
+    this.ids = ids;
+    this.firstEdges = firstEdges;
+    this.targets = targets;
+    this.edgeValues = edgeValues;
+  }
+
+  /** Copies the out edges of a directed graph. */
+  static <N, E> CompactGraph<N, E> fromDiGraph(DiGraph<N, E> graph) {
+    List<GraphNode<N, E>> nodes = new ArrayList<>();
+    Map<GraphNode<N, E>, Integer> ids = new IdentityHashMap<>();
+    int edgeCount = 0;
+    for (DiGraphNode<N, E> node : graph.getDirectedGraphNodes()) {
+      ids.put(node, nodes.size());
+      nodes.add(node);
+      edgeCount += node.getOutEdges().size();
+    }
+
+    int[] firstEdges = new int[nodes.size() + 1];
+    int[] targets = new int[edgeCount];
+    Object[] edgeValues = new Object[edgeCount];
+    int edge = 0;
+    for (int i = 0; i < nodes.size(); i++) {
+      firstEdges[i] = edge;
+      for (DiGraphEdge<N, E> outEdge
+           : ((DiGraphNode<N, E>) nodes.get(i)).getOutEdges()) {
+        targets[edge] = ids.get(outEdge.getDestination());
+        edgeValues[edge] = outEdge.getValue();
+        edge++;
+      }
+    }
+    firstEdges[nodes.size()] = edge;
+    return new CompactGraph<>(nodes, ids, firstEdges, targets, edgeValues);
+  }
+
+  /** Copies the edges of an undirected graph. */
+  static <N, E> CompactGraph<N, E> fromUndiGraph(UndiGraph<N, E> graph) {
+    List<GraphNode<N, E>> nodes = new ArrayList<>();
+    Map<GraphNode<N, E>, Integer> ids = new IdentityHashMap<>();
+    int edgeCount = 0;
+    for (UndiGraphNode<N, E> node : graph.getUndirectedGraphNodes()) {
+      ids.put(node, nodes.size());
+      nodes.add(node);
+      edgeCount += node.getNeighborEdges().size();
+    }
+
+    int[] firstEdges = new int[nodes.size() + 1];
+    int[] targets = new int[edgeCount];
+    Object[] edgeValues = new Object[edgeCount];
+    int edge = 0;
+    for (int i = 0; i < nodes.size(); i++) {
+      GraphNode<N, E> node = nodes.get(i);
+      firstEdges[i] = edge;
+      for (UndiGraphEdge<N, E> neighborEdge
+           : ((UndiGraphNode<N, E>) node).getNeighborEdges()) {
+        GraphNode<N, E> neighbor = neighborEdge.getNodeA() == node
+            ? neighborEdge.getNodeB() : neighborEdge.getNodeA();
+        targets[edge] = ids.get(neighbor);
+        edgeValues[edge] = neighborEdge.getValue();
+        edge++;
+      }
+    }
+    firstEdges[nodes.size()] = edge;
+    return new CompactGraph<>(nodes, ids, firstEdges, targets, edgeValues);
+  }
+
+  int getNodeCount() {
+    return nodes.size();
+  }
+
+  GraphNode<N, E> getNode(int id) {
+    return nodes.get(id);
+  }
+
+  /** Returns the number of the given node, or -1 if it isn't in the graph. */
+  int getId(GraphNode<N, E> node) {
+    Integer id = ids.get(node);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the number of the first edge leaving the given node. Given the
+   * number of nodes, returns the number of edges.
+   */
+  int getFirstEdge(int id) {
+    return firstEdges[id];
+  }
+
+  int getTarget(int edge) {
+    return targets[edge];
+  }
+
+  @SuppressWarnings("unchecked")
+  E getEdgeValue(int edge) {
+    return (E) edgeValues[edge];
+  }
+}
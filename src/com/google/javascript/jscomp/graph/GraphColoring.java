@@ -19,6 +19,7 @@ package com.google.javascript.jscomp.graph;
 import com.google.common.base.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -127,6 +128,10 @@ public abstract class GraphColoring<N, E> {
 
     @Override
     public int color() {
+      if (graph instanceof UndiGraph) {
+        return colorCompactGraph(
+            CompactGraph.fromUndiGraph((UndiGraph<N, E>) graph));
+      }
       List<GraphNode<N, E>> worklist = new ArrayList<>(graph.getNodes());
 
       // Sort nodes by degree.
@@ -161,5 +166,74 @@ public abstract class GraphColoring<N, E> {
       colorToNodeMap = map;
       return count;
     }
+
+    /**
+     * Colors the nodes like {@link #color}, in the same order, but finds the
+     * neighbors of a node in the given copy of the graph rather than asking
+     * the graph for them.
+     */
+    private int colorCompactGraph(final CompactGraph<N, E> compactGraph) {
+      int nodeCount = compactGraph.getNodeCount();
+      final int[] weights = new int[nodeCount];
+      Integer[] order = new Integer[nodeCount];
+      for (int i = 0; i < nodeCount; i++) {
+        weights[i] = graph.getWeight(compactGraph.getNode(i).getValue());
+        order[i] = i;
+      }
+
+      // Sort nodes by degree.
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+          int result = weights[o2] - weights[o1];
+          return result == 0 && tieBreaker != null
+              ? tieBreaker.compare(compactGraph.getNode(o1).getValue(),
+                  compactGraph.getNode(o2).getValue())
+              : result;
+        }
+      });
+      int[] worklist = new int[nodeCount];
+      for (int i = 0; i < nodeCount; i++) {
+        worklist[i] = order[i];
+      }
+
+      // Idea: From the highest to lowest degree, assign any uncolored node with
+      // a unique color if none of its neighbors has been assigned that color.
+      int[] colors = new int[nodeCount];
+      Arrays.fill(colors, -1);
+      int remaining = nodeCount;
+      int count = 0;
+      do {
+        Color color = new Color(count);
+        int kept = 0;
+        for (int i = 0; i < remaining; i++) {
+          int node = worklist[i];
+          if (isIndependentOf(compactGraph, colors, node, count)) {
+            colors[node] = count;
+            compactGraph.getNode(node).setAnnotation(color);
+          } else {
+            worklist[kept++] = node;
+          }
+        }
+        remaining = kept;
+        count++;
+      } while (remaining > 0);
+      @SuppressWarnings("unchecked")
+      N[] map = (N[]) new Object[count];
+      colorToNodeMap = map;
+      return count;
+    }
+
+    /** Whether no neighbor of the given node has the given color. */
+    private static boolean isIndependentOf(
+        CompactGraph<?, ?> compactGraph, int[] colors, int node, int color) {
+      int end = compactGraph.getFirstEdge(node + 1);
+      for (int edge = compactGraph.getFirstEdge(node); edge < end; edge++) {
+        if (colors[compactGraph.getTarget(edge)] == color) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 }
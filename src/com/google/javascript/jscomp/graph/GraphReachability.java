@@ -18,8 +18,13 @@ package com.google.javascript.jscomp.graph;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.FixedPointGraphTraversal.EdgeCallback;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Computes all the reachable nodes. Upon execution of {@link #compute(Object)},
  * the graph nodes will be annotated with {@link #REACHABLE} if it is reachable
@@ -56,17 +61,38 @@ public class GraphReachability<N, E> implements EdgeCallback<N, E> {
 
   public void compute(N entry) {
     graph.clearNodeAnnotations();
-    graph.getNode(entry).setAnnotation(REACHABLE);
-    FixedPointGraphTraversal.newTraversal(this)
-        .computeFixedPoint(graph, entry);
+    markReachableFrom(graph.getDirectedGraphNode(entry));
   }
 
   public void recompute(N reachableNode) {
-    GraphNode<N, E> newReachable = graph.getNode(reachableNode);
+    DiGraphNode<N, E> newReachable = graph.getDirectedGraphNode(reachableNode);
     Preconditions.checkState(newReachable.getAnnotation() != REACHABLE);
-    newReachable.setAnnotation(REACHABLE);
-    FixedPointGraphTraversal.newTraversal(this)
-        .computeFixedPoint(graph, reachableNode);
+    markReachableFrom(newReachable);
+  }
+
+  /**
+   * Annotates the given node, and every node reachable from it through nodes
+   * that are not annotated yet, with {@link #REACHABLE}. This is the fixed
+   * point that {@link #traverseEdge} computes, found with a search that only
+   * visits the newly reachable nodes.
+   */
+  private void markReachableFrom(DiGraphNode<N, E> start) {
+    start.setAnnotation(REACHABLE);
+    Deque<DiGraphNode<N, E>> workList = new ArrayDeque<>();
+    workList.push(start);
+    while (!workList.isEmpty()) {
+      DiGraphNode<N, E> source = workList.pop();
+      for (DiGraphEdge<N, E> edge : source.getOutEdges()) {
+        DiGraphNode<N, E> dest = edge.getDestination();
+        if (dest.getAnnotation() != REACHABLE
+            && (edgePredicate == null
+                || edgePredicate.apply(new EdgeTuple<>(source.getValue(),
+                    edge.getValue(), dest.getValue())))) {
+          dest.setAnnotation(REACHABLE);
+          workList.push(dest);
+        }
+      }
+    }
   }
 
   @Override
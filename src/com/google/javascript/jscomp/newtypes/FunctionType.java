@@ -47,6 +47,8 @@ public class FunctionType {
   private final NominalType receiverType;
   // non-null iff this function has an @template annotation
   private final ImmutableList<String> typeParameters;
+  // Computed lazily; 0 until then.
+  private int hashCode;
   private static final boolean DEBUGGING = false;
 
   private FunctionType(
@@ -893,8 +895,13 @@ public class FunctionType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(requiredFormals, optionalFormals, restFormals,
-        returnType, nominalType, receiverType);
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(requiredFormals, optionalFormals, restFormals,
+          returnType, nominalType, receiverType);
+      hashCode = h;
+    }
+    return h;
   }
 
   @Override
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2014 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A persistent map backed by a hash array mapped trie. Additions and removals
+ * copy only the path from the root to the changed key, so maps derived from
+ * one another share every subtree they have in common. Unlike
+ * {@link ClojurePersistentHashMap}, this needs nothing on the classpath.
+ *
+ * Null keys and null values are not supported.
+ */
+public final class HamtPersistentMap<K, V> extends PersistentMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final HamtPersistentMap<Object, Object> EMPTY =
+      new HamtPersistentMap<>(null, 0);
+
+  // Either null, a Leaf (or a chain of leaves whose keys share a hash),
+  // or a Trie.
+  private final Object root;
+  private final int size;
+
+  private HamtPersistentMap(Object root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> HamtPersistentMap<K, V> create() {
+    return (HamtPersistentMap<K, V>) EMPTY;
+  }
+
+  /** Receives the keys whose values differ between two maps. */
+  public interface DifferenceVisitor<K, V> {
+    /**
+     * Called once per differing key. A value is null when its map does not
+     * contain the key.
+     */
+    void visit(K key, V left, V right);
+  }
+
+  /**
+   * Visits every key that is in only one of the two maps, or whose values in
+   * the two maps are not the same object. Subtrees the two maps share are
+   * skipped without being looked at, so comparing a map with one derived
+   * from it costs time proportional to the number of changes.
+   */
+  public static <K, V> void forEachDifference(HamtPersistentMap<K, V> left,
+      HamtPersistentMap<K, V> right, DifferenceVisitor<K, V> visitor) {
+    diff(left.root, right.root, 0, visitor);
+  }
+
+  @Override
+  public HamtPersistentMap<K, V> with(K key, V value) {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    int[] sizeDelta = new int[1];
+    Object newRoot = with(root, 0, key.hashCode(), key, value, sizeDelta);
+    return newRoot == root
+        ? this : new HamtPersistentMap<K, V>(newRoot, size + sizeDelta[0]);
+  }
+
+  @Override
+  public HamtPersistentMap<K, V> without(K key) {
+    Object newRoot = without(root, 0, key.hashCode(), key);
+    return newRoot == root
+        ? this : new HamtPersistentMap<K, V>(newRoot, size - 1);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    return key == null ? null : (V) get(root, 0, key.hashCode(), key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** A key and its value, linked to the other keys with the same hash. */
+  private static final class Leaf<K, V> implements Map.Entry<K, V> {
+    final int hash;
+    final K key;
+    final V value;
+    final Leaf<K, V> next;
+
+    Leaf(int hash, K key, V value, Leaf<K, V> next) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> that = (Map.Entry<?, ?>) o;
+      return key.equals(that.getKey()) && value.equals(that.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  /** An interior node with up to 32 children, one per hash fragment. */
+  private static final class Trie {
+    final int bitmap;
+    final Object[] children;
+
+    Trie(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    boolean has(int bit) {
+      return (bitmap & bit) != 0;
+    }
+
+    Object child(int bit) {
+      return children[index(bit)];
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static Object get(Object node, int shift, int hash, Object key) {
+    while (node instanceof Trie) {
+      Trie trie = (Trie) node;
+      int bit = bit(hash, shift);
+      if (!trie.has(bit)) {
+        return null;
+      }
+      node = trie.child(bit);
+      shift += BITS;
+    }
+    for (Leaf<?, ?> leaf = (Leaf<?, ?>) node; leaf != null; leaf = leaf.next) {
+      if (leaf.hash == hash && leaf.key.equals(key)) {
+        return leaf.value;
+      }
+    }
+    return null;
+  }
+
+  private static <K, V> Object with(
+      Object node, int shift, int hash, K key, V value, int[] sizeDelta) {
+    if (node == null) {
+      sizeDelta[0] = 1;
+      return new Leaf<>(hash, key, value, null);
+    }
+    if (node instanceof Trie) {
+      Trie trie = (Trie) node;
+      int bit = bit(hash, shift);
+      int index = trie.index(bit);
+      if (!trie.has(bit)) {
+        sizeDelta[0] = 1;
+        Object[] children = new Object[trie.children.length + 1];
+        System.arraycopy(trie.children, 0, children, 0, index);
+        children[index] = new Leaf<>(hash, key, value, null);
+        System.arraycopy(trie.children, index, children, index + 1,
+            trie.children.length - index);
+        return new Trie(trie.bitmap | bit, children);
+      }
+      Object child = trie.children[index];
+      Object newChild = with(child, shift + BITS, hash, key, value, sizeDelta);
+      return newChild == child ? trie : replaceChild(trie, index, newChild);
+    }
+    @SuppressWarnings("unchecked")
+    Leaf<K, V> leaf = (Leaf<K, V>) node;
+    if (leaf.hash != hash) {
+      sizeDelta[0] = 1;
+      return split(leaf, new Leaf<>(hash, key, value, null), shift);
+    }
+    for (Leaf<K, V> l = leaf; l != null; l = l.next) {
+      if (l.key.equals(key)) {
+        if (l.value == value) {
+          return leaf;
+        }
+        return new Leaf<>(hash, key, value, removeFromChain(leaf, key));
+      }
+    }
+    sizeDelta[0] = 1;
+    return new Leaf<>(hash, key, value, leaf);
+  }
+
+  /** Builds the smallest trie that holds two leaves with different hashes. */
+  private static Object split(Leaf<?, ?> a, Leaf<?, ?> b, int shift) {
+    int fragmentA = (a.hash >>> shift) & MASK;
+    int fragmentB = (b.hash >>> shift) & MASK;
+    if (fragmentA == fragmentB) {
+      return new Trie(1 << fragmentA,
+          new Object[] {split(a, b, shift + BITS)});
+    }
+    return new Trie((1 << fragmentA) | (1 << fragmentB),
+        fragmentA < fragmentB ? new Object[] {a, b} : new Object[] {b, a});
+  }
+
+  private static <K, V> Object without(
+      Object node, int shift, int hash, K key) {
+    if (node == null) {
+      return null;
+    }
+    if (node instanceof Trie) {
+      Trie trie = (Trie) node;
+      int bit = bit(hash, shift);
+      if (!trie.has(bit)) {
+        return trie;
+      }
+      int index = trie.index(bit);
+      Object child = trie.children[index];
+      Object newChild = without(child, shift + BITS, hash, key);
+      if (newChild == child) {
+        return trie;
+      }
+      if (newChild != null) {
+        // Keep lone leaves as close to the root as possible, so that two
+        // maps holding the same keys tend to have the same shape.
+        if (trie.children.length == 1 && newChild instanceof Leaf) {
+          return newChild;
+        }
+        return replaceChild(trie, index, newChild);
+      }
+      if (trie.children.length == 1) {
+        return null;
+      }
+      if (trie.children.length == 2 && trie.children[1 - index] instanceof Leaf) {
+        return trie.children[1 - index];
+      }
+      Object[] children = new Object[trie.children.length - 1];
+      System.arraycopy(trie.children, 0, children, 0, index);
+      System.arraycopy(trie.children, index + 1, children, index,
+          children.length - index);
+      return new Trie(trie.bitmap & ~bit, children);
+    }
+    @SuppressWarnings("unchecked")
+    Leaf<K, V> leaf = (Leaf<K, V>) node;
+    if (leaf.hash != hash || get(leaf, shift, hash, key) == null) {
+      return leaf;
+    }
+    return removeFromChain(leaf, key);
+  }
+
+  private static Trie replaceChild(Trie trie, int index, Object newChild) {
+    Object[] children = trie.children.clone();
+    children[index] = newChild;
+    return new Trie(trie.bitmap, children);
+  }
+
+  /** Copies a chain of same-hash leaves, leaving out the given key. */
+  private static <K, V> Leaf<K, V> removeFromChain(Leaf<K, V> leaf, K key) {
+    if (leaf == null) {
+      return null;
+    }
+    if (leaf.key.equals(key)) {
+      return leaf.next;
+    }
+    return new Leaf<>(leaf.hash, leaf.key, leaf.value,
+        removeFromChain(leaf.next, key));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> void diff(
+      Object left, Object right, int shift, DifferenceVisitor<K, V> visitor) {
+    if (left == right) {
+      return;
+    }
+    if (left instanceof Trie && right instanceof Trie) {
+      Trie leftTrie = (Trie) left;
+      Trie rightTrie = (Trie) right;
+      int bits = leftTrie.bitmap | rightTrie.bitmap;
+      while (bits != 0) {
+        int bit = Integer.lowestOneBit(bits);
+        bits &= ~bit;
+        diff(leftTrie.has(bit) ? leftTrie.child(bit) : null,
+            rightTrie.has(bit) ? rightTrie.child(bit) : null,
+            shift + BITS, visitor);
+      }
+      return;
+    }
+    // At least one side is small (a leaf chain or nothing), so compare the
+    // two subtrees key by key.
+    EntryIterator<K, V> it = new EntryIterator<>(left);
+    while (it.hasNext()) {
+      Leaf<K, V> leaf = it.next();
+      V rightValue = (V) get(right, shift, leaf.hash, leaf.key);
+      if (rightValue != leaf.value) {
+        visitor.visit(leaf.key, leaf.value, rightValue);
+      }
+    }
+    it = new EntryIterator<>(right);
+    while (it.hasNext()) {
+      Leaf<K, V> leaf = it.next();
+      if (get(left, shift, leaf.hash, leaf.key) == null) {
+        visitor.visit(leaf.key, null, leaf.value);
+      }
+    }
+  }
+
+  /** Walks the leaves of a subtree in depth-first order. */
+  private static final class EntryIterator<K, V>
+      implements Iterator<Map.Entry<K, V>> {
+    private final Deque<Object> stack = new ArrayDeque<>();
+    private Leaf<K, V> nextLeaf;
+
+    EntryIterator(Object node) {
+      if (node != null) {
+        stack.push(node);
+      }
+      advance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      if (nextLeaf != null && nextLeaf.next != null) {
+        nextLeaf = nextLeaf.next;
+        return;
+      }
+      nextLeaf = null;
+      while (!stack.isEmpty()) {
+        Object node = stack.pop();
+        if (node instanceof Leaf) {
+          nextLeaf = (Leaf<K, V>) node;
+          return;
+        }
+        Object[] children = ((Trie) node).children;
+        for (int i = children.length - 1; i >= 0; i--) {
+          stack.push(children[i]);
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextLeaf != null;
+    }
+
+    @Override
+    public Leaf<K, V> next() {
+      if (nextLeaf == null) {
+        throw new NoSuchElementException();
+      }
+      Leaf<K, V> result = nextLeaf;
+      advance();
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  *
@@ -122,6 +123,10 @@ public abstract class JSType {
   // Used only for development
   public static boolean mockToString = false;
 
+  // Computed lazily; 0 until then. Types are immutable, so the hash code of a
+  // type never changes, but computing it walks the whole type.
+  private int hashCode;
+
   private static JSType makeType(int mask,
       ImmutableSet<ObjectType> objs, String typeVar,
       ImmutableSet<EnumType> enums) {
@@ -149,10 +154,13 @@ public abstract class JSType {
       return BOTTOM;
     }
     if (mask == NON_SCALAR_MASK) {
-      return new ObjsType(objs);
+      return objs.size() == 1
+          ? Iterables.getOnlyElement(objs).toJSType() : new ObjsType(objs);
     }
     if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
-      return new NullableObjsType(objs);
+      return objs.size() == 1
+          ? Iterables.getOnlyElement(objs).toNullableJSType()
+          : new NullableObjsType(objs);
     }
     return new UnionType(mask, objs, typeVar, enums);
   }
@@ -426,7 +434,9 @@ public abstract class JSType {
 
   // When joining w/ TOP or UNKNOWN, avoid setting more fields on them, eg, obj.
   public static JSType join(JSType lhs, JSType rhs) {
-    if (lhs.isTop() || rhs.isTop()) {
+    if (lhs == rhs) {
+      return lhs;
+    } else if (lhs.isTop() || rhs.isTop()) {
       return TOP;
     } else if (lhs.isUnknown() || rhs.isUnknown()) {
       return UNKNOWN;
@@ -706,7 +716,9 @@ public abstract class JSType {
   }
 
   public static JSType meet(JSType lhs, JSType rhs) {
-    if (lhs.isTop()) {
+    if (lhs == rhs) {
+      return lhs;
+    } else if (lhs.isTop()) {
       return rhs;
     } else if (rhs.isTop()) {
       return lhs;
@@ -1151,7 +1163,12 @@ public abstract class JSType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getMask(), getObjs());
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(getMask(), getObjs());
+      hashCode = h;
+    }
+    return h;
   }
 }
 
@@ -1250,6 +1267,11 @@ class MaskType extends JSType {
   private static final MaskType NULL_OR_STRING =
       new MaskType(NULL_OR_STRING_MASK);
 
+  // The other types made so far, indexed by mask, so that there is one type
+  // per mask. Masks that don't fit aren't interned.
+  private static final AtomicReferenceArray<MaskType> otherTypes =
+      new AtomicReferenceArray<>(FALSY_MASK * 2);
+
   protected final int mask;
 
   MaskType(int mask) {
@@ -1299,10 +1321,22 @@ class MaskType extends JSType {
       case NULL_OR_STRING_MASK:
         return NULL_OR_STRING;
       default:
-        return new MaskType(mask);
+        return intern(mask);
     }
   }
 
+  private static MaskType intern(int mask) {
+    if (mask < 0 || mask >= otherTypes.length()) {
+      return new MaskType(mask);
+    }
+    MaskType type = otherTypes.get(mask);
+    if (type == null) {
+      otherTypes.compareAndSet(mask, null, new MaskType(mask));
+      type = otherTypes.get(mask);
+    }
+    return type;
+  }
+
   protected int getMask() {
     return mask;
   }
@@ -1321,7 +1355,7 @@ class MaskType extends JSType {
 }
 
 final class ObjsType extends JSType {
-  private ImmutableSet<ObjectType> objs;
+  private final ImmutableSet<ObjectType> objs;
 
   ObjsType(ImmutableSet<ObjectType> objs) {
     this.objs = objs;
@@ -1345,7 +1379,7 @@ final class ObjsType extends JSType {
 }
 
 final class NullableObjsType extends JSType {
-  private ImmutableSet<ObjectType> objs;
+  private final ImmutableSet<ObjectType> objs;
 
   NullableObjsType(ImmutableSet<ObjectType> objs) {
     this.objs = objs;
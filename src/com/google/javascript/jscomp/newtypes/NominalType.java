@@ -43,6 +43,8 @@ public class NominalType {
   //    this represents a completely instantiated generic type (Foo<number>).
   private final ImmutableMap<String, JSType> typeMap;
   private final RawNominalType rawType;
+  // Computed lazily; 0 until then.
+  private int hashCode;
   private static final Pattern NUMERIC_PATTERN = Pattern.compile("\\d+");
 
   private NominalType(
@@ -373,7 +375,12 @@ public class NominalType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(typeMap, rawType);
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(typeMap, rawType);
+      hashCode = h;
+    }
+    return h;
   }
 
   @Override
@@ -40,6 +40,12 @@ public class ObjectType implements TypeWithProperties {
   private final boolean isLoose;
   private final PersistentMap<String, Property> props;
   private final ObjectKind objectKind;
+  // The types of just this object and of this object or null, made when first
+  // asked for, so that all such types share one instance.
+  private JSType asJSType;
+  private JSType asNullableJSType;
+  // Computed lazily; 0 until then.
+  private int hashCode;
 
   static final ObjectType TOP_OBJECT = ObjectType.makeObjectType(
       null, null, null, false, ObjectKind.UNRESTRICTED);
@@ -85,6 +91,26 @@ public class ObjectType implements TypeWithProperties {
     return new ObjectType(nominalType, props, fn, isLoose, ok);
   }
 
+  /** Returns the type of just this object. */
+  JSType toJSType() {
+    JSType t = asJSType;
+    if (t == null) {
+      t = new ObjsType(ImmutableSet.of(this));
+      asJSType = t;
+    }
+    return t;
+  }
+
+  /** Returns the type of this object or null. */
+  JSType toNullableJSType() {
+    JSType t = asNullableJSType;
+    if (t == null) {
+      t = new NullableObjsType(ImmutableSet.of(this));
+      asNullableJSType = t;
+    }
+    return t;
+  }
+
   static ObjectType fromFunction(FunctionType fn, NominalType fnNominal) {
     return ObjectType.makeObjectType(
         fnNominal, null, fn, fn.isLoose(), ObjectKind.UNRESTRICTED);
@@ -905,6 +931,11 @@ public class ObjectType implements TypeWithProperties {
 
   @Override
   public int hashCode() {
-    return Objects.hash(fn, props, nominalType);
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(fn, props, nominalType);
+      hashCode = h;
+    }
+    return h;
   }
 }
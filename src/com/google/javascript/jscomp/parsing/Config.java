@@ -16,7 +16,9 @@
 
 package com.google.javascript.jscomp.parsing;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
 
 import java.util.Map;
 import java.util.Set;
@@ -81,6 +83,24 @@ public class Config {
     this.acceptConstKeyword = acceptConstKeyword;
   }
 
+  public boolean isIdeMode() {
+    return isIdeMode;
+  }
+
+  /**
+   * Returns a string that is equal for any two configs that parse the same
+   * source into the same tree, for use in cache keys.
+   */
+  public String getFingerprint() {
+    return Joiner.on(';').join(
+        languageMode,
+        isIdeMode,
+        acceptConstKeyword,
+        Joiner.on(',').join(
+            Ordering.natural().sortedCopy(annotationNames.keySet())),
+        Joiner.on(',').join(Ordering.natural().sortedCopy(suppressionNames)));
+  }
+
   /**
    * Create the annotation names from the user-specified
    * annotation whitelist.
@@ -38,9 +38,9 @@ public class LineNumberTable {
   }
 
   private static int[] computeLineStartOffsets(String source) {
-    // TODO(johnlenz): do this more efficiently.
-    ArrayList<Integer> lineStartOffsets = new ArrayList<>();
-    lineStartOffsets.add(0);
+    int[] lineStartOffsets = new int[16];
+    int count = 0;
+    lineStartOffsets[count++] = 0;
     for (int index = 0; index < source.length(); index++) {
       char ch = source.charAt(index);
       if (isLineTerminator(ch)) {
@@ -48,11 +48,15 @@ public class LineNumberTable {
             && source.charAt(index + 1) == '\n') {
           index++;
         }
-        lineStartOffsets.add(index + 1);
+        // Leave room for the sentinel below.
+        if (count + 1 >= lineStartOffsets.length) {
+          lineStartOffsets = Arrays.copyOf(lineStartOffsets, count * 2);
+        }
+        lineStartOffsets[count++] = index + 1;
       }
     }
-    lineStartOffsets.add(Integer.MAX_VALUE);
-    return toIntArray(lineStartOffsets);
+    lineStartOffsets[count++] = Integer.MAX_VALUE;
+    return Arrays.copyOf(lineStartOffsets, count);
   }
 
   public static int[] toIntArray(ArrayList<Integer> integers) {
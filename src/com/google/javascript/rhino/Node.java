@@ -48,6 +48,8 @@ import com.google.javascript.rhino.jstype.SimpleSourceFile;
 import com.google.javascript.rhino.jstype.StaticSourceFile;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
@@ -132,6 +134,37 @@ public class Node implements Cloneable, Serializable {
                                   // FUNCTION.
 
 
+  private static final int MAX_PROP_TYPE = 127;
+
+  private static final int INT_PROP_FLAG = 1;
+
+  // The keys of the props array, boxed once so that adding a property does
+  // not allocate a key.
+  private static final Integer[] PROP_KEYS =
+      new Integer[(MAX_PROP_TYPE + 1) << 1];
+
+  // The bit in booleanProps that holds each property, or 0 for properties
+  // that are kept in the props array.
+  private static final int[] BOOLEAN_PROP_BITS = new int[MAX_PROP_TYPE + 1];
+
+  static {
+    for (int i = 0; i < PROP_KEYS.length; i++) {
+      PROP_KEYS[i] = i;
+    }
+
+    // The most frequently set boolean properties. The rest are stored in
+    // the props array like any other int property.
+    int[] booleanPropTypes = {
+        FREE_CALL, IS_CONSTANT_NAME, QUOTED_PROP, SYNTHETIC_BLOCK_PROP,
+        VAR_ARGS_NAME, OPT_ARG_NAME, IS_NAMESPACE, DIRECT_EVAL, SLASH_V,
+        INFERRED_FUNCTION, IS_CONSTANT_VAR, ADDED_BLOCK, ARROW_FN,
+        GENERATOR_FN, ANALYZED_DURING_GTI, CONSTANT_PROPERTY_DEF};
+    Preconditions.checkState(booleanPropTypes.length <= Short.SIZE);
+    for (int i = 0; i < booleanPropTypes.length; i++) {
+      BOOLEAN_PROP_BITS[booleanPropTypes[i]] = 1 << i;
+    }
+  }
+
   public static final int   // flags for INCRDECR_PROP
       DECR_FLAG = 0x1,
       POST_FLAG = 0x2;
@@ -321,108 +354,8 @@ public class Node implements Cloneable, Serializable {
     private String str;
   }
 
-  // PropListItems must be immutable so that they can be shared.
-  private interface PropListItem {
-    int getType();
-    PropListItem getNext();
-    PropListItem chain(PropListItem next);
-    Object getObjectValue();
-    int getIntValue();
-  }
-
-  private abstract static class AbstractPropListItem
-      implements PropListItem, Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private final PropListItem next;
-    private final int propType;
-
-    AbstractPropListItem(int propType, PropListItem next) {
-      this.propType = propType;
-      this.next = next;
-    }
-
-    @Override
-    public int getType() {
-      return propType;
-    }
-
-    @Override
-    public PropListItem getNext() {
-      return next;
-    }
-
-    @Override
-    public abstract PropListItem chain(PropListItem next);
-  }
-
-  // A base class for Object storing props
-  private static class ObjectPropListItem
-      extends AbstractPropListItem {
-    private static final long serialVersionUID = 1L;
-
-    private final Object objectValue;
-
-    ObjectPropListItem(int propType, Object objectValue, PropListItem next) {
-      super(propType, next);
-      this.objectValue = objectValue;
-    }
-
-    @Override
-    public int getIntValue() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Object getObjectValue() {
-      return objectValue;
-    }
-
-    @Override
-    public String toString() {
-      return String.valueOf(objectValue);
-    }
-
-    @Override
-    public PropListItem chain(PropListItem next) {
-      return new ObjectPropListItem(getType(), objectValue, next);
-    }
-  }
-
-  // A base class for int storing props
-  private static class IntPropListItem extends AbstractPropListItem {
-    private static final long serialVersionUID = 1L;
-
-    final int intValue;
-
-    IntPropListItem(int propType, int intValue, PropListItem next) {
-      super(propType, next);
-      this.intValue = intValue;
-    }
-
-    @Override
-    public int getIntValue() {
-      return intValue;
-    }
-
-    @Override
-    public Object getObjectValue() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String toString() {
-      return String.valueOf(intValue);
-    }
-
-    @Override
-    public PropListItem chain(PropListItem next) {
-      return new IntPropListItem(getType(), intValue, next);
-    }
-  }
-
   public Node(int nodeType) {
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     sourcePosition = -1;
   }
@@ -433,7 +366,7 @@ public class Node implements Cloneable, Serializable {
     Preconditions.checkArgument(child.next == null,
         "new child has existing sibling");
 
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     first = last = child;
     child.next = null;
@@ -450,7 +383,7 @@ public class Node implements Cloneable, Serializable {
         "second new child has existing parent");
     Preconditions.checkArgument(right.next == null,
         "second new child has existing sibling");
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     first = left;
     last = right;
@@ -468,7 +401,7 @@ public class Node implements Cloneable, Serializable {
     Preconditions.checkArgument(mid.next == null);
     Preconditions.checkArgument(right.parent == null);
     Preconditions.checkArgument(right.next == null);
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     first = left;
     last = right;
@@ -490,7 +423,7 @@ public class Node implements Cloneable, Serializable {
     Preconditions.checkArgument(mid2.next == null);
     Preconditions.checkArgument(right.parent == null);
     Preconditions.checkArgument(right.next == null);
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     first = left;
     last = right;
@@ -506,7 +439,7 @@ public class Node implements Cloneable, Serializable {
   }
 
   public Node(int nodeType, int lineno, int charno) {
-    type = nodeType;
+    type = (short) nodeType;
     parent = null;
     sourcePosition = mergeLineCharNo(lineno, charno);
   }
@@ -539,7 +472,7 @@ public class Node implements Cloneable, Serializable {
   }
 
   public Node(int nodeType, Node[] children) {
-    this.type = nodeType;
+    this.type = (short) nodeType;
     parent = null;
     if (children.length != 0) {
       this.first = children[0];
@@ -593,7 +526,7 @@ public class Node implements Cloneable, Serializable {
   }
 
   public void setType(int type) {
-    this.type = type;
+    this.type = (short) type;
   }
 
   public boolean hasChildren() {
@@ -827,13 +760,52 @@ public class Node implements Cloneable, Serializable {
     child.parent = null;
   }
 
-  @VisibleForTesting
-  PropListItem lookupProperty(int propType) {
-    PropListItem x = propListHead;
-    while (x != null && propType != x.getType()) {
-      x = x.getNext();
+  /**
+   * Returns the bit that holds the given property in {@link #booleanProps},
+   * or 0 if the property is not stored as a bit.
+   */
+  private static int booleanPropBit(int propType) {
+    return propType >= 0 && propType <= MAX_PROP_TYPE
+        ? BOOLEAN_PROP_BITS[propType] : 0;
+  }
+
+  private static Integer propKey(int propType, boolean isInt) {
+    int key = (propType << 1) | (isInt ? INT_PROP_FLAG : 0);
+    return propType >= 0 && propType <= MAX_PROP_TYPE
+        ? PROP_KEYS[key] : Integer.valueOf(key);
+  }
+
+  private static int propTypeOfKey(Object key) {
+    return ((Integer) key) >> 1;
+  }
+
+  private static boolean isIntKey(Object key) {
+    return (((Integer) key) & INT_PROP_FLAG) != 0;
+  }
+
+  /**
+   * Returns the index of the key of the given property in {@link #props},
+   * or -1 if the property is not in the array.
+   */
+  private int findProp(int propType) {
+    Object[] p = props;
+    if (p != null) {
+      for (int i = 0; i < p.length; i += 2) {
+        int type = propTypeOfKey(p[i]);
+        if (type == propType) {
+          return i;
+        } else if (type > propType) {
+          break;
+        }
+      }
     }
-    return x;
+    return -1;
+  }
+
+  @VisibleForTesting
+  boolean hasProp(int propType) {
+    return (booleanProps & booleanPropBit(propType)) != 0
+        || findProp(propType) != -1;
   }
 
   /**
@@ -844,46 +816,62 @@ public class Node implements Cloneable, Serializable {
    * @return this node.
    */
   public Node clonePropsFrom(Node other) {
-    Preconditions.checkState(this.propListHead == null,
+    Preconditions.checkState(this.booleanProps == 0 && this.props == null,
         "Node has existing properties.");
-    this.propListHead = other.propListHead;
+    this.booleanProps = other.booleanProps;
+    this.props = other.props;
     return this;
   }
 
   public void removeProp(int propType) {
-    PropListItem result = removeProp(propListHead, propType);
-    if (result != propListHead) {
-      propListHead = result;
+    booleanProps &= ~booleanPropBit(propType);
+    int index = findProp(propType);
+    if (index != -1) {
+      if (props.length == 2) {
+        props = null;
+      } else {
+        Object[] result = new Object[props.length - 2];
+        System.arraycopy(props, 0, result, 0, index);
+        System.arraycopy(
+            props, index + 2, result, index, props.length - index - 2);
+        props = result;
+      }
     }
   }
 
   /**
-   * @param item The item to inspect
-   * @param propType The property to look for
-   * @return The replacement list if the property was removed, or
-   *   'item' otherwise.
+   * Adds a property that is not in {@link #props}, keeping the array sorted.
+   * The array is copied, since it may be shared with other nodes.
    */
-  private PropListItem removeProp(PropListItem item, int propType) {
-    if (item == null) {
-      return null;
-    } else if (item.getType() == propType) {
-      return item.getNext();
-    } else {
-      PropListItem result = removeProp(item.getNext(), propType);
-      if (result != item.getNext()) {
-        return item.chain(result);
-      } else {
-        return item;
-      }
+  private void addProp(Object key, Object value) {
+    int propType = propTypeOfKey(key);
+    int length = props == null ? 0 : props.length;
+    int index = 0;
+    while (index < length && propTypeOfKey(props[index]) < propType) {
+      index += 2;
     }
+    Object[] result = new Object[length + 2];
+    if (length > 0) {
+      System.arraycopy(props, 0, result, 0, index);
+      System.arraycopy(props, index, result, index + 2, length - index);
+    }
+    result[index] = key;
+    result[index + 1] = value;
+    props = result;
   }
 
   public Object getProp(int propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
+    int index = findProp(propType);
+    if (index == -1) {
+      if ((booleanProps & booleanPropBit(propType)) != 0) {
+        throw new UnsupportedOperationException();
+      }
       return null;
     }
-    return item.getObjectValue();
+    if (isIntKey(props[index])) {
+      throw new UnsupportedOperationException();
+    }
+    return props[index + 1];
   }
 
   public boolean getBooleanProp(int propType) {
@@ -895,25 +883,30 @@ public class Node implements Cloneable, Serializable {
    * is not defined.
    */
   public int getIntProp(int propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
+    if ((booleanProps & booleanPropBit(propType)) != 0) {
+      return 1;
+    }
+    int index = findProp(propType);
+    if (index == -1) {
       return 0;
     }
-    return item.getIntValue();
+    if (!isIntKey(props[index])) {
+      throw new UnsupportedOperationException();
+    }
+    return (Integer) props[index + 1];
   }
 
   public int getExistingIntProp(int propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
+    if (!hasProp(propType)) {
       throw new IllegalStateException("missing prop: " + propType);
     }
-    return item.getIntValue();
+    return getIntProp(propType);
   }
 
   public void putProp(int propType, Object value) {
     removeProp(propType);
     if (value != null) {
-      propListHead = createProp(propType, value, propListHead);
+      addProp(propKey(propType, false), value);
     }
   }
 
@@ -924,7 +917,12 @@ public class Node implements Cloneable, Serializable {
   public void putIntProp(int propType, int value) {
     removeProp(propType);
     if (value != 0) {
-      propListHead = createProp(propType, value, propListHead);
+      int bit = booleanPropBit(propType);
+      if (bit != 0 && value == 1) {
+        booleanProps |= bit;
+      } else {
+        addProp(propKey(propType, true), value);
+      }
     }
   }
 
@@ -944,25 +942,19 @@ public class Node implements Cloneable, Serializable {
     return (TypeDeclarationNode) getProp(DECLARED_TYPE_EXPR);
   }
 
-  PropListItem createProp(int propType, Object value, PropListItem next) {
-    return new ObjectPropListItem(propType, value, next);
-  }
-
-  PropListItem createProp(int propType, int value, PropListItem next) {
-    return new IntPropListItem(propType, value, next);
-  }
-
   // Gets all the property types, in sorted order.
   private int[] getSortedPropTypes() {
-    int count = 0;
-    for (PropListItem x = propListHead; x != null; x = x.getNext()) {
-      count++;
-    }
-
+    int count = Integer.bitCount(booleanProps & 0xFFFF)
+        + (props == null ? 0 : props.length / 2);
     int[] keys = new int[count];
-    for (PropListItem x = propListHead; x != null; x = x.getNext()) {
-      count--;
-      keys[count] = x.getType();
+    int i = 0;
+    for (int type = 0; booleanProps != 0 && type <= MAX_PROP_TYPE; type++) {
+      if ((booleanProps & BOOLEAN_PROP_BITS[type]) != 0) {
+        keys[i++] = type;
+      }
+    }
+    for (int j = 0; props != null && j < props.length; j += 2) {
+      keys[i++] = propTypeOfKey(props[j]);
     }
 
     Arrays.sort(keys);
@@ -1064,15 +1056,15 @@ public class Node implements Cloneable, Serializable {
       int[] keys = getSortedPropTypes();
       for (int i = 0; i < keys.length; i++) {
         int type = keys[i];
-        PropListItem x = lookupProperty(type);
+        int index = findProp(type);
         sb.append(" [");
         sb.append(propToString(type));
         sb.append(": ");
         String value;
-        switch (type) {
-          default:
-            value = x.toString();
-            break;
+        if (index == -1) {
+          value = "1";
+        } else {
+          value = String.valueOf(props[index + 1]);
         }
         sb.append(value);
         sb.append(']');
@@ -1123,18 +1115,30 @@ public class Node implements Cloneable, Serializable {
     }
   }
 
-  int type;              // type of the node; Token.NAME for example
-  Node next;             // next sibling
-  private Node first;    // first element of a linked list of children
-  private Node last;     // last element of a linked list of children
+  // The tree links are not serialized directly; see writeObject.
+  short type;            // type of the node; Token.NAME for example
+  transient Node next;   // next sibling
+  private transient Node first; // first element of a linked list of children
+  private transient Node last;  // last element of a linked list of children
 
   /**
-   * Linked list of properties. Since vast majority of nodes would have
-   * no more then 2 properties, linked list saves memory and provides
-   * fast lookup. If this does not holds, propListHead can be replaced
-   * by UintMap.
+   * The boolean properties that are set on this node, one bit per property.
+   * Only the properties that have a bit in {@link #BOOLEAN_PROP_BITS} are
+   * stored here, and only while their value is 1. Together with the short
+   * type, this fits in the space of the int type field it replaced, so
+   * nodes are no larger than they were without it.
    */
-  private PropListItem propListHead;
+  private short booleanProps;
+
+  /**
+   * All other properties, as alternating keys and values sorted by property
+   * type. A key is the property type shifted left by one, with the low bit
+   * set if the value is a boxed int. Since the vast majority of nodes have
+   * no more than 2 such properties, a linear scan gives fast lookup. The
+   * array is never modified once it is assigned, so that it can be shared
+   * between nodes by {@link #clonePropsFrom} and {@link #cloneNode}.
+   */
+  private Object[] props;
 
   /**
    * COLUMN_BITS represents how many of the lower-order bits of
@@ -1170,7 +1174,7 @@ public class Node implements Cloneable, Serializable {
 
   private TypeI typei;
 
-  private Node parent;
+  private transient Node parent;
 
   //==========================================================================
   // Source position management
@@ -1400,8 +1404,8 @@ public class Node implements Cloneable, Serializable {
   // ==========================================================================
   // Accessors
 
-  PropListItem getPropListHeadForTesting() {
-    return propListHead;
+  Object[] getPropsForTesting() {
+    return props;
   }
 
   public Node getParent() {
@@ -1905,7 +1909,7 @@ public class Node implements Cloneable, Serializable {
     Node result;
     try {
       result = (Node) super.clone();
-      // PropListItem lists are immutable and can be shared so there is no
+      // Property arrays are immutable and can be shared so there is no
       // need to clone them here.
       result.next = null;
       result.first = null;
@@ -1936,6 +1940,33 @@ public class Node implements Cloneable, Serializable {
     return result;
   }
 
+  /**
+   * Writes the children one by one, rather than through the sibling links,
+   * so that serializing a tree recurses once per level of the tree instead
+   * of once per sibling. The parent is written too, so that a subtree
+   * serialized on its own is still attached to its ancestors when read back;
+   * for a child it is only a reference to a node already in the stream.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeObject(parent);
+    out.writeInt(getChildCount());
+    for (Node c = first; c != null; c = c.next) {
+      out.writeObject(c);
+    }
+  }
+
+  private void readObject(ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    // The parent links this node when it reads its own children.
+    in.readObject();
+    int childCount = in.readInt();
+    for (int i = 0; i < childCount; i++) {
+      addChildToBack((Node) in.readObject());
+    }
+  }
+
   /**
    * Copies source file and name information from the other
    * node given to the current node. Used for maintaining
@@ -458,6 +458,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
     this.prototypeSlot = new Property("prototype", prototype, true,
         propertyNode == null ? source : propertyNode);
     prototype.setOwnerFunction(this);
+    registry.invalidateTypeRelations();
 
     if (oldPrototype != null) {
       // Disassociating the old prototype makes this easier to debug--
@@ -549,6 +550,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
         typeOfThis.extendTemplateTypeMap(type.getTemplateTypeMap());
       }
       this.implementedInterfaces = ImmutableList.copyOf(implementedInterfaces);
+      registry.invalidateTypeRelations();
     } else {
       throw new UnsupportedOperationException();
     }
@@ -598,6 +600,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
     throws UnsupportedOperationException {
     if (isInterface()) {
       this.extendedInterfaces = ImmutableList.copyOf(extendedInterfaces);
+      registry.invalidateTypeRelations();
       for (ObjectType extendedInterface : this.extendedInterfaces) {
         typeOfThis.extendTemplateTypeMap(
             extendedInterface.getTemplateTypeMap());
@@ -1029,7 +1032,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
    * the prototype chain.
    */
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     if (JSType.isSubtypeHelper(this, that)) {
       return true;
     }
@@ -1095,6 +1098,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
    */
   void setInstanceType(ObjectType instanceType) {
     typeOfThis = instanceType;
+    registry.invalidateTypeRelations();
   }
 
   /**
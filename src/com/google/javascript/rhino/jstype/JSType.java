@@ -463,6 +463,7 @@ public abstract class JSType implements TypeI, Serializable {
    */
   public void extendTemplateTypeMap(TemplateTypeMap otherMap) {
     templateTypeMap = templateTypeMap.extend(otherMap);
+    registry.invalidateTypeRelations();
   }
 
   /**
@@ -574,6 +575,18 @@ public abstract class JSType implements TypeI, Serializable {
       return true;
     }
 
+    TypeRelationCache cache = registry.getTypeRelationCache();
+    Boolean cached = cache.get(this, that, eqMethod.ordinal());
+    if (cached != null) {
+      return cached;
+    }
+    int generation = cache.getGeneration();
+    boolean result = computeEquivalence(that, eqMethod);
+    cache.put(this, that, eqMethod.ordinal(), result, generation);
+    return result;
+  }
+
+  private boolean computeEquivalence(JSType that, EquivalenceMethod eqMethod) {
     boolean thisUnknown = isUnknownType();
     boolean thatUnknown = that.isUnknownType();
     if (thisUnknown || thatUnknown) {
@@ -1243,9 +1256,27 @@ public abstract class JSType implements TypeI, Serializable {
    * pairwise subtypes.</li>
    * </ul>
    *
+   * <p>The result is memoized by the registry until a type changes.
+   *
    * @return <code>this &lt;: that</code>
    */
-  public boolean isSubtype(JSType that) {
+  public final boolean isSubtype(JSType that) {
+    TypeRelationCache cache = registry.getTypeRelationCache();
+    Boolean cached = cache.get(this, that, TypeRelationCache.SUBTYPE);
+    if (cached != null) {
+      return cached;
+    }
+    int generation = cache.getGeneration();
+    boolean result = isSubtypeInternal(that);
+    cache.put(this, that, TypeRelationCache.SUBTYPE, result, generation);
+    return result;
+  }
+
+  /**
+   * Computes whether {@code this} is a subtype of {@code that}. Subclasses
+   * override this rather than {@link #isSubtype}, which memoizes it.
+   */
+  boolean isSubtypeInternal(JSType that) {
     return isSubtypeHelper(this, that);
   }
 
@@ -1363,8 +1394,11 @@ public abstract class JSType implements TypeI, Serializable {
       return resolveResult;
     }
     resolved = true;
+    // Resolving changes the type, and so its relations to other types.
+    registry.invalidateTypeRelations();
     resolveResult = resolveInternal(t, scope);
     resolveResult.setResolvedTypeInternal(resolveResult);
+    registry.invalidateTypeRelations();
     return resolveResult;
   }
 
@@ -1387,6 +1421,7 @@ public abstract class JSType implements TypeI, Serializable {
   public final void clearResolved() {
     resolved = false;
     resolveResult = null;
+    registry.invalidateTypeRelations();
   }
 
   /**
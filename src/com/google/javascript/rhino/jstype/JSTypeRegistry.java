@@ -61,6 +61,8 @@ import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TypeIRegistry;
 import com.google.javascript.rhino.jstype.RecordTypeBuilder.RecordProperty;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
@@ -179,6 +181,10 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
   // there are no template types.
   private final TemplateTypeMap emptyTemplateTypeMap;
 
+  // The memoized relations between the types of this registry.
+  private transient TypeRelationCache typeRelationCache =
+      new TypeRelationCache();
+
   /**
    * Constructs a new type registry populated with the built-in types.
    */
@@ -217,6 +223,7 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
    * Reset to run the TypeCheck pass.
    */
   public void resetForTypeCheck() {
+    invalidateTypeRelations();
     typesIndexedByProperty.clear();
     eachRefTypeIndexedByProperty.clear();
     initializeBuiltInTypes();
@@ -950,6 +957,33 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
     unresolvedNamedTypes.clear();
   }
 
+  TypeRelationCache getTypeRelationCache() {
+    return typeRelationCache;
+  }
+
+  /**
+   * Drops the memoized subtyping and equivalence relations between types.
+   * Called whenever a type changes in a way that could affect them.
+   */
+  void invalidateTypeRelations() {
+    typeRelationCache.invalidate();
+  }
+
+  /** Returns the number of type relation checks answered from the cache. */
+  public long getTypeRelationCacheHitCount() {
+    return typeRelationCache.getHitCount();
+  }
+
+  /** Returns the number of type relation checks that had to be computed. */
+  public long getTypeRelationCacheMissCount() {
+    return typeRelationCache.getMissCount();
+  }
+
+  /** Returns the number of times the type relation cache was dropped. */
+  public long getTypeRelationCacheInvalidationCount() {
+    return typeRelationCache.getInvalidationCount();
+  }
+
   /**
    * Resolve all the unresolved types in the given scope.
    */
@@ -1841,4 +1875,10 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
         && !(type instanceof NamespaceType)
         && !isNonNullable(type);
   }
+
+  private void readObject(ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    typeRelationCache = new TypeRelationCache();
+  }
 }
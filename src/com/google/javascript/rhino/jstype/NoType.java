@@ -81,7 +81,7 @@ public class NoType extends NoObjectType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     return true;
   }
 
@@ -593,6 +593,7 @@ public abstract class ObjectType
    */
   public void clearCachedValues() {
     unknown = true;
+    registry.invalidateTypeRelations();
   }
 
   /** Whether this is a built-in object. */
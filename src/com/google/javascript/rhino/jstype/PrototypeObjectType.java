@@ -187,11 +187,13 @@ public class PrototypeObjectType extends ObjectType {
     Property newProp = new Property(
         name, type, inferred, propertyNode);
     properties.putProperty(name, newProp);
+    registry.invalidateTypeRelations();
     return true;
   }
 
   @Override
   public boolean removeProperty(String name) {
+    registry.invalidateTypeRelations();
     return properties.removeProperty(name);
   }
 
@@ -342,6 +344,7 @@ public class PrototypeObjectType extends ObjectType {
   final void setImplicitPrototype(ObjectType implicitPrototype) {
     checkState(!hasCachedValues());
     this.implicitPrototypeFallback = implicitPrototype;
+    registry.invalidateTypeRelations();
   }
 
   @Override
@@ -365,7 +368,7 @@ public class PrototypeObjectType extends ObjectType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     if (JSType.isSubtypeHelper(this, that)) {
       return true;
     }
@@ -85,6 +85,7 @@ public class ProxyObjectType extends ObjectType {
 
   void setReferencedType(JSType referencedType) {
     this.referencedType = referencedType;
+    registry.invalidateTypeRelations();
     if (referencedType instanceof ObjectType) {
       this.referencedObjType = (ObjectType) referencedType;
     } else {
@@ -231,7 +232,7 @@ public class ProxyObjectType extends ObjectType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     return referencedType.isSubtype(that);
   }
 
@@ -110,7 +110,7 @@ public final class TemplatizedType extends ProxyObjectType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     return isSubtypeHelper(this, that);
   }
 
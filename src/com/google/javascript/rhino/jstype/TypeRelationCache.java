@@ -0,0 +1,161 @@
+/*
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *   Google Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package com.google.javascript.rhino.jstype;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes the subtyping and equivalence relations between the types of a
+ * {@link JSTypeRegistry}, which are otherwise recomputed structurally on
+ * every check.
+ *
+ * <p>Types change while they are being declared and resolved, so every
+ * change that could affect a relation must call {@link #invalidate}, which
+ * drops all the memoized results. A result computed while the types changed
+ * is not stored.
+ *
+ * <p>Lookups are safe from several threads at once; types are only changed
+ * on one thread.
+ *
+ */
+final class TypeRelationCache {
+  // The cache is dropped when it grows past this many results, so it does
+  // not keep alive the many short-lived types of type inference.
+  private static final int MAX_SIZE = 1 << 17;
+
+  /** The relation key of {@link JSType#isSubtype}. */
+  static final int SUBTYPE = EquivalenceMethod.values().length;
+
+  private final ConcurrentHashMap<Key, Boolean> results =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger generation = new AtomicInteger();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  /**
+   * Returns the number of changes to the types so far. Pass it to
+   * {@link #put} along with the result computed after it was read.
+   */
+  int getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Returns the memoized result of the relation between the two types, or
+   * null if there is none.
+   *
+   * @param relation {@link #SUBTYPE} or the ordinal of an
+   *     {@link EquivalenceMethod}.
+   */
+  Boolean get(JSType a, JSType b, int relation) {
+    Boolean result = results.get(new Key(a, b, relation));
+    if (result != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * Memoizes the result of the relation between the two types, unless the
+   * types changed since {@code generation} was read.
+   */
+  void put(JSType a, JSType b, int relation, boolean result, int generation) {
+    if (generation != this.generation.get()) {
+      return;
+    }
+    if (results.size() >= MAX_SIZE) {
+      results.clear();
+    }
+    results.put(new Key(a, b, relation), result);
+  }
+
+  /** Drops all the memoized results. */
+  void invalidate() {
+    generation.incrementAndGet();
+    invalidationCount.incrementAndGet();
+    if (!results.isEmpty()) {
+      results.clear();
+    }
+  }
+
+  long getHitCount() {
+    return hitCount.get();
+  }
+
+  long getMissCount() {
+    return missCount.get();
+  }
+
+  long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  /** A pair of types and a relation, compared by identity. */
+  private static final class Key {
+    private final JSType a;
+    private final JSType b;
+    private final int relation;
+
+    Key(JSType a, JSType b, int relation) {
+      this.a = a;
+      this.b = b;
+      this.relation = relation;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return a == that.a && b == that.b && relation == that.relation;
+    }
+
+    @Override
+    public int hashCode() {
+      return (System.identityHashCode(a) * 31 + System.identityHashCode(b))
+          * 31 + relation;
+    }
+  }
+}
@@ -108,6 +108,7 @@ public class UnionType extends JSType {
     }
     alternates = builder.getAlternates();
     hashcode = alternates.hashCode();
+    registry.invalidateTypeRelations();
   }
 
   /**
@@ -450,7 +451,7 @@ public class UnionType extends JSType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     // unknown
     if (that.isUnknownType()) {
       return true;
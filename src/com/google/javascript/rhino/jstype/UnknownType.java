@@ -99,7 +99,7 @@ public class UnknownType extends ObjectType {
   }
 
   @Override
-  public boolean isSubtype(JSType that) {
+  boolean isSubtypeInternal(JSType that) {
     return true;
   }
 
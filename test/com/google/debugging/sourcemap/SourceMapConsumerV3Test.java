@@ -18,6 +18,7 @@ package com.google.debugging.sourcemap;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
@@ -121,4 +122,35 @@ public class SourceMapConsumerV3Test extends TestCase {
     assertThat(((JsonElement) exts.get("x_org_int")).getAsInt()).isEqualTo(2);
     assertThat(((JsonArray) exts.get("x_org_array")).size()).isEqualTo(0);
   }
+
+  public void testLazyDecoding() throws Exception {
+    String sourceMap =  "{\n" +
+                        "\"version\":3,\n" +
+                        "\"file\":\"testcode\",\n" +
+                        "\"mappings\":\"AAAAA,QAASA;;ACAA,IAAIC,C;EAAEA\",\n" +
+                        "\"sources\":[\"a.js\",\"b.js\"],\n" +
+                        "\"names\":[\"foo\",\"bar\"]\n" +
+                        "}\n";
+
+    SourceMapConsumerV3 eager = new SourceMapConsumerV3();
+    eager.parse(sourceMap);
+    SourceMapConsumerV3 lazy = new SourceMapConsumerV3();
+    lazy.setDecodeLinesLazily(true);
+    lazy.parse(sourceMap);
+
+    // Look the lines up out of order, so that a line is decoded before the
+    // lines that precede it.
+    for (int line = 5; line >= 1; line--) {
+      for (int column = 1; column < 12; column++) {
+        OriginalMapping expected = eager.getMappingForLine(line, column);
+        assertThat(lazy.getMappingForLine(line, column)).isEqualTo(expected);
+      }
+    }
+    assertThat(eager.getMappingForLine(4, 5).getOriginalFile())
+        .isEqualTo("b.js");
+    assertThat(eager.getMappingForLine(4, 5).getIdentifier())
+        .isEqualTo("bar");
+    assertThat(lazy.getReverseMapping("b.js", 0, 1))
+        .isEqualTo(eager.getReverseMapping("b.js", 0, 1));
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.Node;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained by the ASTs of a corpus of JavaScript files.
+ *
+ * <p>Only public compiler APIs are used, so the benchmark can be run
+ * unchanged against different revisions of the compiler to compare their
+ * AST memory layouts, for example the {@link Node} property storage.
+ *
+ * <pre>
+ * java -cp build/compiler.jar:build/test \
+ *     com.google.javascript.jscomp.AstMemoryBenchmark [file-or-dir ...]
+ * </pre>
+ *
+ * With no arguments, the default externs under {@code externs/} are used.
+ * Externs are mostly declarations carrying JSDoc, so also pass a directory of
+ * application code, whose nodes carry fewer JSDoc infos and more boolean
+ * properties. Run with a fixed heap (e.g. {@code -Xms2g -Xmx2g}) for stable
+ * numbers.
+ *
+ */
+public final class AstMemoryBenchmark {
+
+  private static final int RUNS = 5;
+
+  private AstMemoryBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    List<SourceFile> inputs = new ArrayList<>();
+    for (String arg : args.length == 0 ? new String[] {"externs"} : args) {
+      collectInputs(new File(arg), inputs);
+    }
+    if (inputs.isEmpty()) {
+      System.err.println("No .js files found.");
+      System.exit(1);
+    }
+    for (SourceFile input : inputs) {
+      // Read the sources up front so they are not counted below.
+      input.getCode();
+    }
+
+    System.out.println("files: " + inputs.size());
+    for (int run = 0; run < RUNS; run++) {
+      Compiler compiler = parse(inputs);
+      int nodeCount = countNodes(compiler.getRoot());
+      long withTrees = usedHeap();
+      compiler = null;
+      long retained = withTrees - usedHeap();
+      System.out.printf("run %d: %d nodes, %d bytes, %.1f bytes/node%n",
+          run, nodeCount, retained, (double) retained / nodeCount);
+    }
+  }
+
+  private static void collectInputs(File file, List<SourceFile> inputs) {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        for (File child : children) {
+          collectInputs(child, inputs);
+        }
+      }
+    } else if (file.getName().endsWith(".js")) {
+      inputs.add(SourceFile.fromFile(file));
+    }
+  }
+
+  private static Compiler parse(List<SourceFile> inputs) {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(CompilerOptions.LanguageMode.ECMASCRIPT5);
+    Compiler compiler = new Compiler();
+    compiler.disableThreads();
+    compiler.init(ImmutableList.<SourceFile>of(), inputs, options);
+    compiler.parse();
+    return compiler;
+  }
+
+  private static int countNodes(Node n) {
+    int count = 1;
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      count += countNodes(c);
+    }
+    return count;
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -102,6 +102,37 @@ public class BasicErrorManagerTest extends TestCase {
     assertSmaller(error(e1), error(e2));
   }
 
+  public void testReportFromSeveralThreads() throws Exception {
+    final BasicErrorManager manager = new BasicErrorManager() {
+      @Override public void println(CheckLevel level, JSError error) {}
+      @Override protected void printSummary() {}
+    };
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      final String sourceName = "file" + i;
+      threads[i] = new Thread() {
+        @Override public void run() {
+          for (int line = 1; line <= 100; line++) {
+            manager.report(E, JSError.make(sourceName, line, -1, FOO_TYPE));
+            // Reported twice, but counted once.
+            manager.report(E, JSError.make(sourceName, line, -1, FOO_TYPE));
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(400, manager.getErrorCount());
+    JSError[] errors = manager.getErrors();
+    assertEquals("file0", errors[0].sourceName);
+    assertEquals(1, errors[0].lineNumber);
+    assertEquals("file3", errors[399].sourceName);
+    assertEquals(100, errors[399].lineNumber);
+  }
+
   private ErrorWithLevel error(JSError e) {
     return new ErrorWithLevel(e, CheckLevel.ERROR);
   }
@@ -18,15 +18,20 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.CheckConformance.InvalidRequirementSpec;
 import com.google.javascript.jscomp.ConformanceRules.AbstractRule;
 import com.google.javascript.jscomp.ConformanceRules.ConformanceResult;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.TextFormat;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tests for {@link CheckConformance}.
@@ -821,6 +826,114 @@ public class CheckConformanceTest extends CompilerTestCase {
         "Violation: CustomRule Message");
   }
 
+  // A custom rule that reports every throw it is offered.
+  public static class CustomTargetedRule extends AbstractRule
+      implements CheckConformance.TargetedRule {
+    public CustomTargetedRule(
+        AbstractCompiler compiler, Requirement requirement)
+        throws InvalidRequirementSpec {
+      super(compiler, requirement);
+    }
+
+    @Override
+    public ImmutableSet<Integer> getTargetTokens() {
+      return ImmutableSet.of(Token.THROW, Token.NAME);
+    }
+
+    @Override
+    public ImmutableSet<String> getTargetNames() {
+      return null;
+    }
+
+    @Override
+    protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
+      Preconditions.checkState(n.isThrow() || n.isName(), n);
+      return n.isThrow() ? ConformanceResult.VIOLATION
+          : ConformanceResult.CONFORMANCE;
+    }
+  }
+
+  public void testCustomTargetedRule() {
+    configuration =
+        "requirement: {\n" +
+        "  type: CUSTOM\n" +
+        "  java_class: 'com.google.javascript.jscomp.CheckConformanceTest$" +
+        "CustomTargetedRule'\n" +
+        "  error_message: 'CustomTargetedRule Message'\n" +
+        "}";
+
+    testSame(
+        EXTERNS,
+        "var x = 1; if (x) { throw x + 1; }",
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: CustomTargetedRule Message");
+  }
+
+  public void testRulesWithSharedTargets() {
+    configuration =
+        "requirement: {\n" +
+        "  type: BANNED_CODE_PATTERN\n" +
+        "  value: '/** @param {*} a */ function template(a) { a.foo(); }'\n" +
+        "  error_message: 'first'\n" +
+        "}\n" +
+        "requirement: {\n" +
+        "  type: BANNED_NAME\n" +
+        "  value: 'x.foo'\n" +
+        "  error_message: 'second'\n" +
+        "}\n" +
+        "requirement: {\n" +
+        "  type: BANNED_CODE_PATTERN\n" +
+        "  value: '/** @param {*} a */ function template(a) { a.foo; }'\n" +
+        "  error_message: 'third'\n" +
+        "}";
+
+    Compiler compiler = new Compiler();
+    compiler.compile(
+        ImmutableList.of(SourceFile.fromCode("externs", EXTERNS)),
+        ImmutableList.of(SourceFile.fromCode("input", "var x = {}; x.foo();")),
+        getOptions());
+    getProcessor(compiler).process(
+        compiler.getRoot().getFirstChild(), compiler.getRoot().getLastChild());
+
+    List<String> messages = new ArrayList<>();
+    for (JSError warning : compiler.getWarnings()) {
+      messages.add(warning.description);
+    }
+    assertThat(messages).containsExactly(
+        "Violation: first", "Violation: second", "Violation: third");
+  }
+
+  public void testRuleTimesAreTracked() {
+    configuration =
+        "requirement: {\n" +
+        "  rule_id: 'banEval'\n" +
+        "  type: BANNED_NAME\n" +
+        "  value: 'eval'\n" +
+        "  error_message: 'eval is not allowed'\n" +
+        "}\n" +
+        "requirement: {\n" +
+        "  type: BANNED_DEPENDENCY\n" +
+        "  value: 'banned/'\n" +
+        "  error_message: 'banned dependency'\n" +
+        "}";
+
+    CompilerOptions options = getOptions();
+    options.setTracerMode(CompilerOptions.TracerMode.TIMING_ONLY);
+    Compiler compiler = new Compiler();
+    compiler.compile(
+        ImmutableList.of(SourceFile.fromCode("externs", EXTERNS)),
+        ImmutableList.of(SourceFile.fromCode("input", "eval(1); eval(2);")),
+        options);
+    getProcessor(compiler).process(
+        compiler.getRoot().getFirstChild(), compiler.getRoot().getLastChild());
+
+    Map<String, PerformanceTracker.RuleStats> stats =
+        compiler.tracker.getConformanceRuleStats();
+    assertThat(stats.keySet()).containsExactly("banEval", "BANNED_DEPENDENCY#1");
+    assertEquals(2, stats.get("banEval").nodes);
+    assertEquals(1, stats.get("BANNED_DEPENDENCY#1").nodes);
+  }
+
   public void testCustomBanExpose() {
     configuration =
         "requirement: {\n" +
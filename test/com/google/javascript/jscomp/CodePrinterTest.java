@@ -26,6 +26,7 @@ import com.google.javascript.rhino.Token;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.util.List;
 
 
@@ -2099,4 +2100,67 @@ public class CodePrinterTest extends TestCase {
     assertPrintSame("url`hello`");
     assertPrintSame("url(`hello`)");
   }
+
+  public void testStreamingOutput() throws IOException {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      js.append("function f" + i + "(a) { if (a) { return a + 'x" + i
+          + "'; } return a instanceof Object; }\n");
+    }
+    Node root = parse(js.toString());
+
+    CompilerOptions options = new CompilerOptions();
+    options.setLineLengthThreshold(30);
+    assertStreamingOutput(root, options);
+    options.setPreferLineBreakAtEndOfFile(true);
+    assertStreamingOutput(root, options);
+    options.setLineBreak(true);
+    assertStreamingOutput(root, options);
+    options.setLineLengthThreshold(0);
+    assertStreamingOutput(root, options);
+    options.setPrettyPrint(true);
+    assertStreamingOutput(root, options);
+  }
+
+  public void testStreamingOutputWithLongLastLine() throws IOException {
+    // The line break after g is moved to the end of the file, after the last
+    // line has been flushed in part.
+    StringBuilder js = new StringBuilder("function g(x){return x} g(1);\n[");
+    for (int i = 0; i < 4000; i++) {
+      js.append(i).append(',');
+    }
+    js.append("0];");
+    Node root = parse(js.toString());
+
+    CompilerOptions options = new CompilerOptions();
+    options.setLineBreak(true);
+    options.setPreferLineBreakAtEndOfFile(true);
+    options.setLineLengthThreshold(0);
+    assertStreamingOutput(root, options);
+  }
+
+  private void assertStreamingOutput(Node root, CompilerOptions options)
+      throws IOException {
+    SourceMap expectedMap = SourceMap.Format.V3.getInstance();
+    String expected = new CodePrinter.Builder(root)
+        .setCompilerOptions(options)
+        .setSourceMap(expectedMap)
+        .build();
+
+    SourceMap map = SourceMap.Format.V3.getInstance();
+    StringBuilder out = new StringBuilder();
+    new CodePrinter.Builder(root)
+        .setCompilerOptions(options)
+        .setSourceMap(map)
+        .build(out);
+
+    assertEquals(expected, out.toString());
+    assertEquals(sourceMapToString(expectedMap), sourceMapToString(map));
+  }
+
+  private static String sourceMapToString(SourceMap map) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    map.appendTo(sb, "out.js");
+    return sb.toString();
+  }
 }
@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagUsageException;
+import com.google.javascript.jscomp.AbstractCommandLineRunner.ModuleOutput;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.jscomp.SourceMap.LocationMapping;
 import com.google.javascript.rhino.Node;
@@ -1004,6 +1005,31 @@ public class CommandLineRunnerTest extends TestCase {
     assertThat(builder.toString()).isEqualTo("var x=3; // m0.js\n");
   }
 
+  public void testModuleOutputOnOtherThreads() throws Exception {
+    useModules = ModulePattern.CHAIN;
+    args.add("--create_source_map=%outname%.map");
+    args.add("--module_wrapper=m1:(function() {\n%s\n})();");
+    args.add("--output_threads=2");
+    testSame(new String[] {
+      "var x = 3;",
+      "var y = 4;"
+    });
+
+    for (JSModule m : lastCompiler.getModuleGraph().getAllModules()) {
+      StringBuilder code = new StringBuilder();
+      StringBuilder map = new StringBuilder();
+      lastCompiler.getSourceMap().reset();
+      lastCommandLineRunner.writeModuleOutput(code, m);
+      lastCompiler.getSourceMap().appendTo(map, m.getName());
+
+      ModuleOutput output = lastCommandLineRunner.generateModuleOutput(m, true);
+      StringBuilder outputMap = new StringBuilder();
+      output.sourceMap.appendTo(outputMap, m.getName());
+      assertThat(output.code).isEqualTo(code.toString());
+      assertThat(outputMap.toString()).isEqualTo(map.toString());
+    }
+  }
+
   public void testCharSetExpansion() {
     testSame("");
     assertThat(lastCompiler.getOptions().outputCharset).isEqualTo("US-ASCII");
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Tests for {@link CompileServer}.
+ *
+ */
+public final class CompileServerTest extends TestCase {
+  private File tempDir;
+  private ParseCache parseCache;
+  private CompileServer server;
+
+  @Override
+  public void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+    parseCache = ParseCache.createInMemory(1024 * 1024);
+    server = new CompileServer(parseCache);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+    tempDir.delete();
+  }
+
+  private String writeFile(String name, String code) throws Exception {
+    File file = new File(tempDir, name);
+    Files.write(code, file, UTF_8);
+    return file.getPath().replace("\\", "\\\\");
+  }
+
+  public void testCompile() throws Exception {
+    String input = writeFile("a.js", "var x = 1 + 2; alert(x);");
+    CompileServer.Response response = server.compile(
+        "[\"--js\", \"" + input + "\", \"--use_only_custom_externs\"]");
+    assertEquals(0, response.exitCode);
+    assertEquals("var x=3;alert(x);\n", response.stdout);
+    assertEquals("", response.stderr);
+  }
+
+  public void testRequestsShareParseCache() throws Exception {
+    String input = writeFile("a.js", "alert(1);");
+    String request = "[\"--js\", \"" + input + "\", "
+        + "\"--use_only_custom_externs\"]";
+    assertEquals(0, server.compile(request).exitCode);
+    assertEquals(0, parseCache.getHitCount());
+    int misses = parseCache.getMissCount();
+    assertThat(misses).isGreaterThan(0);
+
+    // Every tree parsed by the first request is reused by the second.
+    assertEquals(0, server.compile(request).exitCode);
+    assertEquals(misses, parseCache.getHitCount());
+    assertEquals(misses, parseCache.getMissCount());
+  }
+
+  public void testErrors() throws Exception {
+    String input = writeFile("a.js", "var x = ;");
+    CompileServer.Response response = server.compile(
+        "[\"--js\", \"" + input + "\", \"--use_only_custom_externs\"]");
+    assertEquals(1, response.exitCode);
+    assertThat(response.stderr).contains("ERROR - Parse error");
+  }
+
+  public void testBadFlag() {
+    CompileServer.Response response = server.compile("[\"--nonexistent\"]");
+    assertEquals(-1, response.exitCode);
+    assertThat(response.stderr).contains("\"--nonexistent\" is not a valid option");
+  }
+
+  public void testNoStdin() {
+    CompileServer.Response response =
+        server.compile("[\"--use_only_custom_externs\"]");
+    assertEquals(-1, response.exitCode);
+    assertThat(response.stderr).contains("Can't specify stdin");
+  }
+
+  public void testNestedServer() {
+    CompileServer.Response response =
+        server.compile("[\"--compile_server\"]");
+    assertEquals(-1, response.exitCode);
+  }
+
+  public void testServe() throws Exception {
+    String input = writeFile("a.js", "alert(1);");
+    String request = "[\"--js\", \"" + input + "\", "
+        + "\"--use_only_custom_externs\"]";
+    StringWriter out = new StringWriter();
+    server.serve(new StringReader(request + "\n\nnot json\n" + request), out);
+    assertEquals(
+        "{\"exitCode\":0,\"stdout\":\"alert(1);\\n\",\"stderr\":\"\"}\n"
+        + "{\"exitCode\":-1,\"stdout\":\"\","
+        + "\"stderr\":\"ERROR - Malformed compile request: not json\\n\"}\n"
+        + "{\"exitCode\":0,\"stdout\":\"alert(1);\\n\",\"stderr\":\"\"}\n",
+        out.toString());
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -41,6 +42,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -258,6 +260,67 @@ public class CompilerTest extends TestCase {
     assertEquals("// Input 0\n// Input 1\n", outputSource);
   }
 
+  public void testToSourceStreaming() throws Exception {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setPrintInputDelimiter(true);
+
+    JSModule m1 = new JSModule("m1");
+    m1.add(SourceFile.fromCode("i1", "/** @license Foo */ alert(1);"));
+    m1.add(SourceFile.fromCode("i2", ""));
+    JSModule m2 = new JSModule("m2");
+    m2.add(SourceFile.fromCode("i3", "if (a) { alert(2) }"));
+    m2.addDependency(m1);
+
+    Result result = compiler.compileModules(
+        EMPTY_EXTERNS, ImmutableList.of(m1, m2), options);
+    assertTrue(result.success);
+
+    StringBuilder out = new StringBuilder();
+    compiler.toSource(out);
+    assertEquals(compiler.toSource(), out.toString());
+
+    for (JSModule m : ImmutableList.of(m1, m2)) {
+      out = new StringBuilder();
+      compiler.toSource(m, out);
+      assertEquals(compiler.toSource(m), out.toString());
+    }
+  }
+
+  public void testToSourceStreamingError() throws Exception {
+    Compiler compiler = new Compiler();
+    Result result = compiler.compile(
+        EMPTY_EXTERNS,
+        ImmutableList.of(SourceFile.fromCode("i1", "alert(1);")),
+        createNewFlagBasedOptions());
+    assertTrue(result.success);
+
+    final IOException error = new IOException("disk full");
+    Appendable out = new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) throws IOException {
+        throw error;
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end)
+          throws IOException {
+        throw error;
+      }
+
+      @Override
+      public Appendable append(char c) throws IOException {
+        throw error;
+      }
+    };
+    try {
+      compiler.toSource(out);
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertSame(error, e);
+    }
+  }
+
   /**
    * Make sure that non-standard JSDoc annotation is not a hard error
    * unless it is specified.
@@ -380,6 +443,39 @@ public class CompilerTest extends TestCase {
     assertNotNull(compiler.getInput(new InputId("in3")));
   }
 
+  public void testParseModuleInputsBeforePrintingOnOtherThreads()
+      throws Exception {
+    final List<JSModule> modules = ImmutableList.of(
+        new JSModule("m1"), new JSModule("m2"));
+    modules.get(0).add(SourceFile.fromCode("in1", "var a = 1;"));
+    modules.get(1).add(SourceFile.fromCode("in2", "var b = ;"));
+    modules.get(1).add(SourceFile.fromCode("in3", "var c = a;"));
+
+    final Compiler compiler = new Compiler();
+    compiler.initModules(
+        ImmutableList.<SourceFile>of(), modules, new CompilerOptions());
+    // The inputs are parsed here, so the error is reported on this thread.
+    compiler.parseModuleInputs(modules);
+    assertEquals(1, compiler.getErrorCount());
+
+    final List<String> printed = new ArrayList<>();
+    Thread printer = new Thread() {
+      @Override
+      public void run() {
+        for (JSModule module : modules) {
+          printed.add(compiler.toSource(module, (SourceMap) null));
+        }
+      }
+    };
+    printer.start();
+    printer.join();
+    assertEquals(1, compiler.getErrorCount());
+    assertEquals(ImmutableList.of(
+        compiler.toSource(modules.get(0)), compiler.toSource(modules.get(1))),
+        printed);
+    assertEquals(ImmutableList.of("var a=1;", "var c=a;"), printed);
+  }
+
   public void testMalformedFunctionInExterns() throws Exception {
     // Just verify that no exceptions are thrown (see bug 910619).
     new Compiler().compile(
@@ -400,6 +496,32 @@ public class CompilerTest extends TestCase {
     assertEquals(null, compiler.getSourceLine("bar", 1));
   }
 
+  public void testParallelParse() throws Exception {
+    List<SourceFile> externs = ImmutableList.of(
+        SourceFile.fromCode("externs", "function alert(x) {}"));
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      inputs.add(SourceFile.fromCode("in" + i,
+          i % 7 == 3 ? "var x" + i + " = ;" : "var x" + i + " = " + i + ";"));
+    }
+
+    Compiler serial = new Compiler();
+    serial.compile(externs, inputs, new CompilerOptions());
+
+    CompilerOptions options = new CompilerOptions();
+    options.setParseThreads(4);
+    Compiler parallel = new Compiler();
+    parallel.compile(externs, inputs, options);
+
+    assertEquals(3, serial.getErrorCount());
+    assertEquals(serial.getErrorCount(), parallel.getErrorCount());
+    for (int i = 0; i < serial.getErrors().length; i++) {
+      assertEquals(serial.getErrors()[i].toString(),
+          parallel.getErrors()[i].toString());
+    }
+    assertTrue(serial.getRoot().isEquivalentTo(parallel.getRoot()));
+  }
+
   public void testFileoverviewTwice() throws Exception {
     List<SourceFile> input = ImmutableList.of(
         SourceFile.fromCode("foo",
@@ -762,6 +884,114 @@ public class CompilerTest extends TestCase {
     assertFalse(after[0]);  // but not these
   }
 
+  public void testRecompileChangedFiles() {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setIdeMode(true);
+
+    JSModule m1 = new JSModule("m1");
+    m1.add(SourceFile.fromCode("a", "goog.provide('a'); a.x = 1;"));
+    JSModule m2 = new JSModule("m2");
+    m2.add(SourceFile.fromCode("b", "goog.require('a'); var b = a.x;"));
+    m2.addDependency(m1);
+    JSModule m3 = new JSModule("m3");
+    m3.add(SourceFile.fromCode("c", "var c = 3;"));
+    m3.addDependency(m1);
+    compiler.compileModules(ImmutableList.of(SourceFile.fromCode(
+        "externs", "var goog = {}; goog.provide; goog.require; var a;")),
+        ImmutableList.of(m1, m2, m3), options);
+    Node oldB = compiler.getInput(new InputId("b")).getAstRoot(compiler);
+    Node oldC = compiler.getInput(new InputId("c")).getAstRoot(compiler);
+
+    Map<JSModule, String> output = compiler.recompileChangedFiles(
+        ImmutableList.of(
+            SourceFile.fromCode("a", "goog.provide('a'); a.x = 2;")));
+
+    // b requires a, so it is recompiled too; c is left alone.
+    assertEquals(
+        ImmutableList.of(m1, m2), ImmutableList.copyOf(output.keySet()));
+    assertTrue(output.get(m1), output.get(m1).contains("a.x=2"));
+    assertNotSame(
+        oldB, compiler.getInput(new InputId("b")).getAstRoot(compiler));
+    assertSame(oldC, compiler.getInput(new InputId("c")).getAstRoot(compiler));
+  }
+
+  public void testRecompileChangedFilesWithoutModules() {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setIdeMode(true);
+    compiler.compile(EMPTY_EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("a", "var a = 1;"),
+        SourceFile.fromCode("b", "var b = 2;")), options);
+
+    Map<JSModule, String> output = compiler.recompileChangedFiles(
+        ImmutableList.of(SourceFile.fromCode("a", "var a = 3;"),
+            SourceFile.fromCode("new", "var n = 4;")));
+
+    assertEquals(1, output.size());
+    assertEquals("var a=3;var b=2;var n=4;",
+        Iterables.getOnlyElement(output.values()));
+  }
+
+  public void testRecompileChangedFilesAddsNewFileToModule() {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setIdeMode(true);
+
+    JSModule m1 = new JSModule("m1");
+    m1.add(SourceFile.fromCode("a", "goog.provide('a'); a.x = 1;"));
+    JSModule m2 = new JSModule("m2");
+    m2.add(SourceFile.fromCode("b", "goog.provide('b'); b.y = 2;"));
+    m2.addDependency(m1);
+    // Only m4 can see the namespace n of the file added below. m3 requires
+    // it too, but does not depend on m2.
+    JSModule m3 = new JSModule("m3");
+    m3.add(SourceFile.fromCode("c", "goog.require('n'); var c = 3;"));
+    m3.addDependency(m1);
+    JSModule m4 = new JSModule("m4");
+    m4.add(SourceFile.fromCode("d", "goog.require('n'); var d = 4;"));
+    m4.addDependency(m2);
+    compiler.compileModules(ImmutableList.of(SourceFile.fromCode(
+        "externs", "var goog = {}; goog.provide; goog.require; var a, b, n;")),
+        ImmutableList.of(m1, m2, m3, m4), options);
+    Node oldC = compiler.getInput(new InputId("c")).getAstRoot(compiler);
+    Node oldD = compiler.getInput(new InputId("d")).getAstRoot(compiler);
+
+    Map<JSModule, String> output = compiler.recompileChangedFiles(
+        ImmutableList.of(SourceFile.fromCode("new", "goog.provide('n');"
+            + " goog.require('a'); goog.require('b'); n.z = b.y;")));
+
+    // The new file needs b, so it goes to b's module, after b.
+    assertSame(m2, compiler.getInput(new InputId("new")).getModule());
+    assertEquals(
+        ImmutableList.of(m2, m4), ImmutableList.copyOf(output.keySet()));
+    assertTrue(output.get(m2), output.get(m2).endsWith("n.z=b.y;"));
+    assertSame(oldC, compiler.getInput(new InputId("c")).getAstRoot(compiler));
+    assertNotSame(
+        oldD, compiler.getInput(new InputId("d")).getAstRoot(compiler));
+  }
+
+  public void testReplaceExternScript() {
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setIdeMode(true);
+    compiler.compile(
+        ImmutableList.of(SourceFile.fromCode("externs", "var e;")),
+        ImmutableList.of(SourceFile.fromCode("a", "var a = e;")), options);
+
+    JsAst ast = new JsAst(SourceFile.fromCode("externs", "var e, f;"));
+    compiler.replaceScript(ast);
+
+    CompilerInput input = compiler.getInput(new InputId("externs"));
+    assertTrue(input.isExtern());
+    assertSame(ast.getAstRoot(compiler), input.getAstRoot(compiler));
+    assertSame(compiler.externsRoot,
+        input.getAstRoot(compiler).getParent());
+    // Replacing it again finds the new input.
+    compiler.replaceScript(
+        new JsAst(SourceFile.fromCode("externs", "var e, f, g;")));
+  }
+
   public void testAdditionalReplacementsForClosure() {
     CompilerOptions options = createNewFlagBasedOptions();
     options.setLocale("it_IT");
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link ComposeWarningsGuard}.
+ *
+ */
+public class ComposeWarningsGuardTest extends TestCase {
+  private static final DiagnosticType FOO_TYPE =
+      DiagnosticType.warning("TEST_FOO", "Foo");
+  private static final DiagnosticType BAR_TYPE =
+      DiagnosticType.warning("TEST_BAR", "Bar");
+
+  public void testLevelByPathAndGroup() {
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(
+        ByPathWarningsGuard.forPath(
+            ImmutableList.of("third_party/"), CheckLevel.OFF),
+        new DiagnosticGroupWarningsGuard(
+            DiagnosticGroup.forType(FOO_TYPE), CheckLevel.ERROR));
+
+    // Looked up twice, to check the remembered levels as well.
+    for (int i = 0; i < 2; i++) {
+      assertEquals(CheckLevel.OFF,
+          guard.level(JSError.make("third_party/a.js", 1, 1, FOO_TYPE)));
+      assertEquals(CheckLevel.ERROR,
+          guard.level(JSError.make("a.js", 1, 1, FOO_TYPE)));
+      assertNull(guard.level(JSError.make("a.js", 1, 1, BAR_TYPE)));
+    }
+  }
+
+  public void testGuardsThatLookAtEachError() {
+    // Turns off the errors on the first line only.
+    WarningsGuard firstLine = new WarningsGuard() {
+      @Override
+      public CheckLevel level(JSError error) {
+        return error.lineNumber == 1 ? CheckLevel.OFF : null;
+      }
+
+      @Override
+      protected int getPriority() {
+        return Priority.SUPPRESS_DOC.value;
+      }
+    };
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(
+        firstLine,
+        new DiagnosticGroupWarningsGuard(
+            DiagnosticGroup.forType(FOO_TYPE), CheckLevel.ERROR));
+
+    assertEquals(CheckLevel.OFF,
+        guard.level(JSError.make("a.js", 1, 1, FOO_TYPE)));
+    assertEquals(CheckLevel.ERROR,
+        guard.level(JSError.make("a.js", 2, 1, FOO_TYPE)));
+    assertEquals(CheckLevel.OFF,
+        guard.level(JSError.make("a.js", 1, 1, FOO_TYPE)));
+  }
+
+  public void testAddedGuardIsApplied() {
+    ComposeWarningsGuard guard = new ComposeWarningsGuard();
+    JSError error = JSError.make("a.js", 1, 1, FOO_TYPE);
+    assertNull(guard.level(error));
+
+    guard.addGuard(new DiagnosticGroupWarningsGuard(
+        DiagnosticGroup.forType(FOO_TYPE), CheckLevel.ERROR));
+    assertEquals(CheckLevel.ERROR, guard.level(error));
+    assertEquals(CheckLevel.WARNING,
+        guard.makeEmergencyFailSafeGuard().level(error));
+  }
+}
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.BitSetLattice;
 import com.google.javascript.jscomp.DataFlowAnalysis.BranchedFlowState;
 import com.google.javascript.jscomp.DataFlowAnalysis.BranchedForwardDataFlowAnalysis;
 import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
@@ -776,6 +777,33 @@ public class DataFlowAnalysisTest extends TestCase {
     }
   }
 
+  public void testNodesVisitedInReversePostorder() {
+    // x0 = 0; x1 = x0; ... x99 = x98;
+    // The nodes are created last to first, but are still visited once each.
+    int count = 100;
+    Variable[] vars = new Variable[count];
+    Instruction[] insts = new Instruction[count];
+    for (int i = 0; i < count; i++) {
+      vars[i] = new Variable("x" + i);
+      insts[i] = i == 0
+          ? newAssignNumberToVariableInstruction(vars[i], 0)
+          : newAssignVariableToVariableInstruction(vars[i], vars[i - 1]);
+    }
+    ControlFlowGraph<Instruction> cfg =
+      new ControlFlowGraph<>(insts[0], true, true);
+    for (int i = count - 1; i >= 0; i--) {
+      cfg.createNode(insts[i]);
+    }
+    for (int i = 1; i < count; i++) {
+      cfg.connect(insts[i - 1], ControlFlowGraph.Branch.UNCOND, insts[i]);
+    }
+
+    DummyConstPropagation constProp = new DummyConstPropagation(cfg);
+    constProp.analyze();
+    assertEquals(count, constProp.getStepCount());
+    verifyOutHas(cfg.getNode(insts[count - 1]), vars[count - 1], 0);
+  }
+
   static void verifyInHas(GraphNode<Instruction, Branch> node, Variable var,
       Integer constant) {
     FlowState<ConstPropLatticeElement> fState = node.getAnnotation();
@@ -793,4 +821,43 @@ public class DataFlowAnalysisTest extends TestCase {
     BranchedFlowState<ConstPropLatticeElement> fState = node.getAnnotation();
     assertEquals(constant, fState.getIn().constMap.get(var));
   }
+
+  public void testBitSetLattice() {
+    BitSetLattice a = new BitSetLattice(10);
+    a.set(1);
+    a.set(70);
+    a.set(200);
+    assertTrue(a.get(1));
+    assertTrue(a.get(200));
+    assertFalse(a.get(2));
+    assertFalse(a.get(1000));
+    assertEquals(3, a.cardinality());
+    assertEquals("{1, 70, 200}", a.toString());
+    assertEquals(70, a.nextSetBit(2));
+    assertEquals(-1, a.nextSetBit(201));
+
+    BitSetLattice b = new BitSetLattice();
+    b.set(1);
+    b.set(2);
+    BitSetLattice union = new BitSetLattice(a);
+    union.or(b);
+    assertEquals("{1, 2, 70, 200}", union.toString());
+    BitSetLattice intersection = new BitSetLattice(a);
+    intersection.and(b);
+    assertEquals("{1}", intersection.toString());
+    BitSetLattice difference = new BitSetLattice(a);
+    difference.andNot(b);
+    assertEquals("{70, 200}", difference.toString());
+    assertEquals("{1, 70, 200}", a.toString());
+
+    // Trailing zero words do not matter.
+    difference.clear(200);
+    BitSetLattice c = new BitSetLattice();
+    c.set(70);
+    assertEquals(c, difference);
+    assertEquals(c.hashCode(), difference.hashCode());
+    c.clear();
+    assertTrue(c.isEmpty());
+    assertEquals(new BitSetLattice(), c);
+  }
 }
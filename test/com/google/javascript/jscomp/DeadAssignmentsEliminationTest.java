@@ -120,7 +120,7 @@ public class DeadAssignmentsEliminationTest extends CompilerTestCase {
     // We want this to be "var x" in these cases.
     inFunction("var x = 2;");
     inFunction("var x = 2; x++;", "var x=2; void 0");
-    inFunction("var x; x=x++;", "var x;x++");
+    inFunction("var x; x=x++;", "var x;void 0");
     inFunction("var x; x+=1;", "var x;x+1");
   }
 
@@ -301,8 +301,8 @@ public class DeadAssignmentsEliminationTest extends CompilerTestCase {
     inFunction("var a; a = (a *= 2)", "var a; a*2");
 
     // Note a = (a++) is not same as a++. Only if 'a' is dead.
-    inFunction("var a; a = (a++)", "var a; a++"); // Preferred: "var a"
-    inFunction("var a; a = (++a)", "var a; ++a"); // Preferred: "var a"
+    inFunction("var a; a = (a++)", "var a; void 0"); // Preferred: "var a"
+    inFunction("var a; a = (++a)", "var a; void 0"); // Preferred: "var a"
 
     inFunction("var a; a = (b = (a = 1))", "var a; b = 1");
     inFunction("var a; a = (b = (a *= 2))", "var a; b = a * 2");
@@ -313,9 +313,9 @@ public class DeadAssignmentsEliminationTest extends CompilerTestCase {
     inFunction("var a,b; a = (b = (a = 1))", "var a,b; 1");
     inFunction("var a,b; a = (b = (a *= 2))", "var a,b; a * 2");
     inFunction("var a,b; a = (b = (a++))",
-               "var a,b; a++"); // Preferred: "var a,b"
+               "var a,b; void 0"); // Preferred: "var a,b"
     inFunction("var a,b; a = (b = (++a))",
-               "var a,b; ++a"); // Preferred: "var a,b"
+               "var a,b; void 0"); // Preferred: "var a,b"
 
     inFunction("var a; a += (a++)", "var a; a + a++");
     inFunction("var a; a += (++a)", "var a; a+ (++a)");
@@ -240,6 +240,28 @@ public class LinkedFlowScopeTest extends CompilerTypeTestCase {
     assertScopesDiffer(chainB, joined);
   }
 
+  public void testJoinSharesUnchangedSlots() {
+    FlowScope common = localEntry.createChildFlowScope();
+    for (int i = 0; i < LONG_CHAIN_LENGTH; i++) {
+      localScope.declare("local" + i, null, null, null);
+      common.inferSlotType("local" + i, NUMBER_TYPE);
+    }
+
+    FlowScope childA = common.createChildFlowScope();
+    childA.inferSlotType("localA", STRING_TYPE);
+    FlowScope childB = common.createChildFlowScope();
+    childB.inferSlotType("localA", BOOLEAN_TYPE);
+
+    FlowScope joined = join(childA, childB);
+    assertTypeEquals(createUnionType(STRING_TYPE, BOOLEAN_TYPE),
+        joined.getSlot("localA").getType());
+    for (int i = 0; i < LONG_CHAIN_LENGTH; i++) {
+      assertSame(common.getSlot("local" + i),
+          joined.getSlot("local" + i));
+    }
+    assertScopesSame(childA, childA.createChildFlowScope());
+  }
+
   public void testFindUniqueSlot() {
     FlowScope childA = localEntry.createChildFlowScope();
     childA.inferSlotType("localB", NUMBER_TYPE);
@@ -119,6 +119,41 @@ public class MaybeReachingVariableUseTest extends TestCase {
         "U: var z = x;");
   }
 
+  public void testDeeplyNestedLoopsInStateMachine() {
+    // The shape of a generator body rewritten by Es6RewriteGenerators, with
+    // 60 loops nested in each case. When the work list followed the order of
+    // the source, which puts the update of each loop before its body, this
+    // took more than MAX_STEPS. In reverse postorder, it takes 243345 steps.
+    int cases = 14;
+    int depth = 60;
+    StringBuilder src = new StringBuilder(
+        "D: var x = param1; var state = param2; var a0 = 0;");
+    for (int i = 1; i <= cases; i++) {
+      src.append("var a" + i + ";");
+    }
+    src.append("while (1) switch (state) {");
+    for (int i = 1; i <= cases; i++) {
+      src.append("case " + i + ":");
+      src.append("  a" + i + " = a" + (i - 1) + " + param2;");
+      for (int d = 0; d < depth; d++) {
+        src.append("for (var j" + d + " = 0; j" + d + " < a" + i + ";"
+            + " j" + d + "++) {");
+        src.append("  if (param2) continue;");
+        src.append("  a" + (i - 1) + " = j" + d + ";");
+      }
+      for (int d = 0; d < depth; d++) {
+        src.append("}");
+      }
+      src.append("  state = " + (i + 1) + "; break;");
+    }
+    src.append("default: U: return a" + cases + " + x;");
+    src.append("}");
+
+    assertMatch(src.toString());
+    assertTrue(useDef.getStepCount() + " steps",
+        useDef.getStepCount() < DataFlowAnalysis.MAX_STEPS * 2 / 3);
+  }
+
   /**
    * The def of x at D: may be used by the read of x at U:.
    */
@@ -39,6 +39,7 @@ public class MultiPassTest extends CompilerTestCase {
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
     PhaseOptimizer phaseopt = new PhaseOptimizer(compiler, null, null);
+    phaseopt.setThreadCount(getThreadCount());
     phaseopt.consume(passes);
     phaseopt.setSanityCheck(
         new PassFactory("sanityCheck", false) {
@@ -51,6 +52,11 @@ public class MultiPassTest extends CompilerTestCase {
     return phaseopt;
   }
 
+  /** Returns the number of threads used to run function-local passes. */
+  int getThreadCount() {
+    return 1;
+  }
+
   public void testInlineVarsAndPeephole() {
     passes = Lists.newLinkedList();
     addInlineVariables();
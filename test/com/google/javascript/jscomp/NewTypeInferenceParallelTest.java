@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+
+/**
+ * Runs the {@link NewTypeInference} tests with functions analyzed in
+ * parallel, which must give the same warnings as a sequential run.
+ *
+ */
+public final class NewTypeInferenceParallelTest extends NewTypeInferenceTest {
+
+  @Override
+  int getThreadCount() {
+    return 4;
+  }
+
+  public void testManyFunctionsGiveSameWarningsInSameOrder() {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      js.append("/** @param {number} x @return {string} */\n")
+          .append("function f" + i + "(x) {\n")
+          .append("  function g(y) { return y + x; }\n")
+          .append("  var s = g('a');\n")
+          .append("  if (x > " + i + ") { return x; }\n")
+          .append("  return s;\n")
+          .append("}\n")
+          .append("var v" + i + " = f" + i + "('str');\n");
+    }
+
+    JSError[] expected = check(js.toString(), 1);
+    assertTrue(expected.length > 0);
+    for (int run = 0; run < 5; run++) {
+      assertEquals(Arrays.asList(expected),
+          Arrays.asList(check(js.toString(), getThreadCount())));
+    }
+  }
+
+  private static JSError[] check(String js, int threadCount) {
+    CompilerOptions options = new CompilerOptions();
+    options.setNewTypeInference(true);
+    options.setNewTypeInferenceThreads(threadCount);
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.of(SourceFile.fromCode("externs.js", DEFAULT_EXTERNS)),
+        ImmutableList.of(SourceFile.fromCode("in.js", js)),
+        options);
+    compiler.parse();
+    compiler.check();
+    assertEquals(0, compiler.getErrorCount());
+    return compiler.getWarnings();
+  }
+}
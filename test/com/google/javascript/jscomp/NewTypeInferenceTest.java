@@ -80,11 +80,17 @@ public class NewTypeInferenceTest extends CompilerTypeTestCase {
     GlobalTypeInfo symbolTable = new GlobalTypeInfo(compiler);
     symbolTable.process(externsRoot, astRoot);
     compiler.setSymbolTable(symbolTable);
-    NewTypeInference typeInf = new NewTypeInference(compiler, true);
+    NewTypeInference typeInf =
+        new NewTypeInference(compiler, true, getThreadCount());
     typeInf.process(externsRoot, astRoot);
     return typeInf;
   }
 
+  /** Returns the number of threads used to analyze functions. */
+  int getThreadCount() {
+    return 1;
+  }
+
   private void checkNoWarnings(String js) {
     checkNoWarnings(DEFAULT_EXTERNS, js);
   }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.rhino.Node;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ParseCache}.
+ *
+ */
+public final class ParseCacheTest extends TestCase {
+
+  private static final List<SourceFile> EXTERNS = ImmutableList.of(
+      SourceFile.fromCode("externs.js", "function alert(x) {}"));
+
+  private File cacheDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    cacheDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteRecursively(cacheDir);
+    super.tearDown();
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  public void testWarmCacheGivesSameOutput() {
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @const */ var a = 1; alert(a);"),
+        SourceFile.fromCode("b.js", "function f(x) { return x + 1; }"));
+
+    Compiler cold = compile(inputs, 1 << 20);
+    assertEquals(0, cold.getParseCache().getHitCount());
+    assertEquals(3, cold.getParseCache().getMissCount());
+
+    Compiler warm = compile(inputs, 1 << 20);
+    assertEquals(3, warm.getParseCache().getHitCount());
+    assertEquals(0, warm.getParseCache().getMissCount());
+    assertEquals(cold.toSource(), warm.toSource());
+  }
+
+  public void testCachedTreeBelongsToNewSourceFile() {
+    List<SourceFile> inputs =
+        ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;"));
+    compile(inputs, 1 << 20);
+
+    SourceFile file = SourceFile.fromCode("a.js", "var a = 1;");
+    Compiler compiler = compile(ImmutableList.of(file), 1 << 20);
+    assertEquals(2, compiler.getParseCache().getHitCount());
+    Node script = compiler.getRoot().getLastChild().getFirstChild();
+    assertSame(file, script.getStaticSourceFile());
+    assertSame(file, script.getFirstChild().getStaticSourceFile());
+  }
+
+  public void testChangedFileMisses() {
+    compile(ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")),
+        1 << 20);
+    Compiler compiler = compile(
+        ImmutableList.of(SourceFile.fromCode("a.js", "var a = 2;")),
+        1 << 20);
+    assertEquals(1, compiler.getParseCache().getHitCount());
+    assertEquals(1, compiler.getParseCache().getMissCount());
+  }
+
+  public void testFilesWithParseErrorsAreNotCached() {
+    List<SourceFile> inputs =
+        ImmutableList.of(SourceFile.fromCode("a.js", "var a = ;"));
+    compile(inputs, 1 << 20);
+    Compiler compiler = compile(inputs, 1 << 20);
+    assertEquals(1, compiler.getErrorCount());
+    assertEquals(1, compiler.getParseCache().getMissCount());
+  }
+
+  public void testEviction() {
+    compile(ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")), 1);
+    Compiler compiler = compile(
+        ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;")), 1);
+    assertEquals(0, compiler.getParseCache().getHitCount());
+    assertTrue(compiler.getParseCache().getEvictionCount() > 0);
+    assertEquals(0, compiler.getParseCache().getSize());
+  }
+
+  public void testCorruptEntryIsDropped() throws Exception {
+    List<SourceFile> inputs =
+        ImmutableList.of(SourceFile.fromCode("a.js", "var a = 1;"));
+    compile(inputs, 1 << 20);
+    for (File file : cacheDir.listFiles()) {
+      Files.write(new byte[] {1, 2, 3}, file);
+    }
+
+    Compiler compiler = compile(inputs, 1 << 20);
+    assertEquals(0, compiler.getErrorCount());
+    assertEquals(0, compiler.getParseCache().getHitCount());
+    assertEquals("var a=1;", compiler.toSource());
+  }
+
+  public void testInMemoryCache() {
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @const */ var a = 1; alert(a);"));
+    ParseCache parseCache = ParseCache.createInMemory(1 << 20);
+
+    Compiler cold = new Compiler();
+    cold.setParseCache(parseCache);
+    cold.compile(EXTERNS, inputs, new CompilerOptions());
+    assertEquals(0, parseCache.getHitCount());
+    assertEquals(2, parseCache.getMissCount());
+    assertTrue(parseCache.getSize() > 0);
+
+    Compiler warm = new Compiler();
+    warm.setParseCache(parseCache);
+    warm.compile(EXTERNS, inputs, new CompilerOptions());
+    assertEquals(2, parseCache.getHitCount());
+    assertEquals(cold.toSource(), warm.toSource());
+    assertEquals(0, cacheDir.listFiles().length);
+  }
+
+  public void testDeepTreeRoundTrips() {
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      code.append("var a").append(i).append(" = ").append(i).append(";");
+    }
+    List<SourceFile> inputs =
+        ImmutableList.of(SourceFile.fromCode("a.js", code.toString()));
+    Compiler cold = compile(inputs, 1 << 30);
+    Compiler warm = compile(inputs, 1 << 30);
+    assertEquals(2, warm.getParseCache().getHitCount());
+    assertEquals(cold.toSource(), warm.toSource());
+  }
+
+  public void testEntryWrittenInBackground() throws Exception {
+    SourceFile file = SourceFile.fromCode("a.js", "var a = 1;");
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    Node root = new JsAst(file).getAstRoot(compiler);
+    String key = "0123abcd";
+
+    ParseCache parseCache = new ParseCache(cacheDir, 1 << 20);
+    parseCache.put(key, file, root);
+    parseCache.awaitWrites();
+    assertTrue(parseCache.getSize() > 0);
+    assertTrue(new File(cacheDir, key + ".ast").isFile());
+    assertEquals(1, cacheDir.listFiles().length);
+
+    Node cached = new ParseCache(cacheDir, 1 << 20).get(key, file);
+    assertNotNull(cached);
+    assertTrue(root.isEquivalentTo(cached));
+  }
+
+  public void testStaleTempFilesAreDeleted() throws Exception {
+    File stale = new File(cacheDir, "a.tmp");
+    Files.write(new byte[] {1}, stale);
+    stale.setLastModified(System.currentTimeMillis() - 2 * 60 * 60 * 1000);
+    // May still be written to by another process.
+    File fresh = new File(cacheDir, "b.tmp");
+    Files.write(new byte[] {1}, fresh);
+
+    ParseCache parseCache = new ParseCache(cacheDir, 1 << 20);
+    assertFalse(stale.exists());
+    assertTrue(fresh.exists());
+    assertEquals(0, parseCache.getSize());
+  }
+
+  public void testBuildHashFollowsClassFiles() throws Exception {
+    File classes = new File(cacheDir, "classes");
+    File parsing = new File(classes, "parsing");
+    parsing.mkdirs();
+    File parser = new File(parsing, "Parser.class");
+    Files.write(new byte[] {1, 2}, parser);
+    Files.write(new byte[] {3}, new File(classes, "Config.properties"));
+
+    String hash = ParseCache.hashBuild(classes);
+    assertEquals(hash, ParseCache.hashBuild(classes));
+    Files.write(new byte[] {1, 3}, parser);
+    assertFalse(hash.equals(ParseCache.hashBuild(classes)));
+
+    File jar = new File(cacheDir, "compiler.jar");
+    Files.write(new byte[] {1, 2}, jar);
+    String jarHash = ParseCache.hashBuild(jar);
+    Files.write(new byte[] {1, 3}, jar);
+    assertFalse(jarHash.equals(ParseCache.hashBuild(jar)));
+  }
+
+  private Compiler compile(List<SourceFile> inputs, long maxBytes) {
+    CompilerOptions options = new CompilerOptions();
+    options.setParseCacheDirectory(cacheDir);
+    options.setParseCacheMaxBytes(maxBytes);
+    Compiler compiler = new Compiler();
+    compiler.compile(EXTERNS, inputs, options);
+    return compiler;
+  }
+}
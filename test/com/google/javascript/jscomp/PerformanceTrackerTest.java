@@ -100,6 +100,77 @@ public class PerformanceTrackerTest extends TestCase {
     assertEquals(st.changes, 0);
   }
 
+  public void testDataFlowSteps() {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyScript, TracerMode.TIMING_ONLY);
+    Node script = new Compiler().parseTestCode(
+        "function f() {} var g = function() {};");
+    Node f = script.getFirstChild();
+    Node g = script.getLastChild().getFirstChild().getFirstChild();
+    // Ignored, since no pass is running.
+    tracker.recordDataFlowSteps(f, 2, 100);
+
+    tracker.recordPassStart("liveness", false);
+    tracker.recordDataFlowSteps(f, 2, 3);
+    tracker.recordDataFlowSteps(g, 4, 7);
+    tracker.recordPassStop("liveness", 5);
+
+    tracker.recordPassStart("liveness", false);
+    tracker.recordDataFlowSteps(script, 3, 5);
+    tracker.recordControlFlowGraphReuse();
+    tracker.recordPassStop("liveness", 5);
+
+    Stats st = tracker.getStats().get("liveness");
+    assertEquals(3, st.dataFlowAnalyses);
+    assertEquals(15, st.dataFlowSteps);
+    assertEquals(7, st.maxDataFlowSteps);
+    assertEquals(4, st.maxDataFlowNodes);
+    assertEquals("g@[testcode]:1", st.maxDataFlowScope);
+    assertEquals(1, st.controlFlowGraphReuses);
+  }
+
+  public void testDataFlowStepsReport() throws Exception {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyScript, TracerMode.TIMING_ONLY);
+    Node script = new Compiler().parseTestCode("x = function() {};");
+    Node fn = script.getFirstChild().getFirstChild().getLastChild();
+    tracker.recordPassStart("liveness", false);
+    tracker.recordDataFlowSteps(script, 3, 4);
+    // A function detached on a worker thread has no name.
+    fn.detachFromParent();
+    tracker.recordDataFlowSteps(fn, 2, 6);
+    tracker.recordPassStop("liveness", 5);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream outstream = new PrintStream(output);
+    tracker.outputTracerReport(outstream);
+    outstream.close();
+    assertTrue(output.toString("UTF-8").contains("Data flow:\n"
+        + "pass,analyses,steps,maxSteps,cfgReuses,maxStepsCfgNodes,"
+        + "maxStepsScope\nliveness,2,10,6,0,2,<anonymous>@[testcode]:1\n"));
+  }
+
+  public void testConformanceRuleStats() throws Exception {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyScript, TracerMode.TIMING_ONLY);
+    tracker.recordConformanceRuleStats("banEval", 10, 4);
+    tracker.recordConformanceRuleStats("banWith", 3, 1);
+    tracker.recordConformanceRuleStats("banEval", 5, 2);
+
+    PerformanceTracker.RuleStats st =
+        tracker.getConformanceRuleStats().get("banEval");
+    assertEquals(15, st.nodes);
+    assertEquals(6, st.runtime);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream outstream = new PrintStream(output);
+    tracker.outputTracerReport(outstream);
+    outstream.close();
+    assertTrue(output.toString("UTF-8").contains(
+        "Conformance rules:\nrule,runtimeMicros,nodes\n"
+        + "banEval,6,15\nbanWith,1,3\n"));
+  }
+
   public void testOutputFormat() {
     PerformanceTracker tracker =
         new PerformanceTracker(emptyScript, TracerMode.ALL);
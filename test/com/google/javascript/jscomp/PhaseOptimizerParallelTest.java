@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Tests that running the function-local optimization passes on several
+ * threads gives the same output as running them on the compiler thread.
+ *
+ */
+public final class PhaseOptimizerParallelTest extends TestCase {
+
+  private static final List<SourceFile> EXTERNS = ImmutableList.of(
+      SourceFile.fromCode("externs.js",
+          "function alert(x) {} var window; function use(x) {}"));
+
+  public void testSimpleOptimizationsGiveSameOutput() {
+    assertSameOutput(CompilationLevel.SIMPLE_OPTIMIZATIONS, createInputs(20));
+  }
+
+  public void testAdvancedOptimizationsGiveSameOutput() {
+    assertSameOutput(CompilationLevel.ADVANCED_OPTIMIZATIONS,
+        createInputs(20));
+  }
+
+  public void testFunctionExpressions() {
+    assertSameOutput(CompilationLevel.SIMPLE_OPTIMIZATIONS, ImmutableList.of(
+        SourceFile.fromCode("a.js", ""
+            + "var f = function g(x) { var y = x; if (1 + 1) return g(y); };"
+            + "var o = {m: function(a) { var b = a + 1; b = 2; return b; }};"
+            + "use(function() { var c = 1; var d = c; return d; });"
+            + "(function() { var e = 2; use(e * 3); })();"
+            + "if (false) { use(function() { return 1 + 2; }); }")));
+  }
+
+  public void testWarningsAreReportedInOrder() {
+    List<SourceFile> inputs = createInputs(20);
+    Compiler serial = compile(CompilationLevel.SIMPLE_OPTIMIZATIONS, inputs, 1);
+    Compiler parallel =
+        compile(CompilationLevel.SIMPLE_OPTIMIZATIONS, inputs, 4);
+    assertTrue(serial.getWarnings().length > 0);
+    assertEquals(
+        ImmutableList.copyOf(serial.getWarnings()),
+        ImmutableList.copyOf(parallel.getWarnings()));
+  }
+
+  private static void assertSameOutput(
+      CompilationLevel level, List<SourceFile> inputs) {
+    Compiler serial = compile(level, inputs, 1);
+    assertEquals(0, serial.getErrorCount());
+    for (int run = 0; run < 3; run++) {
+      Compiler parallel = compile(level, inputs, 4);
+      assertEquals(0, parallel.getErrorCount());
+      assertEquals(serial.toSource(), parallel.toSource());
+    }
+  }
+
+  private static Compiler compile(
+      CompilationLevel level, List<SourceFile> inputs, int threadCount) {
+    CompilerOptions options = new CompilerOptions();
+    level.setOptionsForCompilationLevel(options);
+    options.setOptimizationThreads(threadCount);
+    Compiler compiler = newCompiler();
+    compiler.compile(EXTERNS, inputs, options);
+    return compiler;
+  }
+
+  private static Compiler newCompiler() {
+    return new Compiler(new BasicErrorManager() {
+      @Override
+      public void println(CheckLevel level, JSError error) {}
+
+      @Override
+      protected void printSummary() {}
+    });
+  }
+
+  private static List<SourceFile> createInputs(int fileCount) {
+    ImmutableList.Builder<SourceFile> inputs = ImmutableList.builder();
+    for (int i = 0; i < fileCount; i++) {
+      StringBuilder code = new StringBuilder();
+      for (int j = 0; j < 10; j++) {
+        String name = "f" + i + "_" + j;
+        code.append("function ").append(name).append("(a, b) {")
+            .append("  var x = a + 1, y = 2 * 3, z;")
+            .append("  x = b;")
+            .append("  z = x + y;")
+            .append("  var t = z; use(t);")
+            .append("  if (true) { use(\"a\" + \"b\"); } else { use(0); }")
+            .append("  var w = 1.5 | 0;")
+            .append("  function inner(c) { var d = c; d = d * 1; return d; }")
+            .append("  return inner(z) + w;")
+            .append("}")
+            .append("window['").append(name).append("'] = ").append(name)
+            .append(";");
+      }
+      code.append("var g").append(i).append(" = 1 + 2; use(g").append(i)
+          .append(");");
+      inputs.add(SourceFile.fromCode("in" + i + ".js", code.toString()));
+    }
+    return inputs.build();
+  }
+}
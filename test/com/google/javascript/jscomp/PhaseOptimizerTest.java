@@ -19,8 +19,12 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.Lists;
+import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
+import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.jscomp.PhaseOptimizer.Loop;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 
@@ -112,8 +116,37 @@ public class PhaseOptimizerTest extends TestCase {
             createPassFactory("e", 1, true),
             createPassFactory("f", 0, true)));
     // The pass iterations can be grouped as:
-    // [a] [b c d] [b c d] [c] [b d] [e] [f]
-    assertPasses("a", "b", "c", "d", "b", "c", "d", "c", "b", "d", "e", "f");
+    // [a] [b c d] [b c d] [c] [b] [e] [f]
+    // d is not run in the 5th iteration, because nothing changed since it
+    // last ran.
+    assertPasses("a", "b", "c", "d", "b", "c", "d", "c", "b", "e", "f");
+  }
+
+  public void testConsecutiveTraversalChecksAreFused() {
+    Node root = compiler.parseTestCode("var x = 1;");
+    optimizer.consume(
+        Lists.newArrayList(
+            createPassFactory("a", 0, true),
+            createTraversalCheckFactory("b"),
+            createTraversalCheckFactory("c"),
+            createPassFactory("d", 0, true),
+            createTraversalCheckFactory("e")));
+    optimizer.process(null, root);
+    assertEquals(
+        Lists.newArrayList("a", "b", "c", "b:done", "c:done", "d", "e",
+            "e:done"),
+        passesRun);
+    assertThat(tracker.getStats().keySet()).containsExactly("a", "b+c", "d", "e");
+  }
+
+  public void testUpToDatePassIsNotRunAgain() {
+    Loop loop = optimizer.addFixedPointLoop();
+    addLoopedPass(loop, "x", 1);
+    addLoopedPass(loop, "y", 0);
+    addLoopedPass(loop, "z", 0);
+    // The pass iterations can be grouped as: [x y z] [x]
+    // y and z would run next, but they already ran after x's change.
+    assertPasses("x", "y", "z", "x");
   }
 
   public void testSchedulingOfAnyKindOfPasses3() {
@@ -180,6 +213,95 @@ public class PhaseOptimizerTest extends TestCase {
     assertEquals(100, Math.round(progressList.get(3)));
   }
 
+  public void testControlFlowGraphReusedUntilFunctionChanges() {
+    final Node fn = compiler.parseTestCode(
+        "function f(x) { if (x) { return 1; } return 2; }").getFirstChild();
+    final List<ControlFlowGraph<Node>> cfgs = Lists.newArrayList();
+    compiler.setPhaseOptimizer(optimizer);
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("cfg", new CompilerPass() {
+      @Override public void process(Node externs, Node root) {
+        if (!cfgs.isEmpty()) {
+          return;
+        }
+        cfgs.add(compiler.getControlFlowGraph(fn, false, true));
+        // A graph with edge annotations serves requests without them.
+        cfgs.add(compiler.getControlFlowGraph(fn, false, false));
+        compiler.reportChangeToEnclosingScope(fn.getLastChild());
+        cfgs.add(compiler.getControlFlowGraph(fn, false, true));
+      }
+    }, false));
+    optimizer.process(null, dummyRoot);
+
+    assertSame(cfgs.get(0), cfgs.get(1));
+    assertNotSame(cfgs.get(1), cfgs.get(2));
+    assertEquals(1, optimizer.getControlFlowGraphReuseCount());
+    // Outside loops, graphs are always computed again.
+    assertNotSame(compiler.getControlFlowGraph(fn, false, true),
+        compiler.getControlFlowGraph(fn, false, true));
+  }
+
+  public void testControlFlowGraphNotReusedAfterEditFromAnotherFunction() {
+    final Node root = compiler.parseTestCode(
+        "function g(a) { return a; } function f() { g(1); } f();");
+    final Node g = root.getFirstChild();
+    final Node f = g.getNext();
+    final List<ControlFlowGraph<Node>> cfgs = Lists.newArrayList();
+    compiler.setPhaseOptimizer(optimizer);
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("cfg", new CompilerPass() {
+      @Override public void process(Node externs, Node unused) {
+        if (!cfgs.isEmpty()) {
+          return;
+        }
+        cfgs.add(compiler.getControlFlowGraph(g, false, true));
+        // Moves the constant argument of the call in f into the body of g.
+        compiler.setLifeCycleStage(LifeCycleStage.NORMALIZED);
+        compiler.setScope(f);
+        new OptimizeParameters(compiler).process(new Node(Token.BLOCK), root);
+        cfgs.add(compiler.getControlFlowGraph(g, false, true));
+      }
+    }, false));
+    optimizer.process(null, dummyRoot);
+
+    Node var = g.getLastChild().getFirstChild();
+    assertTrue(var.isVar());
+    assertNotSame(cfgs.get(0), cfgs.get(1));
+    assertNotNull(cfgs.get(1).getNode(var));
+  }
+
+  public void testControlFlowGraphsDroppedOnChangeOutsideScopeTracking() {
+    final Node root = compiler.parseTestCode(
+        "function g(a) { return a; } function f() { g(1); }");
+    final Node g = root.getFirstChild();
+    final Node f = g.getNext();
+    final List<ControlFlowGraph<Node>> cfgs = Lists.newArrayList();
+    compiler.setPhaseOptimizer(optimizer);
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("cfg", new CompilerPass() {
+      @Override public void process(Node externs, Node unused) {
+        if (!cfgs.isEmpty()) {
+          return;
+        }
+        cfgs.add(compiler.getControlFlowGraph(g, false, true));
+        // A change reported in f does not affect the graph of g.
+        compiler.reportChangeToEnclosingScope(f.getLastChild());
+        cfgs.add(compiler.getControlFlowGraph(g, false, true));
+        // Edits g while f is the current scope, without naming g.
+        compiler.setScope(f);
+        g.getLastChild().addChildToFront(
+            IR.exprResult(IR.call(IR.name("h"))));
+        compiler.reportCodeChange();
+        cfgs.add(compiler.getControlFlowGraph(g, false, true));
+      }
+    }, false));
+    optimizer.process(null, dummyRoot);
+
+    assertSame(cfgs.get(0), cfgs.get(1));
+    assertNotSame(cfgs.get(1), cfgs.get(2));
+    assertNotNull(cfgs.get(2).getNode(g.getLastChild().getFirstChild()));
+  }
+
   public void assertPasses(String ... names) {
     optimizer.process(null, dummyRoot);
     assertEquals(Lists.newArrayList(names), passesRun);
@@ -210,6 +332,31 @@ public class PhaseOptimizerTest extends TestCase {
     };
   }
 
+  /**
+   * Creates a check that records its name when it visits the first SCRIPT,
+   * and again once the traversal is done.
+   */
+  private TraversalCheckFactory createTraversalCheckFactory(final String name) {
+    return new TraversalCheckFactory(name, false) {
+      @Override
+      Callback createCallback(AbstractCompiler compiler) {
+        return new AbstractPostOrderCallback() {
+          @Override
+          public void visit(NodeTraversal t, Node n, Node parent) {
+            if (n.isScript()) {
+              passesRun.add(name);
+            }
+          }
+        };
+      }
+
+      @Override
+      void afterTraversal(AbstractCompiler compiler, Callback callback) {
+        passesRun.add(name + ":done");
+      }
+    };
+  }
+
   private CompilerPass createPass(final String name, int numChanges) {
     final int[] numChangesClosure = new int[] {numChanges};
     return new CompilerPass() {
@@ -978,19 +978,20 @@ public class TypeInferenceTest extends TestCase {
   }
 
   public void testFlattening() {
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    int slots = 251;
+    for (int i = 0; i < slots; i++) {
       assuming("s" + i, ALL_TYPE);
     }
     assuming("b", JSTypeNative.BOOLEAN_TYPE);
     StringBuilder body = new StringBuilder();
     body.append("if (b) {");
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < slots; i++) {
       body.append("s");
       body.append(i);
       body.append(" = 1;\n");
     }
     body.append(" } else { ");
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < slots; i++) {
       body.append("s");
       body.append(i);
       body.append(" = 'ONE';\n");
@@ -999,7 +1000,7 @@ public class TypeInferenceTest extends TestCase {
     JSType numberORString = createUnionType(NUMBER_TYPE, STRING_TYPE);
     inFunction(body.toString());
 
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < slots; i++) {
       verify("s" + i, numberORString);
     }
   }
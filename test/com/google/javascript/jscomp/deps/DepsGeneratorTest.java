@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.BasicErrorManager;
+import com.google.javascript.jscomp.CheckLevel;
+import com.google.javascript.jscomp.JSError;
+import com.google.javascript.jscomp.SourceFile;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tests for {@link DepsGenerator}.
+ */
+public class DepsGeneratorTest extends TestCase {
+
+  private File tempDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    File[] files = tempDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    tempDir.delete();
+    super.tearDown();
+  }
+
+  public void testParallelScanMatchesSerialScan() throws Exception {
+    List<SourceFile> srcs = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      srcs.add(SourceFile.fromCode("/base/src" + i + ".js",
+          "goog.provide('ns" + i + "');\n"
+          + (i > 0 ? "goog.require('ns" + (i - 1) + "');\n" : "")));
+    }
+
+    String serial = newDepsGenerator(srcs, new RecordingErrorManager())
+        .computeDependencyCalls();
+    String parallel = newDepsGenerator(srcs, new RecordingErrorManager())
+        .setParseThreads(4)
+        .computeDependencyCalls();
+    assertNotNull(serial);
+    assertThat(parallel).isEqualTo(serial);
+  }
+
+  public void testParallelScanReportsErrorsInSourceOrder() throws Exception {
+    List<SourceFile> srcs = Lists.newArrayList();
+    for (int i = 0; i < 20; i++) {
+      srcs.add(SourceFile.fromCode("/base/src" + i + ".js",
+          "goog.provide(ns" + i + ");\n"));
+    }
+
+    RecordingErrorManager serialErrors = new RecordingErrorManager();
+    assertNull(newDepsGenerator(srcs, serialErrors).computeDependencyCalls());
+    RecordingErrorManager parallelErrors = new RecordingErrorManager();
+    assertNull(newDepsGenerator(srcs, parallelErrors)
+        .setParseThreads(4)
+        .computeDependencyCalls());
+
+    assertThat(serialErrors.reported).hasSize(20);
+    assertThat(parallelErrors.reported).isEqualTo(serialErrors.reported);
+  }
+
+  public void testCacheSkipsUnchangedFiles() throws Exception {
+    File a = writeFile("a.js", "goog.provide('a');\n");
+    File b = writeFile("b.js", "goog.provide('b');\ngoog.require('a');\n");
+    File cacheFile = new File(tempDir, "deps.cache");
+    List<SourceFile> srcs = ImmutableList.of(
+        SourceFile.fromFile(a), SourceFile.fromFile(b));
+
+    DependencyInfoCache cache = new DependencyInfoCache(cacheFile);
+    String cold = newDepsGenerator(srcs, new RecordingErrorManager())
+        .setCache(cache)
+        .computeDependencyCalls();
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+
+    cache = new DependencyInfoCache(cacheFile);
+    String warm = newDepsGenerator(srcs, new RecordingErrorManager())
+        .setCache(cache)
+        .setParseThreads(2)
+        .computeDependencyCalls();
+    assertEquals(2, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+    assertThat(warm).isEqualTo(cold);
+
+    Files.write("goog.provide('b');\ngoog.require('a');\ngoog.require('c');\n"
+        + "goog.provide('c');\n", b, UTF_8);
+    cache = new DependencyInfoCache(cacheFile);
+    String changed = newDepsGenerator(
+        ImmutableList.of(SourceFile.fromFile(a), SourceFile.fromFile(b)),
+        new RecordingErrorManager())
+        .setCache(cache)
+        .computeDependencyCalls();
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertThat(changed).contains("'c'");
+  }
+
+  public void testCacheIsKeyedByShortcutMode() throws Exception {
+    File a = writeFile("a.js",
+        "goog.provide('a');\nvar x = 1;\ngoog.provide('a.b');\n");
+    File cacheFile = new File(tempDir, "deps.cache");
+    List<SourceFile> srcs = ImmutableList.of(SourceFile.fromFile(a));
+
+    String full = newDepsGenerator(srcs, new RecordingErrorManager())
+        .setCache(new DependencyInfoCache(cacheFile))
+        .computeDependencyCalls();
+    assertThat(full).contains("'a.b'");
+
+    DependencyInfoCache cache = new DependencyInfoCache(cacheFile);
+    String header = newDepsGenerator(srcs, new RecordingErrorManager())
+        .setCache(cache)
+        .setShortcutMode(true)
+        .computeDependencyCalls();
+    assertEquals(0, cache.getHitCount());
+    assertThat(header).doesNotContain("'a.b'");
+  }
+
+  private File writeFile(String name, String contents) throws Exception {
+    File file = new File(tempDir, name);
+    Files.write(contents, file, UTF_8);
+    return file;
+  }
+
+  private DepsGenerator newDepsGenerator(
+      List<SourceFile> srcs, RecordingErrorManager errorManager) {
+    return new DepsGenerator(
+        ImmutableList.<SourceFile>of(), srcs,
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        PathUtil.makeAbsolute("/base/"), errorManager);
+  }
+
+  /** Records the descriptions of the reported errors, in report order. */
+  private static class RecordingErrorManager extends BasicErrorManager {
+    final List<String> reported = Lists.newArrayList();
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      super.report(level, error);
+      reported.add(error.sourceName + ": " + error.description);
+    }
+
+    @Override
+    public void println(CheckLevel level, JSError error) {}
+
+    @Override
+    protected void printSummary() {}
+  }
+}
@@ -163,6 +163,22 @@ public class JsFileParserTest extends TestCase {
     assertDeps(expected, result);
   }
 
+  public void testShortcutModeSkipsHeaderStatements() {
+    String contents = "'use strict';\n"
+        + "goog.module('yes1');\n"
+        + "goog.module.declareLegacyNamespace();\n"
+        + "goog.setTestOnly('yes1');\n"
+        + "var yes2 = goog.require('yes2');\n"
+        + "exports = {};\n"
+        + "goog.require('no1');";
+
+    DependencyInfo expected = new SimpleDependencyInfo(CLOSURE_PATH, SRC_PATH,
+        ImmutableList.of("yes1"), ImmutableList.of("yes2"), true);
+    DependencyInfo result = parser.parseFile(SRC_PATH, CLOSURE_PATH, contents);
+
+    assertDeps(expected, result);
+  }
+
   public void testIncludeGoog1() {
     String contents = "/**\n" +
         " * the first constant in base.js\n" +
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Tests for {@link CompactGraph}.
+ *
+ */
+public class CompactGraphTest extends TestCase {
+
+  public void testDirectedGraph() {
+    DiGraph<String, String> graph = LinkedDirectedGraph.create();
+    graph.createNode("a");
+    graph.createNode("b");
+    graph.createNode("c");
+    graph.connect("a", "ab", "b");
+    graph.connect("a", "ac", "c");
+    graph.connect("c", "ca", "a");
+    graph.connect("c", "cc", "c");
+
+    CompactGraph<String, String> compactGraph =
+        CompactGraph.fromDiGraph(graph);
+    assertEquals(3, compactGraph.getNodeCount());
+    assertEquals(4, compactGraph.getFirstEdge(3));
+    assertThat(getEdges(compactGraph, "a")).containsExactly("ab:b", "ac:c")
+        .inOrder();
+    assertThat(getEdges(compactGraph, "b")).isEmpty();
+    assertThat(getEdges(compactGraph, "c")).containsExactly("ca:a", "cc:c")
+        .inOrder();
+  }
+
+  public void testUndirectedGraph() {
+    UndiGraph<String, String> graph = LinkedUndirectedGraph.create();
+    graph.createNode("a");
+    graph.createNode("b");
+    graph.createNode("c");
+    graph.connect("a", "ab", "b");
+    graph.connect("c", "ca", "a");
+
+    CompactGraph<String, String> compactGraph =
+        CompactGraph.fromUndiGraph(graph);
+    assertEquals(3, compactGraph.getNodeCount());
+    assertEquals(4, compactGraph.getFirstEdge(3));
+    assertThat(getEdges(compactGraph, "a")).containsExactly("ab:b", "ca:c")
+        .inOrder();
+    assertThat(getEdges(compactGraph, "b")).containsExactly("ab:a");
+    assertThat(getEdges(compactGraph, "c")).containsExactly("ca:a");
+  }
+
+  public void testNodeIds() {
+    DiGraph<String, String> graph = LinkedDirectedGraph.create();
+    graph.createNode("a");
+    CompactGraph<String, String> compactGraph =
+        CompactGraph.fromDiGraph(graph);
+    graph.createNode("b");
+
+    int id = compactGraph.getId(graph.getNode("a"));
+    assertSame(graph.getNode("a"), compactGraph.getNode(id));
+    assertEquals(-1, compactGraph.getId(graph.getNode("b")));
+  }
+
+  /** Returns the edges leaving a node, as "edge value:target value". */
+  private static List<String> getEdges(
+      CompactGraph<String, String> compactGraph, String value) {
+    int id = -1;
+    for (int i = 0; i < compactGraph.getNodeCount(); i++) {
+      if (compactGraph.getNode(i).getValue().equals(value)) {
+        id = i;
+      }
+    }
+    List<String> edges = Lists.newArrayList();
+    for (int edge = compactGraph.getFirstEdge(id);
+         edge < compactGraph.getFirstEdge(id + 1); edge++) {
+      edges.add(compactGraph.getEdgeValue(edge) + ":"
+          + compactGraph.getNode(compactGraph.getTarget(edge)).getValue());
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link HamtPersistentMap}.
+ *
+ */
+public final class HamtPersistentMapTest extends TestCase {
+  private static final int KEY_COUNT = 300;
+  private static final int OPERATION_COUNT = 5000;
+
+  // Values are compared by identity, so each one is a distinct object.
+  private final String[] values = new String[20];
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new String("v" + i);
+    }
+  }
+
+  public void testRandomOperationsWithDistinctHashes() {
+    Random random = new Random(1);
+    int[] hashes = new int[KEY_COUNT];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = random.nextInt();
+    }
+    checkAgainstHashMap(random, createKeys(hashes));
+  }
+
+  public void testRandomOperationsWithEqualHashes() {
+    // Several keys per hash, so that keys share leaves.
+    int[] hashes = new int[KEY_COUNT];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = i % 7;
+    }
+    checkAgainstHashMap(new Random(2), createKeys(hashes));
+  }
+
+  public void testRandomOperationsWithHashesEqualBelowTopBits() {
+    // The hashes only differ in their top bits, so keys are only told apart
+    // at the deepest level of the trie; some of them share leaves there.
+    int[] hashes = new int[KEY_COUNT];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = ((i % 5) << 30) | 0x2aaaaaa;
+    }
+    checkAgainstHashMap(new Random(3), createKeys(hashes));
+  }
+
+  public void testForEachDifferenceOfDerivedMaps() {
+    Random random = new Random(4);
+    int[] hashes = new int[KEY_COUNT];
+    for (int i = 0; i < hashes.length; i++) {
+      // Mixes distinct hashes with equal ones.
+      hashes[i] = i % 3 == 0 ? i % 11 : random.nextInt();
+    }
+    Key[] keys = createKeys(hashes);
+
+    HamtPersistentMap<Key, String> base = HamtPersistentMap.create();
+    Map<Key, String> expectedBase = new HashMap<>();
+    for (int i = 0; i < OPERATION_COUNT / 10; i++) {
+      Key key = keys[random.nextInt(keys.length)];
+      String value = values[random.nextInt(values.length)];
+      base = base.with(key, value);
+      expectedBase.put(key, value);
+    }
+
+    for (int changes : new int[] {0, 1, 5, 50, 500}) {
+      HamtPersistentMap<Key, String> derived = base;
+      Map<Key, String> expectedDerived = new HashMap<>(expectedBase);
+      for (int i = 0; i < changes; i++) {
+        Key key = keys[random.nextInt(keys.length)];
+        if (random.nextInt(3) == 0) {
+          derived = derived.without(key);
+          expectedDerived.remove(key);
+        } else {
+          String value = values[random.nextInt(values.length)];
+          derived = derived.with(key, value);
+          expectedDerived.put(key, value);
+        }
+      }
+      checkDifferences(base, expectedBase, derived, expectedDerived);
+      checkDifferences(derived, expectedDerived, base, expectedBase);
+    }
+  }
+
+  public void testForEachDifferenceOfMapsBuiltApart() {
+    Random random = new Random(5);
+    int[] hashes = new int[KEY_COUNT];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = i % 2 == 0 ? i % 13 : random.nextInt();
+    }
+    Key[] keys = createKeys(hashes);
+
+    // The same entries, added in different orders, share no subtrees.
+    HamtPersistentMap<Key, String> left = HamtPersistentMap.create();
+    HamtPersistentMap<Key, String> right = HamtPersistentMap.create();
+    Map<Key, String> expected = new HashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      left = left.with(keys[i], values[i % values.length]);
+      right = right.with(keys[keys.length - 1 - i],
+          values[(keys.length - 1 - i) % values.length]);
+      expected.put(keys[i], values[i % values.length]);
+    }
+    checkDifferences(left, expected, right, expected);
+
+    Map<Key, String> expectedRight = new HashMap<>(expected);
+    for (int i = 0; i < keys.length; i += 17) {
+      right = right.without(keys[i]);
+      expectedRight.remove(keys[i]);
+    }
+    // An equal value that is not the same object counts as a difference.
+    right = right.with(keys[1], new String(values[1]));
+    expectedRight.put(keys[1], right.get(keys[1]));
+    checkDifferences(left, expected, right, expectedRight);
+  }
+
+  public void testWithSameValueReturnsSameMap() {
+    Key key = new Key(1, 0);
+    HamtPersistentMap<Key, String> map =
+        HamtPersistentMap.<Key, String>create().with(key, values[0]);
+    assertSame(map, map.with(key, values[0]));
+    assertSame(map, map.without(new Key(2, 0)));
+  }
+
+  /**
+   * Applies random additions and removals to a map and to a HashMap, and
+   * checks that the two agree after each one. Also checks that earlier
+   * versions of the map do not change.
+   */
+  private void checkAgainstHashMap(Random random, Key[] keys) {
+    HamtPersistentMap<Key, String> map = HamtPersistentMap.create();
+    Map<Key, String> expected = new HashMap<>();
+    List<HamtPersistentMap<Key, String>> versions = new ArrayList<>();
+    List<Map<Key, String>> expectedVersions = new ArrayList<>();
+
+    for (int i = 0; i < OPERATION_COUNT; i++) {
+      Key key = keys[random.nextInt(keys.length)];
+      // Favor additions at first, so that the map fills up, then removals,
+      // so that it shrinks back down.
+      boolean add = random.nextInt(OPERATION_COUNT) >= i;
+      if (add) {
+        String value = values[random.nextInt(values.length)];
+        map = map.with(key, value);
+        expected.put(key, value);
+      } else {
+        map = map.without(key);
+        expected.remove(key);
+      }
+      assertEquals(expected.size(), map.size());
+      assertSame(expected.get(key), map.get(key));
+      assertEquals(expected.containsKey(key), map.containsKey(key));
+      if (i % 250 == 0) {
+        assertSameEntries(expected, map);
+        versions.add(map);
+        expectedVersions.add(new HashMap<>(expected));
+      }
+    }
+    assertSameEntries(expected, map);
+    for (int i = 0; i < versions.size(); i++) {
+      assertSameEntries(expectedVersions.get(i), versions.get(i));
+    }
+
+    for (Key key : keys) {
+      map = map.without(key);
+    }
+    assertEquals(0, map.size());
+    assertTrue(map.entrySet().isEmpty());
+  }
+
+  private static void assertSameEntries(
+      Map<Key, String> expected, HamtPersistentMap<Key, String> map) {
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected, map);
+    // The iterator visits each key once.
+    Set<Key> iterated = new HashSet<>();
+    for (Map.Entry<Key, String> entry : map.entrySet()) {
+      assertTrue(iterated.add(entry.getKey()));
+      assertSame(expected.get(entry.getKey()), entry.getValue());
+    }
+    assertEquals(expected.size(), iterated.size());
+  }
+
+  /**
+   * Checks that forEachDifference visits exactly the keys whose values are
+   * not the same object in the two maps, once each, with their values.
+   */
+  private static void checkDifferences(
+      HamtPersistentMap<Key, String> left, Map<Key, String> expectedLeft,
+      HamtPersistentMap<Key, String> right, Map<Key, String> expectedRight) {
+    Set<Key> expectedKeys = new HashSet<>();
+    Set<Key> allKeys = new HashSet<>(expectedLeft.keySet());
+    allKeys.addAll(expectedRight.keySet());
+    for (Key key : allKeys) {
+      if (expectedLeft.get(key) != expectedRight.get(key)) {
+        expectedKeys.add(key);
+      }
+    }
+
+    final Map<Key, String> expectedLeftValues = expectedLeft;
+    final Map<Key, String> expectedRightValues = expectedRight;
+    final Set<Key> visited = new HashSet<>();
+    HamtPersistentMap.forEachDifference(left, right,
+        new HamtPersistentMap.DifferenceVisitor<Key, String>() {
+          @Override
+          public void visit(Key key, String leftValue, String rightValue) {
+            assertTrue("visited twice: " + key, visited.add(key));
+            assertSame(expectedLeftValues.get(key), leftValue);
+            assertSame(expectedRightValues.get(key), rightValue);
+          }
+        });
+    assertEquals(expectedKeys, visited);
+  }
+
+  private static Key[] createKeys(int[] hashes) {
+    Key[] keys = new Key[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      keys[i] = new Key(i, hashes[i]);
+    }
+    return keys;
+  }
+
+  /** A key with a hash code chosen by the test, so that keys can collide. */
+  private static final class Key {
+    final int id;
+    final int hash;
+
+    Key(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "Key(" + id + ", " + hash + ")";
+    }
+  }
+}
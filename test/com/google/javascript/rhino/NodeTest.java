@@ -45,6 +45,11 @@ import com.google.javascript.rhino.testing.TestErrorReporter;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 public class NodeTest extends TestCase {
   public void testMergeExtractNormal() throws Exception {
     testMergeExtract(5, 6);
@@ -384,7 +389,7 @@ public class NodeTest extends TestCase {
     n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
     Node m = new Node(Token.TRUE);
     m.clonePropsFrom(n);
-    assertEquals(m.getPropListHeadForTesting(), n.getPropListHeadForTesting());
+    assertEquals(m.getPropsForTesting(), n.getPropsForTesting());
     assertEquals(5, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
     assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
   }
@@ -399,7 +404,7 @@ public class NodeTest extends TestCase {
     assertEquals(6, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
     assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
     assertFalse(
-        m.getPropListHeadForTesting() == n.getPropListHeadForTesting());
+        m.getPropsForTesting() == n.getPropsForTesting());
 
     m.putIntProp(Node.SIDE_EFFECT_FLAGS, 7);
     assertEquals(6, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
@@ -423,20 +428,140 @@ public class NodeTest extends TestCase {
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProp(Node.IS_CONSTANT_NAME));
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
 
-    assertNotNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertTrue(n.hasProp(Node.IS_CONSTANT_NAME));
     assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProp(Node.IS_CONSTANT_NAME));
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
   }
 
+  public void testBooleanPropWithIntValue() {
+    Node n = getVarRef("a");
+    n.putIntProp(Node.FREE_CALL, 3);
+    assertEquals(3, n.getIntProp(Node.FREE_CALL));
+    assertTrue(n.getBooleanProp(Node.FREE_CALL));
+
+    n.putBooleanProp(Node.FREE_CALL, true);
+    assertEquals(1, n.getIntProp(Node.FREE_CALL));
+    assertNull(n.getPropsForTesting());
+
+    n.removeProp(Node.FREE_CALL);
+    assertFalse(n.hasProp(Node.FREE_CALL));
+  }
+
+  public void testMixedProps() {
+    Node n = getVarRef("a");
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    n.putProp(Node.ORIGINALNAME_PROP, "b");
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+    n.putIntProp(Node.INCRDECR_PROP, Node.POST_FLAG);
+
+    assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertEquals("b", n.getProp(Node.ORIGINALNAME_PROP));
+    assertEquals(5, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    assertEquals(Node.POST_FLAG, n.getIntProp(Node.INCRDECR_PROP));
+    assertEquals(
+        "NAME a [incrdecr: 2] [originalname: b] [side_effect_flags: 5]"
+        + " [is_constant_name: 1]",
+        n.toString(false, true, false));
+
+    n.putProp(Node.ORIGINALNAME_PROP, null);
+    assertNull(n.getProp(Node.ORIGINALNAME_PROP));
+    assertEquals(5, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
+
+    try {
+      n.getProp(Node.SIDE_EFFECT_FLAGS);
+      fail("expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {}
+  }
+
+  public void testSharedBooleanProps() {
+    Node n = getVarRef("A");
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    Node m = new Node(Token.TRUE);
+    m.clonePropsFrom(n);
+    assertTrue(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+
+    m.putBooleanProp(Node.IS_CONSTANT_NAME, false);
+    assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertFalse(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+  }
+
+  public void testPropsSerialization() throws Exception {
+    Node n = getVarRef("a");
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    n.putProp(Node.ORIGINALNAME_PROP, "b");
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 500);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(n);
+    out.close();
+    Node m = (Node) new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+    assertTrue(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertEquals("b", m.getProp(Node.ORIGINALNAME_PROP));
+    assertEquals(500, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    m.putIntProp(Node.INCRDECR_PROP, 1);
+    assertEquals(1, m.getIntProp(Node.INCRDECR_PROP));
+    assertEquals(500, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
+  }
+
+  public void testTreeSerialization() throws Exception {
+    Node script = IR.script(
+        IR.var(IR.name("a"), IR.number(1)),
+        IR.exprResult(IR.assign(IR.name("a"), IR.name("b"))));
+
+    Node m = serializeAndRead(script);
+    assertTrue(script.isEquivalentTo(m));
+    assertNull(m.getParent());
+    assertSame(m, m.getLastChild().getParent());
+    assertSame(m.getLastChild(), m.getFirstChild().getNext());
+  }
+
+  public void testSubtreeSerializationKeepsAncestors() throws Exception {
+    Node assign = IR.assign(IR.name("a"), IR.name("b"));
+    Node script = IR.script(
+        IR.var(IR.name("a"), IR.number(1)), IR.exprResult(assign));
+
+    Node m = serializeAndRead(assign);
+    assertTrue(assign.isEquivalentTo(m));
+    assertTrue(m.getParent().isExprResult());
+    Node root = m.getParent().getParent();
+    assertTrue(script.isEquivalentTo(root));
+    assertNull(root.getParent());
+  }
+
+  public void testLongChildListSerialization() throws Exception {
+    // Enough siblings to overflow the stack if each one were written by a
+    // recursive call.
+    Node block = IR.block();
+    for (int i = 0; i < 100000; i++) {
+      block.addChildToBack(IR.exprResult(IR.name("a" + i)));
+    }
+
+    Node m = serializeAndRead(block);
+    assertEquals(100000, m.getChildCount());
+    assertTrue(block.isEquivalentTo(m));
+  }
+
+  private static Node serializeAndRead(Node n) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(n);
+    out.close();
+    return (Node) new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())).readObject();
+  }
+
   // Verify that annotations on cloned nodes are properly handled.
   public void testCloneAnnontations2() {
     Node n = getVarRef("a");
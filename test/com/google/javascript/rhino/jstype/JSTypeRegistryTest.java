@@ -201,6 +201,40 @@ public class JSTypeRegistryTest extends TestCase {
     assertFalse(functionType.getReturnType().isUnknownType());
   }
 
+  public void testTypeRelationCache() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    JSType number = typeRegistry.getNativeType(JSTypeNative.NUMBER_TYPE);
+    JSType union = typeRegistry.createUnionType(
+        number, typeRegistry.getNativeType(JSTypeNative.STRING_TYPE));
+
+    long hits = typeRegistry.getTypeRelationCacheHitCount();
+    long misses = typeRegistry.getTypeRelationCacheMissCount();
+    assertTrue(number.isSubtype(union));
+    assertTrue(typeRegistry.getTypeRelationCacheMissCount() > misses);
+    assertEquals(hits, typeRegistry.getTypeRelationCacheHitCount());
+
+    assertTrue(number.isSubtype(union));
+    assertEquals(hits + 1, typeRegistry.getTypeRelationCacheHitCount());
+  }
+
+  public void testTypeRelationCacheInvalidatedByNewProperty() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    JSType number = typeRegistry.getNativeType(JSTypeNative.NUMBER_TYPE);
+    ObjectType a = typeRegistry.createAnonymousObjectType(null);
+    RecordTypeBuilder builder = new RecordTypeBuilder(typeRegistry);
+    builder.addProperty("x", number, null);
+    JSType record = builder.build();
+
+    assertFalse(a.isSubtype(record));
+    assertFalse(a.isSubtype(record));
+
+    long invalidations = typeRegistry.getTypeRelationCacheInvalidationCount();
+    a.defineDeclaredProperty("x", number, null);
+    assertTrue(typeRegistry.getTypeRelationCacheInvalidationCount()
+        > invalidations);
+    assertTrue(a.isSubtype(record));
+  }
+
   private void assertTypeEquals(JSType a, JSType b) {
     Asserts.assertTypeEquals(a, b);
   }